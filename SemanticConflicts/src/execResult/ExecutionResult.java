@@ -1,6 +1,7 @@
 package execResult;
 
 import java.util.Set;
+import java.util.TreeSet;
 
 
 public abstract class ExecutionResult {
@@ -86,6 +87,30 @@ public abstract class ExecutionResult {
 		return str;
 	}
 
+	/**
+	 * @return the violations of this result without the details of the SDG, with the line violations in
+	 * a fixed order, so results of different runs can be compared
+	 */
+	public String violationsToString(String sep) {
+		String spacedSep = sep + " ";
+		String str = Util.booleanToStr(config.getSdgCreated());
+		str += spacedSep + Util.booleanToStr(hasSourceAndSink);
+		str += spacedSep + Util.booleanToStr(hasLeftToRightVio);
+		str += spacedSep + Util.booleanToStr(hasRightToLeftVio);
+		str += spacedSep + totalVios;
+		str += spacedSep + instVios;
+		Set<String> sortedLineVios = new TreeSet<String>();
+		if(lineVios != null)
+		{
+			for(LineVio vio : lineVios)
+			{
+				sortedLineVios.add(vio.toString());
+			}
+		}
+		str += spacedSep + sortedLineVios;
+		return str;
+	}
+
 	public static String getHeader(String sep)
 	{
 		String spacedSep = sep + " ";
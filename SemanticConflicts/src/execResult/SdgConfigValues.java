@@ -54,6 +54,16 @@ public class SdgConfigValues {
 			sdgInfoFilePath = sdgsFolderPath + File.separator + prec.toString() + "_" +excep + "_sdgInfo.txt";
 	}
 
+	public PointsToPrecision getPrecision()
+	{
+		return precision;
+	}
+
+	public boolean getIgnoreExceptions()
+	{
+		return ignoreExceptions;
+	}
+
 	public String getReportFilePath()
 	{
 		return reportFilePath;
@@ -7,12 +7,14 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
@@ -21,10 +23,12 @@ import com.ibm.wala.util.NullProgressMonitor;
 import com.ibm.wala.util.graph.GraphIntegrity.UnsoundGraphException;
 
 import edu.kit.joana.api.IFCAnalysis;
+import edu.kit.joana.api.annotations.AnnotationType;
 import edu.kit.joana.api.annotations.IFCAnnotation;
 import edu.kit.joana.api.lattice.BuiltinLattices;
 import edu.kit.joana.api.sdg.SDGAttribute;
 import edu.kit.joana.api.sdg.SDGBuildPreparation;
+import edu.kit.joana.api.sdg.SDGCache;
 import edu.kit.joana.api.sdg.SDGClass;
 import edu.kit.joana.api.sdg.SDGConfig;
 import edu.kit.joana.api.sdg.SDGInstruction;
@@ -33,7 +37,7 @@ import edu.kit.joana.api.sdg.SDGProgram;
 import edu.kit.joana.api.sdg.SDGProgramPart;
 import edu.kit.joana.ifc.sdg.core.SecurityNode;
 import edu.kit.joana.ifc.sdg.core.violations.IViolation;
-import edu.kit.joana.ifc.sdg.graph.SDGSerializer;
+import edu.kit.joana.ifc.sdg.graph.SDGBinarySerializer;
 import edu.kit.joana.ifc.sdg.util.JavaMethodSignature;
 import edu.kit.joana.ifc.sdg.util.JavaType;
 import edu.kit.joana.util.Stubs;
@@ -47,6 +51,7 @@ import execResult.MethodExecutionResult;
 import execResult.SdgConfigValues;
 import gnu.trove.map.TObjectIntMap;
 import util.FileUtils;
+import util.ReportSink;
 import util.ViolationsPrinter;
 
 public class JoanaInvocation {
@@ -56,13 +61,28 @@ public class JoanaInvocation {
 	private String reportFolderPath;
 	private String sdgsFolderPath;
 	private Map<String, Map<SdgConfigValues, ExecutionResult>> execResults;
+	/** summary file the results of each configuration are written to as soon as it is done, see "streamSummary" */
+	private String summaryFilePath;
+	/** content addressed cache of built SDGs, see "sdgCacheDir" */
+	private SDGCache sdgCache;
 	private boolean saveSdgs;
+	/** violations of each method and configuration of a parallel sweep that is verified, see "verifySweep" */
+	private Map<String, String> sweepViolations;
+	/** set while the configurations of a parallel sweep are run again to verify it */
+	private boolean verifyingSweep;
 
 	private static final PointsToPrecision[] precisions = new PointsToPrecision[] {
 		PointsToPrecision.TYPE_BASED, PointsToPrecision.INSTANCE_BASED, PointsToPrecision.OBJECT_SENSITIVE,
 		PointsToPrecision.N1_OBJECT_SENSITIVE, PointsToPrecision.UNLIMITED_OBJECT_SENSITIVE, 
 		PointsToPrecision.N1_CALL_STACK, PointsToPrecision.N2_CALL_STACK, PointsToPrecision.N3_CALL_STACK };
 
+	/** memory estimate of a type based configuration without exceptions in a parallel sweep, see "sweepBaseMemoryMB" */
+	private static final long DEFAULT_SWEEP_BASE_MEMORY = 256L * 1024 * 1024;
+	/** share of the free heap used by the configurations of a parallel sweep */
+	private static final double SWEEP_HEAP_FRACTION = 0.9;
+	/** size limit of the SDG cache, see "sdgCacheMB" */
+	private static final long DEFAULT_SDG_CACHE_SIZE = 4096L * 1024 * 1024;
+
 	public JoanaInvocation(String projectPath, Map<String, ModifiedMethod> modMethods)
 	{	
 		this(projectPath, System.getProperty("user.dir")+File.separator + "reports", System.getProperty("user.dir")+File.separator + "sdgs", modMethods);
@@ -119,6 +139,22 @@ public class JoanaInvocation {
 		}
 	}
 
+	private void printSourcesAndSinks(Collection<IFCAnnotation> annotations, String reportFilePath) throws IOException {
+		Collection<IFCAnnotation> sources = new HashSet<IFCAnnotation>();
+		Collection<IFCAnnotation> sinks = new HashSet<IFCAnnotation>();
+		for(IFCAnnotation annotation : annotations)
+		{
+			if(annotation.getType() == AnnotationType.SOURCE)
+			{
+				sources.add(annotation);
+			}else if(annotation.getType() == AnnotationType.SINK)
+			{
+				sinks.add(annotation);
+			}
+		}
+		printSourcesAndSinks(sources, sinks, reportFilePath);
+	}
+
 	private static boolean signaturesMatch(JavaMethodSignature methodEvaluated, JavaMethodSignature currentMethod)
 	{
 		boolean match = false;
@@ -278,7 +314,7 @@ public class JoanaInvocation {
 			}
 
 		}
-		if(!sdgLoaded && saveSdgs && methodFound)
+		if(!sdgLoaded && savesSdg(confValues) && methodFound)
 		{
 			writeSdgInfo(methodEvaluated, confValues, bytecodeIndexToLine);
 		}
@@ -335,12 +371,67 @@ public class JoanaInvocation {
 			configs.put("ignoreExceptions", "false");
 		}
 
+		if(!configs.containsKey("parallelSweep"))
+		{
+			configs.put("parallelSweep", "false");
+		}
+		if(!configs.containsKey("streamSummary"))
+		{
+			configs.put("streamSummary", "false");
+		}
+
 		boolean allExceptions = configs.get("allExceptions").equals("true");
 		boolean allPrecisions = configs.get("allPrecisions").equals("true");
 		boolean violationPathes = configs.get("violationPathes").equals("true");		
 		int initialPrecision = Integer.parseInt(configs.get("initialPrecision"));
-		
-		if(allExceptions)
+		boolean parallelSweep = configs.get("parallelSweep").equals("true");
+		boolean streamSummary = configs.get("streamSummary").equals("true");
+		if(configs.containsKey("sdgCacheDir"))
+		{
+			long cacheSize = configs.containsKey("sdgCacheMB")
+					? Long.parseLong(configs.get("sdgCacheMB")) * 1024 * 1024 : DEFAULT_SDG_CACHE_SIZE;
+			sdgCache = new SDGCache(new File(configs.get("sdgCacheDir")), cacheSize);
+		}else{
+			sdgCache = null;
+		}
+
+		String reportFile = reportFolderPath + File.separator + "executionSummary.csv";
+		if(!new File(reportFile).exists())
+		{
+			FileUtils.createFile(reportFile);
+		}
+		ReportSink summarySink = null;
+		if(streamSummary)
+		{
+			if(methodsWithSrcOrSink.size() > 0)
+			{
+				ViolationsPrinter.printExecutionsSummaryHeader(reportFile, ";");
+			}
+			summarySink = ReportSink.open(reportFile);
+			summaryFilePath = reportFile;
+		}
+		try {
+			runAllConfigs(configs, methodsWithSrcOrSink, parallelSweep, allExceptions, allPrecisions, violationPathes, initialPrecision);
+		} finally {
+			if(summarySink != null)
+			{
+				summaryFilePath = null;
+				summarySink.close();
+			}
+		}
+		if(!streamSummary)
+		{
+			ViolationsPrinter.printAllExecutionsSummary(execResults, reportFile, ";");
+		}
+	}
+
+	private void runAllConfigs(Map<String, String> configs, Map<String, ModifiedMethod> methodsWithSrcOrSink,
+			boolean parallelSweep, boolean allExceptions, boolean allPrecisions, boolean violationPathes, int initialPrecision)
+					throws IOException, ClassHierarchyException, UnsoundGraphException, CancelException {
+		if(parallelSweep)
+		{
+			runSweepInParallel(configs, methodsWithSrcOrSink, allExceptions, allPrecisions, violationPathes, initialPrecision);
+		}else if(allExceptions)
 		{
 			for(int exceptionsInt = 0; exceptionsInt < 2; exceptionsInt++)
 			{				
@@ -353,12 +444,6 @@ public class JoanaInvocation {
 			runForEachPrecision(configs, methodsWithSrcOrSink, allPrecisions,
 					violationPathes, initialPrecision);
 		}
-		String reportFile = reportFolderPath + File.separator + "executionSummary.csv";
-		if(!new File(reportFile).exists())
-		{
-			FileUtils.createFile(reportFile);
-		}
-		ViolationsPrinter.printAllExecutionsSummary(execResults, reportFile, ";");		
 	}
 
 	private void runForEachPrecision(Map<String, String> configs,
@@ -386,10 +471,206 @@ public class JoanaInvocation {
 		}
 	}
 
+	/**
+	 * Runs the same precision/exception matrix as the sequential loops, but builds and analyzes the SDGs
+	 * concurrently. A {@link SweepScheduler} bounds the concurrently running builds by the free heap, starting
+	 * the most expensive configurations first. The memory of a configuration is estimated relative to a type
+	 * based one without exceptions ("sweepBaseMemoryMB", 256 MB by default).
+	 * Every build computes its own class hierarchy: WALA fills caches of the hierarchy and adds synthetic
+	 * classes to it while building a call graph, which is neither thread safe nor free of effects on other builds.
+	 * The execution results are created up front in the sequential order, so the summary does not depend
+	 * on the order in which the configurations finish.
+	 * With "verifySweep", the configurations are run once more sequentially afterwards, see
+	 * {@link #verifySweep(List, int, int, boolean, boolean, Map)}.
+	 */
+	private void runSweepInParallel(Map<String, String> configs,
+			final Map<String, ModifiedMethod> methodsWithSrcOrSink, boolean allExceptions,
+			boolean allPrecisions, final boolean violationPathes, int initialPrecision)
+					throws IOException, ClassHierarchyException, UnsoundGraphException, CancelException {
+		final boolean methodLevelAnalysis = configs.get("methodLevelAnalysis").equals("true");
+		List<Boolean> exceptionModes = new ArrayList<Boolean>();
+		if(allExceptions)
+		{
+			exceptionModes.add(false);
+			exceptionModes.add(true);
+		}else{
+			exceptionModes.add(configs.get("ignoreExceptions").equals("true"));
+		}
+		int lastPrecision = allPrecisions ? precisions.length - 1 : initialPrecision;
+		long baseMemory = configs.containsKey("sweepBaseMemoryMB")
+				? Long.parseLong(configs.get("sweepBaseMemoryMB")) * 1024 * 1024 : DEFAULT_SWEEP_BASE_MEMORY;
+		boolean verify = "true".equals(configs.get("verifySweep"));
+		sweepViolations = verify ? new HashMap<String, String>() : null;
+
+		List<SweepScheduler.Task> tasks = new ArrayList<SweepScheduler.Task>();
+		for(boolean ignoreExceptions : exceptionModes)
+		{
+			for(int i = initialPrecision; i <= lastPrecision; i++)
+			{
+				final SdgConfigValues confValues = new SdgConfigValues(precisions[i], ignoreExceptions, reportFolderPath, sdgsFolderPath);
+				createExecutionResults(methodLevelAnalysis, confValues, methodsWithSrcOrSink);
+				final long estimatedMemory = (long) (baseMemory * estimatedMemoryFactor(precisions[i], ignoreExceptions));
+				tasks.add(new SweepScheduler.Task() {
+					@Override
+					public long getEstimatedMemory() {
+						return estimatedMemory;
+					}
+
+					@Override
+					public void run() throws Exception {
+						runForConfig(confValues, methodLevelAnalysis, violationPathes, methodsWithSrcOrSink);
+					}
+				});
+			}
+		}
+
+		try {
+			SweepScheduler.forAvailableHeap(SWEEP_HEAP_FRACTION).runAll(tasks);
+		} catch (IOException | ClassHierarchyException | UnsoundGraphException | CancelException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+
+		if(verify)
+		{
+			verifySweep(exceptionModes, initialPrecision, lastPrecision, methodLevelAnalysis, violationPathes,
+					methodsWithSrcOrSink);
+		}
+	}
+
+	/**
+	 * Rough memory needed by a configuration, relative to a type based analysis without exceptions.
+	 * Only the order matters much, as it decides which configurations are started first.
+	 */
+	private static double estimatedMemoryFactor(PointsToPrecision precision, boolean ignoreExceptions)
+	{
+		double factor;
+		switch(precision)
+		{
+		case TYPE_BASED: factor = 1; break;
+		case INSTANCE_BASED: factor = 1.5; break;
+		case N1_CALL_STACK: factor = 2; break;
+		case OBJECT_SENSITIVE: factor = 2.5; break;
+		case N1_OBJECT_SENSITIVE: factor = 2.5; break;
+		case N2_CALL_STACK: factor = 3; break;
+		case N3_CALL_STACK: factor = 4.5; break;
+		case UNLIMITED_OBJECT_SENSITIVE: factor = 6; break;
+		default: factor = 3;
+		}
+		return ignoreExceptions ? factor : factor * 1.5;
+	}
+
+	/**
+	 * Runs the configurations of a parallel sweep once more one after the other and checks that each method
+	 * has the same violations in both runs. The sequential run builds every SDG anew, without the SDG cache
+	 * and the saved SDGs, and writes its reports to the folder "sequentialSweep" of the report folder; its
+	 * results are not added to the summary.
+	 * @throws IllegalStateException if a method has different violations in a configuration
+	 */
+	private void verifySweep(List<Boolean> exceptionModes, int initialPrecision, int lastPrecision,
+			boolean methodLevelAnalysis, boolean violationPathes, Map<String, ModifiedMethod> methodsWithSrcOrSink)
+					throws IOException, ClassHierarchyException, UnsoundGraphException, CancelException {
+		Map<String, String> parallelViolations = sweepViolations;
+		Map<String, String> sequentialViolations = new HashMap<String, String>();
+		sweepViolations = sequentialViolations;
+		verifyingSweep = true;
+		String folder = reportFolderPath + File.separator + "sequentialSweep";
+		try {
+			for(boolean ignoreExceptions : exceptionModes)
+			{
+				for(int i = initialPrecision; i <= lastPrecision; i++)
+				{
+					SdgConfigValues confValues = new SdgConfigValues(precisions[i], ignoreExceptions, folder, null);
+					createExecutionResults(methodLevelAnalysis, confValues, methodsWithSrcOrSink);
+					try {
+						runForConfig(confValues, methodLevelAnalysis, violationPathes, methodsWithSrcOrSink);
+					} finally {
+						removeExecutionResults(confValues);
+					}
+				}
+			}
+		} finally {
+			sweepViolations = null;
+			verifyingSweep = false;
+		}
+
+		List<String> differences = new ArrayList<String>();
+		Set<String> keys = new TreeSet<String>(parallelViolations.keySet());
+		keys.addAll(sequentialViolations.keySet());
+		for(String key : keys)
+		{
+			String parallel = parallelViolations.get(key);
+			String sequential = sequentialViolations.get(key);
+			if(parallel == null ? sequential != null : !parallel.equals(sequential))
+			{
+				differences.add(key + ": parallel " + parallel + ", sequential " + sequential);
+			}
+		}
+		if(!differences.isEmpty())
+		{
+			throw new IllegalStateException("Parallel sweep differs from the sequential one:\n"
+					+ String.join("\n", differences));
+		}
+		System.out.println("Parallel sweep verified: " + keys.size() + " results equal the sequential ones.");
+	}
+
+	/**
+	 * Remembers the violations of the given configuration for {@link #verifySweep}, if a sweep is verified.
+	 */
+	private void recordViolations(SdgConfigValues confValues)
+	{
+		synchronized(execResults)
+		{
+			if(sweepViolations == null)
+			{
+				return;
+			}
+			for(Map.Entry<String, Map<SdgConfigValues, ExecutionResult>> methExecResults : execResults.entrySet())
+			{
+				ExecutionResult execRes = methExecResults.getValue().get(confValues);
+				if(execRes != null)
+				{
+					sweepViolations.put(methExecResults.getKey() + "; " + confValues.getPrecision() + "; "
+							+ (confValues.getIgnoreExceptions() ? "noExcep" : "excep"), execRes.violationsToString(";"));
+				}
+			}
+		}
+	}
+
+	private void removeExecutionResults(SdgConfigValues confValues)
+	{
+		synchronized(execResults)
+		{
+			for(Map<SdgConfigValues, ExecutionResult> methExecResults : execResults.values())
+			{
+				methExecResults.remove(confValues);
+			}
+		}
+	}
+
+	/**
+	 * @return whether the SDG of the configuration is saved to and loaded from the SDG folder
+	 */
+	private boolean savesSdg(SdgConfigValues confValues)
+	{
+		return saveSdgs && confValues.getSdgInfoFilePath() != null;
+	}
+
 	private void printSdgDetails(SdgConfigValues confValues) throws IOException
 	{
 		SDGProgram program = confValues.getProgram();
 		String reportFilePath = confValues.getSdgReportFilePath();
+		ReportSink sink = ReportSink.open(reportFilePath);
+		try {
+			printSdgDetails(program, reportFilePath);
+		} finally {
+			sink.close();
+		}
+	}
+
+	private void printSdgDetails(SDGProgram program, String reportFilePath) throws IOException
+	{
 		FileUtils.writeNewLine(reportFilePath, "SDG INFO");
 		for(SDGClass sdgClass : program.getClasses())
 		{
@@ -423,31 +704,82 @@ public class JoanaInvocation {
 
 		SdgConfigValues confValues = new SdgConfigValues(precision, ignoreExceptions, reportFolderPath, sdgsFolderPath);
 		createExecutionResults(methodLevelAnalysis, confValues, methodsWithSrcOrSink);
+		runForConfig(confValues, methodLevelAnalysis, violationPathes, methodsWithSrcOrSink);
+	}
 
+	/**
+	 * Builds or loads the SDG of one configuration and runs the analyses on it.
+	 * The report of the configuration is written through a {@link ReportSink}.
+	 */
+	private void runForConfig(SdgConfigValues confValues, boolean methodLevelAnalysis, boolean violationPathes,
+			Map<String, ModifiedMethod> methodsWithSrcOrSink) throws ClassHierarchyException,IOException, UnsoundGraphException, CancelException,FileNotFoundException {
 		String reportFilePath = confValues.getReportFilePath();
 		FileUtils.createFile(reportFilePath);
+		ReportSink sink = ReportSink.open(reportFilePath);
+		try {
+			analyzeConfig(confValues, methodLevelAnalysis, violationPathes, methodsWithSrcOrSink);
+		} finally {
+			sink.close();
+		}
+		recordViolations(confValues);
+		printExecutionsSummary(confValues);
+	}
+
+	/**
+	 * Writes the results of a finished configuration to the summary file and forgets them,
+	 * if the summary is streamed.
+	 */
+	private void printExecutionsSummary(SdgConfigValues confValues) throws IOException
+	{
+		if(summaryFilePath == null || verifyingSweep)
+		{
+			return;
+		}
+		List<ExecutionResult> results = new ArrayList<ExecutionResult>();
+		synchronized(execResults)
+		{
+			for(Map<SdgConfigValues, ExecutionResult> methExecResults : execResults.values())
+			{
+				ExecutionResult execRes = methExecResults.remove(confValues);
+				if(execRes != null)
+				{
+					results.add(execRes);
+				}
+			}
+			ViolationsPrinter.printExecutionsSummary(results, summaryFilePath, ";");
+		}
+	}
+
+	private void analyzeConfig(SdgConfigValues confValues, boolean methodLevelAnalysis, boolean violationPathes,
+			Map<String, ModifiedMethod> methodsWithSrcOrSink) throws ClassHierarchyException,IOException, UnsoundGraphException, CancelException,FileNotFoundException {
+		PointsToPrecision precision = confValues.getPrecision();
+		boolean ignoreExceptions = confValues.getIgnoreExceptions();
+		String reportFilePath = confValues.getReportFilePath();
 		SDGConfig config = setConfig(ignoreExceptions, precision);
+		/** the sequential run that verifies a parallel sweep has to build every SDG again */
+		config.setSDGCache(verifyingSweep ? null : sdgCache);
 
 		/** build the PDG */
 		SDGProgram program = null;
 		IFCAnalysis ana;
 		String pdgFileName = "";
 		boolean loadSdg = false;
-		if(saveSdgs){
+		if(savesSdg(confValues)){
 			pdgFileName = sdgsFolderPath + File.separator + precision.toString();
 			String excep = "_excep";
 			if(ignoreExceptions)
 			{
 				excep = "_noExcep";
 			}
-			pdgFileName += excep + ".pdg";
+			pdgFileName += excep + SDGBinarySerializer.SUFFIX;
 			loadSdg = new File(pdgFileName).exists() && new File(confValues.getSdgInfoFilePath()).exists();
 		}
 		
 		if(loadSdg)
 		{
 			FileUtils.writeNewLine(reportFilePath, "Loading SDG...");
-			program = SDGProgram.loadSDG(pdgFileName);
+			/** the stored SDG is only sliced, so it can be kept in the compact read-only representation */
+			program = SDGProgram.loadCompactSDG(pdgFileName);
 		}else{
 			FileUtils.writeNewLine(reportFilePath, "Creating SDG...");
 			try{
@@ -496,16 +828,24 @@ public class JoanaInvocation {
 				timeAndMem[1] = Integer.parseInt(lineInfo[4].trim());
 			}else{
 				printSdgDetails(confValues);
-				int[] cgNodesAndEdges = program.getSDGBuilder().getCgNodesAndEdges();
-				cgNodes = cgNodesAndEdges[0];
-				cgEdges = cgNodesAndEdges[1];
-				timeAndMem = SDGBuildPreparation.getTimeAndMemory();
+				if(program.getSDGBuilder() != null)
+				{
+					int[] cgNodesAndEdges = program.getSDGBuilder().getCgNodesAndEdges();
+					cgNodes = cgNodesAndEdges[0];
+					cgEdges = cgNodesAndEdges[1];
+					timeAndMem = SDGBuildPreparation.getTimeAndMemory();
+				}else{
+					/** served from the SDG cache, so there is no call graph and nothing was built */
+					cgNodes = -1;
+					cgEdges = -1;
+					timeAndMem = new long[2];
+				}
 				
 				/** optional: save PDG to disk */
-				if(saveSdgs)
+				if(savesSdg(confValues))
 				{
 					FileUtils.mkdirs(new File(pdgFileName));
-					SDGSerializer.toPDGFormat(program.getSDG(), new FileOutputStream(pdgFileName));
+					SDGBinarySerializer.toBinaryFormat(program.getSDG(), pdgFileName);
 					String sdgInfoFilePath = confValues.getSdgInfoFilePath();
 					FileUtils.createFile(sdgInfoFilePath);
 					FileUtils.writeNewLine(sdgInfoFilePath, "Method; CGNodes; CGEdges; Time; Memory; LeftIndexes; RightIndexes; BytecodeToLine");
@@ -573,7 +913,7 @@ public class JoanaInvocation {
 					Map<String, Map<LineVio, DetailedLineVio>> lineViosPerMethod = ViolationsPrinter.printAllMethodsViolationsByLine(results, program, confValues.getPartsMap(), reportFilePath);
 					for(String method : lineViosPerMethod.keySet())
 					{
-						ExecutionResult execRes = execResults.get(method).get(confValues);
+						ExecutionResult execRes = getExecutionResult(method, confValues);
 						execRes.setLineVios(lineViosPerMethod.get(method).keySet());
 						execRes.setInstVios(vios.get(method)[0]);
 						execRes.setTotalVios(vios.get(method)[1]);
@@ -714,7 +1054,7 @@ public class JoanaInvocation {
 				}
 				Collection<IFCAnnotation> sinks = ana.getSinks();
 				Collection<IFCAnnotation> sources = ana.getSources();
-				ExecutionResult methExecResult = execResults.get(method).get(configValues);
+				ExecutionResult methExecResult = getExecutionResult(method, configValues);
 				methExecResult.setHasSourceAndSink(sources.size() > 0 && sinks.size() > 0);
 				Map<String, ViolationResult> methodResults = runAnalysis(sinks, sources, configValues, configValues.getLeftParts().get(method),
 						configValues.getRightParts().get(method), configValues.getOtherParts().get(method));
@@ -733,16 +1073,26 @@ public class JoanaInvocation {
 	}
 
 	private void put(String method, ExecutionResult execResult) {
-		Map<SdgConfigValues, ExecutionResult> confValuesMap;
-		if(execResults.containsKey(method))
+		synchronized(execResults)
 		{
-			confValuesMap = execResults.get(method);
+			Map<SdgConfigValues, ExecutionResult> confValuesMap;
+			if(execResults.containsKey(method))
+			{
+				confValuesMap = execResults.get(method);
 
-		}else{
-			confValuesMap = new LinkedHashMap<SdgConfigValues, ExecutionResult>();
-			execResults.put(method, confValuesMap);
+			}else{
+				confValuesMap = new LinkedHashMap<SdgConfigValues, ExecutionResult>();
+				execResults.put(method, confValuesMap);
+			}
+			confValuesMap.put(execResult.getSdgConfigValues(), execResult);
+		}
+	}
+
+	private ExecutionResult getExecutionResult(String method, SdgConfigValues confValues) {
+		synchronized(execResults)
+		{
+			return execResults.get(method).get(confValues);
 		}
-		confValuesMap.put(execResult.getSdgConfigValues(), execResult);
 	}
 
 	private Map<String, ViolationResult> runAnalysis(
@@ -756,33 +1106,41 @@ public class JoanaInvocation {
 		resultsByAnnotation.put("RIGHT->OTHERS", null);
 		if(sources.size() > 0 && sinks.size() > 0)
 		{
+			/** both directions are answered by a single IFC run on the same SDG, sharing the slices */
+			Map<String, Collection<IFCAnnotation>> groupings_1_1 = new LinkedHashMap<String, Collection<IFCAnnotation>>();
+			groupings_1_1.put("1.1.a", ana.getAnnotations());
+			groupings_1_1.put("1.1.b", invertSourceAndSinks(sinks, sources));
+			Map<String, Collection<? extends IViolation<SecurityNode>>> results_1_1 = ana.doIFC(groupings_1_1);
+
 			FileUtils.writeNewLine(reportFilePath,"1.1.a analysis");
-			printSourcesAndSinks(ana.getSources(), ana.getSinks(), reportFilePath);
+			printSourcesAndSinks(groupings_1_1.get("1.1.a"), reportFilePath);
 			/** run the analysis */
-			Collection<? extends IViolation<SecurityNode>> result_1_1_a = ana.doIFC();	
-			TObjectIntMap<IViolation<SDGProgramPart>> resultByProgramPart_1_1_a = ana.groupByPPPart(result_1_1_a);	
+			Collection<? extends IViolation<SecurityNode>> result_1_1_a = results_1_1.get("1.1.a");
+			TObjectIntMap<IViolation<SDGProgramPart>> resultByProgramPart_1_1_a = ana.groupByPPPart(result_1_1_a, groupings_1_1.get("1.1.a"));
 
 			/** do something with result */
 
 			FileUtils.writeNewLine(reportFilePath, "1.1.b analysis");
-			invertSourceAndSinks(sinks, sources, ana);
-			printSourcesAndSinks(ana.getSources(), ana.getSinks(), reportFilePath);
-			Collection<? extends IViolation<SecurityNode>> result_1_1_b = ana.doIFC();
-			TObjectIntMap<IViolation<SDGProgramPart>> resultByProgramPart_1_1_b = ana.groupByPPPart(result_1_1_b);	
+			printSourcesAndSinks(groupings_1_1.get("1.1.b"), reportFilePath);
+			Collection<? extends IViolation<SecurityNode>> result_1_1_b = results_1_1.get("1.1.b");
+			TObjectIntMap<IViolation<SDGProgramPart>> resultByProgramPart_1_1_b = ana.groupByPPPart(result_1_1_b, groupings_1_1.get("1.1.b"));
 
 			if(result_1_1_a.isEmpty() && result_1_1_b.isEmpty())
 			{
+				Map<String, Collection<IFCAnnotation>> groupings_1_2 = new LinkedHashMap<String, Collection<IFCAnnotation>>();
+				groupings_1_2.put("1.2.a", sourcesAndSinks_1_2(leftParts, otherParts));
+				groupings_1_2.put("1.2.b", sourcesAndSinks_1_2(rightParts, otherParts));
+				Map<String, Collection<? extends IViolation<SecurityNode>>> results_1_2 = ana.doIFC(groupings_1_2);
+
 				FileUtils.writeNewLine(reportFilePath, "1.2.a analysis");
-				addSourcesAndSinks_1_2(leftParts, otherParts, confValues);
-				printSourcesAndSinks(ana.getSources(), ana.getSinks(), reportFilePath);
-				Collection<? extends IViolation<SecurityNode>> result_1_2_a = ana.doIFC();
-				TObjectIntMap<IViolation<SDGProgramPart>> resultByProgramPart_1_2_a = ana.groupByPPPart(result_1_2_a);
+				printSourcesAndSinks(groupings_1_2.get("1.2.a"), reportFilePath);
+				Collection<? extends IViolation<SecurityNode>> result_1_2_a = results_1_2.get("1.2.a");
+				TObjectIntMap<IViolation<SDGProgramPart>> resultByProgramPart_1_2_a = ana.groupByPPPart(result_1_2_a, groupings_1_2.get("1.2.a"));
 
 				FileUtils.writeNewLine(reportFilePath, "1.2.b analysis");
-				addSourcesAndSinks_1_2(rightParts, otherParts, confValues);
-				printSourcesAndSinks(ana.getSources(), ana.getSinks(), reportFilePath);
-				Collection<? extends IViolation<SecurityNode>> result_1_2_b = ana.doIFC();
-				TObjectIntMap<IViolation<SDGProgramPart>> resultByProgramPart_1_2_b = ana.groupByPPPart(result_1_2_b);
+				printSourcesAndSinks(groupings_1_2.get("1.2.b"), reportFilePath);
+				Collection<? extends IViolation<SecurityNode>> result_1_2_b = results_1_2.get("1.2.b");
+				TObjectIntMap<IViolation<SDGProgramPart>> resultByProgramPart_1_2_b = ana.groupByPPPart(result_1_2_b, groupings_1_2.get("1.2.b"));
 				if(!result_1_2_a.isEmpty())
 				{
 					resultsByAnnotation.put("LEFT->OTHERS", new ViolationResult(result_1_2_a, resultByProgramPart_1_2_a));
@@ -810,33 +1168,32 @@ public class JoanaInvocation {
 		return resultsByAnnotation;
 	}
 
-	private void addSourcesAndSinks_1_2(Collection<SDGProgramPart> toMarkAsSource, Collection<SDGProgramPart> toMarkAsSink, SdgConfigValues confValues) {
-		IFCAnalysis ana = confValues.getIFCAnalysis();
-		ana.clearAllAnnotations();
+	private Collection<IFCAnnotation> sourcesAndSinks_1_2(Collection<SDGProgramPart> toMarkAsSource, Collection<SDGProgramPart> toMarkAsSink) {
+		List<IFCAnnotation> annotations = new ArrayList<IFCAnnotation>();
 		for(SDGProgramPart inst : toMarkAsSource)
 		{
-			ana.addSourceAnnotation(inst, BuiltinLattices.STD_SECLEVEL_HIGH);
+			annotations.add(new IFCAnnotation(AnnotationType.SOURCE, BuiltinLattices.STD_SECLEVEL_HIGH, inst));
 		}
 		for(SDGProgramPart inst : toMarkAsSink)
 		{
-			ana.addSinkAnnotation(inst, BuiltinLattices.STD_SECLEVEL_LOW);
+			annotations.add(new IFCAnnotation(AnnotationType.SINK, BuiltinLattices.STD_SECLEVEL_LOW, inst));
 		}
+		return annotations;
 	}
 
-	private void invertSourceAndSinks(Collection<IFCAnnotation> sinks,
-			Collection<IFCAnnotation> sources, IFCAnalysis ana) {
-		ana.clearAllAnnotations();
+	private Collection<IFCAnnotation> invertSourceAndSinks(Collection<IFCAnnotation> sinks,
+			Collection<IFCAnnotation> sources) {
+		List<IFCAnnotation> annotations = new ArrayList<IFCAnnotation>();
 		for(IFCAnnotation sink : sinks)
 		{
-			//System.out.println("Adding source...");
-			ana.addSourceAnnotation(sink.getProgramPart(), BuiltinLattices.STD_SECLEVEL_HIGH);
+			annotations.add(new IFCAnnotation(AnnotationType.SOURCE, BuiltinLattices.STD_SECLEVEL_HIGH, sink.getProgramPart()));
 		}
 
 		for(IFCAnnotation source : sources)
 		{
-			//System.out.println("Adding sink...");
-			ana.addSinkAnnotation(source.getProgramPart(), BuiltinLattices.STD_SECLEVEL_LOW);
+			annotations.add(new IFCAnnotation(AnnotationType.SINK, BuiltinLattices.STD_SECLEVEL_LOW, source.getProgramPart()));
 		}
+		return annotations;
 	}
 
 	private SDGConfig setConfig(boolean ignoreExceptions, PointsToPrecision pointerAnalysis) {
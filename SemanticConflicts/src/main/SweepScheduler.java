@@ -0,0 +1,147 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs a set of analysis configurations concurrently, bounded by the available heap.
+ * Every task declares an estimate of the memory it needs. A task is started only if the
+ * estimates of all running tasks together with its own fit into the memory budget, or if
+ * nothing else is running. Whenever a task can be started, the largest pending one that
+ * fits is chosen, so the expensive configurations do not end up running last and alone.
+ */
+public class SweepScheduler {
+
+	public interface Task
+	{
+		/** @return estimated memory needed by this task, in bytes */
+		long getEstimatedMemory();
+
+		void run() throws Exception;
+	}
+
+	private final long memoryBudget;
+	private final int maxThreads;
+
+	private long reservedMemory = 0;
+	private int running = 0;
+	private Throwable failure = null;
+
+	/**
+	 * @param memoryBudget memory in bytes that all running tasks may use together
+	 * @param maxThreads maximal number of tasks running at the same time
+	 */
+	public SweepScheduler(long memoryBudget, int maxThreads)
+	{
+		if(maxThreads < 1)
+		{
+			throw new IllegalArgumentException("maxThreads must be positive: " + maxThreads);
+		}
+		this.memoryBudget = memoryBudget;
+		this.maxThreads = maxThreads;
+	}
+
+	/**
+	 * Creates a scheduler whose budget is the currently free part of the maximal heap.
+	 * @param fraction share of the free heap to use
+	 */
+	public static SweepScheduler forAvailableHeap(double fraction)
+	{
+		Runtime rt = Runtime.getRuntime();
+		long used = rt.totalMemory() - rt.freeMemory();
+		long budget = (long) ((rt.maxMemory() - used) * fraction);
+		return new SweepScheduler(budget, rt.availableProcessors());
+	}
+
+	/**
+	 * Runs all tasks and waits for them. If a task fails, no further tasks are started and the
+	 * first failure is thrown after the running tasks have finished.
+	 */
+	public void runAll(List<? extends Task> tasks) throws Exception
+	{
+		List<Task> pending = new ArrayList<Task>(tasks);
+		Collections.sort(pending, new Comparator<Task>() {
+			@Override
+			public int compare(Task t1, Task t2) {
+				return Long.compare(t2.getEstimatedMemory(), t1.getEstimatedMemory());
+			}
+		});
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(maxThreads, pending.size())));
+		try {
+			synchronized(this)
+			{
+				while(!pending.isEmpty() && failure == null)
+				{
+					Task next = null;
+					if(running < maxThreads)
+					{
+						for(Task t : pending)
+						{
+							if(running == 0 || reservedMemory + t.getEstimatedMemory() <= memoryBudget)
+							{
+								next = t;
+								break;
+							}
+						}
+					}
+					if(next == null)
+					{
+						wait();
+						continue;
+					}
+					pending.remove(next);
+					start(pool, next);
+				}
+				while(running > 0)
+				{
+					wait();
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		if(failure instanceof Error)
+		{
+			throw (Error) failure;
+		}else if(failure != null)
+		{
+			throw (Exception) failure;
+		}
+	}
+
+	private void start(ExecutorService pool, final Task task)
+	{
+		reservedMemory += task.getEstimatedMemory();
+		running++;
+		pool.execute(new Runnable() {
+			@Override
+			public void run() {
+				Throwable error = null;
+				try {
+					task.run();
+				} catch (Throwable e) {
+					error = e;
+				} finally {
+					finished(task, error);
+				}
+			}
+		});
+	}
+
+	private synchronized void finished(Task task, Throwable error)
+	{
+		reservedMemory -= task.getEstimatedMemory();
+		running--;
+		if(error != null && failure == null)
+		{
+			failure = error;
+		}
+		notifyAll();
+	}
+}
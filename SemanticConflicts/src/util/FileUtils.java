@@ -103,21 +103,43 @@ public class FileUtils {
 
 	public static void writeNewLine(String path, String line, boolean append) throws IOException
 	{
-		BufferedWriter bw = new BufferedWriter(new FileWriter(path, append));
-		bw.write(line + "\n");
-		bw.close();
+		ReportSink sink = ReportSink.get(path);
+		if(sink != null)
+		{
+			if(!append)
+			{
+				sink.clear();
+			}
+			sink.writeLine(line);
+		}else{
+			BufferedWriter bw = new BufferedWriter(new FileWriter(path, append));
+			bw.write(line + "\n");
+			bw.close();
+		}
 		System.out.println(line);
 	}
 	
 	public static void write(String path, String line) throws IOException
 	{
-		BufferedWriter bw = new BufferedWriter(new FileWriter(path, true));
-		bw.write(line);
-		bw.close();
+		ReportSink sink = ReportSink.get(path);
+		if(sink != null)
+		{
+			sink.write(line);
+		}else{
+			BufferedWriter bw = new BufferedWriter(new FileWriter(path, true));
+			bw.write(line);
+			bw.close();
+		}
 		System.out.print(line);
 	}
 
 	public static void createFile(String newClassPath) throws IOException {
+		ReportSink sink = ReportSink.get(newClassPath);
+		if(sink != null)
+		{
+			sink.clear();
+			return;
+		}
 		File file = new File(newClassPath);
 		if(file.exists())
 		{
@@ -145,6 +167,7 @@ public class FileUtils {
 	
 	public static List<String> readNLines(String path, int number) throws IOException
 	{
+		ReportSink.flush(path);
 		List<String> lines = new ArrayList<String>();
 		BufferedReader br = new BufferedReader(new FileReader(path));
 		String line;
@@ -159,6 +182,7 @@ public class FileUtils {
 
 	public static void printFileContent(String path) throws IOException
 	{
+		ReportSink.flush(path);
 		BufferedReader br = new BufferedReader(new FileReader(path));
 		String line;
 		while((line = br.readLine()) != null)
@@ -170,6 +194,7 @@ public class FileUtils {
 	
 	public static List<String> getFileLines(String path) throws IOException
 	{
+		ReportSink.flush(path);
 		BufferedReader br = new BufferedReader(new FileReader(path));
 		String line;
 		List<String> lines = new ArrayList<String>();
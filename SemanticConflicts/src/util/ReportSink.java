@@ -0,0 +1,142 @@
+package util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a report file open behind a single buffered writer.
+ * While a sink is open for a file, {@link FileUtils#writeNewLine(String, String)} and
+ * {@link FileUtils#write(String, String)} append to its buffer instead of opening and closing
+ * the file for every line. Files without an open sink are written as before, so files that
+ * are read by other programs right after being written (e.g. generated sources) need no care.
+ * The writes of a sink are synchronized, so several analyses may report to the same file.
+ */
+public class ReportSink {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final Map<String, ReportSink> openSinks = new HashMap<String, ReportSink>();
+
+	private final String path;
+	private BufferedWriter writer;
+
+	private ReportSink(String path) throws IOException
+	{
+		this.path = path;
+		this.writer = new BufferedWriter(new FileWriter(path, true), BUFFER_SIZE);
+	}
+
+	/**
+	 * Opens a sink that appends to the given file, until it is closed.
+	 * @throws IllegalStateException if a sink is already open for the file
+	 */
+	public static ReportSink open(String path) throws IOException
+	{
+		String key = key(path);
+		synchronized(openSinks)
+		{
+			if(openSinks.containsKey(key))
+			{
+				throw new IllegalStateException("report sink already open: " + path);
+			}
+			ReportSink sink = new ReportSink(path);
+			openSinks.put(key, sink);
+			return sink;
+		}
+	}
+
+	/**
+	 * @return the open sink of the given file, or null if there is none
+	 */
+	public static ReportSink get(String path)
+	{
+		synchronized(openSinks)
+		{
+			return openSinks.get(key(path));
+		}
+	}
+
+	/**
+	 * Writes the buffered content of the given file, if a sink is open for it.
+	 */
+	public static void flush(String path) throws IOException
+	{
+		ReportSink sink = get(path);
+		if(sink != null)
+		{
+			sink.flush();
+		}
+	}
+
+	/**
+	 * Closes all open sinks.
+	 */
+	public static void closeAll() throws IOException
+	{
+		List<ReportSink> sinks;
+		synchronized(openSinks)
+		{
+			sinks = new ArrayList<ReportSink>(openSinks.values());
+		}
+		for(ReportSink sink : sinks)
+		{
+			sink.close();
+		}
+	}
+
+	public synchronized void writeLine(String line) throws IOException
+	{
+		writer.write(line);
+		writer.write('\n');
+	}
+
+	public synchronized void write(String text) throws IOException
+	{
+		writer.write(text);
+	}
+
+	/**
+	 * Discards the content of the file, including the buffered one.
+	 */
+	public synchronized void clear() throws IOException
+	{
+		writer.close();
+		writer = new BufferedWriter(new FileWriter(path, false), BUFFER_SIZE);
+	}
+
+	public synchronized void flush() throws IOException
+	{
+		writer.flush();
+	}
+
+	public void close() throws IOException
+	{
+		synchronized(openSinks)
+		{
+			if(openSinks.get(key(path)) == this)
+			{
+				openSinks.remove(key(path));
+			}
+		}
+		synchronized(this)
+		{
+			writer.close();
+		}
+	}
+
+	public String getPath()
+	{
+		return path;
+	}
+
+	private static String key(String path)
+	{
+		return new File(path).getAbsolutePath();
+	}
+}
@@ -539,20 +539,34 @@ public class ViolationsPrinter {
 	public static void printAllExecutionsSummary(
 			Map<String, Map<SdgConfigValues, ExecutionResult>> execResults,
 			String reportFilePath, String sep) throws IOException {
-		String header = MethodExecutionResult.getHeader(sep);
-		if(execResults.size() > 0 && !header.equals(FileUtils.readFirstLine(reportFilePath)))
+		if(execResults.size() > 0)
 		{
-			FileUtils.writeNewLine(reportFilePath, header, false);
+			printExecutionsSummaryHeader(reportFilePath, sep);
 		}
 
 		for(String method : execResults.keySet())
 		{
 			Map<SdgConfigValues, ExecutionResult> methExecResults = execResults.get(method);
-			for(SdgConfigValues confVal : methExecResults.keySet())
-			{
-				ExecutionResult execRes = methExecResults.get(confVal);
-				FileUtils.writeNewLine(reportFilePath, execRes.toString(sep));
-			}
+			printExecutionsSummary(methExecResults.values(), reportFilePath, sep);
+		}
+	}
+
+	/**
+	 * Starts the summary file with the header, unless it already starts with it.
+	 */
+	public static void printExecutionsSummaryHeader(String reportFilePath, String sep) throws IOException {
+		String header = MethodExecutionResult.getHeader(sep);
+		if(!header.equals(FileUtils.readFirstLine(reportFilePath)))
+		{
+			FileUtils.writeNewLine(reportFilePath, header, false);
+		}
+	}
+
+	public static void printExecutionsSummary(Collection<ExecutionResult> execResults,
+			String reportFilePath, String sep) throws IOException {
+		for(ExecutionResult execRes : execResults)
+		{
+			FileUtils.writeNewLine(reportFilePath, execRes.toString(sep));
 		}
 	}
 }
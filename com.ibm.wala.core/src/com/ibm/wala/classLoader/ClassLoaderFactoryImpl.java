@@ -38,6 +38,11 @@ public class ClassLoaderFactoryImpl implements ClassLoaderFactory {
    */
   final private HashMap<ClassLoaderReference, IClassLoader> map = HashMapFactory.make(3);
 
+  /**
+   * number of threads used by the created {@link ClassLoaderImpl}s to read class files
+   */
+  private int loadingThreads = 1;
+
   /**
    * @param exclusions
    *          A set of classes that class loaders should pretend don't exist.
@@ -46,6 +51,16 @@ public class ClassLoaderFactoryImpl implements ClassLoaderFactory {
     this.exclusions = exclusions;
   }
 
+  /**
+   * Lets the {@link ClassLoaderImpl}s created by this factory read and parse the class files of their modules
+   * with the given number of threads.
+   * 
+   * @see ClassLoaderImpl#setLoadingThreads(int)
+   */
+  public void setLoadingThreads(int loadingThreads) {
+    this.loadingThreads = loadingThreads;
+  }
+
   /**
    * Return a class loader corresponding to a given class loader identifier.
    * Create one if necessary.
@@ -112,6 +127,9 @@ public class ClassLoaderFactoryImpl implements ClassLoaderFactory {
           cl = new ClassLoaderImpl(classLoaderReference, scope.getArrayClassLoader(), parent, exclusions, cha);
         }
       }
+    if (cl instanceof ClassLoaderImpl) {
+      ((ClassLoaderImpl) cl).setLoadingThreads(loadingThreads);
+    }
     cl.init(scope.getModules(classLoaderReference));
     return cl;
   }
@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -26,6 +27,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 
@@ -91,6 +96,11 @@ public class ClassLoaderImpl implements IClassLoader {
    */
   private final ArrayClassLoader arrayClassLoader;
 
+  /**
+   * number of threads used to read and parse the class files of a module ahead of loading them
+   */
+  private int loadingThreads = 1;
+
   /**
    * @param loader class loader reference identifying this loader
    * @param parent parent loader for delegation
@@ -114,6 +124,21 @@ public class ClassLoaderImpl implements IClassLoader {
     }
   }
 
+  /**
+   * Sets the number of threads that read and parse class files before they are loaded. With more than one
+   * thread, the class files of each module are decompressed and parsed concurrently, while the classes are
+   * still defined sequentially in the same order as without threads. Must be called before {@link #init(List)}.
+   * 
+   * @param loadingThreads number of threads, values <= 1 load all class files on the calling thread
+   */
+  public void setLoadingThreads(int loadingThreads) {
+    this.loadingThreads = loadingThreads;
+  }
+
+  public int getLoadingThreads() {
+    return loadingThreads;
+  }
+
   /**
    * Return the Set of (ModuleEntry) source files found in a module.
    * 
@@ -247,6 +272,10 @@ public class ClassLoaderImpl implements IClassLoader {
    * Set up the set of classes loaded by this object.
    */
   private void loadAllClasses(Collection<ModuleEntry> moduleEntries, Map<String, Object> fileContents) {
+    Map<ModuleEntry, ShrikeClassReaderHandle> prefetched = null;
+    if (loadingThreads > 1 && fileContents == null) {
+      prefetched = readAllClassFiles(moduleEntries);
+    }
     for (Iterator<ModuleEntry> it = moduleEntries.iterator(); it.hasNext();) {
       ModuleEntry entry = it.next();
       if (!entry.isClassFile()) {
@@ -266,7 +295,10 @@ public class ClassLoaderImpl implements IClassLoader {
         continue;
       }
 
-      ShrikeClassReaderHandle entryReader = new ShrikeClassReaderHandle(entry);
+      ShrikeClassReaderHandle entryReader = (prefetched != null ? prefetched.get(entry) : null);
+      if (entryReader == null) {
+        entryReader = new ShrikeClassReaderHandle(entry);
+      }
 
       className = "L" + className;
       if (DEBUG_LEVEL > 0) {
@@ -309,6 +341,55 @@ public class ClassLoaderImpl implements IClassLoader {
     }
   }
 
+  /**
+   * Reads and parses the class files among the given entries on a pool of {@link #loadingThreads} threads.
+   * The readers of the returned handles are cached, so {@link #loadAllClasses(Collection, Map)} can create
+   * the classes without touching the module again, unless the cache was cleared due to memory pressure.
+   * Failures are ignored here; the entry is then read again while loading, which reports the problem.
+   * Returns null if the thread was interrupted while waiting for the pool.
+   */
+  private Map<ModuleEntry, ShrikeClassReaderHandle> readAllClassFiles(Collection<ModuleEntry> moduleEntries) {
+    Map<ModuleEntry, ShrikeClassReaderHandle> result = HashMapFactory.make();
+    List<Future<?>> pending = new ArrayList<Future<?>>();
+    ExecutorService pool = Executors.newFixedThreadPool(loadingThreads);
+    try {
+      for (ModuleEntry entry : moduleEntries) {
+        if (!entry.isClassFile()) {
+          continue;
+        }
+        if (exclusions != null && exclusions.contains(entry.getClassName().replace('.', '/'))) {
+          continue;
+        }
+        final ShrikeClassReaderHandle handle = new ShrikeClassReaderHandle(entry);
+        result.put(entry, handle);
+        pending.add(pool.submit(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              handle.get();
+            } catch (InvalidClassFileException e) {
+              // reported when the class is loaded
+            }
+          }
+        }));
+      }
+      for (Future<?> f : pending) {
+        try {
+          f.get();
+        } catch (ExecutionException e) {
+          // reported when the class is loaded
+        }
+      }
+    } catch (InterruptedException e) {
+      // do not share handles with tasks that may still be running
+      Thread.currentThread().interrupt();
+      return null;
+    } finally {
+      pool.shutdownNow();
+    }
+    return result;
+  }
+
   @SuppressWarnings("unused")
   private Map<String, Object> getAllClassAndSourceFileContents(byte[] jarFileContents, String fileName,
       Map<String, Map<String, Long>> entrySizes) {
@@ -0,0 +1,436 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.classLoader;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.debug.Assertions;
+import com.ibm.wala.util.io.FileSuffixes;
+
+/**
+ * A {@link Module} that serves the class files of another module from a snapshot file, which holds the
+ * uncompressed contents of all class files back to back and is mapped into memory. Loading classes from a
+ * snapshot avoids scanning and inflating the original jar; this pays off for modules like the JRE stubs that
+ * are loaded again and again by separate analysis runs.
+ *
+ * Snapshots are identified by a key, usually the digest of the original jar (see {@link #digest(InputStream)}),
+ * and are created on first use by {@link #findOrCreate(File, String, Module)}. A snapshot holds a CRC32 checksum of
+ * its contents, which is checked when it is mapped; a corrupt snapshot is written anew.
+ */
+public class SnapshotModule implements Module {
+
+  private static final int MAGIC = 0x57534e50;
+
+  private static final int VERSION = 2;
+
+  /**
+   * magic, version and checksum
+   */
+  private static final int HEADER_SIZE = 12;
+
+  private static final String SUFFIX = ".snapshot";
+
+  private final File file;
+
+  /**
+   * the mapped snapshot file, shared read-only by all entries
+   */
+  private final ByteBuffer data;
+
+  private final String[] names;
+
+  private final int[] offsets;
+
+  private final int[] lengths;
+
+  private SnapshotModule(File file, ByteBuffer data, String[] names, int[] offsets, int[] lengths) {
+    this.file = file;
+    this.data = data;
+    this.names = names;
+    this.offsets = offsets;
+    this.lengths = lengths;
+  }
+
+  /**
+   * Returns the snapshot with the given key from the given directory. If there is no valid snapshot yet, it is
+   * written from the class files of <code>source</code> first.
+   *
+   * @param directory directory holding the snapshots, created if necessary
+   * @param key identifies the contents of <code>source</code>, e.g. a digest of its jar file
+   * @param source module to take the class files from if the snapshot does not exist
+   * @throws IOException if the snapshot can neither be read nor written
+   */
+  public static SnapshotModule findOrCreate(File directory, String key, Module source) throws IOException {
+    if (source == null) {
+      throw new IllegalArgumentException("null source");
+    }
+    SnapshotModule result = find(directory, key);
+    return result != null ? result : create(directory, key, source);
+  }
+
+  /**
+   * Returns the snapshot with the given key from the given directory, if there is a valid one. Callers that have to
+   * open the original module first use this to open it only if {@link #create(File, String, Module)} needs it.
+   *
+   * @return the snapshot, or null if it does not exist, is corrupt or has been written by another version
+   */
+  public static SnapshotModule find(File directory, String key) throws IOException {
+    if (directory == null) {
+      throw new IllegalArgumentException("null directory");
+    }
+    if (key == null) {
+      throw new IllegalArgumentException("null key");
+    }
+    File file = new File(directory, key + SUFFIX);
+    return file.exists() ? read(file) : null;
+  }
+
+  /**
+   * Writes the snapshot with the given key from the class files of <code>source</code>, replacing an existing one.
+   *
+   * @param directory directory holding the snapshots, created if necessary
+   * @throws IOException if the snapshot cannot be written
+   */
+  public static SnapshotModule create(File directory, String key, Module source) throws IOException {
+    if (directory == null) {
+      throw new IllegalArgumentException("null directory");
+    }
+    if (key == null) {
+      throw new IllegalArgumentException("null key");
+    }
+    if (source == null) {
+      throw new IllegalArgumentException("null source");
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("could not create snapshot directory " + directory);
+    }
+    File file = new File(directory, key + SUFFIX);
+    // write to a temporary file first, so concurrent runs never see a partial snapshot
+    File tmp = File.createTempFile(key, ".tmp", directory);
+    try {
+      write(source, tmp);
+      if (!tmp.renameTo(file)) {
+        // some platforms do not rename onto an existing file, e.g. a corrupt snapshot
+        file.delete();
+        if (!tmp.renameTo(file) && !file.exists()) {
+          throw new IOException("could not create snapshot " + file);
+        }
+      }
+    } finally {
+      tmp.delete();
+    }
+    SnapshotModule result = read(file);
+    if (result == null) {
+      throw new IOException("invalid snapshot " + file);
+    }
+    return result;
+  }
+
+  /**
+   * Computes a key for {@link #findOrCreate(File, String, Module)} from the raw contents of a jar file.
+   *
+   * @return the SHA-1 digest of the stream as hex string
+   */
+  public static String digest(InputStream in) throws IOException {
+    if (in == null) {
+      throw new IllegalArgumentException("null in");
+    }
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    byte[] buffer = new byte[65536];
+    for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+      md.update(buffer, 0, n);
+    }
+    StringBuilder result = new StringBuilder();
+    for (byte b : md.digest()) {
+      result.append(String.format("%02x", b & 0xff));
+    }
+    return result.toString();
+  }
+
+  /**
+   * Writes the class files of the module and of the modules nested in it. Layout: magic, version, CRC32 of the
+   * rest of the file, number of entries, then for each entry the length of its UTF-8 name, the name, the length of
+   * its contents and the contents.
+   */
+  private static void write(Module source, File file) throws IOException {
+    List<ModuleEntry> entries = new ArrayList<ModuleEntry>();
+    collectClassFiles(source, entries, HashSetFactory.<String> make());
+    CRC32 crc = new CRC32();
+    DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(
+        new FileOutputStream(file), 65536), crc));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      // placeholder for the checksum, which is known only when the contents are written
+      out.writeInt(0);
+      out.flush();
+      crc.reset();
+      out.writeInt(entries.size());
+      byte[] buffer = new byte[65536];
+      for (ModuleEntry entry : entries) {
+        byte[] name = entry.getName().getBytes("UTF-8");
+        out.writeInt(name.length);
+        out.write(name);
+        byte[] contents = readFully(entry.getInputStream(), buffer);
+        out.writeInt(contents.length);
+        out.write(contents);
+      }
+    } finally {
+      out.close();
+    }
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.seek(HEADER_SIZE - 4);
+      raf.writeInt((int) crc.getValue());
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * @return the CRC32 checksum of the remaining bytes of the buffer; does not change the position of the buffer
+   */
+  private static int checksum(ByteBuffer data) {
+    ByteBuffer view = data.duplicate();
+    CRC32 crc = new CRC32();
+    byte[] buffer = new byte[65536];
+    while (view.hasRemaining()) {
+      int n = Math.min(buffer.length, view.remaining());
+      view.get(buffer, 0, n);
+      crc.update(buffer, 0, n);
+    }
+    return (int) crc.getValue();
+  }
+
+  private static void collectClassFiles(Module m, List<ModuleEntry> result, Set<String> seen) {
+    for (Iterator<? extends ModuleEntry> it = m.getEntries(); it.hasNext();) {
+      ModuleEntry entry = it.next();
+      if (entry.isClassFile()) {
+        if (seen.add(entry.getName())) {
+          result.add(entry);
+        }
+      } else if (entry.isModuleFile()) {
+        collectClassFiles(entry.asModule(), result, seen);
+      }
+    }
+  }
+
+  private static byte[] readFully(InputStream in, byte[] buffer) throws IOException {
+    try {
+      ByteArrayOutputStream result = new ByteArrayOutputStream();
+      for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+        result.write(buffer, 0, n);
+      }
+      return result.toByteArray();
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * @return the mapped snapshot, or null if the file is no valid snapshot of the current version or its checksum
+   *         does not match its contents
+   */
+  private static SnapshotModule read(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      // the mapping stays valid after the channel is closed
+      ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (data.remaining() < HEADER_SIZE + 4 || data.getInt() != MAGIC || data.getInt() != VERSION) {
+        return null;
+      }
+      int expected = data.getInt();
+      if (checksum(data) != expected) {
+        return null;
+      }
+      int count = data.getInt();
+      String[] names = new String[count];
+      int[] offsets = new int[count];
+      int[] lengths = new int[count];
+      for (int i = 0; i < count; i++) {
+        byte[] name = new byte[data.getInt()];
+        data.get(name);
+        names[i] = new String(name, "UTF-8");
+        lengths[i] = data.getInt();
+        offsets[i] = data.position();
+        data.position(offsets[i] + lengths[i]);
+      }
+      return new SnapshotModule(file, data, names, offsets, lengths);
+    } catch (RuntimeException e) {
+      // truncated or corrupt snapshot
+      return null;
+    } finally {
+      raf.close();
+    }
+  }
+
+  /*
+   * @see com.ibm.wala.classLoader.Module#getEntries()
+   */
+  @Override
+  public Iterator<ModuleEntry> getEntries() {
+    return new Iterator<ModuleEntry>() {
+      int next = 0;
+
+      @Override
+      public boolean hasNext() {
+        return next < names.length;
+      }
+
+      @Override
+      public ModuleEntry next() {
+        return new Entry(next++);
+      }
+
+      @Override
+      public void remove() {
+        Assertions.UNREACHABLE();
+      }
+    };
+  }
+
+  /**
+   * Reads the contents of one entry from the mapped snapshot; every stream uses its own view of the buffer.
+   */
+  private static class SliceInputStream extends InputStream {
+
+    private final ByteBuffer slice;
+
+    SliceInputStream(ByteBuffer slice) {
+      this.slice = slice;
+    }
+
+    @Override
+    public int read() {
+      return slice.hasRemaining() ? (slice.get() & 0xff) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (!slice.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, slice.remaining());
+      slice.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return slice.remaining();
+    }
+  }
+
+  /**
+   * an entry of the snapshot
+   */
+  private class Entry implements ModuleEntry {
+
+    private final int index;
+
+    Entry(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public String getName() {
+      return names[index];
+    }
+
+    @Override
+    public boolean isClassFile() {
+      return FileSuffixes.isClassFile(getName());
+    }
+
+    @Override
+    public boolean isSourceFile() {
+      return FileSuffixes.isSourceFile(getName());
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      ByteBuffer slice = data.duplicate();
+      slice.limit(offsets[index] + lengths[index]);
+      slice.position(offsets[index]);
+      return new SliceInputStream(slice);
+    }
+
+    @Override
+    public boolean isModuleFile() {
+      return false;
+    }
+
+    @Override
+    public Module asModule() {
+      Assertions.UNREACHABLE();
+      return null;
+    }
+
+    @Override
+    public String getClassName() {
+      return FileSuffixes.stripSuffix(getName());
+    }
+
+    @Override
+    public Module getContainer() {
+      return SnapshotModule.this;
+    }
+
+    @Override
+    public String toString() {
+      return "snapshot entry: " + getName();
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * SnapshotModule.this.hashCode() + index;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj)
+        return true;
+      if (obj == null || getClass() != obj.getClass())
+        return false;
+      Entry other = (Entry) obj;
+      return getContainer() == other.getContainer() && index == other.index;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Snapshot " + file;
+  }
+}
@@ -20,6 +20,7 @@ import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntSetAction;
+import com.ibm.wala.util.intset.MutableIntSet;
 import com.ibm.wala.util.intset.MutableMapping;
 import com.ibm.wala.util.intset.MutableSparseIntSet;
 
@@ -43,8 +44,19 @@ public class PointsToSetVariable extends IntSetVariable<PointsToSetVariable> {
    */
   public static MutableMapping<InstanceKey> instanceKeys = null;
 
+  /**
+   * Algorithmic choice: should the variable record the elements added since its uses were last updated, so that
+   * assignments and filters only propagate these? See {@link PropagationSystem#changedVariable(PointsToSetVariable)}.
+   */
+  public static final boolean DIFFERENCE_PROPAGATION = true;
+
   private PointerKey pointerKey;
 
+  /**
+   * elements added since the last call to {@link #takeDifference()}; null if there are none
+   */
+  private MutableSparseIntSet difference;
+
   public PointsToSetVariable(PointerKey key) {
     super();
     if (key == null) {
@@ -82,6 +94,12 @@ public class PointsToSetVariable extends IntSetVariable<PointsToSetVariable> {
       m.add(b);
       checkTypes(m);
     }
+    if (DIFFERENCE_PROPAGATION && !contains(b)) {
+      if (difference == null) {
+        difference = MutableSparseIntSet.makeEmpty();
+      }
+      difference.add(b);
+    }
     super.add(b);
     cryIfTooBig();
   }
@@ -91,11 +109,113 @@ public class PointsToSetVariable extends IntSetVariable<PointsToSetVariable> {
     if (PARANOID) {
       checkTypes(B);
     }
+    MutableSparseIntSet added = DIFFERENCE_PROPAGATION ? newElements(B, null) : null;
     boolean v = super.addAll(B);
+    addToDifference(added);
     cryIfTooBig();
     return v;
   }
 
+  /**
+   * Like {@link #addAll(IntSet)}, for elements that are known not to be in this variable, e.g. computed while it had
+   * its current value. Saves searching the new elements once more.
+   * 
+   * @param added elements that are not in this variable; recorded as part of the difference, so not to be used afterwards
+   */
+  boolean addAllNew(MutableSparseIntSet added) {
+    if (added.isEmpty()) {
+      return false;
+    }
+    if (PARANOID) {
+      checkTypes(added);
+    }
+    super.addAll(added);
+    if (DIFFERENCE_PROPAGATION) {
+      addToDifference(added);
+    }
+    cryIfTooBig();
+    return true;
+  }
+
+  @Override
+  public boolean addAllInIntersection(PointsToSetVariable other, IntSet filter) {
+    return other.getValue() == null ? false : addAllInIntersection(other.getValue(), filter);
+  }
+
+  @Override
+  public boolean addAllInIntersection(IntSet other, IntSet filter) {
+    MutableSparseIntSet added = DIFFERENCE_PROPAGATION ? newElements(other, filter) : null;
+    boolean v = super.addAllInIntersection(other, filter);
+    addToDifference(added);
+    return v;
+  }
+
+  @Override
+  public void remove(int i) {
+    super.remove(i);
+    if (difference != null) {
+      difference.remove(i);
+    }
+  }
+
+  @Override
+  public void removeAll() {
+    super.removeAll();
+    difference = null;
+  }
+
+  /**
+   * @return the elements of s that are contained in filter but not in this variable, or null if s is null
+   */
+  private MutableSparseIntSet newElements(IntSet s, final IntSet filter) {
+    if (s == null) {
+      return null;
+    }
+    final MutableSparseIntSet result = MutableSparseIntSet.makeEmpty();
+    IntSetAction action = new IntSetAction() {
+      @Override
+      public void act(int x) {
+        if (filter == null || filter.contains(x)) {
+          result.add(x);
+        }
+      }
+    };
+    if (getValue() == null) {
+      s.foreach(action);
+    } else {
+      s.foreachExcluding(getValue(), action);
+    }
+    return result;
+  }
+
+  private void addToDifference(MutableSparseIntSet added) {
+    if (added != null && !added.isEmpty()) {
+      if (difference == null) {
+        difference = added;
+      } else {
+        difference.addAll(added);
+      }
+    }
+  }
+
+  /**
+   * @return the elements added to this variable since the last call of {@link #takeDifference()}, or null if there are none
+   */
+  IntSet getDifference() {
+    return difference;
+  }
+
+  /**
+   * Returns the elements added to this variable since the last call and starts recording anew.
+   * 
+   * @return the added elements, or null if there are none
+   */
+  MutableIntSet takeDifference() {
+    MutableIntSet result = difference;
+    difference = null;
+    return result;
+  }
+
   /**
    * check that the types of all instance keys are assignable to declared type of pointer key
    */
@@ -140,13 +260,8 @@ public class PointsToSetVariable extends IntSetVariable<PointsToSetVariable> {
 
   @Override
   public boolean addAll(PointsToSetVariable other) {
-    if (PARANOID) {
-      checkTypes(other.getValue());
-    }
-    // TODO Auto-generated method stub
-    boolean v = super.addAll(other);
-    cryIfTooBig();
-    return v;
+    // go through addAll(IntSet), which checks the types and records the difference
+    return other.getValue() == null ? false : addAll(other.getValue());
   }
 
   /**
@@ -126,6 +126,16 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder {
    */
   private IPointsToSolver solver;
 
+  /**
+   * number of threads the system of constraints is solved with
+   */
+  private int solverThreads = 1;
+
+  /**
+   * should cycles of assignments be collapsed while solving?
+   */
+  private boolean cycleElimination = false;
+
   /**
    * The call graph under construction
    */
@@ -223,6 +233,8 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder {
       throw new IllegalArgumentException("options is null");
     }
     system = makeSystem(options);
+    system.setSolverThreads(solverThreads);
+    system.setCycleElimination(cycleElimination);
 
     if (DEBUG_GENERAL) {
       System.err.println("Enter makeCallGraph!");
@@ -275,6 +287,9 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder {
       CallGraphBuilderCancelException c = CallGraphBuilderCancelException.createCallGraphBuilderCancelException(e, callGraph,
           system.extractPointerAnalysis(this));
       throw c;
+    } finally {
+      // the solver calls solve() repeatedly, so the threads live as long as the construction
+      system.shutdownSolverThreads();
     }
 
     return callGraph;
@@ -691,6 +706,26 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder {
     return system;
   }
 
+  /**
+   * Sets the number of threads used to solve the system of constraints, must be called before
+   * {@link #makeCallGraph(AnalysisOptions, IProgressMonitor)}.
+   * 
+   * @see PropagationSystem#setSolverThreads(int)
+   */
+  public void setSolverThreads(int solverThreads) {
+    this.solverThreads = solverThreads;
+  }
+
+  /**
+   * Enables online cycle elimination in the system of constraints, must be called before
+   * {@link #makeCallGraph(AnalysisOptions, IProgressMonitor)}.
+   * 
+   * @see PropagationSystem#setCycleElimination(boolean)
+   */
+  public void setCycleElimination(boolean cycleElimination) {
+    this.cycleElimination = cycleElimination;
+  }
+
   public PointerKeyFactory getPointerKeyFactory() {
     return pointerKeyFactory;
   }
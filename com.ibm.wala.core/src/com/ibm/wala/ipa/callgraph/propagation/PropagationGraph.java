@@ -44,6 +44,7 @@ import com.ibm.wala.util.graph.impl.SparseNumberedEdgeManager;
 import com.ibm.wala.util.graph.traverse.Topological;
 import com.ibm.wala.util.heapTrace.HeapTracer;
 import com.ibm.wala.util.intset.BasicNaturalRelation;
+import com.ibm.wala.util.intset.EmptyIntSet;
 import com.ibm.wala.util.intset.IBinaryNaturalRelation;
 import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntPair;
@@ -690,6 +691,129 @@ public class PropagationGraph implements IFixedPointSystem<PointsToSetVariable>
     return list.iterator();
   }
 
+  /**
+   * @return the statements that use v and are represented explicitly, i.e. all but the assignments and filters
+   */
+  @SuppressWarnings("unchecked")
+  Iterator<AbstractStatement> getExplicitStatementsThatUse(PointsToSetVariable v) {
+    if (v.getGraphNodeId() == -1) {
+      return EmptyIterator.instance();
+    }
+    List<AbstractStatement> list = new ArrayList<AbstractStatement>();
+    for (Iterator<INodeWithNumber> it = delegateGraph.getSuccNodes(v); it.hasNext();) {
+      list.add((AbstractStatement) it.next());
+    }
+    return list.iterator();
+  }
+
+  /**
+   * @return the implicitly represented assignments and filters that use v
+   */
+  @SuppressWarnings("unchecked")
+  Iterator<AbstractStatement> getImplicitStatementsThatUse(PointsToSetVariable v) {
+    int number = v.getGraphNodeId();
+    if (number == -1) {
+      return EmptyIterator.instance();
+    }
+    Iterator<AbstractStatement> result = EmptyIterator.instance();
+    for (int i = 0; i < invImplicitUnaryMap.size(); i++) {
+      UnaryOperator op = invImplicitUnaryMap.getKey(i);
+      IBinaryNaturalRelation R = (IBinaryNaturalRelation) invImplicitUnaryMap.getValue(i);
+      IntSet s = R.getRelated(number);
+      if (s != null) {
+        result = new CompoundIterator<AbstractStatement>(new ImplicitUseIterator(op, v, s), result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the number of assignments and filters, which are represented implicitly
+   */
+  int getNumberOfImplicitStatements() {
+    return implicitUnaryCount;
+  }
+
+  /**
+   * Finds the cycles of assignments, i.e. the strongly connected components of the graph with an edge for every implicit
+   * assignment. All variables of such a component have the same value in a solution of the system. Uses an iterative
+   * version of Tarjan's algorithm on the graph node numbers.
+   *
+   * @return the variables of each component with more than one variable
+   */
+  List<List<PointsToSetVariable>> findAssignmentCycles() {
+    List<List<PointsToSetVariable>> result = new ArrayList<List<PointsToSetVariable>>();
+    IBinaryNaturalRelation R = null;
+    for (int i = 0; i < implicitUnaryMap.size(); i++) {
+      if (implicitUnaryMap.getKey(i) instanceof AssignOperator) {
+        R = (IBinaryNaturalRelation) implicitUnaryMap.getValue(i);
+      }
+    }
+    if (R == null) {
+      return result;
+    }
+    int size = delegateGraph.getMaxNumber() + 1;
+    // dfs number + 1 of each node, 0 if not visited yet
+    int[] index = new int[size];
+    int[] lowlink = new int[size];
+    boolean[] onStack = new boolean[size];
+    int[] stack = new int[size];
+    int sp = 0;
+    // the path of the depth first search, with the iterator over the remaining successors of each node
+    int[] path = new int[size];
+    IntIterator[] successors = new IntIterator[size];
+    int pp = 0;
+    int counter = 0;
+    for (int root = 0; root < size; root++) {
+      if (index[root] != 0 || R.getRelated(root) == null) {
+        continue;
+      }
+      index[root] = lowlink[root] = ++counter;
+      stack[sp++] = root;
+      onStack[root] = true;
+      path[pp] = root;
+      successors[pp++] = R.getRelated(root).intIterator();
+      while (pp > 0) {
+        int v = path[pp - 1];
+        IntIterator it = successors[pp - 1];
+        if (it.hasNext()) {
+          int w = it.next();
+          if (index[w] == 0) {
+            index[w] = lowlink[w] = ++counter;
+            stack[sp++] = w;
+            onStack[w] = true;
+            IntSet s = R.getRelated(w);
+            path[pp] = w;
+            successors[pp++] = (s == null) ? EmptyIntSet.instance.intIterator() : s.intIterator();
+          } else if (onStack[w]) {
+            lowlink[v] = Math.min(lowlink[v], index[w]);
+          }
+        } else {
+          successors[--pp] = null;
+          if (pp > 0) {
+            int u = path[pp - 1];
+            lowlink[u] = Math.min(lowlink[u], lowlink[v]);
+          }
+          if (lowlink[v] == index[v]) {
+            int w = stack[--sp];
+            onStack[w] = false;
+            if (w != v) {
+              List<PointsToSetVariable> component = new ArrayList<PointsToSetVariable>();
+              component.add((PointsToSetVariable) delegateGraph.getNode(w));
+              do {
+                w = stack[--sp];
+                onStack[w] = false;
+                component.add((PointsToSetVariable) delegateGraph.getNode(w));
+              } while (w != v);
+              result.add(component);
+            }
+          }
+        }
+      }
+    }
+    return result;
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public Iterator<AbstractStatement> getStatementsThatDef(PointsToSetVariable v) {
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package com.ibm.wala.ipa.callgraph.propagation;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -18,10 +19,17 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import com.ibm.wala.classLoader.ArrayClass;
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.fixedpoint.impl.DefaultFixedPointSolver;
+import com.ibm.wala.fixedpoint.impl.GeneralStatement;
 import com.ibm.wala.fixedpoint.impl.Worklist;
 import com.ibm.wala.fixpoint.AbstractOperator;
 import com.ibm.wala.fixpoint.AbstractStatement;
@@ -34,6 +42,9 @@ import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder.Filter
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.ipa.cha.ClassHierarchyWarning;
 import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Collection;
@@ -49,6 +60,7 @@ import com.ibm.wala.util.intset.IntSetAction;
 import com.ibm.wala.util.intset.IntSetUtil;
 import com.ibm.wala.util.intset.MutableIntSet;
 import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
 import com.ibm.wala.util.ref.ReferenceCleanser;
 import com.ibm.wala.util.warnings.Warnings;
 
@@ -117,6 +129,34 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
 
   private int periodicMaintainInterval = DEFAULT_PERIODIC_MAINTENANCE_INTERVAL;
 
+  /**
+   * number of threads used by {@link #solve(IProgressMonitor)}
+   */
+  private int solverThreads = 1;
+
+  /**
+   * rounds with fewer assignments and difference statements compute their additions on the calling thread
+   */
+  private final static int MIN_PARALLEL_STATEMENTS = 512;
+
+  /**
+   * worker threads of {@link #solve(IProgressMonitor)}, created by the first solve with more than one thread and kept
+   * until {@link #shutdownSolverThreads()}
+   */
+  private ExecutorService solverPool;
+
+  /**
+   * should cycles of assignments be collapsed while solving? see {@link #setCycleElimination(boolean)}
+   */
+  private boolean cycleElimination = false;
+
+  /**
+   * the cycles are searched once the number of implicit statements reaches this value
+   */
+  private int nextCycleElimination = MIN_STATEMENTS_FOR_CYCLE_ELIMINATION;
+
+  private final static int MIN_STATEMENTS_FOR_CYCLE_ELIMINATION = 1000;
+
   public PropagationSystem(CallGraph cg, PointerKeyFactory pointerKeyFactory, InstanceKeyFactory instanceKeyFactory) {
     if (cg == null) {
       throw new IllegalArgumentException("null cg");
@@ -674,6 +714,453 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     return flowGraph;
   }
 
+  /**
+   * Operator of the statements that propagate the difference of a variable, see {@link #changedVariable(PointsToSetVariable)}.
+   * These statements have the variable on both sides and never enter the flow graph.
+   */
+  private final class DifferenceOperator extends UnaryOperator<PointsToSetVariable> {
+
+    @Override
+    public byte evaluate(PointsToSetVariable lhs, PointsToSetVariable rhs) {
+      return propagateDifference(rhs) ? CHANGED : NOT_CHANGED;
+    }
+
+    @Override
+    public String toString() {
+      return "Difference";
+    }
+
+    @Override
+    public int hashCode() {
+      return 9887;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o;
+    }
+  }
+
+  private final DifferenceOperator differenceOperator = new DifferenceOperator();
+
+  /**
+   * With {@link PointsToSetVariable#DIFFERENCE_PROPAGATION}, the implicit assignments and filters that use v are not
+   * put on the work list. Instead, a single statement is scheduled that pushes only the elements added to v since its
+   * last evaluation along all of them. Statements that are new to the system still see the complete value of their
+   * right-hand side, since they are evaluated or put on the work list as usual.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void changedVariable(PointsToSetVariable v) {
+    if (!PointsToSetVariable.DIFFERENCE_PROPAGATION) {
+      super.changedVariable(v);
+      return;
+    }
+    for (Iterator<AbstractStatement> it = flowGraph.getExplicitStatementsThatUse(v); it.hasNext();) {
+      addToWorkList(it.next());
+    }
+    if (flowGraph.getImplicitStatementsThatUse(v).hasNext()) {
+      addToWorkList(differenceOperator.makeEquation(v, v));
+    } else {
+      // nothing to propagate to; implicit statements added later start with the complete value
+      v.takeDifference();
+    }
+  }
+
+  /**
+   * Pushes the difference of v along the implicit assignments and filters that use v.
+   *
+   * @return true iff the value of some left-hand side changed
+   */
+  private boolean propagateDifference(PointsToSetVariable v) {
+    return propagateDifference(v, null);
+  }
+
+  /**
+   * Like {@link #propagateDifference(PointsToSetVariable)}, but takes the additions of the assignments from the given
+   * ones if they have been computed for the current difference of v.
+   */
+  @SuppressWarnings("unchecked")
+  private boolean propagateDifference(PointsToSetVariable v, DifferenceAdditions additions) {
+    MutableIntSet difference = v.takeDifference();
+    if (difference == null) {
+      return false;
+    }
+    // points-to sets only grow while solving, so an equal size means that v did not change since
+    Map<PointsToSetVariable, Addition> targets = (additions != null && additions.differenceSize == difference.size())
+        ? additions.targets : null;
+    boolean changed = false;
+    // the filters take a variable as right-hand side
+    PointsToSetVariable differenceVariable = null;
+    for (Iterator<AbstractStatement> it = flowGraph.getImplicitStatementsThatUse(v); it.hasNext();) {
+      UnaryStatement<PointsToSetVariable> s = (UnaryStatement<PointsToSetVariable>) it.next();
+      PointsToSetVariable lhs = s.getLHS();
+      boolean c;
+      if (s.getOperator() instanceof AssignOperator) {
+        Addition addition = (targets == null ? null : targets.get(lhs));
+        c = (addition == null ? lhs.addAll(difference) : addition.apply());
+      } else {
+        if (differenceVariable == null) {
+          differenceVariable = new PointsToSetVariable(v.getPointerKey());
+          differenceVariable.addAll(difference);
+        }
+        c = isChanged(s.getOperator().evaluate(lhs, differenceVariable));
+      }
+      if (c) {
+        changed = true;
+        changedVariable(lhs);
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * The statements that propagate a difference have already updated the work list for the variables they changed.
+   */
+  @Override
+  protected void updateWorkList(AbstractStatement<PointsToSetVariable, ?> s) {
+    if (s.getOperator() != differenceOperator) {
+      super.updateWorkList(s);
+    }
+  }
+
+  public int getSolverThreads() {
+    return solverThreads;
+  }
+
+  /**
+   * Sets the number of threads used to solve the system. With more than one thread, {@link #solve(IProgressMonitor)}
+   * works in rounds: it takes all statements from the work list and concurrently computes the elements each assignment
+   * adds to its left-hand side, both for the assignments on the work list and for the implicit assignments a difference
+   * statement pushes to (see {@link #changedVariable(PointsToSetVariable)}). Then it evaluates the statements of the
+   * round one after another in work list order and only adds the precomputed elements, unless a variable involved has
+   * changed in the meantime. Since the additions only read the state at the beginning of the round, the result and the
+   * order of all side effects do not depend on the number of threads. The threads are kept between the calls of
+   * {@link #solve(IProgressMonitor)} until {@link #shutdownSolverThreads()} is called.
+   */
+  public void setSolverThreads(int solverThreads) {
+    this.solverThreads = solverThreads;
+  }
+
+  public boolean isCycleElimination() {
+    return cycleElimination;
+  }
+
+  /**
+   * Enables online cycle elimination: whenever the number of assignments and filters in the system has grown by a quarter,
+   * the cycles of assignments are searched and the variables of each cycle are unified, see {@link #unify(IntSet)}. This
+   * saves the iterations that propagate the same elements around a cycle, and the memory of the merged points-to sets.
+   * Variables that may later be given a type filter, i.e. parameters and return values, are never unified.
+   */
+  public void setCycleElimination(boolean cycleElimination) {
+    this.cycleElimination = cycleElimination;
+  }
+
+  /**
+   * Called before each evaluation of the solver loop, so it is a safe point to change the system.
+   */
+  @Override
+  public void orderStatements() {
+    if (cycleElimination && flowGraph.getNumberOfImplicitStatements() >= nextCycleElimination) {
+      eliminateCycles();
+      int n = flowGraph.getNumberOfImplicitStatements();
+      nextCycleElimination = n + Math.max(MIN_STATEMENTS_FOR_CYCLE_ELIMINATION, n / 4);
+    }
+    super.orderStatements();
+  }
+
+  /**
+   * Unifies the variables of each cycle of assignments and fixes the work list: statements that refer to a merged
+   * variable are dropped, and all statements that def or use a representative are evaluated again in full.
+   */
+  @SuppressWarnings("unchecked")
+  private void eliminateCycles() {
+    Set<PointsToSetVariable> merged = HashSetFactory.make();
+    Set<PointsToSetVariable> representatives = HashSetFactory.make();
+    for (List<PointsToSetVariable> cycle : flowGraph.findAssignmentCycles()) {
+      List<PointsToSetVariable> collapsible = new ArrayList<PointsToSetVariable>();
+      MutableIntSet keys = IntSetUtil.make();
+      for (PointsToSetVariable v : cycle) {
+        if (isCollapsible(v.getPointerKey())) {
+          collapsible.add(v);
+          keys.add(pointsToMap.getIndex(v.getPointerKey()));
+        }
+      }
+      // a cycle that was collapsed before is found again if it also runs through variables that are never unified
+      if (keys.size() > 1) {
+        merged.addAll(collapsible);
+        unify(keys);
+        representatives.add(pointsToMap.getPointsToSet(keys.intIterator().next()));
+      }
+    }
+    if (representatives.isEmpty()) {
+      return;
+    }
+    merged.removeAll(representatives);
+    List<AbstractStatement> pending = new ArrayList<AbstractStatement>();
+    while (!workList.isEmpty()) {
+      pending.add(workList.takeStatement());
+    }
+    for (AbstractStatement s : pending) {
+      if (!refersTo(s, merged)) {
+        addToWorkList(s);
+      }
+    }
+    for (PointsToSetVariable rep : representatives) {
+      rep.takeDifference();
+      for (Iterator<AbstractStatement> it = flowGraph.getStatementsThatDef(rep); it.hasNext();) {
+        addToWorkList(it.next());
+      }
+      for (Iterator<AbstractStatement> it = flowGraph.getStatementsThatUse(rep); it.hasNext();) {
+        addToWorkList(it.next());
+      }
+    }
+  }
+
+  /**
+   * @return false for the keys whose variables may get a type filter later on, see
+   *         {@link #findOrCreatePointsToSet(PointerKey)}: unified variables have to share a single filter
+   */
+  private static boolean isCollapsible(PointerKey key) {
+    if (key instanceof FilteredPointerKey || key instanceof ReturnValueKey) {
+      return false;
+    }
+    return !(key instanceof LocalPointerKey && ((LocalPointerKey) key).isParameter());
+  }
+
+  private static boolean refersTo(AbstractStatement<PointsToSetVariable, ?> s, Set<PointsToSetVariable> vars) {
+    if (s.getLHS() != null && vars.contains(s.getLHS())) {
+      return true;
+    }
+    if (s instanceof UnaryStatement) {
+      return vars.contains(((UnaryStatement<PointsToSetVariable>) s).getRightHandSide());
+    }
+    if (s instanceof GeneralStatement) {
+      for (PointsToSetVariable v : s.getRHS()) {
+        if (v != null && vars.contains(v)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean solve(IProgressMonitor monitor) throws CancelException {
+    if (solverThreads <= 1) {
+      return super.solve(monitor);
+    }
+    if (isFirstSolve()) {
+      initForFirstSolve();
+    }
+    if (solverPool == null) {
+      solverPool = Executors.newFixedThreadPool(solverThreads, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "points-to solver");
+          // a system that is never shut down must not keep the vm alive
+          t.setDaemon(true);
+          return t;
+        }
+      });
+    }
+    return solveInRounds(monitor);
+  }
+
+  /**
+   * Stops the worker threads of {@link #solve(IProgressMonitor)}. A later solve creates new ones.
+   */
+  public void shutdownSolverThreads() {
+    if (solverPool != null) {
+      solverPool.shutdownNow();
+      solverPool = null;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private boolean solveInRounds(IProgressMonitor monitor) throws CancelException {
+    boolean globalChange = false;
+    List<AbstractStatement> round = new ArrayList<AbstractStatement>();
+    while (!workList.isEmpty()) {
+      MonitorUtil.throwExceptionIfCanceled(monitor);
+      orderStatements();
+      round.clear();
+      while (!workList.isEmpty()) {
+        round.add(workList.takeStatement());
+      }
+      PrecomputedEffect[] effects = computeAdditions(round);
+      for (int i = 0; i < round.size(); i++) {
+        AbstractStatement s = round.get(i);
+        byte code;
+        if (effects[i] == null) {
+          code = s.evaluate();
+        } else {
+          code = effects[i].apply() ? CHANGED : NOT_CHANGED;
+        }
+        if (verbose) {
+          incNumberOfEvaluations();
+          if (getNumberOfEvaluations() % getVerboseInterval() == 0) {
+            performVerboseAction();
+          }
+          if (getNumberOfEvaluations() % getPeriodicMaintainInterval() == 0) {
+            periodicMaintenance();
+          }
+        }
+        if (isChanged(code)) {
+          globalChange = true;
+          updateWorkList(s);
+        }
+        if (isFixed(code)) {
+          removeStatement(s);
+        }
+      }
+    }
+    return globalChange;
+  }
+
+  /**
+   * The effect of a statement of a round, computed at the beginning of the round.
+   */
+  private interface PrecomputedEffect {
+    /**
+     * Applies the effect to the current state, like evaluating the statement would.
+     *
+     * @return true iff the value of some variable changed
+     */
+    boolean apply();
+  }
+
+  /**
+   * The elements of the right-hand side of an assignment that are missing in its left-hand side.
+   */
+  private static final class Addition implements PrecomputedEffect {
+    private final PointsToSetVariable lhs;
+
+    private final MutableSparseIntSet elements;
+
+    /**
+     * the size of the left-hand side when the elements were computed
+     */
+    private final int lhsSize;
+
+    Addition(PointsToSetVariable lhs, IntSet rhs) {
+      this.lhs = lhs;
+      this.lhsSize = lhs.size();
+      this.elements = MutableSparseIntSet.makeEmpty();
+      IntSetAction action = new IntSetAction() {
+        @Override
+        public void act(int x) {
+          elements.add(x);
+        }
+      };
+      if (lhs.getValue() == null) {
+        rhs.foreach(action);
+      } else {
+        rhs.foreachExcluding(lhs.getValue(), action);
+      }
+    }
+
+    @Override
+    public boolean apply() {
+      // points-to sets only grow while solving, so an equal size means that lhs did not change since
+      return lhs.size() == lhsSize ? lhs.addAllNew(elements) : lhs.addAll(elements);
+    }
+  }
+
+  /**
+   * The additions of the implicit assignments that a difference statement for v pushes the difference of v along.
+   */
+  private final class DifferenceAdditions implements PrecomputedEffect {
+    private final PointsToSetVariable v;
+
+    /**
+     * the size of the difference of v when the additions were computed
+     */
+    private final int differenceSize;
+
+    private final Map<PointsToSetVariable, Addition> targets = HashMapFactory.make();
+
+    @SuppressWarnings("unchecked")
+    DifferenceAdditions(PointsToSetVariable v, IntSet difference) {
+      this.v = v;
+      this.differenceSize = difference.size();
+      for (Iterator<AbstractStatement> it = flowGraph.getImplicitStatementsThatUse(v); it.hasNext();) {
+        UnaryStatement<PointsToSetVariable> s = (UnaryStatement<PointsToSetVariable>) it.next();
+        if (s.getOperator() instanceof AssignOperator) {
+          targets.put(s.getLHS(), new Addition(s.getLHS(), difference));
+        }
+      }
+    }
+
+    @Override
+    public boolean apply() {
+      return propagateDifference(v, this);
+    }
+  }
+
+  /**
+   * For every assignment of the round whose left-hand side already holds a value, and for every difference statement
+   * whose variable has a difference, computes what the statement adds to the left-hand sides of assignments. All
+   * other entries are null, these statements are evaluated as usual. Only reads the points-to sets and the flow graph,
+   * so the computation is spread over the solver threads.
+   */
+  private PrecomputedEffect[] computeAdditions(final List<AbstractStatement> round) throws CancelException {
+    final PrecomputedEffect[] result = new PrecomputedEffect[round.size()];
+    final List<Integer> statements = new ArrayList<Integer>();
+    for (int i = 0; i < round.size(); i++) {
+      AbstractStatement s = round.get(i);
+      if (s.getOperator() == differenceOperator
+          || (s.getOperator() instanceof AssignOperator && ((PointsToSetVariable) s.getLHS()).getValue() != null)) {
+        statements.add(i);
+      }
+    }
+    if (statements.size() < MIN_PARALLEL_STATEMENTS) {
+      for (int i : statements) {
+        result[i] = computeAddition((UnaryStatement) round.get(i));
+      }
+      return result;
+    }
+    int chunks = solverThreads * 4;
+    int chunkSize = (statements.size() + chunks - 1) / chunks;
+    List<Future<?>> pending = new ArrayList<Future<?>>(chunks);
+    for (int start = 0; start < statements.size(); start += chunkSize) {
+      final List<Integer> chunk = statements.subList(start, Math.min(start + chunkSize, statements.size()));
+      pending.add(solverPool.submit(new Callable<Object>() {
+        @Override
+        public Object call() {
+          for (int i : chunk) {
+            result[i] = computeAddition((UnaryStatement) round.get(i));
+          }
+          return null;
+        }
+      }));
+    }
+    try {
+      for (Future<?> f : pending) {
+        f.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw CancelException.make("interrupted while solving");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    }
+    return result;
+  }
+
+  private PrecomputedEffect computeAddition(UnaryStatement s) {
+    PointsToSetVariable rhs = (PointsToSetVariable) s.getRightHandSide();
+    if (s.getOperator() == differenceOperator) {
+      IntSet difference = rhs.getDifference();
+      return difference == null ? null : new DifferenceAdditions(rhs, difference);
+    }
+    IntSet value = rhs.getValue();
+    return new Addition((PointsToSetVariable) s.getLHS(), value == null ? IntSetUtil.make() : value);
+  }
+
   /*
    * @see com.ibm.wala.ipa.callgraph.propagation.HeapModel#iteratePointerKeys()
    */
@@ -47,13 +47,7 @@ public final class Descriptor {
     if (parameters != null && parameters.length == 0) {
       parameters = null;
     }
-    Key k = new Key(returnType, parameters);
-    Descriptor result = map.get(k);
-    if (result == null) {
-      result = new Descriptor(k);
-      map.put(k, result);
-    }
-    return result;
+    return findOrCreate(new Key(returnType, parameters));
   }
 
   /**
@@ -63,7 +57,14 @@ public final class Descriptor {
   public static Descriptor findOrCreate(Language l, ImmutableByteArray b) throws IllegalArgumentException {
     TypeName returnType = StringStuff.parseForReturnTypeName(l, b);
     TypeName[] parameters = StringStuff.parseForParameterNames(l, b);
-    Key k = new Key(returnType, parameters);
+    return findOrCreate(new Key(returnType, parameters));
+  }
+
+  /**
+   * synchronized like {@link TypeReference#findOrCreate(ClassLoaderReference, TypeName)}, as class hierarchies may be
+   * built concurrently
+   */
+  private static synchronized Descriptor findOrCreate(Key k) {
     Descriptor result = map.get(k);
     if (result == null) {
       result = new Descriptor(k);
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.callGraph;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarFile;
+
+import junit.framework.TestCase;
+
+import com.ibm.wala.classLoader.BinaryDirectoryTreeModule;
+import com.ibm.wala.core.tests.callGraph.data.SolverInput;
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.types.ClassLoaderReference;
+
+/**
+ * Checks that solving the pointer analysis in rounds on several threads and collapsing cycles of assignments give
+ * the same points-to sets and call graph as the sequential solver. Every configuration propagates differences, see
+ * {@link com.ibm.wala.ipa.callgraph.propagation.PointsToSetVariable#DIFFERENCE_PROPAGATION}.
+ */
+public class TestSolverThreads extends TestCase {
+
+  private static final String STUBS = "../joana.contrib.lib/stubs/jSDG-stubs-jre1.4.jar";
+
+  private static final int THREADS = 4;
+
+  private AnalysisScope scope;
+
+  private IClassHierarchy cha;
+
+  @Override
+  protected void setUp() throws Exception {
+    scope = AnalysisScope.createJavaAnalysisScope();
+    scope.addToScope(ClassLoaderReference.Primordial, new JarFile(STUBS));
+    final File input = new File(SolverInput.class.getResource(SolverInput.class.getSimpleName() + ".class").toURI());
+    scope.addToScope(ClassLoaderReference.Application, new BinaryDirectoryTreeModule(input.getParentFile()));
+    cha = ClassHierarchy.make(scope);
+  }
+
+  /**
+   * The points-to set of each pointer key and the call graph edges, as sorted strings.
+   */
+  private Set<String> solve(boolean containers, int threads, boolean cycleElimination) throws Exception {
+    final AnalysisOptions options = new AnalysisOptions(scope, Util.makeMainEntrypoints(scope, cha,
+        "Lcom/ibm/wala/core/tests/callGraph/data/SolverInput"));
+    final SSAPropagationCallGraphBuilder builder = containers
+        ? Util.makeZeroOneContainerCFABuilder(options, new AnalysisCache(), cha, scope)
+        : Util.makeZeroCFABuilder(options, new AnalysisCache(), cha, scope);
+    builder.setSolverThreads(threads);
+    builder.setCycleElimination(cycleElimination);
+    final CallGraph cg = builder.makeCallGraph(options, null);
+
+    final Set<String> result = new TreeSet<String>();
+    final PointerAnalysis<InstanceKey> pa = builder.getPointerAnalysis();
+    for (PointerKey pk : pa.getPointerKeys()) {
+      final Set<String> pts = new TreeSet<String>();
+      for (InstanceKey ik : pa.getPointsToSet(pk)) {
+        pts.add(ik.toString());
+      }
+      result.add(pk + " -> " + pts);
+    }
+    for (CGNode n : cg) {
+      for (Iterator<CGNode> it = cg.getSuccNodes(n); it.hasNext();) {
+        result.add(n + " calls " + it.next());
+      }
+    }
+    return result;
+  }
+
+  private void checkSameAsSequential(boolean containers) throws Exception {
+    final Set<String> sequential = solve(containers, 1, false);
+    assertFalse(sequential.isEmpty());
+    assertEquals(sequential, solve(containers, THREADS, false));
+    assertEquals(sequential, solve(containers, 1, true));
+    assertEquals(sequential, solve(containers, THREADS, true));
+  }
+
+  public void testZeroCFA() throws Exception {
+    checkSameAsSequential(false);
+  }
+
+  public void testZeroOneContainerCFA() throws Exception {
+    checkSameAsSequential(true);
+  }
+
+}
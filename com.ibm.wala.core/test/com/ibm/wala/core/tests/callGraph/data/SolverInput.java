@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.callGraph.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Input program for the solver tests: library containers, virtual calls and assignments that form cycles.
+ */
+public class SolverInput {
+
+  static class Node {
+    Object value;
+
+    Node next;
+
+    Node(Object value, Node next) {
+      this.value = value;
+      this.next = next;
+    }
+
+    Object get() {
+      return value;
+    }
+  }
+
+  static class CopyNode extends Node {
+    CopyNode(Object value, Node next) {
+      super(value, next);
+    }
+
+    @Override
+    Object get() {
+      return next == null ? value : next.get();
+    }
+  }
+
+  static Node swap(Node a, Node b) {
+    Node t = a;
+    a = b;
+    b = t;
+    a.next = b;
+    b.next = a;
+    return a.next;
+  }
+
+  public static void main(String[] args) {
+    Map<String, Node> map = new HashMap<String, Node>();
+    List<Object> list = new ArrayList<Object>();
+    Node head = null;
+    for (int i = 0; i < args.length; i++) {
+      head = (i % 2 == 0) ? new Node(args[i], head) : new CopyNode(new StringBuffer(args[i]), head);
+      map.put(args[i], head);
+      list.add(head.get());
+    }
+    Node first = new Node(list, head);
+    Node other = new CopyNode(map, first);
+    for (Node n = swap(first, other); n != null; n = n.next) {
+      list.add(n.get());
+    }
+    for (Iterator<Object> it = list.iterator(); it.hasNext();) {
+      System.out.println(it.next());
+    }
+    System.out.println(map.get(args[0]).get());
+  }
+}
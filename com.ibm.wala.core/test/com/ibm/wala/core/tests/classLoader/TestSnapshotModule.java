@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.classLoader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import junit.framework.TestCase;
+
+import com.ibm.wala.classLoader.JarFileModule;
+import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.classLoader.ModuleEntry;
+import com.ibm.wala.classLoader.SnapshotModule;
+
+/**
+ * Checks that a {@link SnapshotModule} serves the class files of its source, and that a snapshot with a wrong
+ * checksum, of an older version or cut off is written anew instead of being used.
+ */
+public class TestSnapshotModule extends TestCase {
+
+  private static final String KEY = "0123456789abcdef";
+
+  /**
+   * offset of the version in the header of a snapshot
+   */
+  private static final int VERSION_OFFSET = 4;
+
+  /**
+   * offset of the first byte covered by the checksum
+   */
+  private static final int CONTENTS_OFFSET = 12;
+
+  private File dir;
+
+  private JarFile jar;
+
+  private Map<String, String> classes;
+
+  @Override
+  protected void setUp() throws IOException {
+    dir = File.createTempFile("snapshots", "");
+    assertTrue(dir.delete());
+    assertTrue(dir.mkdir());
+
+    classes = new TreeMap<String, String>();
+    classes.put("a/A.class", "contents of A");
+    classes.put("a/b/B.class", "contents of B");
+    final File file = new File(dir, "classes.jar");
+    final JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+    try {
+      for (Map.Entry<String, String> e : classes.entrySet()) {
+        out.putNextEntry(new ZipEntry(e.getKey()));
+        out.write(e.getValue().getBytes("UTF-8"));
+        out.closeEntry();
+      }
+      out.putNextEntry(new ZipEntry("README"));
+      out.closeEntry();
+    } finally {
+      out.close();
+    }
+    jar = new JarFile(file);
+  }
+
+  @Override
+  protected void tearDown() throws IOException {
+    jar.close();
+    for (File f : dir.listFiles()) {
+      f.delete();
+    }
+    dir.delete();
+  }
+
+  private static Map<String, String> contents(Module m) throws IOException {
+    final Map<String, String> result = new TreeMap<String, String>();
+    for (Iterator<? extends ModuleEntry> it = m.getEntries(); it.hasNext();) {
+      final ModuleEntry entry = it.next();
+      final InputStream in = entry.getInputStream();
+      try {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int b = in.read(); b != -1; b = in.read()) {
+          bytes.write(b);
+        }
+        result.put(entry.getName(), bytes.toString("UTF-8"));
+      } finally {
+        in.close();
+      }
+    }
+    return result;
+  }
+
+  private File snapshotFile() {
+    final File[] files = dir.listFiles();
+    for (File f : files) {
+      if (f.getName().startsWith(KEY)) {
+        return f;
+      }
+    }
+    fail("no snapshot in " + dir);
+    return null;
+  }
+
+  /**
+   * Checks that the damaged snapshot is not found, and that it is written anew from the jar.
+   */
+  private void checkRewritten() throws IOException {
+    assertNull(SnapshotModule.find(dir, KEY));
+    assertEquals(classes, contents(SnapshotModule.findOrCreate(dir, KEY, new JarFileModule(jar))));
+    assertEquals(classes, contents(SnapshotModule.find(dir, KEY)));
+  }
+
+  public void testCreateAndFind() throws IOException {
+    assertNull(SnapshotModule.find(dir, KEY));
+    assertEquals(classes, contents(SnapshotModule.findOrCreate(dir, KEY, new JarFileModule(jar))));
+
+    // a valid snapshot does not need its source
+    final Module unused = new Module() {
+      @Override
+      public Iterator<? extends ModuleEntry> getEntries() {
+        throw new AssertionError("source of a valid snapshot read");
+      }
+    };
+    assertEquals(classes, contents(SnapshotModule.findOrCreate(dir, KEY, unused)));
+  }
+
+  public void testCorruptChecksum() throws IOException {
+    SnapshotModule.create(dir, KEY, new JarFileModule(jar));
+    final RandomAccessFile raf = new RandomAccessFile(snapshotFile(), "rw");
+    try {
+      final long pos = raf.length() - 1;
+      raf.seek(pos);
+      final int last = raf.read();
+      raf.seek(pos);
+      raf.write(last ^ 0xff);
+    } finally {
+      raf.close();
+    }
+    checkRewritten();
+  }
+
+  public void testOldVersion() throws IOException {
+    SnapshotModule.create(dir, KEY, new JarFileModule(jar));
+    final RandomAccessFile raf = new RandomAccessFile(snapshotFile(), "rw");
+    try {
+      raf.seek(VERSION_OFFSET);
+      final int version = raf.readInt();
+      raf.seek(VERSION_OFFSET);
+      raf.writeInt(version - 1);
+    } finally {
+      raf.close();
+    }
+    checkRewritten();
+  }
+
+  public void testTruncated() throws IOException {
+    SnapshotModule.create(dir, KEY, new JarFileModule(jar));
+    final RandomAccessFile raf = new RandomAccessFile(snapshotFile(), "rw");
+    try {
+      raf.setLength(raf.length() - 3);
+    } finally {
+      raf.close();
+    }
+    checkRewritten();
+
+    final RandomAccessFile header = new RandomAccessFile(snapshotFile(), "rw");
+    try {
+      header.setLength(CONTENTS_OFFSET - 1);
+    } finally {
+      header.close();
+    }
+    checkRewritten();
+  }
+
+}
@@ -113,6 +113,13 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<?>> implement
     firstSolve = false;
   }
 
+  /**
+   * @return true iff {@link #initForFirstSolve()} has not been performed yet
+   */
+  protected boolean isFirstSolve() {
+    return firstSolve;
+  }
+
   /**
    * @return true iff work list is empty
    */
@@ -453,7 +460,7 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<?>> implement
    * 
    * @param s the equation that has been re-evaluated.
    */
-  private void updateWorkList(AbstractStatement<T, ?> s) {
+  protected void updateWorkList(AbstractStatement<T, ?> s) {
     // find each equation which uses this lattice cell, and
     // add it to the work list
     T v = s.getLHS();
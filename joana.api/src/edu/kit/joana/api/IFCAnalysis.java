@@ -7,8 +7,13 @@
  */
 package edu.kit.joana.api;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -33,6 +38,7 @@ import edu.kit.joana.api.sdg.SDGProgram;
 import edu.kit.joana.api.sdg.SDGProgramPart;
 import edu.kit.joana.api.sdg.SDGProgramPartWriter;
 import edu.kit.joana.api.sdg.ThrowingSDGProgramPartVisitor;
+import edu.kit.joana.ifc.sdg.core.DirectedSlicer.Direction;
 import edu.kit.joana.ifc.sdg.core.IFC;
 import edu.kit.joana.ifc.sdg.core.ReduceRedundantFlows;
 import edu.kit.joana.ifc.sdg.core.SecurityNode;
@@ -44,16 +50,18 @@ import edu.kit.joana.ifc.sdg.core.conc.OrderConflict;
 import edu.kit.joana.ifc.sdg.core.conc.PossibilisticNIChecker;
 import edu.kit.joana.ifc.sdg.core.conc.ProbabilisticNIChecker;
 import edu.kit.joana.ifc.sdg.core.conc.TimeSensitiveIFCDecorator;
+import edu.kit.joana.ifc.sdg.core.violations.ClassifiedViolation;
 import edu.kit.joana.ifc.sdg.core.violations.ConflictEdge;
 import edu.kit.joana.ifc.sdg.core.violations.IIllegalFlow;
 import edu.kit.joana.ifc.sdg.core.violations.IViolation;
 import edu.kit.joana.ifc.sdg.core.violations.IllegalFlow;
 import edu.kit.joana.ifc.sdg.core.violations.ViolationMapper;
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.Slicer;
 import edu.kit.joana.ifc.sdg.graph.slicer.conc.I2PBackward;
 import edu.kit.joana.ifc.sdg.graph.slicer.conc.I2PForward;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.MHPAnalysis;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PreciseMHPAnalysis;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.SimpleMHPAnalysis;
 import edu.kit.joana.ifc.sdg.lattice.IStaticLattice;
 import edu.kit.joana.ifc.sdg.mhpoptimization.CSDGPreprocessor;
 import edu.kit.joana.ifc.sdg.mhpoptimization.MHPType;
@@ -78,6 +86,7 @@ public class IFCAnalysis {
 	private IFC ifc;
 	private boolean timeSensitiveAnalysis = false;
 	private boolean removeRedundantFlows = false;
+	private int ifcThreads = 1;
 
 	public static final IStaticLattice<String> stdLattice = BuiltinLattices.getBinaryLattice();
 
@@ -114,7 +123,20 @@ public class IFCAnalysis {
 		MHPAnalysis mhp;
 		switch (this.ifcType) {
 		case CLASSICAL_NI:
-			this.ifc = new SlicingBasedIFC(this.program.getSDG(), secLattice, new I2PForward(this.program.getSDG()), new I2PBackward(this.program.getSDG()));
+			SlicingBasedIFC sbIFC = new SlicingBasedIFC(this.program.getSDG(), secLattice, new SlicingBasedIFC.SlicerFactory() {
+				@Override
+				public Slicer createSlicer(SDG sdg) {
+					return new I2PForward(sdg);
+				}
+			}, new SlicingBasedIFC.SlicerFactory() {
+				@Override
+				public Slicer createSlicer(SDG sdg) {
+					return new I2PBackward(sdg);
+				}
+			});
+			sbIFC.setBatchSlicing(true);
+			sbIFC.setThreads(ifcThreads);
+			this.ifc = sbIFC;
 			if (timeSensitiveAnalysis) {
 				if (this.program.getSDG().getThreadsInfo() == null) {
 					CSDGPreprocessor.preprocessSDG(this.program.getSDG());
@@ -150,9 +172,9 @@ public class IFCAnalysis {
 
 	private MHPAnalysis performMHPAnalysis(MHPType mhpType) {
 		if (mhpType == MHPType.SIMPLE) {
-			return SimpleMHPAnalysis.analyze(this.program.getSDG());
+			return this.program.getSDG().getAnalysisCache().getSimpleMHPAnalysis();
 		} else {
-			return PreciseMHPAnalysis.analyze(this.program.getSDG());
+			return this.program.getSDG().getAnalysisCache().getPreciseMHPAnalysis();
 		}
 	}
 
@@ -164,6 +186,21 @@ public class IFCAnalysis {
 		this.timeSensitiveAnalysis = newTimeSens;
 	}
 
+	/**
+	 * Sets the number of threads used by classical (slicing-based) IFC, which is 1 by default.
+	 * Takes effect for the IFC checks created by subsequent calls of {@link #doIFC(IFCType, MHPType)}
+	 * and for the current check if it is a {@link SlicingBasedIFC}.
+	 */
+	public void setIFCThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("number of threads must be positive: " + threads);
+		}
+		this.ifcThreads = threads;
+		if (this.ifc instanceof SlicingBasedIFC) {
+			((SlicingBasedIFC) this.ifc).setThreads(threads);
+		}
+	}
+
 	public void setLattice(IStaticLattice<String> secLattice) {
 		if (secLattice == null) {
 			throw new IllegalArgumentException();
@@ -301,6 +338,148 @@ public class IFCAnalysis {
 		return doIFC(IFCType.CLASSICAL_NI);
 	}
 
+	/**
+	 * Does classical IFC for several source/sink groupings at once, see {@link #doIFC(IFCType, MHPType, Map)}.
+	 * @param groupings the annotations of each grouping
+	 * @return the violations of each grouping
+	 */
+	public <K> Map<K, Collection<? extends IViolation<SecurityNode>>> doIFC(Map<K, ? extends Collection<IFCAnnotation>> groupings) {
+		return doIFC(IFCType.CLASSICAL_NI, MHPType.PRECISE, groupings);
+	}
+
+	/**
+	 * Does IFC of the specified type for several source/sink groupings at once. The result for each grouping is the
+	 * same as annotating exactly the given annotations and calling {@link #doIFC(IFCType, MHPType)}. For classical IFC
+	 * without time sensitivity, the slices are computed only once for the union of all annotated nodes by the
+	 * configured {@link SlicingBasedIFC}: one slice per sink (or per source, if there are fewer sources), with its
+	 * threads and batch settings. Hence groupings that share sinks or sources, like a grouping and its inversion, share
+	 * the traversals. All other groupings, i.e. all groupings of other IFC types and groupings with declassifications
+	 * or with nodes that are both source and sink, are checked one after another with {@link #doIFC(IFCType, MHPType)}.
+	 * The current annotations are restored afterwards.
+	 * @param ifcType type of IFC analysis to perform
+	 * @param mhpType precision of the MHP analysis to use, see {@link #doIFC(IFCType, MHPType)}
+	 * @param groupings the annotations of each grouping
+	 * @return the violations of each grouping
+	 */
+	public <K> Map<K, Collection<? extends IViolation<SecurityNode>>> doIFC(IFCType ifcType, MHPType mhpType,
+			Map<K, ? extends Collection<IFCAnnotation>> groupings) {
+		final Map<K, Collection<? extends IViolation<SecurityNode>>> result = new LinkedHashMap<K, Collection<? extends IViolation<SecurityNode>>>();
+		final Collection<IFCAnnotation> saved = annManager.getAnnotations();
+		final SDG sdg = this.program.getSDG();
+		final boolean sliceOnce = (ifcType == IFCType.CLASSICAL_NI && !timeSensitiveAnalysis);
+		// the end points of each grouping together with their levels in that grouping
+		final Map<K, Map<SecurityNode, String>> sourcesOf = new LinkedHashMap<K, Map<SecurityNode, String>>();
+		final Map<K, Map<SecurityNode, String>> sinksOf = new LinkedHashMap<K, Map<SecurityNode, String>>();
+		final Map<SecurityNode, Integer> sources = new LinkedHashMap<SecurityNode, Integer>();
+		final Map<SecurityNode, Integer> sinks = new LinkedHashMap<SecurityNode, Integer>();
+
+		try {
+			for (Entry<K, ? extends Collection<IFCAnnotation>> grouping : groupings.entrySet()) {
+				setAnnotations(grouping.getValue());
+				if (!sliceOnce || !annManager.getDeclassifications().isEmpty()) {
+					result.put(grouping.getKey(), doIFC(ifcType, mhpType));
+					continue;
+				}
+
+				final Map<SecurityNode, String> groupSources = new LinkedHashMap<SecurityNode, String>();
+				final Map<SecurityNode, String> groupSinks = new LinkedHashMap<SecurityNode, String>();
+				boolean sourceAndSink = false;
+				annManager.applyAllAnnotations();
+				for (SDGNode n : sdg.vertexSet()) {
+					final SecurityNode sn = (SecurityNode) n;
+					if (sn.getProvided() != SecurityNode.UNDEFINED) {
+						groupSources.put(sn, sn.getProvided());
+					}
+					if (sn.getRequired() != SecurityNode.UNDEFINED) {
+						groupSinks.put(sn, sn.getRequired());
+					}
+					// annotated as source and as sink, hence no end point of the configured check
+					sourceAndSink |= sn.isDeclassification();
+				}
+				annManager.unapplyAllAnnotations();
+				if (sourceAndSink) {
+					result.put(grouping.getKey(), doIFC(ifcType, mhpType));
+					continue;
+				}
+
+				for (SecurityNode sn : groupSources.keySet()) {
+					if (!sources.containsKey(sn)) {
+						sources.put(sn, sources.size());
+					}
+				}
+				for (SecurityNode sn : groupSinks.keySet()) {
+					if (!sinks.containsKey(sn)) {
+						sinks.put(sn, sinks.size());
+					}
+				}
+				sourcesOf.put(grouping.getKey(), groupSources);
+				sinksOf.put(grouping.getKey(), groupSinks);
+			}
+		} finally {
+			setAnnotations(saved);
+		}
+
+		if (sourcesOf.isEmpty()) {
+			return result;
+		}
+
+		setIFCType(ifcType, mhpType);
+		final SlicingBasedIFC sbIFC = (SlicingBasedIFC) this.ifc;
+		// slice from the smaller set of end points, like SlicingBasedIFC
+		final boolean backward = sources.size() >= sinks.size();
+		final List<SecurityNode> endPoints = new ArrayList<SecurityNode>((backward ? sinks : sources).keySet());
+		// bit i of reaching[j] is set iff start point j is in the slice of end point i
+		final BitSet[] reaching = sbIFC.reachingEndPoints(endPoints, (backward ? Direction.BACKWARD : Direction.FORWARD),
+				(backward ? sources : sinks));
+
+		for (Entry<K, Map<SecurityNode, String>> grouping : sinksOf.entrySet()) {
+			final List<ClassifiedViolation> vios = new LinkedList<ClassifiedViolation>();
+			for (Entry<SecurityNode, String> sinkEntry : grouping.getValue().entrySet()) {
+				final SecurityNode sink = sinkEntry.getKey();
+				final String sinkLevel = sinkEntry.getValue();
+				for (Entry<SecurityNode, String> sourceEntry : sourcesOf.get(grouping.getKey()).entrySet()) {
+					final SecurityNode source = sourceEntry.getKey();
+					final int startPoint = (backward ? sources.get(source) : sinks.get(sink));
+					final int endPoint = (backward ? sinks.get(sink) : sources.get(source));
+					if (reaching[startPoint].get(endPoint)
+							&& !secLattice.leastUpperBound(sourceEntry.getValue(), sinkLevel).equals(sinkLevel)) {
+						vios.add(ClassifiedViolation.createViolation(sink, source, sinkLevel));
+					}
+				}
+			}
+			result.put(grouping.getKey(), vios);
+		}
+
+		// keep the order of the given groupings
+		final Map<K, Collection<? extends IViolation<SecurityNode>>> ordered = new LinkedHashMap<K, Collection<? extends IViolation<SecurityNode>>>();
+		for (K key : groupings.keySet()) {
+			ordered.put(key, result.get(key));
+		}
+
+		return ordered;
+	}
+
+	/**
+	 * Like {@link #groupByPPPart(Collection)}, but resolves the nodes of the violations with the given annotations
+	 * instead of the current ones, e.g. for a grouping of {@link #doIFC(Map)}. The current annotations are restored afterwards.
+	 */
+	public TObjectIntMap<IViolation<SDGProgramPart>> groupByPPPart(Collection<? extends IViolation<SecurityNode>> vios, Collection<IFCAnnotation> annotations) {
+		final Collection<IFCAnnotation> saved = annManager.getAnnotations();
+		try {
+			setAnnotations(annotations);
+			return groupByPPPart(vios);
+		} finally {
+			setAnnotations(saved);
+		}
+	}
+
+	private void setAnnotations(Collection<IFCAnnotation> annotations) {
+		annManager.removeAllAnnotations();
+		for (IFCAnnotation ann : annotations) {
+			annManager.addAnnotation(ann);
+		}
+	}
+
 	public boolean isAnnotated(SDGProgramPart part) {
 		return annManager.isAnnotated(part);
 	}
@@ -9,6 +9,7 @@ package edu.kit.joana.api.sdg;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -24,12 +25,14 @@ import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
 
 import com.ibm.wala.cfg.exc.intra.MethodState;
+import com.ibm.wala.classLoader.ClassLoaderFactoryImpl;
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.classLoader.JarFileModule;
 import com.ibm.wala.classLoader.JarStreamModule;
 import com.ibm.wala.classLoader.Language;
 import com.ibm.wala.classLoader.Module;
+import com.ibm.wala.classLoader.SnapshotModule;
 import com.ibm.wala.ipa.callgraph.AnalysisCache;
 import com.ibm.wala.ipa.callgraph.AnalysisScope;
 import com.ibm.wala.ipa.callgraph.ContextSelector;
@@ -126,7 +129,14 @@ public final class SDGBuildPreparation {
 	public static ClassHierarchy computeClassHierarchy(PrintStream out, Config cfg) throws IOException, ClassHierarchyException {
 		AnalysisScope scope = setUpAnalysisScope(out, cfg);
 		// Klassenhierarchie berechnen
-		return ClassHierarchy.make(scope);
+		return makeClassHierarchy(scope, cfg);
+	}
+
+	private static ClassHierarchy makeClassHierarchy(AnalysisScope scope, Config cfg) throws ClassHierarchyException {
+		final ClassLoaderFactoryImpl factory = new ClassLoaderFactoryImpl(scope.getExclusions());
+		factory.setLoadingThreads(cfg.classLoadingThreads);
+
+		return ClassHierarchy.make(scope, factory);
 	}
 
 
@@ -181,6 +191,48 @@ public final class SDGBuildPreparation {
 		}
 	}
 
+	/**
+	 * Returns a snapshot of the class files of the jar at the given path, which is identified by the digest of the jar.
+	 * The jar itself is only opened if the snapshot has to be written.
+	 */
+	private static Module findSnapshotModule(final PrintStream out, final String path, final String snapshotDir)
+			throws IOException {
+		final File f = new File(path);
+		final InputStream in = (f.exists() ? new FileInputStream(f)
+				: SDGBuildPreparation.class.getClassLoader().getResourceAsStream(path));
+		final String key;
+		try {
+			key = SnapshotModule.digest(in);
+		} finally {
+			in.close();
+		}
+		out.print("(snapshot " + key + ") ");
+
+		final File dir = new File(snapshotDir);
+		final SnapshotModule snapshot = SnapshotModule.find(dir, key);
+		if (snapshot != null) {
+			return snapshot;
+		}
+		if (f.exists()) {
+			out.print("(from file " + path + ") ");
+			final JarFile jar = new JarFile(f);
+			try {
+				return SnapshotModule.create(dir, key, new JarFileModule(jar));
+			} finally {
+				jar.close();
+			}
+		} else {
+			out.print("(from jar stream " + path + ") ");
+			final JarInputStream jar =
+					new JarInputStream(SDGBuildPreparation.class.getClassLoader().getResourceAsStream(path));
+			try {
+				return SnapshotModule.create(dir, key, new JarStreamModule(jar));
+			} finally {
+				jar.close();
+			}
+		}
+	}
+
 	public static AnalysisScope setUpAnalysisScope(final PrintStream out, final Config cfg) throws IOException {
 		// Fuegt die normale Java Bibliothek zum Scope hinzu
 
@@ -191,7 +243,8 @@ public final class SDGBuildPreparation {
 		// if use stubs
 		if (cfg.stubs != null) {
 			scope = AnalysisScope.createJavaAnalysisScope();
-			final Module stubs = findJarModule(out, cfg.stubs);
+			final Module stubs = (cfg.stubsSnapshotDir != null
+					? findSnapshotModule(out, cfg.stubs, cfg.stubsSnapshotDir) : findJarModule(out, cfg.stubs));
 			scope.addToScope(ClassLoaderReference.Primordial, stubs);
 
 		} else {
@@ -242,7 +295,7 @@ public final class SDGBuildPreparation {
 		System.out.print("Creating class hierarchy...");
 
 		// Klassenhierarchie berechnen
-		ClassHierarchy cha = ClassHierarchy.make(scope);
+		ClassHierarchy cha = makeClassHierarchy(scope, cfg);
 
 		out.println("(" + cha.getNumberOfClasses() + " classes) done.");
 		System.out.println("(" + cha.getNumberOfClasses() + " classes) done.");
@@ -452,6 +505,12 @@ public final class SDGBuildPreparation {
 		scfg.computeAllocationSites = cfg.computeAllocationSites;
 		scfg.cgConsumer = cfg.cgConsumer;
 		scfg.additionalContextSelector = cfg.ctxSelector;
+		scfg.intraprocThreads = cfg.intraprocThreads;
+		scfg.pointsToThreads = cfg.pointsToThreads;
+		scfg.pointsToCycleElimination = cfg.pointsToCycleElimination;
+		scfg.compactSummary = cfg.compactSummary;
+		scfg.summaryThreads = cfg.summaryThreads;
+		scfg.previousSDG = cfg.previousSDG;
 		return Pair.make(startTime, scfg);
 	}
 
@@ -479,17 +538,21 @@ public final class SDGBuildPreparation {
 
 		return sdg;
 	}
-	private static long[] timeAndMemory;
+	/** per thread, so that SDGs can be built concurrently */
+	private static final ThreadLocal<long[]> timeAndMemory = new ThreadLocal<long[]>();
+	/**
+	 * @return time and memory of the last build of the calling thread by {@link #computeAndKeepBuilder}
+	 */
 	public static long[] getTimeAndMemory()
 	{
-	  return timeAndMemory;
+	  return timeAndMemory.get();
 	}
 	public static Pair<SDG, SDGBuilder> computeAndKeepBuilder(PrintStream out, Config cfg, boolean computeInterference, IProgressMonitor progress) throws UnsoundGraphException, CancelException, IOException, ClassHierarchyException {
 		Pair<Long, SDGBuilder.SDGBuilderConfig> p = prepareBuild(out, cfg, computeInterference, progress);
 		long startTime = p.fst;
 		SDGBuilder.SDGBuilderConfig scfg = p.snd;
 		final Pair<SDG, SDGBuilder> ret = SDGBuilder.buildAndKeepBuilder(scfg, progress);
-		timeAndMemory = postpareBuild(startTime, out);
+		timeAndMemory.set(postpareBuild(startTime, out));
 		//		SDGVerifier.verify(sdg, false, true);
 
 		return ret;
@@ -545,6 +608,15 @@ public final class SDGBuildPreparation {
 		public boolean computeAllocationSites = false;
 		public CGConsumer cgConsumer = null;
 		public ContextSelector ctxSelector = null;
+		public int classLoadingThreads = 1;
+		public int intraprocThreads = 1;
+		public int pointsToThreads = 1;
+		public boolean pointsToCycleElimination = false;
+		public boolean compactSummary = false;
+		public int summaryThreads = 1;
+		public SDG previousSDG = null;
+		/** if not null, the stubs are loaded from a snapshot in this directory */
+		public String stubsSnapshotDir = null;
 		public Config(String name) {
 			this(name, "<no entry defined>", FieldPropagation.OBJ_GRAPH);
 		}
@@ -0,0 +1,304 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.api.sdg;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import edu.kit.joana.ifc.sdg.core.SecurityNode;
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGBinarySerializer;
+import edu.kit.joana.util.Log;
+import edu.kit.joana.util.Logger;
+import edu.kit.joana.util.Stubs;
+
+/**
+ * A directory of SDGs, keyed by the content they were built from. The key of a configuration is a hash of
+ * the bytes of all files on its class path and third party library path, of the stubs and natives
+ * specification, and of all options of the {@link SDGConfig} that influence the resulting graph. Hence
+ * an SDG is only reused if the analyzed code and the configuration are unchanged, no matter where the
+ * code is located.<p>
+ *
+ * The graphs are stored in the binary format of {@link SDGBinarySerializer}. The total size of the cache
+ * is bounded: after a graph has been added, the least recently used graphs are deleted until the
+ * cache fits into its size limit. Files are written to a temporary file first and then renamed, so
+ * several analyses may share a cache directory.<p>
+ *
+ * Configurations with options that cannot be compared by value (a context selector, a side effect
+ * detector, a method filter, a call graph consumer or a default exception method state) are never cached.
+ * Note that a program served from the cache has no {@link edu.kit.joana.wala.core.SDGBuilder} and no Java source annotations,
+ * see {@link SDGProgram#createSDGProgram(SDGConfig, java.io.PrintStream, com.ibm.wala.util.MonitorUtil.IProgressMonitor, java.io.OutputStream)}.
+ */
+public class SDGCache {
+
+	private static final Logger debug = Log.getLogger(Log.L_API_DEBUG);
+
+	private static final String SUFFIX = ".sdg";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final File directory;
+	private final long maxBytes;
+
+	/**
+	 * @param directory directory of the cached graphs, created if it does not exist
+	 * @param maxBytes maximal total size of the cached graphs in bytes
+	 */
+	public SDGCache(File directory, long maxBytes) {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("cache size must be positive: " + maxBytes);
+		}
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return whether SDGs built with the given configuration may be cached
+	 */
+	public static boolean isCacheable(SDGConfig config) {
+		return config.getContextSelector() == null && config.getSideEffectDetectorConfig() == null
+				&& config.getMethodFilter() == null && config.getCGConsumer() == null
+				&& config.getDefaultExceptionMethodState() == null;
+	}
+
+	/**
+	 * Computes the key of the given configuration, i.e. a hash of the code it analyzes and of its options.
+	 * @param config a configuration for which {@link #isCacheable(SDGConfig)} holds
+	 * @return the key as hex string
+	 */
+	public static String computeKey(SDGConfig config) throws IOException {
+		final MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		addString(md, "v" + SDGBinarySerializer.VERSION);
+		addPath(md, config.getClassPath());
+		addPath(md, config.getThirdPartyLibsPath());
+		addStubs(md, config.getStubsPath());
+		addString(md, config.getNativesXML());
+		addFileIfExists(md, config.getNativesXML());
+		addString(md, config.getEntryMethod());
+		addString(md, config.getEntryMethods() == null ? null : config.getEntryMethods().toString());
+		addString(md, config.getExclusions());
+		addString(md, String.valueOf(config.getExceptionAnalysis()));
+		addString(md, String.valueOf(config.getFieldPropagation()));
+		addString(md, String.valueOf(config.getPointsToPrecision()));
+		addString(md, String.valueOf(config.computeAccessPaths()));
+		addString(md, String.valueOf(config.computeInterferences()));
+		addString(md, String.valueOf(config.getMhpType()));
+		addString(md, String.valueOf(config.getIgnoreIndirectFlows()));
+		addString(md, String.valueOf(config.computeAllocationSites()));
+		// the available pruning policies are stateless singletons
+		addString(md, config.getPruningPolicy() == null ? null : config.getPruningPolicy().getClass().getName());
+
+		final StringBuilder sb = new StringBuilder();
+		for (final byte b : md.digest()) {
+			sb.append(String.format("%02x", b));
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * @return the cached SDG of the given key, or null if there is none
+	 */
+	public SDG get(String key) throws IOException {
+		final File file = fileOf(key);
+		if (!file.isFile()) {
+			return null;
+		}
+
+		final SDG sdg;
+		try {
+			sdg = SDGBinarySerializer.readFrom(file.getPath(), new SecurityNode.SecurityNodeFactory());
+		} catch (IOException e) {
+			debug.outln("dropping unreadable cache entry " + file + ": " + e.getMessage());
+			file.delete();
+			return null;
+		}
+		// the modification time is the time of last use
+		file.setLastModified(System.currentTimeMillis());
+
+		return sdg;
+	}
+
+	/**
+	 * Adds the SDG to the cache and evicts the least recently used graphs if the cache is too large.
+	 */
+	public void put(String key, SDG sdg) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+			throw new IOException("cannot create cache directory " + directory);
+		}
+
+		final File tmp = File.createTempFile(key, ".tmp", directory);
+		try {
+			SDGBinarySerializer.toBinaryFormat(sdg, tmp.getPath());
+			final File file = fileOf(key);
+			if (!tmp.renameTo(file)) {
+				// e.g. another analysis added the same graph in the meantime
+				file.delete();
+				if (!tmp.renameTo(file)) {
+					throw new IOException("cannot move " + tmp + " to " + file);
+				}
+			}
+		} finally {
+			tmp.delete();
+		}
+
+		evict();
+	}
+
+	private void evict() {
+		final File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		final List<File> entries = new ArrayList<File>();
+		long total = 0;
+		for (final File f : files) {
+			if (f.isFile() && f.getName().endsWith(SUFFIX)) {
+				entries.add(f);
+				total += f.length();
+			}
+		}
+
+		Collections.sort(entries, new Comparator<File>() {
+			@Override
+			public int compare(File f1, File f2) {
+				return Long.compare(f1.lastModified(), f2.lastModified());
+			}
+		});
+		// the most recently added graph is kept, even if it alone exceeds the limit
+		for (int i = 0; i < entries.size() - 1 && total > maxBytes; i++) {
+			final File f = entries.get(i);
+			final long length = f.length();
+			if (f.delete()) {
+				debug.outln("evicted " + f);
+				total -= length;
+			}
+		}
+	}
+
+	private File fileOf(String key) {
+		return new File(directory, key + SUFFIX);
+	}
+
+	private static void addString(MessageDigest md, String str) {
+		if (str == null) {
+			md.update((byte) 0);
+		} else {
+			final byte[] bytes = str.getBytes(UTF8);
+			md.update((byte) 1);
+			addInt(md, bytes.length);
+			md.update(bytes);
+		}
+	}
+
+	private static void addInt(MessageDigest md, int value) {
+		md.update((byte) (value >>> 24));
+		md.update((byte) (value >>> 16));
+		md.update((byte) (value >>> 8));
+		md.update((byte) value);
+	}
+
+	/**
+	 * Adds the content of all files on the given path, where entries are separated by the path separator and
+	 * directories are traversed recursively in a fixed order.
+	 */
+	private static void addPath(MessageDigest md, String path) throws IOException {
+		if (path == null) {
+			md.update((byte) 0);
+			return;
+		}
+
+		md.update((byte) 1);
+		for (final String entry : path.split(File.pathSeparator)) {
+			if (entry.isEmpty()) {
+				continue;
+			}
+			final File f = new File(entry.endsWith("*") ? entry.substring(0, entry.length() - 1) : entry);
+			addTree(md, f, f.getName());
+		}
+	}
+
+	private static void addTree(MessageDigest md, File file, String relativeName) throws IOException {
+		if (file.isDirectory()) {
+			final File[] children = file.listFiles();
+			if (children == null) {
+				return;
+			}
+			Arrays.sort(children);
+			for (final File child : children) {
+				addTree(md, child, relativeName + "/" + child.getName());
+			}
+		} else if (file.isFile()) {
+			addString(md, relativeName);
+			addFile(md, file);
+		}
+	}
+
+	private static void addStubs(MessageDigest md, Stubs stubs) throws IOException {
+		addString(md, stubs == null ? null : stubs.getName());
+		if (stubs == null || stubs.getPath() == null) {
+			return;
+		}
+
+		final String path = stubs.getPath();
+		if (!addFileIfExists(md, path)) {
+			// stubs found by the class loader
+			final InputStream in = SDGCache.class.getClassLoader().getResourceAsStream(path);
+			if (in != null) {
+				addStream(md, in);
+			}
+		}
+	}
+
+	private static boolean addFileIfExists(MessageDigest md, String path) throws IOException {
+		if (path == null || !new File(path).isFile()) {
+			return false;
+		}
+
+		addFile(md, new File(path));
+		return true;
+	}
+
+	private static void addFile(MessageDigest md, File file) throws IOException {
+		addString(md, String.valueOf(file.length()));
+		addStream(md, new FileInputStream(file));
+	}
+
+	private static void addStream(MessageDigest md, InputStream in) throws IOException {
+		try {
+			final byte[] buf = new byte[1 << 16];
+			int read;
+			while ((read = in.read(buf)) >= 0) {
+				md.update(buf, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+}
@@ -14,6 +14,7 @@ import com.ibm.wala.ipa.callgraph.ContextSelector;
 import com.ibm.wala.ipa.callgraph.pruned.ApplicationLoaderPolicy;
 import com.ibm.wala.ipa.callgraph.pruned.PruningPolicy;
 
+import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.mhpoptimization.MHPType;
 import edu.kit.joana.util.JoanaConstants;
 import edu.kit.joana.util.Stubs;
@@ -47,6 +48,15 @@ public class SDGConfig {
 	private CGConsumer cgConsumer = null;
 	private ContextSelector ctxSelector;
 	private ConstructionNotifier notifier = null;
+	private int classLoadingThreads = 1;
+	private int intraprocThreads = 1;
+	private int pointsToThreads = 1;
+	private boolean pointsToCycleElimination = false;
+	private boolean compactSummary = false;
+	private int summaryThreads = 1;
+	private SDG previousSDG = null;
+	private String stubsSnapshotDir = null;
+	private SDGCache sdgCache = null;
 	
 	public SDGConfig(String classPath, String entryMethod, Stubs stubsPath) {
 		this(classPath, entryMethod, stubsPath, ExceptionAnalysis.INTERPROC, FieldPropagation.OBJ_GRAPH, PointsToPrecision.INSTANCE_BASED, false, false, MHPType.NONE);
@@ -336,4 +346,115 @@ public class SDGConfig {
 	public void setNotifier(ConstructionNotifier notifier) {
 		this.notifier = notifier;
 	}
+
+	public int getClassLoadingThreads() {
+		return classLoadingThreads;
+	}
+
+	/**
+	 * @param classLoadingThreads number of threads used to read and parse the class files when the class hierarchy
+	 * is built, values <= 1 read them sequentially. The classes are defined in the same order for any number of threads.
+	 */
+	public void setClassLoadingThreads(int classLoadingThreads) {
+		this.classLoadingThreads = classLoadingThreads;
+	}
+
+	public int getIntraprocThreads() {
+		return intraprocThreads;
+	}
+
+	/**
+	 * @param intraprocThreads number of threads used to build the intraprocedural dependence graphs, values <= 1
+	 * build them sequentially
+	 */
+	public void setIntraprocThreads(int intraprocThreads) {
+		this.intraprocThreads = intraprocThreads;
+	}
+
+	public int getPointsToThreads() {
+		return pointsToThreads;
+	}
+
+	/**
+	 * @param pointsToThreads number of threads used to solve the pointer analysis, values <= 1 solve it sequentially.
+	 * With more threads the constraints are solved in rounds, whose results do not depend on the number of threads.
+	 */
+	public void setPointsToThreads(int pointsToThreads) {
+		this.pointsToThreads = pointsToThreads;
+	}
+
+	public boolean getPointsToCycleElimination() {
+		return pointsToCycleElimination;
+	}
+
+	/**
+	 * @param pointsToCycleElimination if true, variables on cycles of assignments share a single points-to set
+	 * while the pointer analysis is solved. This saves time and memory on programs with many such cycles.
+	 */
+	public void setPointsToCycleElimination(boolean pointsToCycleElimination) {
+		this.pointsToCycleElimination = pointsToCycleElimination;
+	}
+
+	public boolean getCompactSummary() {
+		return compactSummary;
+	}
+
+	/**
+	 * @param compactSummary whether the summary edges are computed with primitive data structures, which needs
+	 * much less memory for large programs. The resulting summary edges are the same.
+	 */
+	public void setCompactSummary(boolean compactSummary) {
+		this.compactSummary = compactSummary;
+	}
+
+	public int getSummaryThreads() {
+		return summaryThreads;
+	}
+
+	/**
+	 * @param summaryThreads number of threads used to compute the summary edges, values <= 1 compute them
+	 * sequentially. The resulting summary edges are the same for any number of threads.
+	 */
+	public void setSummaryThreads(int summaryThreads) {
+		this.summaryThreads = summaryThreads;
+	}
+
+	public SDG getPreviousSDG() {
+		return previousSDG;
+	}
+
+	/**
+	 * @param previousSDG sdg of a previous version of the analyzed program, including its summary edges, or
+	 * null. If set, only the summary edges of procedures that changed or call changed procedures are computed,
+	 * all others are copied from this sdg. The resulting summary edges are the same as without a previous sdg.
+	 */
+	public void setPreviousSDG(SDG previousSDG) {
+		this.previousSDG = previousSDG;
+	}
+
+	public String getStubsSnapshotDir() {
+		return stubsSnapshotDir;
+	}
+
+	/**
+	 * @param stubsSnapshotDir directory with snapshots of the class files of the stubs. If set, the stubs are loaded
+	 * from a memory mapped snapshot that matches the digest of the stubs jar, which is created on first use. If
+	 * <tt>null</tt>, the stubs are read from their jar file.
+	 */
+	public void setStubsSnapshotDir(String stubsSnapshotDir) {
+		this.stubsSnapshotDir = stubsSnapshotDir;
+	}
+
+	public SDGCache getSDGCache() {
+		return sdgCache;
+	}
+
+	/**
+	 * @param sdgCache cache consulted by {@link SDGProgram#createSDGProgram(SDGConfig, java.io.PrintStream,
+	 * com.ibm.wala.util.MonitorUtil.IProgressMonitor, java.io.OutputStream)} before building the SDG, and filled
+	 * with the SDGs it builds. If <tt>null</tt>, the SDG is always built.
+	 */
+	public void setSDGCache(SDGCache sdgCache) {
+		this.sdgCache = sdgCache;
+	}
 }
@@ -36,7 +36,9 @@ import com.ibm.wala.util.graph.GraphIntegrity.UnsoundGraphException;
 import edu.kit.joana.api.annotations.AnnotationType;
 import edu.kit.joana.api.annotations.AnnotationTypeBasedNodeCollector;
 import edu.kit.joana.ifc.sdg.core.SecurityNode;
+import edu.kit.joana.ifc.sdg.graph.CompactSDGGraph;
 import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGBinarySerializer;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
 import edu.kit.joana.ifc.sdg.graph.SDGSerializer;
@@ -180,9 +182,24 @@ public class SDGProgram {
 	}
 
 	public static SDGProgram loadSDG(String path) throws IOException {
+		if (SDGBinarySerializer.isBinaryFormat(path)) {
+			return new SDGProgram(SDGBinarySerializer.readFrom(path, new SecurityNode.SecurityNodeFactory()));
+		}
 		return new SDGProgram(SDG.readFrom(path, new SecurityNode.SecurityNodeFactory()));
 	}
 
+	/**
+	 * Like {@link #loadSDG(String)}, but the loaded SDG is read-only and keeps its edges in the compact
+	 * representation of {@link CompactSDGGraph}, which needs much less memory. Meant for programs that are only
+	 * checked with classical IFC, which does not change the graph.
+	 */
+	public static SDGProgram loadCompactSDG(String path) throws IOException {
+		if (SDGBinarySerializer.isBinaryFormat(path)) {
+			return new SDGProgram(SDGBinarySerializer.readCompactFrom(path, new SecurityNode.SecurityNodeFactory()));
+		}
+		return new SDGProgram(SDG.readFrom(path, new SecurityNode.SecurityNodeFactory()).compact());
+	}
+
 	public static SDGProgram createSDGProgram(String classPath, String entryMethod) {
 		return createSDGProgram(classPath, entryMethod, false);
 	}
@@ -234,6 +251,23 @@ public class SDGProgram {
 		if (notifier != null) {
 			notifier.sdgStarted();
 		}
+		final SDGCache cache = config.getSDGCache();
+		final String cacheKey = (cache != null && SDGCache.isCacheable(config) ? SDGCache.computeKey(config) : null);
+		if (cacheKey != null) {
+			final SDG cached = cache.get(cacheKey);
+			if (cached != null) {
+				// served without builder, hence also without the Java source annotations
+				debug.outln("SDG " + cacheKey + " loaded from cache " + cache.getDirectory());
+				if (notifier != null) {
+					notifier.sdgFinished();
+				}
+				if (sdgFileOut != null) {
+					SDGSerializer.toPDGFormat(cached, sdgFileOut);
+					sdgFileOut.flush();
+				}
+				return new SDGProgram(cached);
+			}
+		}
 		final com.ibm.wala.util.collections.Pair<SDG, SDGBuilder> p =
 				SDGBuildPreparation.computeAndKeepBuilder(out, makeBuildPreparationConfig(config),	config.computeInterferences(), monitor);
 		final SDG sdg = p.fst;
@@ -257,6 +291,9 @@ public class SDGProgram {
 			}
 			
 		}
+		if (cacheKey != null) {
+			cache.put(cacheKey, sdg);
+		}
 		if (sdgFileOut != null) {
 			SDGSerializer.toPDGFormat(sdg, sdgFileOut);
 			sdgFileOut.flush();
@@ -315,6 +352,14 @@ public class SDGProgram {
 		cfg.computeAllocationSites = config.computeAllocationSites();
 		cfg.cgConsumer = config.getCGConsumer();
 		cfg.ctxSelector = config.getContextSelector();
+		cfg.classLoadingThreads = config.getClassLoadingThreads();
+		cfg.intraprocThreads = config.getIntraprocThreads();
+		cfg.pointsToThreads = config.getPointsToThreads();
+		cfg.pointsToCycleElimination = config.getPointsToCycleElimination();
+		cfg.compactSummary = config.getCompactSummary();
+		cfg.summaryThreads = config.getSummaryThreads();
+		cfg.previousSDG = config.getPreviousSDG();
+		cfg.stubsSnapshotDir = config.getStubsSnapshotDir();
 		debug.outln(cfg.stubs);
 
 		if (config.computeInterferences()) {
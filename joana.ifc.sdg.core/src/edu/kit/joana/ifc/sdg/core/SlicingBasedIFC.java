@@ -7,9 +7,20 @@
  */
 package edu.kit.joana.ifc.sdg.core;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import edu.kit.joana.ifc.sdg.core.DirectedSlicer.Direction;
 import edu.kit.joana.ifc.sdg.core.conc.BarrierIFCSlicer;
@@ -17,6 +28,7 @@ import edu.kit.joana.ifc.sdg.core.conc.ProbabilisticNIChecker;
 import edu.kit.joana.ifc.sdg.core.violations.ClassifiedViolation;
 import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.BatchSlicer;
 import edu.kit.joana.ifc.sdg.graph.slicer.ContextSlicerBackward;
 import edu.kit.joana.ifc.sdg.graph.slicer.Slicer;
 import edu.kit.joana.ifc.sdg.lattice.IStaticLattice;
@@ -36,7 +48,11 @@ import edu.kit.joana.util.Logger;
  * </ol>
  * For the forward variant, the forward slice of each source is computed and a malicious sink is searched for.<p>
  * Note, that this class can only be used to check for possibilistic leaks. To check also for probabilistic leaks, use {@link ProbabilisticNIChecker}.<br>
- * Also, there is no support for declassification, unless the provided chopper is configured appropriately.
+ * Also, there is no support for declassification, unless the provided chopper is configured appropriately.<p>
+ * If batch slicing is enabled (see {@link #setBatchSlicing(boolean)}) and the slicer of the chosen direction is a {@link BatchSlicer},
+ * the slices of up to {@link BatchSlicer#MAX_CRITERIA} end points are computed in one traversal of the graph. The reported violations
+ * are the same, only their order may differ. If the slicers are given as {@link SlicerFactory factories}, the end points can also
+ * be sliced by several threads (see {@link #setThreads(int)}).
  * @author Martin Mohr
  */
 public class SlicingBasedIFC extends IFC {
@@ -46,6 +62,23 @@ public class SlicingBasedIFC extends IFC {
 	private final DirectedSlicer slicerForw;
 	private final DirectedSlicer slicerBackw;
 	private DirectedSlicer slicer;
+	private final BatchSlicer batchSlicerForw;
+	private final BatchSlicer batchSlicerBackw;
+	private boolean batchSlicing = false;
+	private final SlicerFactory factoryForw;
+	private final SlicerFactory factoryBackw;
+	private int threads = 1;
+
+	/**
+	 * Creates slicers for the parallel mode, in which every worker thread needs its own slicer instance.
+	 */
+	public interface SlicerFactory {
+		/**
+		 * @param sdg the graph to slice
+		 * @return a new slicer for the given graph
+		 */
+		Slicer createSlicer(SDG sdg);
+	}
 	
 	/**
 	 * Instantiates a new SlicingBasedIFC algorithm. 
@@ -58,9 +91,52 @@ public class SlicingBasedIFC extends IFC {
 	 * produce wrong results if the given direction is not consistent with the given slicer.
 	 */
 	public SlicingBasedIFC(SDG sdg, IStaticLattice<String> lattice, Slicer slicerForw, Slicer slicerBackw) {
+		this(sdg, lattice, slicerForw, slicerBackw, null, null);
+	}
+
+	/**
+	 * Instantiates a new SlicingBasedIFC algorithm which creates its slicers with the given factories. In contrast to
+	 * {@link #SlicingBasedIFC(SDG, IStaticLattice, Slicer, Slicer)}, this allows to slice in parallel (see {@link #setThreads(int)}).
+	 * @param sdg the sdg to perform slicing-based IFC on
+	 * @param lattice the security lattice used for IFC
+	 * @param factoryForw creates the forward slicers
+	 * @param factoryBackw creates the backward slicers
+	 */
+	public SlicingBasedIFC(SDG sdg, IStaticLattice<String> lattice, SlicerFactory factoryForw, SlicerFactory factoryBackw) {
+		this(sdg, lattice, factoryForw.createSlicer(sdg), factoryBackw.createSlicer(sdg), factoryForw, factoryBackw);
+	}
+
+	private SlicingBasedIFC(SDG sdg, IStaticLattice<String> lattice, Slicer slicerForw, Slicer slicerBackw,
+			SlicerFactory factoryForw, SlicerFactory factoryBackw) {
 		super(sdg, lattice);
+		this.factoryForw = factoryForw;
+		this.factoryBackw = factoryBackw;
 		this.slicerForw = DirectedSlicer.decorateWithDirection(slicerForw, Direction.FORWARD);
 		this.slicerBackw = DirectedSlicer.decorateWithDirection(slicerBackw, Direction.BACKWARD);
+		this.batchSlicerForw = (slicerForw instanceof BatchSlicer ? (BatchSlicer) slicerForw : null);
+		this.batchSlicerBackw = (slicerBackw instanceof BatchSlicer ? (BatchSlicer) slicerBackw : null);
+	}
+
+	/**
+	 * Enables or disables batch slicing, which is disabled by default. Batch slicing has only an effect if the slicer
+	 * used for the chosen direction implements {@link BatchSlicer}.
+	 * @param batchSlicing whether the slices of several end points shall be computed at once
+	 */
+	public void setBatchSlicing(boolean batchSlicing) {
+		this.batchSlicing = batchSlicing;
+	}
+
+	/**
+	 * Sets the number of threads used to slice the end points, which is 1 by default. More than one thread is only used
+	 * if this object has been created with slicer factories, because slicers must not be shared between threads.
+	 * The graph must not be modified during {@link #checkIFlow()}.
+	 * @param threads number of worker threads
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("number of threads must be positive: " + threads);
+		}
+		this.threads = threads;
 	}
 
 	/* (non-Javadoc)
@@ -90,21 +166,250 @@ public class SlicingBasedIFC extends IFC {
 			DEBUG.outln(String.format("[%s] Using backward slicing.", Calendar.getInstance().getTime()));
 		}
 		Collection<ClassifiedViolation> vios = new LinkedList<ClassifiedViolation>();
-		DEBUG.outln(String.format("[%s] slicing each of the %d %s...", Calendar.getInstance().getTime(), endPoints.size(), endpointsStr));
-		int count = 0;
-		for (SecurityNode endPoint : endPoints) {
-			count++;
-			DEBUG.outln(String.format("[%s] %d of %d...", Calendar.getInstance().getTime(), count, endPoints.size()));
-			Collection<SDGNode> slice = slicer.slice(endPoint);
-			DEBUG.outln(String.format("[%s] done. Slice contains %d items", Calendar.getInstance().getTime(), slice.size()));
-			DEBUG.outln(String.format("[%s] scanning for sources...", Calendar.getInstance().getTime()));
-			addPossibleViolations(endPoint, slice, vios);
-			DEBUG.outln(String.format("[%s] done.", Calendar.getInstance().getTime()));
+		BatchSlicer batchSlicer = (slicer == slicerForw ? batchSlicerForw : batchSlicerBackw);
+		SlicerFactory factory = (slicer == slicerForw ? factoryForw : factoryBackw);
+		if (threads > 1 && factory != null) {
+			DEBUG.outln(String.format("[%s] slicing the %d %s with %d threads...", Calendar.getInstance().getTime(), endPoints.size(), endpointsStr, threads));
+			checkIFlowInParallel(factory, new ArrayList<SecurityNode>(endPoints), vios);
+		} else if (batchSlicing && batchSlicer != null) {
+			DEBUG.outln(String.format("[%s] slicing the %d %s in batches of %d...", Calendar.getInstance().getTime(), endPoints.size(), endpointsStr, BatchSlicer.MAX_CRITERIA));
+			List<SecurityNode> endPointList = new ArrayList<SecurityNode>(endPoints);
+			for (int start = 0; start < endPointList.size(); start += BatchSlicer.MAX_CRITERIA) {
+				int end = Math.min(start + BatchSlicer.MAX_CRITERIA, endPointList.size());
+				DEBUG.outln(String.format("[%s] %d to %d of %d...", Calendar.getInstance().getTime(), start + 1, end, endPointList.size()));
+				checkBatch(batchSlicer, endPointList.subList(start, end), vios);
+			}
+		} else {
+			DEBUG.outln(String.format("[%s] slicing each of the %d %s...", Calendar.getInstance().getTime(), endPoints.size(), endpointsStr));
+			int count = 0;
+			for (SecurityNode endPoint : endPoints) {
+				count++;
+				DEBUG.outln(String.format("[%s] %d of %d...", Calendar.getInstance().getTime(), count, endPoints.size()));
+				Collection<SDGNode> slice = slicer.slice(endPoint);
+				DEBUG.outln(String.format("[%s] done. Slice contains %d items", Calendar.getInstance().getTime(), slice.size()));
+				DEBUG.outln(String.format("[%s] scanning for sources...", Calendar.getInstance().getTime()));
+				addPossibleViolations(endPoint, slice, vios);
+				DEBUG.outln(String.format("[%s] done.", Calendar.getInstance().getTime()));
+			}
 		}
 		DEBUG.outln(String.format("[%s] done. Found %d violation(s).", Calendar.getInstance().getTime(), vios.size()));
 		return vios;
 	}
 
+	/**
+	 * Slices the given end points at once. Only the start points in the union of the slices are remembered,
+	 * together with the bit vector of the end points whose slices contain them.
+	 */
+	private void checkBatch(BatchSlicer batchSlicer, List<SecurityNode> batch, Collection<ClassifiedViolation> vios) {
+		final List<SecurityNode> startPoints = new ArrayList<SecurityNode>();
+		final List<Long> reachingEndPoints = new ArrayList<Long>();
+		batchSlicer.sliceBatch(batch, new BatchSlicer.Visitor() {
+			@Override
+			public void visit(SDGNode node, long criteria) {
+				SecurityNode sNode = (SecurityNode) node;
+				if (isStartpoint(sNode) && getLevel(sNode) != null) {
+					startPoints.add(sNode);
+					reachingEndPoints.add(criteria);
+				}
+			}
+		});
+
+		for (int i = 0; i < batch.size(); i++) {
+			SecurityNode endPoint = batch.get(i);
+			for (int j = 0; j < startPoints.size(); j++) {
+				if ((reachingEndPoints.get(j) & (1L << i)) != 0) {
+					addPossibleViolation(endPoint, startPoints.get(j), vios);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Distributes the end points over a pool of worker threads. Each worker creates its own slicer for the
+	 * shared graph and takes the next chunk of end points until all are done: single end points, or batches of
+	 * {@link BatchSlicer#MAX_CRITERIA} if batch slicing is enabled and supported. The violations of each chunk are
+	 * collected separately and merged in the order of the chunks, so the result does not depend on the scheduling.
+	 */
+	private void checkIFlowInParallel(final SlicerFactory factory, final List<SecurityNode> endPoints,
+			Collection<ClassifiedViolation> vios) {
+		final int chunkSize = (batchSlicing ? BatchSlicer.MAX_CRITERIA : 1);
+		final int numChunks = (endPoints.size() + chunkSize - 1) / chunkSize;
+		final List<List<ClassifiedViolation>> results = new ArrayList<List<ClassifiedViolation>>(numChunks);
+		for (int i = 0; i < numChunks; i++) {
+			results.add(null);
+		}
+		final AtomicInteger nextChunk = new AtomicInteger(0);
+		final int numWorkers = Math.min(threads, numChunks);
+		final ExecutorService pool = Executors.newFixedThreadPool(Math.max(numWorkers, 1));
+
+		try {
+			final List<Future<Void>> workers = new ArrayList<Future<Void>>(numWorkers);
+			for (int i = 0; i < numWorkers; i++) {
+				workers.add(pool.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						final Slicer slicer = factory.createSlicer(g);
+						final BatchSlicer batchSlicer = (batchSlicing && slicer instanceof BatchSlicer ? (BatchSlicer) slicer : null);
+						int chunk;
+						while ((chunk = nextChunk.getAndIncrement()) < numChunks) {
+							final int start = chunk * chunkSize;
+							final List<SecurityNode> endPointsOfChunk = endPoints.subList(start, Math.min(start + chunkSize, endPoints.size()));
+							final List<ClassifiedViolation> violations = new LinkedList<ClassifiedViolation>();
+							if (batchSlicer != null) {
+								checkBatch(batchSlicer, endPointsOfChunk, violations);
+							} else {
+								for (SecurityNode endPoint : endPointsOfChunk) {
+									addPossibleViolations(endPoint, slicer.slice(endPoint), violations);
+								}
+							}
+							// distinct slots, published to the caller by Future.get()
+							results.set(chunk, violations);
+						}
+						return null;
+					}
+				}));
+			}
+
+			for (Future<Void> worker : workers) {
+				waitFor(worker);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		for (List<ClassifiedViolation> violations : results) {
+			vios.addAll(violations);
+		}
+	}
+
+	/**
+	 * Determines which of the given start points lie in the slices of the given end points. The end points are sliced
+	 * like in {@link #checkIFlow()}, i.e. with the slicers, the batch setting and the number of threads of this object.
+	 * This allows clients to check several annotations of the same graph with one slice per end point.
+	 * @param endPoints the nodes to slice
+	 * @param direction {@link Direction#BACKWARD} if the end points are sinks, {@link Direction#FORWARD} if they are sources
+	 * @param startPoints the nodes to look for in the slices, mapped to their indices
+	 * @return for each index of a start point, the indices of the end points whose slices contain the start point
+	 */
+	public BitSet[] reachingEndPoints(final List<? extends SDGNode> endPoints, Direction direction,
+			final Map<? extends SDGNode, Integer> startPoints) {
+		final BitSet[] reaching = new BitSet[startPoints.size()];
+		for (int j = 0; j < reaching.length; j++) {
+			reaching[j] = new BitSet();
+		}
+		final boolean forward = (direction == Direction.FORWARD);
+		final Slicer slicer = (forward ? slicerForw : slicerBackw);
+		final BatchSlicer batchSlicer = (forward ? batchSlicerForw : batchSlicerBackw);
+		final SlicerFactory factory = (forward ? factoryForw : factoryBackw);
+		final int chunkSize = (batchSlicing ? BatchSlicer.MAX_CRITERIA : 1);
+		final int numChunks = (endPoints.size() + chunkSize - 1) / chunkSize;
+		final List<Map<Integer, Long>> results = new ArrayList<Map<Integer, Long>>(numChunks);
+		for (int i = 0; i < numChunks; i++) {
+			results.add(null);
+		}
+
+		if (threads > 1 && factory != null && numChunks > 1) {
+			final AtomicInteger nextChunk = new AtomicInteger(0);
+			final int numWorkers = Math.min(threads, numChunks);
+			final ExecutorService pool = Executors.newFixedThreadPool(numWorkers);
+			try {
+				final List<Future<Void>> workers = new ArrayList<Future<Void>>(numWorkers);
+				for (int i = 0; i < numWorkers; i++) {
+					workers.add(pool.submit(new Callable<Void>() {
+						@Override
+						public Void call() {
+							final Slicer workerSlicer = factory.createSlicer(g);
+							final BatchSlicer workerBatchSlicer = (batchSlicing && workerSlicer instanceof BatchSlicer ? (BatchSlicer) workerSlicer : null);
+							int chunk;
+							while ((chunk = nextChunk.getAndIncrement()) < numChunks) {
+								final int start = chunk * chunkSize;
+								// distinct slots, published to the caller by Future.get()
+								results.set(chunk, reachInChunk(workerSlicer, workerBatchSlicer,
+										endPoints.subList(start, Math.min(start + chunkSize, endPoints.size())), startPoints));
+							}
+							return null;
+						}
+					}));
+				}
+
+				for (Future<Void> worker : workers) {
+					waitFor(worker);
+				}
+			} finally {
+				pool.shutdownNow();
+			}
+		} else {
+			for (int chunk = 0; chunk < numChunks; chunk++) {
+				final int start = chunk * chunkSize;
+				results.set(chunk, reachInChunk(slicer, (batchSlicing ? batchSlicer : null),
+						endPoints.subList(start, Math.min(start + chunkSize, endPoints.size())), startPoints));
+			}
+		}
+
+		for (int chunk = 0; chunk < numChunks; chunk++) {
+			final int offset = chunk * chunkSize;
+			for (Map.Entry<Integer, Long> e : results.get(chunk).entrySet()) {
+				final long criteria = e.getValue();
+				for (int i = 0; i < chunkSize; i++) {
+					if ((criteria & (1L << i)) != 0) {
+						reaching[e.getKey()].set(offset + i);
+					}
+				}
+			}
+		}
+
+		return reaching;
+	}
+
+	/**
+	 * Slices the given end points, at once if a batch slicer is given, and maps the index of every start point in one
+	 * of the slices to the bit vector of the end points whose slices contain it.
+	 */
+	private static Map<Integer, Long> reachInChunk(Slicer slicer, BatchSlicer batchSlicer, List<? extends SDGNode> chunk,
+			final Map<? extends SDGNode, Integer> startPoints) {
+		final Map<Integer, Long> reached = new LinkedHashMap<Integer, Long>();
+		if (batchSlicer != null) {
+			batchSlicer.sliceBatch(chunk, new BatchSlicer.Visitor() {
+				@Override
+				public void visit(SDGNode node, long criteria) {
+					final Integer j = startPoints.get(node);
+					if (j != null) {
+						reached.put(j, criteria);
+					}
+				}
+			});
+		} else {
+			for (int i = 0; i < chunk.size(); i++) {
+				for (SDGNode node : slicer.slice(chunk.get(i))) {
+					final Integer j = startPoints.get(node);
+					if (j != null) {
+						final Long criteria = reached.get(j);
+						reached.put(j, (criteria == null ? 0L : criteria) | (1L << i));
+					}
+				}
+			}
+		}
+		return reached;
+	}
+
+	private static void waitFor(Future<Void> worker) {
+		try {
+			worker.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for slicing threads", e);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+
+			throw new IllegalStateException(cause);
+		}
+	}
+
 	private Collection<SecurityNode> collectStartpoints() {
 		Collection<SecurityNode> ret = new LinkedList<SecurityNode>();
 		for (SDGNode n : this.g.vertexSet()) {
@@ -151,15 +456,18 @@ public class SlicingBasedIFC extends IFC {
 
 	private void addPossibleViolations(SecurityNode endPoint, Collection<SDGNode> slice, Collection<ClassifiedViolation> vios) {
 		for (SDGNode n : slice) {
-			SecurityNode sNode = (SecurityNode) n;
-			String secLevelOfOtherEndpoint = getLevel(sNode);
-			String secLevelOfEndpoint = getLevel(endPoint);
-			if (isStartpoint(sNode) && secLevelOfOtherEndpoint != null && isLeakage(endPoint, sNode)) {
-				if (endPoint.isInformationSource() && sNode.isInformationSink()) {
-					vios.add(ClassifiedViolation.createViolation(sNode, endPoint, secLevelOfOtherEndpoint));
-				} else if (endPoint.isInformationSink() && sNode.isInformationSource()) {
-					vios.add(ClassifiedViolation.createViolation(endPoint, sNode, secLevelOfEndpoint));
-				}
+			addPossibleViolation(endPoint, (SecurityNode) n, vios);
+		}
+	}
+
+	private void addPossibleViolation(SecurityNode endPoint, SecurityNode sNode, Collection<ClassifiedViolation> vios) {
+		String secLevelOfOtherEndpoint = getLevel(sNode);
+		String secLevelOfEndpoint = getLevel(endPoint);
+		if (isStartpoint(sNode) && secLevelOfOtherEndpoint != null && isLeakage(endPoint, sNode)) {
+			if (endPoint.isInformationSource() && sNode.isInformationSink()) {
+				vios.add(ClassifiedViolation.createViolation(sNode, endPoint, secLevelOfOtherEndpoint));
+			} else if (endPoint.isInformationSink() && sNode.isInformationSource()) {
+				vios.add(ClassifiedViolation.createViolation(endPoint, sNode, secLevelOfEndpoint));
 			}
 		}
 	}
@@ -26,7 +26,6 @@ import edu.kit.joana.ifc.sdg.graph.slicer.conc.CFGForward;
 import edu.kit.joana.ifc.sdg.graph.slicer.conc.nanda.Nanda;
 import edu.kit.joana.ifc.sdg.graph.slicer.conc.nanda.NandaBackward;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.MHPAnalysis;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PreciseMHPAnalysis;
 import edu.kit.joana.ifc.sdg.lattice.IStaticLattice;
 import edu.kit.joana.ifc.sdg.lattice.LatticeUtil;
 import edu.kit.joana.util.Maybe;
@@ -89,7 +88,7 @@ public class LSODNISlicer implements ConflictScanner {
 	 *            Ein ConflictManager.
 	 */
 	public LSODNISlicer(SDG g, IStaticLattice<String> l, ConflictManager conf) {
-		this(g, l, conf, PreciseMHPAnalysis.analyze(g), false);
+		this(g, l, conf, g.getAnalysisCache().getPreciseMHPAnalysis(), false);
 	}
 
 	public LSODNISlicer(SDG g, IStaticLattice<String> l, ConflictManager conf,
@@ -273,7 +272,7 @@ public class LSODNISlicer implements ConflictScanner {
 
 	/* Factories */
 	public static LSODNISlicer simpleCheck(SDG g, IStaticLattice<String> l) {
-		return simpleCheck(g, l, PreciseMHPAnalysis.analyze(g), false);
+		return simpleCheck(g, l, g.getAnalysisCache().getPreciseMHPAnalysis(), false);
 	}
 
 	public static LSODNISlicer simpleCheck(SDG g, IStaticLattice<String> l,
@@ -283,7 +282,7 @@ public class LSODNISlicer implements ConflictScanner {
 
 	public static LSODNISlicer simpleCheck(SDG g, IStaticLattice<String> l,
 			boolean useOptimization) {
-		return simpleCheck(g, l, PreciseMHPAnalysis.analyze(g), false,
+		return simpleCheck(g, l, g.getAnalysisCache().getPreciseMHPAnalysis(), false,
 				useOptimization);
 	}
 
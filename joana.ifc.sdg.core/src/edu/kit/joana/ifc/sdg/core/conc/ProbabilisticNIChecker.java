@@ -17,7 +17,6 @@ import edu.kit.joana.ifc.sdg.core.violations.IViolation;
 import edu.kit.joana.ifc.sdg.core.violations.ViolationTranslator;
 import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.MHPAnalysis;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PreciseMHPAnalysis;
 import edu.kit.joana.ifc.sdg.lattice.IStaticLattice;
 import edu.kit.joana.ifc.sdg.lattice.NotInLatticeException;
 
@@ -44,7 +43,7 @@ public class ProbabilisticNIChecker extends IFC {
 	 *            Ein Sicherheitsverband
 	 */
 	public ProbabilisticNIChecker(SDG sdg, IStaticLattice<String> lattice) {
-		this(sdg, lattice, PreciseMHPAnalysis.analyze(sdg));
+		this(sdg, lattice, sdg.getAnalysisCache().getPreciseMHPAnalysis());
 	}
 
 	public ProbabilisticNIChecker(SDG sdg, IStaticLattice<String> lattice, MHPAnalysis mhp) {
@@ -30,7 +30,6 @@ import edu.kit.joana.ifc.sdg.graph.slicer.conc.CFGSlicer;
 import edu.kit.joana.ifc.sdg.graph.slicer.conc.nanda.Nanda;
 import edu.kit.joana.ifc.sdg.graph.slicer.conc.nanda.NandaBackward;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.MHPAnalysis;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PreciseMHPAnalysis;
 import edu.kit.joana.ifc.sdg.lattice.IStaticLattice;
 import edu.kit.joana.util.Maybe;
 import edu.kit.joana.util.Pair;
@@ -395,7 +394,7 @@ public class ProbabilisticNISlicer implements ConflictScanner {
      * @param conf  Ein ConflictManager.
      */
     public ProbabilisticNISlicer(SDG g, IStaticLattice<String> l, ConflictManager conf) {
-       this(g, l, conf, PreciseMHPAnalysis.analyze(g), false);
+       this(g, l, conf, g.getAnalysisCache().getPreciseMHPAnalysis(), false);
     }
     
     public ProbabilisticNISlicer(SDG g, IStaticLattice<String> l, ConflictManager conf, MHPAnalysis mhp, boolean timeSens) {
@@ -590,7 +589,7 @@ public class ProbabilisticNISlicer implements ConflictScanner {
 
     /* Factories */
     public static ProbabilisticNISlicer simpleCheck(SDG g, IStaticLattice<String> l){
-       return simpleCheck(g, l, PreciseMHPAnalysis.analyze(g), false);
+       return simpleCheck(g, l, g.getAnalysisCache().getPreciseMHPAnalysis(), false);
     }
 
 // TODO: make detailed check work properly! 
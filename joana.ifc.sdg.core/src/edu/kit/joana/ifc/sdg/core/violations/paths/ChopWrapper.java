@@ -11,6 +11,7 @@ import java.util.Collection;
 
 import edu.kit.joana.ifc.sdg.core.SecurityNode;
 import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.chopper.ReachabilityIndex;
 import edu.kit.joana.ifc.sdg.graph.chopper.RepsRosayChopper;
 
 
@@ -23,6 +24,10 @@ public class ChopWrapper {
 
     public void setSDG(SDG g) {
         chopper.setGraph(g);
+        // the wrapper is called once per violation, so only index a new graph
+        if (g != null && chopper.getReachabilityIndex() == null) {
+            chopper.setReachabilityIndex(new ReachabilityIndex(g));
+        }
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
@@ -14,6 +14,7 @@ import java.util.List;
 import edu.kit.joana.ifc.sdg.core.SecurityNode;
 import edu.kit.joana.ifc.sdg.core.violations.ClassifiedViolation;
 import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.chopper.ReachabilityIndex;
 import edu.kit.joana.ifc.sdg.graph.chopper.conc.ContextSensitiveThreadChopper;
 import edu.kit.joana.ifc.sdg.lattice.NotInLatticeException;
 import edu.kit.joana.util.Log;
@@ -34,7 +35,7 @@ public class ConcurrentViolationChop {
 
 	public List<ClassifiedViolation> addChop(Collection<ClassifiedViolation> violations, SDG g)
 	throws NotInLatticeException {
-	    chopper = new ContextSensitiveThreadChopper(g);
+	    initChopper(g);
 
 		long viostart = System.currentTimeMillis();
 		debug.outln("Started viopathgen at " + viostart + " for " + violations.size() + " violations");
@@ -75,6 +76,7 @@ public class ConcurrentViolationChop {
 
 	public void initChopper(SDG g) {
 		chopper = new ContextSensitiveThreadChopper(g);
+		chopper.setReachabilityIndex(new ReachabilityIndex(g));
 	}
 
 	@SuppressWarnings({ "unchecked", "rawtypes" })
@@ -19,6 +19,7 @@ import edu.kit.joana.ifc.sdg.core.interfaces.ProgressListener;
 import edu.kit.joana.ifc.sdg.core.violations.ClassifiedViolation;
 import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.chopper.ReachabilityIndex;
 import edu.kit.joana.ifc.sdg.graph.chopper.conc.ContextSensitiveThreadChopper;
 
 
@@ -54,6 +55,7 @@ public class PathGenerator implements ProgressAnnouncer {
 	 */
 	public PathGenerator (SDG g) {
 		chopper = new ContextSensitiveThreadChopper(g);
+		chopper.setReachabilityIndex(new ReachabilityIndex(g));
 		pathCollector = new PathCollector(g);
 	}
 
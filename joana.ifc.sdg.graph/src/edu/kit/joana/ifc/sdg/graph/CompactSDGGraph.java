@@ -0,0 +1,638 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.EdgeFactory;
+import org.jgrapht.WeightedGraph;
+import org.jgrapht.graph.AbstractGraph;
+
+/**
+ * An immutable graph backend for SDGs that stores the graph structure in primitive arrays instead of
+ * JGraphT edge containers and SDGEdge objects.
+ *
+ * Nodes are kept in an array sorted by their id. Outgoing and incoming edges are stored in compressed
+ * sparse row format: for each node the targets (resp. sources) of its edges occupy a contiguous range of an
+ * int array, ordered by the kind of the edge. Edge kinds are kept in a parallel byte array and the rare edge
+ * labels in a sparse map.
+ *
+ * The sets returned by {@link #outgoingEdgesOf(SDGNode)}, {@link #incomingEdgesOf(SDGNode)} and
+ * {@link #edgeSet()} are views on these arrays. The SDGEdge of an edge is created when the edge is visited
+ * for the first time and is returned for every later visit, also from the other end of the edge. So repeated
+ * traversals, e.g. by a slicer, do not allocate, and only the edges that are actually visited cost an object.
+ * Modifications of the graph are not supported.
+ *
+ * The representation is meant for SDGs that are only analyzed, not changed, after they have been built or loaded:
+ * use {@link SDGBinarySerializer#readCompactFrom(String, SDGNode.NodeFactory)} to load such an SDG, or
+ * {@link SDG#compact()} to convert one. This is what <code>SDGProgram.loadCompactSDG</code> does for the
+ * information flow checks of a stored SDG.
+ */
+public final class CompactSDGGraph extends AbstractGraph<SDGNode, SDGEdge> implements DirectedGraph<SDGNode, SDGEdge> {
+
+	private static final SDGEdge.Kind[] KINDS = SDGEdge.Kind.values();
+
+	/** all nodes, sorted by id */
+	private final SDGNode[] nodes;
+	/** id of the node at position 0 if the id space is dense enough for direct lookup, otherwise unused */
+	private final int minId;
+	/** maps (node id - minId) to the node index, or null if node indices are looked up by binary search */
+	private final int[] id2index;
+	/** ids of the nodes, only used for binary search if id2index is null */
+	private final int[] ids;
+
+	private final int[] outStart;
+	private final int[] outTarget;
+	private final byte[] outKind;
+	private final TIntObjectHashMap<String> outLabel;
+
+	private final int[] inStart;
+	private final int[] inSource;
+	private final byte[] inKind;
+	/** position of each incoming edge in the outgoing edge arrays */
+	private final int[] inToOut;
+
+	/** the SDGEdge of each edge by its position in the outgoing edge arrays, created on first access */
+	private final AtomicReferenceArray<SDGEdge> edges;
+
+	private final Set<SDGNode> vertexSet = new VertexSet();
+	private final Set<SDGEdge> edgeSet = new EdgeSet();
+
+	/**
+	 * Creates a compact graph from a node array and the edges of each kind. The edges of kind
+	 * <tt>k</tt> are given by <tt>sources[k.ordinal()][i]</tt>, <tt>targets[k.ordinal()][i]</tt> (node ids)
+	 * and <tt>labels[k.ordinal()][i]</tt> (index into <tt>strings</tt> or -1 for unlabeled edges).
+	 * Missing arrays count as no edges of that kind, <tt>labels</tt> may be null if no edge is labeled.
+	 */
+	CompactSDGGraph(final SDGNode[] nodes, final int[][] sources, final int[][] targets, final int[][] labels,
+			final String[] strings) {
+		this.nodes = nodes.clone();
+		Arrays.sort(this.nodes, SDGNode.getIDComparator());
+
+		final int n = this.nodes.length;
+		if (n > 0 && (long) this.nodes[n - 1].getId() - this.nodes[0].getId() < 2L * n + 16) {
+			this.minId = this.nodes[0].getId();
+			this.id2index = new int[this.nodes[n - 1].getId() - minId + 1];
+			Arrays.fill(id2index, -1);
+			for (int i = 0; i < n; i++) {
+				id2index[this.nodes[i].getId() - minId] = i;
+			}
+			this.ids = null;
+		} else {
+			this.minId = 0;
+			this.id2index = null;
+			this.ids = new int[n];
+			for (int i = 0; i < n; i++) {
+				ids[i] = this.nodes[i].getId();
+			}
+		}
+
+		// count degrees
+		this.outStart = new int[n + 1];
+		this.inStart = new int[n + 1];
+		int numEdges = 0;
+		for (int k = 0; k < KINDS.length; k++) {
+			if (sources.length <= k || sources[k] == null) {
+				continue;
+			}
+			final int[] src = sources[k];
+			final int[] tgt = targets[k];
+			for (int i = 0; i < src.length; i++) {
+				outStart[index(src[i]) + 1]++;
+				inStart[index(tgt[i]) + 1]++;
+			}
+			numEdges += src.length;
+		}
+		for (int i = 0; i < n; i++) {
+			outStart[i + 1] += outStart[i];
+			inStart[i + 1] += inStart[i];
+		}
+
+		// fill the rows kind by kind, so that the edges of each node end up ordered by their kind
+		this.outTarget = new int[numEdges];
+		this.outKind = new byte[numEdges];
+		this.outLabel = new TIntObjectHashMap<String>();
+		this.inSource = new int[numEdges];
+		this.inKind = new byte[numEdges];
+		this.inToOut = new int[numEdges];
+		this.edges = new AtomicReferenceArray<SDGEdge>(numEdges);
+		final int[] outFill = Arrays.copyOf(outStart, n);
+		final int[] inFill = Arrays.copyOf(inStart, n);
+		for (int k = 0; k < KINDS.length; k++) {
+			if (sources.length <= k || sources[k] == null) {
+				continue;
+			}
+			final int[] src = sources[k];
+			final int[] tgt = targets[k];
+			final int[] lbl = (labels == null ? null : labels[k]);
+			for (int i = 0; i < src.length; i++) {
+				final int from = index(src[i]);
+				final int to = index(tgt[i]);
+				final int outPos = outFill[from]++;
+				outTarget[outPos] = to;
+				outKind[outPos] = (byte) k;
+				final int inPos = inFill[to]++;
+				inSource[inPos] = from;
+				inKind[inPos] = (byte) k;
+				inToOut[inPos] = outPos;
+				if (lbl != null && lbl[i] >= 0) {
+					outLabel.put(outPos, strings[lbl[i]]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates a compact copy of the given graph. The nodes are shared with the original graph.
+	 */
+	public static CompactSDGGraph copyOf(final DirectedGraph<SDGNode, SDGEdge> g) {
+		final SDGNode[] nodes = g.vertexSet().toArray(new SDGNode[g.vertexSet().size()]);
+		final TIntArrayList[] src = new TIntArrayList[KINDS.length];
+		final TIntArrayList[] tgt = new TIntArrayList[KINDS.length];
+		final TIntArrayList[] lbl = new TIntArrayList[KINDS.length];
+		for (int k = 0; k < KINDS.length; k++) {
+			src[k] = new TIntArrayList();
+			tgt[k] = new TIntArrayList();
+			lbl[k] = new TIntArrayList();
+		}
+
+		final TObjectIntHashMap<String> stringIndex = new TObjectIntHashMap<String>(16, 0.5f, -1);
+		final List<String> strings = new ArrayList<String>();
+		for (final SDGEdge e : g.edgeSet()) {
+			final int k = e.getKind().ordinal();
+			src[k].add(e.getSource().getId());
+			tgt[k].add(e.getTarget().getId());
+			int label = -1;
+			if (e.getLabel() != null) {
+				label = stringIndex.get(e.getLabel());
+				if (label < 0) {
+					label = strings.size();
+					strings.add(e.getLabel());
+					stringIndex.put(e.getLabel(), label);
+				}
+			}
+			lbl[k].add(label);
+		}
+
+		final int[][] sources = new int[KINDS.length][];
+		final int[][] targets = new int[KINDS.length][];
+		final int[][] labels = new int[KINDS.length][];
+		for (int k = 0; k < KINDS.length; k++) {
+			sources[k] = src[k].toArray();
+			targets[k] = tgt[k].toArray();
+			labels[k] = lbl[k].toArray();
+			src[k] = tgt[k] = lbl[k] = null;
+		}
+
+		return new CompactSDGGraph(nodes, sources, targets, labels, strings.toArray(new String[strings.size()]));
+	}
+
+	private int index(final int id) {
+		if (id2index != null) {
+			final int off = id - minId;
+			if (off >= 0 && off < id2index.length && id2index[off] >= 0) {
+				return id2index[off];
+			}
+		} else {
+			final int pos = Arrays.binarySearch(ids, id);
+			if (pos >= 0) {
+				return pos;
+			}
+		}
+
+		throw new IllegalArgumentException("no node with id " + id);
+	}
+
+	private int indexOf(final Object o) {
+		if (!(o instanceof SDGNode)) {
+			return -1;
+		}
+		final SDGNode v = (SDGNode) o;
+		final int id = v.getId();
+		final int idx;
+		if (id2index != null) {
+			final int off = id - minId;
+			idx = (off >= 0 && off < id2index.length ? id2index[off] : -1);
+		} else {
+			idx = Arrays.binarySearch(ids, id);
+		}
+
+		return (idx >= 0 && (nodes[idx] == v || nodes[idx].equals(v)) ? idx : -1);
+	}
+
+	private int checkedIndexOf(final SDGNode v) {
+		final int idx = indexOf(v);
+		if (idx < 0) {
+			throw new IllegalArgumentException("no such vertex in graph: " + v);
+		}
+
+		return idx;
+	}
+
+	/**
+	 * Returns the node with the given id or null if there is no such node.
+	 */
+	public SDGNode getNode(final int id) {
+		if (id2index != null) {
+			final int off = id - minId;
+			return (off >= 0 && off < id2index.length && id2index[off] >= 0 ? nodes[id2index[off]] : null);
+		}
+
+		final int pos = Arrays.binarySearch(ids, id);
+		return (pos >= 0 ? nodes[pos] : null);
+	}
+
+	/**
+	 * Returns the outgoing edges of the given node that are of the given kind.
+	 * As the edges of each node are ordered by kind, this does not need to look at the other edges.
+	 */
+	public Set<SDGEdge> outgoingEdgesOf(final SDGNode v, final SDGEdge.Kind kind) {
+		final int idx = checkedIndexOf(v);
+		final int start = findKind(outKind, outStart[idx], outStart[idx + 1], kind);
+		int end = start;
+		while (end < outStart[idx + 1] && outKind[end] == kind.ordinal()) {
+			end++;
+		}
+
+		return new EdgeRange(idx, start, end, true);
+	}
+
+	/**
+	 * Returns the incoming edges of the given node that are of the given kind.
+	 * As the edges of each node are ordered by kind, this does not need to look at the other edges.
+	 */
+	public Set<SDGEdge> incomingEdgesOf(final SDGNode v, final SDGEdge.Kind kind) {
+		final int idx = checkedIndexOf(v);
+		final int start = findKind(inKind, inStart[idx], inStart[idx + 1], kind);
+		int end = start;
+		while (end < inStart[idx + 1] && inKind[end] == kind.ordinal()) {
+			end++;
+		}
+
+		return new EdgeRange(idx, start, end, false);
+	}
+
+	private static int findKind(final byte[] kinds, int low, int high, final SDGEdge.Kind kind) {
+		final int k = kind.ordinal();
+		// lower bound of kind k in kinds[low..high)
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (kinds[mid] < k) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		return low;
+	}
+
+	private SDGEdge outEdge(final int from, final int pos) {
+		final SDGEdge e = edges.get(pos);
+		if (e != null) {
+			return e;
+		}
+
+		final String label = outLabel.isEmpty() ? null : outLabel.get(pos);
+		final SDGEdge created = (label == null
+				? new SDGEdge(nodes[from], nodes[outTarget[pos]], KINDS[outKind[pos]])
+				: new SDGEdge(nodes[from], nodes[outTarget[pos]], KINDS[outKind[pos]], label));
+		// threads that create the same edge concurrently agree on the first one
+		return (edges.compareAndSet(pos, null, created) ? created : edges.get(pos));
+	}
+
+	private SDGEdge inEdge(final int pos) {
+		return outEdge(inSource[pos], inToOut[pos]);
+	}
+
+	@Override
+	public Set<SDGEdge> outgoingEdgesOf(final SDGNode v) {
+		final int idx = checkedIndexOf(v);
+		return new EdgeRange(idx, outStart[idx], outStart[idx + 1], true);
+	}
+
+	@Override
+	public Set<SDGEdge> incomingEdgesOf(final SDGNode v) {
+		final int idx = checkedIndexOf(v);
+		return new EdgeRange(idx, inStart[idx], inStart[idx + 1], false);
+	}
+
+	@Override
+	public int outDegreeOf(final SDGNode v) {
+		final int idx = checkedIndexOf(v);
+		return outStart[idx + 1] - outStart[idx];
+	}
+
+	@Override
+	public int inDegreeOf(final SDGNode v) {
+		final int idx = checkedIndexOf(v);
+		return inStart[idx + 1] - inStart[idx];
+	}
+
+	@Override
+	public Set<SDGEdge> edgesOf(final SDGNode v) {
+		final int idx = checkedIndexOf(v);
+		final Set<SDGEdge> edges = new HashSet<SDGEdge>();
+		for (int pos = outStart[idx]; pos < outStart[idx + 1]; pos++) {
+			edges.add(outEdge(idx, pos));
+		}
+		for (int pos = inStart[idx]; pos < inStart[idx + 1]; pos++) {
+			if (inSource[pos] != idx) {
+				edges.add(inEdge(pos));
+			}
+		}
+
+		return Collections.unmodifiableSet(edges);
+	}
+
+	@Override
+	public Set<SDGEdge> getAllEdges(final SDGNode source, final SDGNode target) {
+		final int from = indexOf(source);
+		final int to = indexOf(target);
+		if (from < 0 || to < 0) {
+			return null;
+		}
+
+		final Set<SDGEdge> edges = new HashSet<SDGEdge>();
+		for (int pos = outStart[from]; pos < outStart[from + 1]; pos++) {
+			if (outTarget[pos] == to) {
+				edges.add(outEdge(from, pos));
+			}
+		}
+
+		return edges;
+	}
+
+	@Override
+	public SDGEdge getEdge(final SDGNode source, final SDGNode target) {
+		final int from = indexOf(source);
+		final int to = indexOf(target);
+		if (from < 0 || to < 0) {
+			return null;
+		}
+
+		for (int pos = outStart[from]; pos < outStart[from + 1]; pos++) {
+			if (outTarget[pos] == to) {
+				return outEdge(from, pos);
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public boolean containsEdge(final SDGEdge e) {
+		if (e == null) {
+			return false;
+		}
+		final int from = indexOf(e.getSource());
+		final int to = indexOf(e.getTarget());
+		if (from < 0 || to < 0) {
+			return false;
+		}
+
+		final int kind = e.getKind().ordinal();
+		for (int pos = findKind(outKind, outStart[from], outStart[from + 1], e.getKind());
+				pos < outStart[from + 1] && outKind[pos] == kind; pos++) {
+			if (outTarget[pos] == to) {
+				final String label = outLabel.get(pos);
+				if (label == null ? e.getLabel() == null : label.equals(e.getLabel())) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public boolean containsVertex(final SDGNode v) {
+		return indexOf(v) >= 0;
+	}
+
+	@Override
+	public Set<SDGEdge> edgeSet() {
+		return edgeSet;
+	}
+
+	@Override
+	public Set<SDGNode> vertexSet() {
+		return vertexSet;
+	}
+
+	@Override
+	public SDGNode getEdgeSource(final SDGEdge e) {
+		return e.getSource();
+	}
+
+	@Override
+	public SDGNode getEdgeTarget(final SDGEdge e) {
+		return e.getTarget();
+	}
+
+	@Override
+	public double getEdgeWeight(final SDGEdge e) {
+		return WeightedGraph.DEFAULT_EDGE_WEIGHT;
+	}
+
+	@Override
+	public EdgeFactory<SDGNode, SDGEdge> getEdgeFactory() {
+		return null;
+	}
+
+	@Override
+	public SDGEdge addEdge(final SDGNode source, final SDGNode target) {
+		throw new UnsupportedOperationException("CompactSDGGraph is immutable.");
+	}
+
+	@Override
+	public boolean addEdge(final SDGNode source, final SDGNode target, final SDGEdge e) {
+		throw new UnsupportedOperationException("CompactSDGGraph is immutable.");
+	}
+
+	@Override
+	public boolean addVertex(final SDGNode v) {
+		throw new UnsupportedOperationException("CompactSDGGraph is immutable.");
+	}
+
+	@Override
+	public SDGEdge removeEdge(final SDGNode source, final SDGNode target) {
+		throw new UnsupportedOperationException("CompactSDGGraph is immutable.");
+	}
+
+	@Override
+	public boolean removeEdge(final SDGEdge e) {
+		throw new UnsupportedOperationException("CompactSDGGraph is immutable.");
+	}
+
+	@Override
+	public boolean removeVertex(final SDGNode v) {
+		throw new UnsupportedOperationException("CompactSDGGraph is immutable.");
+	}
+
+	@Override
+	public boolean removeAllEdges(final Collection<? extends SDGEdge> edges) {
+		throw new UnsupportedOperationException("CompactSDGGraph is immutable.");
+	}
+
+	@Override
+	public Set<SDGEdge> removeAllEdges(final SDGNode source, final SDGNode target) {
+		throw new UnsupportedOperationException("CompactSDGGraph is immutable.");
+	}
+
+	@Override
+	public boolean removeAllVertices(final Collection<? extends SDGNode> vertices) {
+		throw new UnsupportedOperationException("CompactSDGGraph is immutable.");
+	}
+
+	/**
+	 * The edges of a single node in the range [start, end) of the outgoing or incoming edge arrays.
+	 */
+	private final class EdgeRange extends AbstractSet<SDGEdge> {
+
+		private final int node;
+		private final int start;
+		private final int end;
+		private final boolean outgoing;
+
+		private EdgeRange(final int node, final int start, final int end, final boolean outgoing) {
+			this.node = node;
+			this.start = start;
+			this.end = end;
+			this.outgoing = outgoing;
+		}
+
+		@Override
+		public Iterator<SDGEdge> iterator() {
+			return new Iterator<SDGEdge>() {
+
+				private int pos = start;
+
+				@Override
+				public boolean hasNext() {
+					return pos < end;
+				}
+
+				@Override
+				public SDGEdge next() {
+					if (pos >= end) {
+						throw new NoSuchElementException();
+					}
+
+					return (outgoing ? outEdge(node, pos++) : inEdge(pos++));
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException("CompactSDGGraph is immutable.");
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return end - start;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return start == end;
+		}
+
+		@Override
+		public boolean contains(final Object o) {
+			if (!(o instanceof SDGEdge)) {
+				return false;
+			}
+			final SDGEdge e = (SDGEdge) o;
+			if (indexOf(outgoing ? e.getSource() : e.getTarget()) != node) {
+				return false;
+			}
+
+			return containsEdge(e);
+		}
+	}
+
+	private final class VertexSet extends AbstractSet<SDGNode> {
+
+		@Override
+		public Iterator<SDGNode> iterator() {
+			return Collections.unmodifiableList(Arrays.asList(nodes)).iterator();
+		}
+
+		@Override
+		public int size() {
+			return nodes.length;
+		}
+
+		@Override
+		public boolean contains(final Object o) {
+			return indexOf(o) >= 0;
+		}
+	}
+
+	private final class EdgeSet extends AbstractSet<SDGEdge> {
+
+		@Override
+		public Iterator<SDGEdge> iterator() {
+			return new Iterator<SDGEdge>() {
+
+				private int node = 0;
+				private int pos = 0;
+
+				@Override
+				public boolean hasNext() {
+					return pos < outTarget.length;
+				}
+
+				@Override
+				public SDGEdge next() {
+					if (pos >= outTarget.length) {
+						throw new NoSuchElementException();
+					}
+					while (outStart[node + 1] <= pos) {
+						node++;
+					}
+
+					return outEdge(node, pos++);
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException("CompactSDGGraph is immutable.");
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return outTarget.length;
+		}
+
+		@Override
+		public boolean contains(final Object o) {
+			return o instanceof SDGEdge && containsEdge((SDGEdge) o);
+		}
+	}
+
+}
@@ -7,6 +7,7 @@
  */
 package edu.kit.joana.ifc.sdg.graph;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -15,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.jgrapht.DirectedGraph;
 import org.jgrapht.EdgeFactory;
 
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation;
@@ -64,12 +66,15 @@ public abstract class JoanaGraph extends AbstractJoanaGraph<SDGNode, SDGEdge> {
 	/** The root node. */
 	protected SDGNode root;
 	private final TIntObjectHashMap<SDGNode> id2node = new TIntObjectHashMap<SDGNode>();
+	/** the delegate if it is a CompactSDGGraph, whose edges can be looked up by kind */
+	private final CompactSDGGraph compact;
 
 	/**
 	 * Creates a totally empty JoanaGraph.
 	 */
     public JoanaGraph() {
         super(SDGEdge.class);
+        this.compact = null;
     }
 
     /**
@@ -80,6 +85,19 @@ public abstract class JoanaGraph extends AbstractJoanaGraph<SDGNode, SDGEdge> {
         this.name = name;
     }
 
+    /**
+     * Creates a JoanaGraph with a name that is backed by the given graph.
+     * @see CompactSDGGraph
+     */
+    protected JoanaGraph(DirectedGraph<SDGNode, SDGEdge> delegate, String name) {
+        super(delegate);
+        this.name = name;
+        this.compact = (delegate instanceof CompactSDGGraph ? (CompactSDGGraph) delegate : null);
+        for (SDGNode n : delegate.vertexSet()) {
+            id2node.put(n.getId(), n);
+        }
+    }
+
     /**
      * @return information about the threads.
      */
@@ -93,6 +111,7 @@ public abstract class JoanaGraph extends AbstractJoanaGraph<SDGNode, SDGEdge> {
      */
     public void setThreadsInfo(ThreadsInformation ti) {
         this.ti = ti;
+        markModified();
     }
 
     /**
@@ -179,6 +198,10 @@ public abstract class JoanaGraph extends AbstractJoanaGraph<SDGNode, SDGEdge> {
      * @return `true' if node has outgoing edges of kind `kind'.
      */
     public boolean hasOutgoingEdgesOfKind(SDGNode node, SDGEdge.Kind kind) {
+    	if (compact != null) {
+    		return !compact.outgoingEdgesOf(node, kind).isEmpty();
+    	}
+
     	for (SDGEdge e : outgoingEdgesOf(node)) {
     		if (e.getKind() == kind) {
     			return true;
@@ -195,6 +218,10 @@ public abstract class JoanaGraph extends AbstractJoanaGraph<SDGNode, SDGEdge> {
      * @param kind  The demanded kind of edges.
      */
     public List<SDGEdge> getOutgoingEdgesOfKind(SDGNode node, SDGEdge.Kind kind) {
+    	if (compact != null) {
+    		return new ArrayList<SDGEdge>(compact.outgoingEdgesOf(node, kind));
+    	}
+
     	LinkedList<SDGEdge> res = new LinkedList<SDGEdge>();
 
     	for (SDGEdge e : outgoingEdgesOf(node)) {
@@ -214,6 +241,10 @@ public abstract class JoanaGraph extends AbstractJoanaGraph<SDGNode, SDGEdge> {
      * @return `true' if node has incoming edges of kind `kind'.
      */
     public boolean hasIncomingEdgesOfKind(SDGNode node, SDGEdge.Kind kind) {
+    	if (compact != null) {
+    		return !compact.incomingEdgesOf(node, kind).isEmpty();
+    	}
+
     	for (SDGEdge e : incomingEdgesOf(node)) {
     		if (e.getKind() == kind) {
     			return true;
@@ -230,6 +261,10 @@ public abstract class JoanaGraph extends AbstractJoanaGraph<SDGNode, SDGEdge> {
      * @param kind  The demanded kind of edges.
      */
     public List<SDGEdge> getIncomingEdgesOfKind(SDGNode node, SDGEdge.Kind kind) {
+    	if (compact != null) {
+    		return new ArrayList<SDGEdge>(compact.incomingEdgesOf(node, kind));
+    	}
+
     	LinkedList<SDGEdge> res = new LinkedList<SDGEdge>();
 
     	for (SDGEdge e : incomingEdgesOf(node)) {
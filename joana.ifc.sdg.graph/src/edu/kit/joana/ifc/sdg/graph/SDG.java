@@ -11,6 +11,7 @@ package edu.kit.joana.ifc.sdg.graph;
  */
 
 import edu.kit.joana.ifc.sdg.graph.SDG_Parser.SDGHeader;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.SDGAnalysisCache;
 import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 
@@ -31,6 +32,7 @@ import org.antlr.runtime.ANTLRFileStream;
 import org.antlr.runtime.ANTLRReaderStream;
 import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.RecognitionException;
+import org.jgrapht.DirectedGraph;
 
 /**
  * Represents a concurrent system dependence graph (cSDG).
@@ -70,6 +72,9 @@ public class SDG extends JoanaGraph implements Cloneable {
 
     private String fileName = null;
 
+    /** Analysis results derived from this SDG. Lazily initialized by <code>getAnalysisCache</code>. */
+    private SDGAnalysisCache analysisCache = null;
+
     /**
      * Creates an empty SDG.
      */
@@ -86,6 +91,18 @@ public class SDG extends JoanaGraph implements Cloneable {
         this.joanaCompiler = false;
     }
 
+    /**
+     * Returns the cache for the auxiliary graphs and analyses that slicers and choppers derive from this SDG,
+     * like the folded ICFG or the MHP analysis.
+     */
+    public synchronized SDGAnalysisCache getAnalysisCache() {
+    	if (analysisCache == null) {
+    		analysisCache = new SDGAnalysisCache(this);
+    	}
+
+    	return analysisCache;
+    }
+
 	/**
 	 * Returns a shallow copy of this SDG.
      */
@@ -111,6 +128,33 @@ public class SDG extends JoanaGraph implements Cloneable {
         return data;
     }
 
+    /**
+     * Creates an SDG with a name that is backed by the given graph.
+     */
+    SDG(DirectedGraph<SDGNode, SDGEdge> delegate, String name) {
+        super(delegate, name);
+        this.joanaCompiler = false;
+    }
+
+    /**
+     * Returns a read-only copy of this SDG that stores its edges in primitive arrays (see {@link CompactSDGGraph}).
+     * Nodes are shared with this SDG. The copy needs only a fraction of the memory of this SDG and is
+     * meant for analyses that do not modify the graph, e.g. slicing.
+     */
+    public SDG compact() {
+    	SDG data = new SDG(CompactSDGGraph.copyOf(this), name);
+
+        data.SDGFactory = SDGFactory;
+        data.root = root;
+        data.ti = ti;
+        data.joanaCompiler = joanaCompiler;
+        data.node2iindex = node2iindex;
+        data.entry2CGNode = entry2CGNode;
+        data.fileName = fileName;
+
+        return data;
+    }
+
     /**
      * Set this flag to true if the SDGNodes in the SDG contain precise source code info.
      */
@@ -0,0 +1,556 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph;
+
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation.ThreadInstance;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Reads and writes SDGs in a compact binary format. In contrast to the textual .pdg format of
+ * {@link SDGSerializer} no parsing is needed: the file is mapped into memory and the graph is
+ * rebuilt directly from its tables.
+ *
+ * Layout (all numbers are big endian ints):
+ * <pre>
+ * header:  magic, version, flags (JComp), name
+ * strings: count, then per string its length in bytes followed by the UTF-8 bytes
+ * nodes:   count, then per node id, kind, operation, label, type, proc, source, sr, sc, er, ec,
+ *          bytecode name, bytecode index, class loader, unresolved call target, non-termination,
+ *          thread numbers, allocation sites, alias data sources
+ * edges:   per edge kind: count, sources[count], targets[count], labels[count]
+ * threads: count (-1 if there is no thread information), then per thread id, entry, exit, fork,
+ *          join, dynamic, context
+ * </pre>
+ * Strings (labels, types, source files, bytecode names, ...) are stored only once in the string pool and
+ * referenced by their index, absent strings and nodes are encoded as -1. Int arrays are prefixed by their
+ * length, -1 encodes a missing array.
+ *
+ * Binary SDG files are named with {@link #SUFFIX}, so they are not mistaken for textual .pdg files.
+ */
+public final class SDGBinarySerializer {
+
+	public static final int MAGIC = 0x4A534447; // "JSDG"
+	public static final int VERSION = 1;
+	/** file name suffix of binary SDGs */
+	public static final String SUFFIX = ".bpdg";
+
+	private static final int FLAG_JOANA_COMPILER = 1;
+	private static final int NONE = -1;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private SDGBinarySerializer() {}
+
+	/**
+	 * Writes the graph to the given file in binary format.
+	 * @param g the graph
+	 * @param file name of the output file
+	 * @throws IOException if the file could not be written
+	 */
+	public static void toBinaryFormat(final JoanaGraph g, final String file) throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		try {
+			toBinaryFormat(g, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the graph to the given stream in binary format. The stream is flushed but not closed.
+	 * @param g the graph
+	 * @param out the output stream
+	 * @throws IOException if the stream could not be written
+	 */
+	public static void toBinaryFormat(final JoanaGraph g, final OutputStream out) throws IOException {
+		final StringPool pool = new StringPool();
+		final List<SDGNode> nodes = new ArrayList<SDGNode>(g.vertexSet().size());
+		for (final Iterator<SDGNode> it = SDGSerializer.orderedNodes(g); it.hasNext();) {
+			nodes.add(it.next());
+		}
+
+		final SDGEdge.Kind[] kinds = SDGEdge.Kind.values();
+		final TIntArrayList[] edges = new TIntArrayList[kinds.length];
+		for (int i = 0; i < kinds.length; i++) {
+			edges[i] = new TIntArrayList();
+		}
+
+		final int nameIndex = pool.index(g.getName());
+		for (final SDGNode n : nodes) {
+			pool.index(n.getLabel());
+			pool.index(n.getType());
+			pool.index(n.getSource());
+			pool.index(n.getBytecodeName());
+			pool.index(n.getClassLoader());
+			pool.index(n.getUnresolvedCallTarget());
+
+			for (final SDGEdge e : g.outgoingEdgesOf(n)) {
+				final TIntArrayList list = edges[e.getKind().ordinal()];
+				list.add(n.getId());
+				list.add(e.getTarget().getId());
+				list.add(pool.index(e.getLabel()));
+			}
+		}
+
+		final DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+
+		dout.writeInt(MAGIC);
+		dout.writeInt(VERSION);
+		dout.writeInt(g instanceof SDG && ((SDG) g).getJoanaCompiler() ? FLAG_JOANA_COMPILER : 0);
+		dout.writeInt(nameIndex);
+
+		dout.writeInt(pool.strings.size());
+		for (final String str : pool.strings) {
+			final byte[] bytes = str.getBytes(UTF8);
+			dout.writeInt(bytes.length);
+			dout.write(bytes);
+		}
+
+		dout.writeInt(nodes.size());
+		for (final SDGNode n : nodes) {
+			dout.writeInt(n.getId());
+			dout.writeInt(n.getKind().ordinal());
+			dout.writeInt(n.getOperation().ordinal());
+			dout.writeInt(pool.lookup(n.getLabel()));
+			dout.writeInt(pool.lookup(n.getType()));
+			dout.writeInt(n.getProc());
+			dout.writeInt(pool.lookup(n.getSource()));
+			dout.writeInt(n.getSr());
+			dout.writeInt(n.getSc());
+			dout.writeInt(n.getEr());
+			dout.writeInt(n.getEc());
+			dout.writeInt(pool.lookup(n.getBytecodeName()));
+			dout.writeInt(n.getBytecodeIndex());
+			dout.writeInt(pool.lookup(n.getClassLoader()));
+			dout.writeInt(pool.lookup(n.getUnresolvedCallTarget()));
+			dout.writeInt(n.mayBeNonTerminating() ? 1 : 0);
+			writeInts(dout, n.getThreadNumbers());
+			writeInts(dout, n.getAllocationSites());
+			final TIntSet alias = n.getAliasDataSources();
+			if (alias == null) {
+				dout.writeInt(NONE);
+			} else {
+				dout.writeInt(alias.size());
+				for (final TIntIterator it = alias.iterator(); it.hasNext();) {
+					dout.writeInt(it.next());
+				}
+			}
+		}
+
+		for (int i = 0; i < kinds.length; i++) {
+			final TIntArrayList list = edges[i];
+			final int count = list.size() / 3;
+			dout.writeInt(count);
+			for (int j = 0; j < count; j++) {
+				dout.writeInt(list.getQuick(3 * j));
+			}
+			for (int j = 0; j < count; j++) {
+				dout.writeInt(list.getQuick(3 * j + 1));
+			}
+			for (int j = 0; j < count; j++) {
+				dout.writeInt(list.getQuick(3 * j + 2));
+			}
+		}
+
+		final ThreadsInformation tinfo = g.getThreadsInfo();
+		if (tinfo == null) {
+			dout.writeInt(NONE);
+		} else {
+			dout.writeInt(tinfo.getNumberOfThreads());
+			for (final ThreadInstance ti : tinfo) {
+				dout.writeInt(ti.getId());
+				dout.writeInt(idOf(ti.getEntry()));
+				dout.writeInt(idOf(ti.getExit()));
+				dout.writeInt(idOf(ti.getFork()));
+				dout.writeInt(idOf(ti.getJoin()));
+				dout.writeInt(ti.isDynamic() ? 1 : 0);
+				final LinkedList<SDGNode> ctx = ti.getThreadContext();
+				if (ctx == null) {
+					dout.writeInt(NONE);
+				} else {
+					dout.writeInt(ctx.size());
+					for (final SDGNode n : ctx) {
+						dout.writeInt(n.getId());
+					}
+				}
+			}
+		}
+
+		dout.flush();
+	}
+
+	/**
+	 * Checks whether the given file starts with the magic number of the binary SDG format.
+	 * @param file name of the file
+	 * @return <tt>true</tt> if the file is a binary SDG, <tt>false</tt> otherwise
+	 * @throws IOException if the file could not be read
+	 */
+	public static boolean isBinaryFormat(final String file) throws IOException {
+		final DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			return in.readInt() == MAGIC;
+		} catch (java.io.EOFException e) {
+			return false;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads a binary SDG from a file. The file is memory mapped, so loading does not copy the file into
+	 * the java heap before the graph is built.
+	 * @param file name of the file
+	 * @param nodeFactory factory that is used to create SDGNodes, <tt>null</tt> for the default factory
+	 * @return the SDG stored in the file
+	 * @throws IOException if the file could not be read or has an unexpected format
+	 */
+	public static SDG readFrom(final String file, final SDGNode.NodeFactory nodeFactory) throws IOException {
+		return readFrom(file, nodeFactory, false);
+	}
+
+	/**
+	 * Reads a binary SDG from a file into a read-only SDG that is backed by a {@link CompactSDGGraph}.
+	 * The edge tables of the file are turned into the compact representation directly, so the graph
+	 * never exists in its memory intensive standard form.
+	 * @param file name of the file
+	 * @param nodeFactory factory that is used to create SDGNodes, <tt>null</tt> for the default factory
+	 * @return the SDG stored in the file
+	 * @throws IOException if the file could not be read or has an unexpected format
+	 * @see SDG#compact()
+	 */
+	public static SDG readCompactFrom(final String file, final SDGNode.NodeFactory nodeFactory) throws IOException {
+		return readFrom(file, nodeFactory, true);
+	}
+
+	private static SDG readFrom(final String file, final SDGNode.NodeFactory nodeFactory, final boolean compact)
+			throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		final SDG sdg;
+		try {
+			final FileChannel channel = raf.getChannel();
+			final long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Binary SDG file " + file + " is too large to be mapped: " + size + " bytes");
+			}
+			final MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			sdg = readFrom(buf, nodeFactory, compact);
+		} finally {
+			raf.close();
+		}
+
+		final int sepIndex = file.lastIndexOf(File.separator);
+		final String fileName = (sepIndex > 0 ? file.substring(sepIndex) : file);
+		sdg.setFileName(fileName);
+
+		return sdg;
+	}
+
+	/**
+	 * Reads a binary SDG from a buffer positioned at the start of the header.
+	 * @param buf the buffer
+	 * @param nodeFactory factory that is used to create SDGNodes, <tt>null</tt> for the default factory
+	 * @return the SDG stored in the buffer
+	 * @throws IOException if the buffer contents have an unexpected format
+	 */
+	public static SDG readFrom(final ByteBuffer buf, final SDGNode.NodeFactory nodeFactory) throws IOException {
+		return readFrom(buf, nodeFactory, false);
+	}
+
+	private static SDG readFrom(final ByteBuffer buf, SDGNode.NodeFactory nodeFactory, final boolean compact)
+			throws IOException {
+		if (nodeFactory == null) {
+			nodeFactory = new SDGNode.SDGNodeFactory();
+		}
+
+		try {
+			if (buf.getInt() != MAGIC) {
+				throw new IOException("Not a binary SDG: magic number does not match.");
+			}
+			final int version = buf.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported binary SDG version " + version + ", expected " + VERSION);
+			}
+			final int flags = buf.getInt();
+			final int nameIndex = buf.getInt();
+
+			final String[] strings = new String[buf.getInt()];
+			for (int i = 0; i < strings.length; i++) {
+				final byte[] bytes = new byte[buf.getInt()];
+				buf.get(bytes);
+				strings[i] = new String(bytes, UTF8);
+			}
+
+			final String name = string(strings, nameIndex);
+
+			final SDGNode.Kind[] nodeKinds = SDGNode.Kind.values();
+			final SDGNode.Operation[] ops = SDGNode.Operation.values();
+			final SDGNode[] nodes = new SDGNode[buf.getInt()];
+			for (int i = 0; i < nodes.length; i++) {
+				final int id = buf.getInt();
+				final SDGNode.Kind kind = nodeKinds[buf.getInt()];
+				final SDGNode.Operation op = ops[buf.getInt()];
+				final String label = string(strings, buf.getInt());
+				final String type = string(strings, buf.getInt());
+				final int proc = buf.getInt();
+				final String source = string(strings, buf.getInt());
+				final int sr = buf.getInt();
+				final int sc = buf.getInt();
+				final int er = buf.getInt();
+				final int ec = buf.getInt();
+				final String bcName = string(strings, buf.getInt());
+				final int bcIndex = buf.getInt();
+				final String classLoader = string(strings, buf.getInt());
+				final String unresolved = string(strings, buf.getInt());
+				final boolean nonTerm = buf.getInt() != 0;
+				final int[] threads = readInts(buf);
+				final int[] allocSites = readInts(buf);
+				final int[] alias = readInts(buf);
+
+				final SDGNode n = nodeFactory.createNode(op, findKindId(op, kind), id, label, proc, type, source,
+						sr, sc, er, ec, bcName, bcIndex);
+				if (threads != null) {
+					n.setThreadNumbers(threads);
+				}
+				if (nonTerm) {
+					n.setMayBeNonTerminating(true);
+				}
+				if (classLoader != null) {
+					n.setClassLoader(classLoader);
+				}
+				if (allocSites != null) {
+					n.setAllocationSites(allocSites);
+				}
+				if (alias != null) {
+					n.setAliasDataSources(new TIntHashSet(alias));
+				}
+				if (unresolved != null) {
+					n.setUnresolvedCallTarget(unresolved);
+				}
+
+				nodes[i] = n;
+			}
+
+			final SDG sdg;
+			if (compact) {
+				final SDGEdge.Kind[] kinds = SDGEdge.Kind.values();
+				final int[][] sources = new int[kinds.length][];
+				final int[][] targets = new int[kinds.length][];
+				final int[][] labels = new int[kinds.length][];
+				for (int k = 0; k < kinds.length; k++) {
+					final int count = buf.getInt();
+					sources[k] = readInts(buf, count);
+					targets[k] = readInts(buf, count);
+					labels[k] = readInts(buf, count);
+				}
+				sdg = new SDG(new CompactSDGGraph(nodes, sources, targets, labels, strings), name);
+			} else {
+				sdg = (name == null ? new SDG() : new SDG(name));
+				for (final SDGNode n : nodes) {
+					sdg.addVertex(n);
+				}
+				readEdges(buf, sdg, strings);
+			}
+			sdg.setJoanaCompiler((flags & FLAG_JOANA_COMPILER) != 0);
+
+			readThreads(buf, sdg);
+
+			return sdg;
+		} catch (java.nio.BufferUnderflowException e) {
+			throw new IOException("Binary SDG is truncated.", e);
+		} catch (IndexOutOfBoundsException e) {
+			throw new IOException("Binary SDG is corrupt.", e);
+		}
+	}
+
+	private static void readEdges(final ByteBuffer buf, final SDG sdg, final String[] strings) {
+		for (final SDGEdge.Kind kind : SDGEdge.Kind.values()) {
+			final int count = buf.getInt();
+			if (count == 0) {
+				continue;
+			}
+			final int start = buf.position();
+			final int tgtStart = start + 4 * count;
+			final int lblStart = tgtStart + 4 * count;
+			for (int j = 0; j < count; j++) {
+				final SDGNode from = sdg.getNode(buf.getInt(start + 4 * j));
+				final SDGNode to = sdg.getNode(buf.getInt(tgtStart + 4 * j));
+				final String label = string(strings, buf.getInt(lblStart + 4 * j));
+				final SDGEdge edge = (label != null
+					? new SDGEdge(from, to, kind, label)
+					: new SDGEdge(from, to, kind));
+				sdg.addEdge(edge);
+			}
+			buf.position(lblStart + 4 * count);
+		}
+	}
+
+	private static void readThreads(final ByteBuffer buf, final SDG sdg) {
+		final int numThreads = buf.getInt();
+		if (numThreads >= 0) {
+			final LinkedList<ThreadInstance> threads = new LinkedList<ThreadInstance>();
+			for (int i = 0; i < numThreads; i++) {
+				final int id = buf.getInt();
+				final SDGNode entry = node(sdg, buf.getInt());
+				final SDGNode exit = node(sdg, buf.getInt());
+				final SDGNode fork = node(sdg, buf.getInt());
+				final SDGNode join = node(sdg, buf.getInt());
+				final boolean dynamic = buf.getInt() != 0;
+				final int[] ctxIds = readInts(buf);
+				final LinkedList<SDGNode> ctx = (ctxIds == null ? null : new LinkedList<SDGNode>());
+				if (ctxIds != null) {
+					for (final int ctxId : ctxIds) {
+						final SDGNode n = node(sdg, ctxId);
+						if (n != null) {
+							ctx.add(n);
+						}
+					}
+				}
+				threads.add(new ThreadInstance(id, entry, exit, fork, join, ctx, dynamic));
+			}
+			sdg.setThreadsInfo(new ThreadsInformation(threads));
+		}
+	}
+
+	/**
+	 * Converts between the textual .pdg format and the binary format. The direction is chosen by looking
+	 * at the input file. If the input is a directory, every textual .pdg file in it is replaced by its
+	 * binary counterpart with the suffix {@link #SUFFIX}, e.g. to migrate a folder of cached SDGs.
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length == 1 && new File(args[0]).isDirectory()) {
+			final File[] files = new File(args[0]).listFiles();
+			if (files != null) {
+				for (final File f : files) {
+					if (f.isFile() && f.getName().endsWith(".pdg") && !isBinaryFormat(f.getPath())) {
+						final String name = f.getName().substring(0, f.getName().length() - ".pdg".length());
+						final File binary = new File(f.getParentFile(), name + SUFFIX);
+						final File tmp = new File(binary.getPath() + ".tmp");
+						convert(f.getPath(), tmp.getPath());
+						if (!tmp.renameTo(binary) || !f.delete()) {
+							throw new IOException("Could not replace " + f + " with " + binary);
+						}
+						System.out.println("converted " + f + " to " + binary);
+					}
+				}
+			}
+		} else if (args.length == 2) {
+			convert(args[0], args[1]);
+		} else {
+			System.out.println("Usage: SDGBinarySerializer <input> <output>  (.pdg <-> " + SUFFIX + ")");
+			System.out.println("       SDGBinarySerializer <directory>       (convert all .pdg files to " + SUFFIX + ")");
+		}
+	}
+
+	private static void convert(final String in, final String out) throws IOException {
+		if (isBinaryFormat(in)) {
+			final SDG sdg = readFrom(in, null);
+			final OutputStream os = new FileOutputStream(out);
+			try {
+				SDGSerializer.toPDGFormat(sdg, new BufferedOutputStream(os));
+			} finally {
+				os.close();
+			}
+		} else {
+			final SDG sdg = SDG.readFromAndUseLessHeap(in);
+			toBinaryFormat(sdg, out);
+		}
+	}
+
+	private static int findKindId(final SDGNode.Operation op, final SDGNode.Kind kind) {
+		final SDGNode.Kind[] kinds = op.getCorrespondingKind();
+		for (int id = 0; id < kinds.length; id++) {
+			if (kind == kinds[id]) {
+				return id;
+			}
+		}
+
+		throw new IllegalStateException("no valid kind " + kind + " found for operation " + op);
+	}
+
+	private static int idOf(final SDGNode n) {
+		return (n == null ? NONE : n.getId());
+	}
+
+	private static SDGNode node(final SDG sdg, final int id) {
+		return (id == NONE ? null : sdg.getNode(id));
+	}
+
+	private static String string(final String[] strings, final int index) {
+		return (index == NONE ? null : strings[index]);
+	}
+
+	private static void writeInts(final DataOutputStream out, final int[] arr) throws IOException {
+		if (arr == null) {
+			out.writeInt(NONE);
+		} else {
+			out.writeInt(arr.length);
+			for (final int i : arr) {
+				out.writeInt(i);
+			}
+		}
+	}
+
+	private static int[] readInts(final ByteBuffer buf) {
+		final int len = buf.getInt();
+		return (len == NONE ? null : readInts(buf, len));
+	}
+
+	private static int[] readInts(final ByteBuffer buf, final int len) {
+		final int[] arr = new int[len];
+		buf.asIntBuffer().get(arr);
+		buf.position(buf.position() + 4 * len);
+		return arr;
+	}
+
+	private static final class StringPool {
+
+		private final TObjectIntHashMap<String> index = new TObjectIntHashMap<String>(1024, 0.5f, NONE);
+		private final List<String> strings = new ArrayList<String>();
+
+		private int index(final String str) {
+			if (str == null) {
+				return NONE;
+			}
+			int idx = index.get(str);
+			if (idx == NONE) {
+				idx = strings.size();
+				strings.add(str);
+				index.put(str, idx);
+			}
+			return idx;
+		}
+
+		private int lookup(final String str) {
+			return (str == null ? NONE : index.get(str));
+		}
+	}
+
+}
@@ -29,6 +29,7 @@ import edu.kit.joana.ifc.sdg.graph.SDGNodeTuple;
  * - provides convenience methods <code>chop(SDGNode source, SDGNode sink)</chop> and
  *   <code>chop(ChoppingCriterion criterion)</code>, which fall back to the abstract method
  *   <code>chop(Collection<SDGNode> sourceSet, Collection<SDGNode> sinkSet)</code>,
+ * - skips chops between unconnected criteria in the convenience methods, if a {@link ReachabilityIndex} is set,
  * - offers routines for
  *   -- sorting chops
  *   -- testing if chopping criteria are same-level
@@ -38,6 +39,8 @@ import edu.kit.joana.ifc.sdg.graph.SDGNodeTuple;
  */
 public abstract class Chopper {
 	protected SDG sdg;
+	/** Optional index for skipping chops between unconnected criteria. */
+	private ReachabilityIndex index;
 
 	/**
 	 * Calls <code>setGraph</code> for initialization.
@@ -53,9 +56,34 @@ public abstract class Chopper {
      */
     public final void setGraph(SDG g) {
     	sdg = g;
+    	if (index != null && index.getSDG() != g) {
+    		index = null;
+    	}
     	onSetGraph();
     }
 
+    /**
+     * Sets a reachability index for the current SDG, which is used by <code>chop(SDGNode source, SDGNode sink)</code>
+     * and <code>chop(ChoppingCriterion criterion)</code> to return an empty chop without running the chopping algorithm
+     * if the source criterion cannot reach the target criterion.
+     * The index is dropped if <code>setGraph</code> is called with another SDG.
+     *
+     * @param idx  A reachability index for the current SDG, or null to disable the pruning.
+     */
+    public final void setReachabilityIndex(ReachabilityIndex idx) {
+    	if (idx != null && idx.getSDG() != sdg) {
+    		throw new IllegalArgumentException("reachability index belongs to another SDG");
+    	}
+    	index = idx;
+    }
+
+    /**
+     * @return The reachability index of this chopper, or null if none is set.
+     */
+    public final ReachabilityIndex getReachabilityIndex() {
+    	return index;
+    }
+
     /**
      * Is called at the end of setGraph and can be used for custom initializations.
      * At the time of this call-back, attribute <code>sdg</code> has been initialized and can be accessed.
@@ -80,6 +108,10 @@ public abstract class Chopper {
      * @return         The chop.
      */
     public final Collection<SDGNode> chop(SDGNode source, SDGNode sink) {
+    	if (index != null && !index.reaches(source, sink)) {
+    		return new HashSet<SDGNode>();
+    	}
+
         return chop(Collections.singleton(source), Collections.singleton(sink));
     }
 
@@ -90,6 +122,10 @@ public abstract class Chopper {
      * @return            The chop.
      */
 	public final Collection<SDGNode> chop(ChoppingCriterion criterion) {
+		if (index != null && !index.reachesAny(criterion.getSourceSet(), criterion.getTargetSet())) {
+			return new HashSet<SDGNode>();
+		}
+
 		return chop(criterion.getSourceSet(), criterion.getTargetSet());
 	}
 
@@ -0,0 +1,425 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.chopper;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+/**
+ * A reachability index for a SDG, which is used to skip chops between unconnected criteria.
+ *
+ * The index condenses the strongly connected components of the SDG, including its summary edges,
+ * and labels the resulting DAG with a topological order and a few randomized post-order intervals
+ * (Yildirim et al., GRAIL). Most queries between unconnected nodes are answered by comparing the labels;
+ * the remaining queries run a depth-first search on the DAG that is pruned with the same labels.
+ *
+ * The index is context-insensitive: a node that <code>reaches</code> another node may still lie outside
+ * of every context-sensitive chop. If it does not reach it, however, every chop between the two nodes is empty.
+ *
+ * The index has to be rebuilt if the edges of the SDG change. Queries are not thread-safe.
+ *
+ * @see Chopper#setReachabilityIndex(ReachabilityIndex)
+ */
+public class ReachabilityIndex {
+	/** Number of randomized interval labels per component. */
+	private static final int LABELS = 3;
+	/** Seed of the random traversal orders, to make the index reproducible. */
+	private static final long SEED = 0x4A4F414E41L;
+
+	private final SDG sdg;
+	private final TObjectIntHashMap<SDGNode> nodeToComp;
+	/** successors of each component in the DAG, in the compressed sparse row format */
+	private final int[] succStart;
+	private final int[] succ;
+	/** low[l * numComps + c] and post[l * numComps + c] form the l-th interval of component c */
+	private final int[] low;
+	private final int[] post;
+	private final int numComps;
+
+	/* state of the depth-first search of a query */
+	private final int[] visited;
+	private final int[] stack;
+	private int stamp = 0;
+
+	/**
+	 * Creates an index over all program dependence edges of the given SDG.
+	 *
+	 * @param g  A SDG. Must not be null.
+	 * @see SDGEdge.Kind#isSDGEdge()
+	 */
+	public ReachabilityIndex(SDG g) {
+		this(g, sdgEdges());
+	}
+
+	/**
+	 * Creates an index over the edges of the given kinds.
+	 *
+	 * @param g      A SDG. Must not be null.
+	 * @param kinds  The edge kinds traversed by the choppers that use this index.
+	 */
+	public ReachabilityIndex(SDG g, Set<SDGEdge.Kind> kinds) {
+		sdg = g;
+
+		final int numNodes = g.vertexSet().size();
+		final SDGNode[] nodes = g.vertexSet().toArray(new SDGNode[numNodes]);
+		final TObjectIntHashMap<SDGNode> nodeToIndex = new TObjectIntHashMap<SDGNode>(numNodes * 2, 0.5f, -1);
+		for (int i = 0; i < numNodes; i++) {
+			nodeToIndex.put(nodes[i], i);
+		}
+
+		// adjacency of the nodes
+		final int[] start = new int[numNodes + 1];
+		for (int i = 0; i < numNodes; i++) {
+			for (SDGEdge e : g.outgoingEdgesOf(nodes[i])) {
+				if (kinds.contains(e.getKind())) {
+					start[i + 1]++;
+				}
+			}
+		}
+		for (int i = 0; i < numNodes; i++) {
+			start[i + 1] += start[i];
+		}
+		final int[] target = new int[start[numNodes]];
+		for (int i = 0, pos = 0; i < numNodes; i++) {
+			for (SDGEdge e : g.outgoingEdgesOf(nodes[i])) {
+				if (kinds.contains(e.getKind())) {
+					target[pos++] = nodeToIndex.get(e.getTarget());
+				}
+			}
+		}
+
+		final int[] comp = computeSCCs(numNodes, start, target);
+		int max = -1;
+		for (int c : comp) {
+			max = Math.max(max, c);
+		}
+		numComps = max + 1;
+
+		nodeToComp = new TObjectIntHashMap<SDGNode>(numNodes * 2, 0.5f, -1);
+		for (int i = 0; i < numNodes; i++) {
+			nodeToComp.put(nodes[i], comp[i]);
+		}
+
+		// condensed DAG without self loops and duplicate edges
+		final int[] members = new int[numNodes];
+		final int[] memberStart = new int[numComps + 1];
+		for (int i = 0; i < numNodes; i++) {
+			memberStart[comp[i] + 1]++;
+		}
+		for (int c = 0; c < numComps; c++) {
+			memberStart[c + 1] += memberStart[c];
+		}
+		final int[] fill = Arrays.copyOf(memberStart, numComps);
+		for (int i = 0; i < numNodes; i++) {
+			members[fill[comp[i]]++] = i;
+		}
+
+		succStart = new int[numComps + 1];
+		int[] dagSucc = new int[Math.max(16, target.length / 2)];
+		int numSucc = 0;
+		final int[] lastSeen = new int[numComps];
+		Arrays.fill(lastSeen, -1);
+		for (int c = 0; c < numComps; c++) {
+			succStart[c] = numSucc;
+			for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+				final int n = members[m];
+				for (int k = start[n]; k < start[n + 1]; k++) {
+					final int d = comp[target[k]];
+					if (d != c && lastSeen[d] != c) {
+						lastSeen[d] = c;
+						if (numSucc == dagSucc.length) {
+							dagSucc = Arrays.copyOf(dagSucc, numSucc * 2);
+						}
+						dagSucc[numSucc++] = d;
+					}
+				}
+			}
+		}
+		succStart[numComps] = numSucc;
+		succ = Arrays.copyOf(dagSucc, numSucc);
+
+		low = new int[LABELS * numComps];
+		post = new int[LABELS * numComps];
+		final Random rnd = new Random(SEED);
+		for (int l = 0; l < LABELS; l++) {
+			computeIntervals(l, rnd);
+		}
+
+		visited = new int[numComps];
+		stack = new int[numComps];
+	}
+
+	private static Set<SDGEdge.Kind> sdgEdges() {
+		final Set<SDGEdge.Kind> kinds = EnumSet.noneOf(SDGEdge.Kind.class);
+		for (SDGEdge.Kind k : SDGEdge.Kind.values()) {
+			if (k.isSDGEdge()) {
+				kinds.add(k);
+			}
+		}
+
+		return kinds;
+	}
+
+	/**
+	 * Iterative version of Tarjan's algorithm. The components are numbered in the order they are completed,
+	 * so an edge from component c to component d implies d <= c.
+	 */
+	private static int[] computeSCCs(final int numNodes, final int[] start, final int[] target) {
+		final int[] comp = new int[numNodes];
+		final int[] index = new int[numNodes];
+		final int[] lowlink = new int[numNodes];
+		final int[] edgePos = new int[numNodes];
+		final int[] callStack = new int[numNodes];
+		final int[] sccStack = new int[numNodes];
+		final boolean[] onStack = new boolean[numNodes];
+		Arrays.fill(index, -1);
+
+		int nextIndex = 0;
+		int nextComp = 0;
+		int sccTop = 0;
+
+		for (int root = 0; root < numNodes; root++) {
+			if (index[root] >= 0) {
+				continue;
+			}
+
+			int callTop = 0;
+			callStack[callTop++] = root;
+			index[root] = lowlink[root] = nextIndex++;
+			edgePos[root] = start[root];
+			sccStack[sccTop++] = root;
+			onStack[root] = true;
+
+			while (callTop > 0) {
+				final int n = callStack[callTop - 1];
+
+				if (edgePos[n] < start[n + 1]) {
+					final int m = target[edgePos[n]++];
+
+					if (index[m] < 0) {
+						index[m] = lowlink[m] = nextIndex++;
+						edgePos[m] = start[m];
+						sccStack[sccTop++] = m;
+						onStack[m] = true;
+						callStack[callTop++] = m;
+
+					} else if (onStack[m] && index[m] < lowlink[n]) {
+						lowlink[n] = index[m];
+					}
+
+				} else {
+					callTop--;
+
+					if (callTop > 0) {
+						final int parent = callStack[callTop - 1];
+						if (lowlink[n] < lowlink[parent]) {
+							lowlink[parent] = lowlink[n];
+						}
+					}
+
+					if (lowlink[n] == index[n]) {
+						int m;
+						do {
+							m = sccStack[--sccTop];
+							onStack[m] = false;
+							comp[m] = nextComp;
+						} while (m != n);
+						nextComp++;
+					}
+				}
+			}
+		}
+
+		return comp;
+	}
+
+	/**
+	 * Computes the l-th interval label with a depth-first traversal of the DAG, which visits the roots and
+	 * the successors of each component in random order. The post-order number of a component and the
+	 * minimal post-order number of its reachable components form its interval.
+	 */
+	private void computeIntervals(final int l, final Random rnd) {
+		final int offset = l * numComps;
+		final int[] roots = new int[numComps];
+		for (int c = 0; c < numComps; c++) {
+			roots[c] = c;
+		}
+		shuffle(roots, 0, numComps, rnd);
+
+		// random successor order for this traversal
+		final int[] order = Arrays.copyOf(succ, succ.length);
+		for (int c = 0; c < numComps; c++) {
+			shuffle(order, succStart[c], succStart[c + 1], rnd);
+		}
+
+		final boolean[] done = new boolean[numComps];
+		final int[] edgePos = new int[numComps];
+		final int[] callStack = new int[numComps];
+		int nextPost = 0;
+
+		for (final int root : roots) {
+			if (done[root]) {
+				continue;
+			}
+
+			int top = 0;
+			callStack[top++] = root;
+			done[root] = true;
+			edgePos[root] = succStart[root];
+			low[offset + root] = Integer.MAX_VALUE;
+
+			while (top > 0) {
+				final int c = callStack[top - 1];
+
+				if (edgePos[c] < succStart[c + 1]) {
+					final int d = order[edgePos[c]++];
+
+					if (!done[d]) {
+						done[d] = true;
+						edgePos[d] = succStart[d];
+						low[offset + d] = Integer.MAX_VALUE;
+						callStack[top++] = d;
+
+					} else if (low[offset + d] < low[offset + c]) {
+						low[offset + c] = low[offset + d];
+					}
+
+				} else {
+					top--;
+					post[offset + c] = nextPost;
+					if (nextPost < low[offset + c]) {
+						low[offset + c] = nextPost;
+					}
+					nextPost++;
+
+					if (top > 0) {
+						final int parent = callStack[top - 1];
+						if (low[offset + c] < low[offset + parent]) {
+							low[offset + parent] = low[offset + c];
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static void shuffle(final int[] arr, final int from, final int to, final Random rnd) {
+		for (int i = to - 1; i > from; i--) {
+			final int j = from + rnd.nextInt(i - from + 1);
+			final int tmp = arr[i];
+			arr[i] = arr[j];
+			arr[j] = tmp;
+		}
+	}
+
+	/**
+	 * @return The SDG this index was built for.
+	 */
+	public SDG getSDG() {
+		return sdg;
+	}
+
+	/**
+	 * Tests whether there is a path from <code>from</code> to <code>to</code>.
+	 * Nodes that are not part of the indexed SDG reach only themselves.
+	 *
+	 * @param from  The start node.
+	 * @param to    The target node.
+	 * @return      `false' if no chop from <code>from</code> to <code>to</code> can contain a node.
+	 */
+	public boolean reaches(SDGNode from, SDGNode to) {
+		if (from == to) {
+			return true;
+		}
+
+		final int source = nodeToComp.get(from);
+		final int sink = nodeToComp.get(to);
+
+		if (source < 0 || sink < 0) {
+			return false;
+		} else if (source == sink) {
+			return true;
+		} else if (!mayReach(source, sink)) {
+			return false;
+		}
+
+		// depth-first search on the DAG, pruned by the labels
+		stamp++;
+		if (stamp == 0) {
+			Arrays.fill(visited, 0);
+			stamp = 1;
+		}
+
+		int top = 0;
+		stack[top++] = source;
+		visited[source] = stamp;
+
+		while (top > 0) {
+			final int c = stack[--top];
+
+			for (int k = succStart[c]; k < succStart[c + 1]; k++) {
+				final int d = succ[k];
+
+				if (d == sink) {
+					return true;
+				} else if (visited[d] != stamp) {
+					visited[d] = stamp;
+
+					if (mayReach(d, sink)) {
+						stack[top++] = d;
+					}
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Tests whether a node of <code>sourceSet</code> reaches a node of <code>sinkSet</code>.
+	 *
+	 * @return  `false' if every chop from <code>sourceSet</code> to <code>sinkSet</code> is empty.
+	 */
+	public boolean reachesAny(Collection<SDGNode> sourceSet, Collection<SDGNode> sinkSet) {
+		for (SDGNode source : sourceSet) {
+			for (SDGNode sink : sinkSet) {
+				if (reaches(source, sink)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns false if the labels prove that component <code>c</code> cannot reach component <code>d</code>.
+	 */
+	private boolean mayReach(final int c, final int d) {
+		if (d > c) {
+			// the components are numbered in reverse topological order
+			return false;
+		}
+
+		for (int offset = 0; offset < low.length; offset += numComps) {
+			if (low[offset + d] < low[offset + c] || post[offset + d] > post[offset + c]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
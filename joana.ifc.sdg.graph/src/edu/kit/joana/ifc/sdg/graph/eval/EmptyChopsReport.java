@@ -54,6 +54,10 @@ public class EmptyChopsReport implements Report {
 		// do nuffin'
 	}
 
+	public void sample(Algorithm alg, long nanos, long allocated) {
+		// do nuffin'
+	}
+
 	public void update(Algorithm alg, Criterion crit, long time, Collection<SDGNode> nodes) {
 		temp.put(alg, nodes);
 	}
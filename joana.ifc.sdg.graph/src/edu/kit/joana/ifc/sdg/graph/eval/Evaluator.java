@@ -8,6 +8,8 @@
 package edu.kit.joana.ifc.sdg.graph.eval;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
@@ -17,12 +19,16 @@ import edu.kit.joana.ifc.sdg.graph.SDGNode;
 
 
 public class Evaluator {
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
 	private Algorithm.Kind choice;
 	private List<Algorithm> algorithms;
 	private List<String> sdgFiles;
 	private List<Report> reports;
 	private int criteria;
 	private boolean random;
+	private int warmup = 0;
+	private int rounds = 1;
 
 	public Evaluator() {
 		algorithms = new LinkedList<Algorithm>();
@@ -43,6 +49,15 @@ public class Evaluator {
 		random = rand;
 	}
 
+	/**
+	 * @param warmup  number of unreported runs over all criteria before the measurement starts
+	 * @param rounds  number of reported runs over all criteria; the reports accumulate all rounds
+	 */
+	public void setRounds(int warmup, int rounds) {
+		this.warmup = warmup;
+		this.rounds = rounds;
+	}
+
 	public void setReports(List<Report> rs) {
 		reports = rs;
 	}
@@ -57,6 +72,7 @@ public class Evaluator {
 	        System.out.println("	"+file);
 		}
 		System.out.println("Criteria: "+criteria+" (random: "+random+")");
+		System.out.println("Rounds: "+rounds+" (warm-up: "+warmup+")");
 
 		for (String file : sdgFiles) {
 			SDG g = SDG.readFrom(file);
@@ -88,7 +104,38 @@ public class Evaluator {
 			crits = (random ? Criterion.createNCriteriaRandomly(criteria, g) : Criterion.createNCriteria(criteria, 15, g));
 		}
 
+        if (warmup > 0) {
+            System.out.println("warm-up");
+
+            for (int round = 0; round < warmup; round++) {
+            	warmup(crits);
+            }
+        }
+
         // begin the evaluation
+        for (int round = 0; round < rounds; round++) {
+        	measure(crits);
+        }
+
+		for (Report r : reports) {
+			r.evaluationFinished();
+		}
+	}
+
+	private void warmup(List<Criterion> crits) {
+		for (Criterion crit : crits) {
+			try {
+				for (Algorithm alg : algorithms) {
+					alg.run(crit);
+				}
+
+			} catch(RuntimeException ex) {
+				// reported in the measurement
+			}
+		}
+	}
+
+	private void measure(List<Criterion> crits) {
         int ctr = 0;
 		for (Criterion crit : crits) {
 			ctr++;
@@ -99,12 +146,15 @@ public class Evaluator {
 
 			try {
 				for (Algorithm alg : algorithms) {
-					long time = System.currentTimeMillis();
+					final long allocated = allocatedBytes();
+					final long start = System.nanoTime();
 					Collection<SDGNode> nodes = alg.run(crit);
-					time = System.currentTimeMillis() - time;
+					final long time = System.nanoTime() - start;
+					final long allocation = (allocated < 0 ? -1 : allocatedBytes() - allocated);
 
 					for (Report r : reports) {
-						r.update(alg, crit, time, nodes);
+						r.sample(alg, time, allocation);
+						r.update(alg, crit, time / 1000000, nodes);
 					}
 				}
 
@@ -130,9 +180,20 @@ public class Evaluator {
 		}
 
 		System.out.println();
+	}
 
-		for (Report r : reports) {
-			r.evaluationFinished();
+	/**
+	 * Returns the number of bytes allocated by the current thread so far, or -1 if the JVM cannot measure it.
+	 */
+	private static long allocatedBytes() {
+		if (THREADS instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) THREADS;
+
+			if (mx.isThreadAllocatedMemorySupported() && mx.isThreadAllocatedMemoryEnabled()) {
+				return mx.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
 		}
+
+		return -1;
 	}
 }
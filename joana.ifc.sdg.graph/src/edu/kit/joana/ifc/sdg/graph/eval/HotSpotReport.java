@@ -57,6 +57,10 @@ public class HotSpotReport implements Report {
 		// do nuffin'
 	}
 
+	public void sample(Algorithm alg, long nanos, long allocated) {
+		// do nuffin'
+	}
+
 	public void update(Algorithm alg, Criterion crit, long time, Collection<SDGNode> nodes) {
 		ValueSet tmp = new ValueSet();
 		tmp.size = nodes.size();
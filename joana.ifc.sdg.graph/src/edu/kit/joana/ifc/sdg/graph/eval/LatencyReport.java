@@ -0,0 +1,123 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.eval;
+
+import gnu.trove.list.array.TLongArrayList;
+
+import java.util.Collection;
+import java.util.HashMap;
+
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+
+
+/**
+ * Reports the latency distribution and the allocation rate of each algorithm.
+ * The Evaluator feeds it with the nanosecond time and the bytes allocated by each run,
+ * runs of aborted iterations are dropped.
+ */
+public class LatencyReport implements Report {
+	private class ValueSet {
+		TLongArrayList times = new TLongArrayList();
+		long allocated;
+		/* no allocation is reported if the JVM cannot measure it for some run */
+		boolean allocationKnown = true;
+	}
+
+	private Collection<Algorithm> algs;
+	private HashMap<Algorithm, ValueSet> data;
+	private HashMap<Algorithm, long[]> temp;
+	private long failCtr;
+
+	LatencyReport(Collection<Algorithm> algs) {
+		this.algs = algs;
+		clear();
+	}
+
+	public void clear() {
+		data = new HashMap<Algorithm, ValueSet>();
+		temp = new HashMap<Algorithm, long[]>();
+		for (Algorithm a : algs) {
+			data.put(a, new ValueSet());
+		}
+
+		failCtr = 0;
+	}
+
+	public void iterationAborted(RuntimeException ex, Criterion crit) {
+		failCtr++;
+	}
+
+	public void iterationSucceeded() {
+		for (Algorithm a : temp.keySet()) {
+			long[] tmp = temp.get(a);
+			ValueSet dat = data.get(a);
+
+			dat.times.add(tmp[0]);
+			if (tmp[1] < 0) {
+				dat.allocationKnown = false;
+			} else {
+				dat.allocated += tmp[1];
+			}
+		}
+	}
+
+	public void nextIteration() {
+		temp.clear();
+	}
+
+	public void sample(Algorithm alg, long nanos, long allocated) {
+		temp.put(alg, new long[] {nanos, allocated});
+	}
+
+	public void update(Algorithm alg, Criterion crit, long time, Collection<SDGNode> nodes) {
+		// the latencies are recorded by sample
+	}
+
+	public void evaluationFinished() {
+		for (ValueSet dat : data.values()) {
+			dat.times.sort();
+		}
+	}
+
+	private static double micros(TLongArrayList sorted, double percentile) {
+		int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+		return sorted.get(Math.max(0, index)) / 1000.0;
+	}
+
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		b.append("**** LATENCY (us) AND ALLOCATION ****\n");
+		b.append("failed iterations: "+failCtr+"\n");
+
+		for (Algorithm a : algs) {
+			ValueSet dat = data.get(a);
+			int runs = dat.times.size();
+
+			b.append(a.getName());
+			b.append(": ");
+			b.append("runs = " + runs);
+
+			if (runs > 0) {
+				long total = 0;
+				for (int i = 0; i < runs; i++) {
+					total += dat.times.get(i);
+				}
+
+				b.append(",  mean = " + String.format("%.1f", total / 1000.0 / runs));
+				b.append(",  p50 = " + String.format("%.1f", micros(dat.times, 50)));
+				b.append(",  p90 = " + String.format("%.1f", micros(dat.times, 90)));
+				b.append(",  p99 = " + String.format("%.1f", micros(dat.times, 99)));
+				b.append(",  max = " + String.format("%.1f", dat.times.get(runs - 1) / 1000.0));
+				b.append(",  bytes/op = " + (dat.allocationKnown ? String.valueOf(dat.allocated / runs) : "n/a"));
+			}
+			b.append("\n");
+		}
+
+		return b.toString();
+	}
+}
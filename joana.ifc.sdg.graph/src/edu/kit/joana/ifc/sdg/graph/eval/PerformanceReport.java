@@ -58,6 +58,10 @@ public class PerformanceReport implements Report {
 		// do nuffin'
 	}
 
+	public void sample(Algorithm alg, long nanos, long allocated) {
+		// do nuffin'
+	}
+
 	public void update(Algorithm alg, Criterion crit, long time, Collection<SDGNode> nodes) {
 		ValueSet tmp = temp.get(alg);
 		tmp.size = nodes.size();
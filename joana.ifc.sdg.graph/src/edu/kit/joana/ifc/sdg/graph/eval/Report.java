@@ -31,6 +31,12 @@ public interface Report {
 			public Report instantiate(Collection<Algorithm> algs) {
 				return new EmptyChopsReport(algs);
 			}
+		},
+        LATENCY("L") {
+			@Override
+			public Report instantiate(Collection<Algorithm> algs) {
+				return new LatencyReport(algs);
+			}
 		};
 
         private final String value;
@@ -54,6 +60,14 @@ public interface Report {
 
 	void update(Algorithm alg, Criterion crit, long time, Collection<SDGNode> nodes);
 
+	/**
+	 * Records the exact cost of a single run of an algorithm; called before {@link #update}.
+	 *
+	 * @param nanos      The runtime in nanoseconds.
+	 * @param allocated  The number of bytes allocated by the run, -1 if unknown.
+	 */
+	void sample(Algorithm alg, long nanos, long allocated);
+
 	void evaluationFinished();
 
 	void clear();
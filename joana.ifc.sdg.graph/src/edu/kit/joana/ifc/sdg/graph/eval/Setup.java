@@ -23,9 +23,13 @@ public class Setup {
 	private List<Report> reports;
 	private int criteria;
 	private boolean random;
+	private int warmup;
+	private int rounds;
 
 	public Setup() {
 		random = false;
+		warmup = 0;
+		rounds = 1;
 		algs = new LinkedList<Algorithm>();
 		progs = new LinkedList<String>();
 		reports = new LinkedList<Report>();
@@ -33,10 +37,12 @@ public class Setup {
 
 	/**
 	 * -k S | C
-	 * -a <list of algorithms>
-	 * -p <list of programs>
+	 * -a <list of algorithms>  (`all' for all algorithms of the chosen kind)
+	 * -p <list of programs>  (indices of the javagrande PDGs or paths of SDG files)
 	 * -c [r] <number of criteria>  (option `r' for random criteria)
 	 * -r <list of reports>
+	 * -w <number of warm-up rounds>  (optional, default 0)
+	 * -i <number of measured rounds>  (optional, default 1)
 	 *
 	 * @param args
 	 */
@@ -46,6 +52,8 @@ public class Setup {
 		int progsStart = 0;
 		int critStart = 0;
 		int reportStart = 0;
+		int warmupStart = -1;
+		int roundsStart = -1;
 		int algsEnd = 0;
 		int progsEnd = 0;
 		int reportEnd = 0;
@@ -76,6 +84,12 @@ public class Setup {
 					reportStart = start;
 					reportEnd = pos-1;
 
+				} else if ("-w".equals(args[start])) {
+					warmupStart = start;
+
+				} else if ("-i".equals(args[start])) {
+					roundsStart = start;
+
 				} else {
 					throw new IllegalArgumentException();
 				}
@@ -102,6 +116,12 @@ public class Setup {
 					reportStart = start;
 					reportEnd = pos;
 
+				} else if ("-w".equals(args[start])) {
+					warmupStart = start;
+
+				} else if ("-i".equals(args[start])) {
+					roundsStart = start;
+
 				} else {
 					throw new IllegalArgumentException();
 				}
@@ -116,6 +136,12 @@ public class Setup {
 		parsePrograms(args, progsStart, progsEnd);
 		parseCrits(args, critStart);
 		parseReports(args, reportStart, reportEnd);
+		if (warmupStart >= 0) {
+			warmup = Integer.parseInt(args[warmupStart+1]);
+		}
+		if (roundsStart >= 0) {
+			rounds = Integer.parseInt(args[roundsStart+1]);
+		}
 
 		// initialize the evaluation
 		Evaluator eval = new Evaluator();
@@ -123,6 +149,7 @@ public class Setup {
 		eval.setSDGFiles(progs);
 		eval.setReports(reports);
 		eval.setCriteria(criteria, random);
+		eval.setRounds(warmup, rounds);
 		return eval;
 	}
 
@@ -146,7 +173,10 @@ public class Setup {
 		while (pos <= end) {
 			String arg = args[pos];
 			for (Algorithm.Algo a : Algorithm.Algo.values()) {
-				if (a.getValue().equals(arg) && a.getKind() == this.choice) {
+				if ("all".equals(arg) && a.getKind() == this.choice) {
+					algs.add(a.instantiate());
+
+				} else if (a.getValue().equals(arg) && a.getKind() == this.choice) {
 					algs.add(a.instantiate());
 					break;
 				}
@@ -164,7 +194,10 @@ public class Setup {
 				int nr = Integer.parseInt(arg);
 				progs.add(pdgs[nr]);
 
-			} catch(NumberFormatException nex) { }
+			} catch(NumberFormatException nex) {
+				// e.g. a SDG produced by SemanticConflicts
+				progs.add(arg);
+			}
 			pos++;
 		}
 	}
@@ -0,0 +1,43 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.slicer;
+
+import java.util.List;
+
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+
+/**
+ * A slicer that is able to compute the slices of several criteria in a single traversal of the graph.
+ * Every node carries a bit vector with one bit per criterion, and the vectors are propagated
+ * instead of single nodes. The results are the same as those of calling {@link #slice(SDGNode)}
+ * for each criterion separately.
+ */
+public interface BatchSlicer extends Slicer {
+
+	/** the maximal number of criteria of a single call of {@link #sliceBatch(List, Visitor)} */
+	public static final int MAX_CRITERIA = Long.SIZE;
+
+	/**
+	 * Receives the result of {@link BatchSlicer#sliceBatch(List, Visitor)}.
+	 */
+	public interface Visitor {
+		/**
+		 * Called once for every node that is contained in at least one of the slices.
+		 * @param node a node
+		 * @param criteria bit i is set iff the node is in the slice of the i-th criterion
+		 */
+		public void visit(SDGNode node, long criteria);
+	}
+
+	/**
+	 * Computes the slices of the given criteria.
+	 * @param criteria at most {@link #MAX_CRITERIA} slicing criteria
+	 * @param visitor receives the nodes of the slices
+	 */
+	public void sliceBatch(List<? extends SDGNode> criteria, Visitor visitor);
+}
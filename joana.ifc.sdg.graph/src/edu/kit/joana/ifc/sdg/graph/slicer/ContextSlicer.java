@@ -7,6 +7,7 @@
  */
 package edu.kit.joana.ifc.sdg.graph.slicer;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -35,6 +36,11 @@ public abstract class ContextSlicer implements Slicer {
     protected boolean staticCM;
     protected ContextManager conMan;
 
+    /* reused by slice and subgraphSlice, so that slicing allocates nothing per visited node */
+    private final NodeMarks marks = new NodeMarks(0);
+    private final ArrayDeque<Context> worklist_1 = new ArrayDeque<Context>();
+    private final ArrayDeque<Context> worklist_2 = new ArrayDeque<Context>();
+
     public ContextSlicer(SDG graph, boolean staticContexts) {
         staticCM = staticContexts;
         omittedEdges = SDGEdge.Kind.threadEdges(); // we have to traverse summary edges, because it is the only way to
@@ -73,6 +79,12 @@ public abstract class ContextSlicer implements Slicer {
         }
     }
 
+    private void reset() {
+    	marks.clear();
+    	worklist_1.clear();
+    	worklist_2.clear();
+    }
+
     public Collection<SDGNode> slice(SDGNode criterion) {
     	return slice(Collections.singleton(criterion));
     }
@@ -84,10 +96,18 @@ public abstract class ContextSlicer implements Slicer {
      * @return The slice, as a collection of SDGNodes.
      */
     public Collection<SDGNode> slice(Collection<SDGNode> criterion){
-    	HashSet<SDGNode> slice = new HashSet<SDGNode>();
+    	try {
+    		slice(criterion, marks);
+    		return marks.toSet();
+    	} finally {
+    		reset();
+    	}
+    }
+
+    private void slice(Collection<SDGNode> criterion, NodeMarks slice) {
     	HashSet<Context> visited = new HashSet<Context>();
-        LinkedList<Context> worklist_1 = new LinkedList<Context>();
-        LinkedList<Context> worklist_2 = new LinkedList<Context>();
+        final ArrayDeque<Context> worklist_1 = this.worklist_1;
+        final ArrayDeque<Context> worklist_2 = this.worklist_2;
 
         // init worklist
         for (SDGNode c : criterion) {
@@ -194,9 +214,6 @@ public abstract class ContextSlicer implements Slicer {
                 }
             }
         }
-
-        // return the slice
-        return slice;
     }
 
 
@@ -351,10 +368,18 @@ public abstract class ContextSlicer implements Slicer {
      * @return The slice, as a collection of SDGNodes.
      */
     public Collection<SDGNode> subgraphSlice(Collection<SDGNode> criterion, Collection<SDGNode> subgraph){
-    	HashSet<SDGNode> slice = new HashSet<SDGNode>();
+    	try {
+    		subgraphSlice(criterion, subgraph, marks);
+    		return marks.toSet();
+    	} finally {
+    		reset();
+    	}
+    }
+
+    private void subgraphSlice(Collection<SDGNode> criterion, Collection<SDGNode> subgraph, NodeMarks slice) {
     	HashSet<Context> visited = new HashSet<Context>();
-        LinkedList<Context> worklist_1 = new LinkedList<Context>();
-        LinkedList<Context> worklist_2 = new LinkedList<Context>();
+        final ArrayDeque<Context> worklist_1 = this.worklist_1;
+        final ArrayDeque<Context> worklist_2 = this.worklist_2;
 
         // init worklist
         for (SDGNode c : criterion) {
@@ -467,9 +492,6 @@ public abstract class ContextSlicer implements Slicer {
                 }
             }
         }
-
-        // return the slice
-        return slice;
     }
 
 
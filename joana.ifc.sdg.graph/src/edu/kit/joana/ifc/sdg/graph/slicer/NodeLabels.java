@@ -0,0 +1,164 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.slicer;
+
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.util.Arrays;
+
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+
+/**
+ * Assigns a fixed number of 64 bit labels to SDG nodes, stored in arrays indexed by node id.
+ * It is the counterpart of {@link NodeMarks} for slicers that propagate bit vectors instead of
+ * single flags, e.g. one bit per slicing criterion. Like {@link NodeMarks}, it remembers the
+ * nodes whose labels have been changed, so {@link #clear()} does not depend on the size of the graph.
+ *
+ * Nodes with negative ids are kept in a hash map. Instances are not thread-safe.
+ */
+public final class NodeLabels {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private long[][] planes;
+	/** bit set of the non-negative ids of the nodes in {@link #touched} */
+	private long[] seen = new long[INITIAL_CAPACITY >> 6];
+	private final TIntObjectHashMap<long[]> negative = new TIntObjectHashMap<long[]>();
+
+	private SDGNode[] touched = new SDGNode[64];
+	private int numTouched = 0;
+
+	/**
+	 * @param numLabels number of labels per node
+	 */
+	public NodeLabels(final int numLabels) {
+		if (numLabels <= 0) {
+			throw new IllegalArgumentException("number of labels out of range: " + numLabels);
+		}
+		this.planes = new long[numLabels][INITIAL_CAPACITY];
+	}
+
+	/**
+	 * @return the given label of the node, 0 if it has never been set.
+	 */
+	public long get(final SDGNode n, final int label) {
+		final int id = n.getId();
+		if (id < 0) {
+			final long[] values = negative.get(id);
+			return values == null ? 0 : values[label];
+		}
+
+		final long[] values = planes[label];
+		return id < values.length ? values[id] : 0;
+	}
+
+	/**
+	 * Adds the given bits to a label of the node.
+	 * @return the bits that have not been set before.
+	 */
+	public long or(final SDGNode n, final int label, final long bits) {
+		final long old = get(n, label);
+		final long added = bits & ~old;
+		if (added != 0) {
+			put(n, label, old | added);
+		}
+
+		return added;
+	}
+
+	/**
+	 * Resets a label of the node to 0.
+	 * @return the former value of the label.
+	 */
+	public long take(final SDGNode n, final int label) {
+		final long old = get(n, label);
+		if (old != 0) {
+			put(n, label, 0);
+		}
+
+		return old;
+	}
+
+	/**
+	 * @return the number of nodes with a label that has been set since the last reset.
+	 */
+	public int size() {
+		return numTouched;
+	}
+
+	/**
+	 * @return the i-th node with a label that has been set since the last reset, in the order of the first change.
+	 */
+	public SDGNode node(final int i) {
+		if (i < 0 || i >= numTouched) {
+			throw new IndexOutOfBoundsException("index: " + i + ", size: " + numTouched);
+		}
+
+		return touched[i];
+	}
+
+	/**
+	 * Resets all labels of all nodes. Runs in time linear to the number of changed nodes.
+	 */
+	public void clear() {
+		for (int i = 0; i < numTouched; i++) {
+			final int id = touched[i].getId();
+			touched[i] = null;
+			if (id >= 0 && id < planes[0].length) {
+				for (final long[] plane : planes) {
+					plane[id] = 0;
+				}
+				seen[id >> 6] = 0;
+			}
+		}
+		numTouched = 0;
+		if (!negative.isEmpty()) {
+			negative.clear();
+		}
+	}
+
+	private void put(final SDGNode n, final int label, final long value) {
+		final int id = n.getId();
+		if (id < 0) {
+			long[] values = negative.get(id);
+			if (values == null) {
+				values = new long[planes.length];
+				negative.put(id, values);
+				touch(n);
+			}
+			values[label] = value;
+			return;
+		}
+
+		if (id >= planes[0].length) {
+			grow(id + 1);
+		}
+
+		if ((seen[id >> 6] & (1L << id)) == 0) {
+			seen[id >> 6] |= (1L << id);
+			touch(n);
+		}
+		planes[label][id] = value;
+	}
+
+	private void touch(final SDGNode n) {
+		if (numTouched == touched.length) {
+			touched = Arrays.copyOf(touched, touched.length * 2);
+		}
+		touched[numTouched++] = n;
+	}
+
+	private void grow(final int minLength) {
+		final int length = Math.max(minLength, planes[0].length + (planes[0].length >> 1));
+		for (int i = 0; i < planes.length; i++) {
+			planes[i] = Arrays.copyOf(planes[i], length);
+		}
+		seen = Arrays.copyOf(seen, (length + 63) >> 6);
+	}
+
+}
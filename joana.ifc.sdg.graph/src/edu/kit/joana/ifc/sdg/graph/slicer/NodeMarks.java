@@ -0,0 +1,194 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.slicer;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+
+/**
+ * A set of SDG nodes with a fixed number of additional boolean flags per node, stored in bit sets
+ * indexed by node id. It is meant to be kept by a slicer and reused for every slice: {@link #clear()}
+ * only resets the nodes that were added since the last reset, so its cost does not depend on the size
+ * of the graph.
+ *
+ * Nodes with negative ids (e.g. fold nodes) are kept in a hash map instead of the bit sets.
+ * Instances are not thread-safe.
+ */
+public final class NodeMarks {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final int numFlags;
+	/** bit plane 0 holds membership, plane i + 1 holds flag i */
+	private long[][] planes;
+	private final TIntIntHashMap negative = new TIntIntHashMap();
+
+	private SDGNode[] touched = new SDGNode[64];
+	private int numTouched = 0;
+
+	/**
+	 * @param numFlags number of additional flags per node
+	 */
+	public NodeMarks(final int numFlags) {
+		if (numFlags < 0 || numFlags > 30) {
+			throw new IllegalArgumentException("number of flags out of range: " + numFlags);
+		}
+		this.numFlags = numFlags;
+		this.planes = new long[numFlags + 1][INITIAL_CAPACITY >> 6];
+	}
+
+	/**
+	 * @return <tt>true</tt> if the node has been added since the last reset.
+	 */
+	public boolean contains(final SDGNode n) {
+		return getBit(n.getId(), 0);
+	}
+
+	/**
+	 * Adds the node. Its flags are not changed.
+	 * @return <tt>true</tt> if the node has not been contained before.
+	 */
+	public boolean add(final SDGNode n) {
+		final int id = n.getId();
+		if (getBit(id, 0)) {
+			return false;
+		}
+
+		setBit(id, 0, true);
+		if (numTouched == touched.length) {
+			touched = Arrays.copyOf(touched, touched.length * 2);
+		}
+		touched[numTouched++] = n;
+
+		return true;
+	}
+
+	/**
+	 * @return the value of the given flag for the given node, <tt>false</tt> if it has never been set.
+	 */
+	public boolean isSet(final SDGNode n, final int flag) {
+		return getBit(n.getId(), checkFlag(flag) + 1);
+	}
+
+	/**
+	 * Sets a flag for the node. The node is added if it is not yet contained.
+	 */
+	public void set(final SDGNode n, final int flag, final boolean value) {
+		add(n);
+		setBit(n.getId(), checkFlag(flag) + 1, value);
+	}
+
+	/**
+	 * @return the number of contained nodes.
+	 */
+	public int size() {
+		return numTouched;
+	}
+
+	/**
+	 * @return <tt>true</tt> if no node is contained.
+	 */
+	public boolean isEmpty() {
+		return numTouched == 0;
+	}
+
+	/**
+	 * @return a new set holding all contained nodes. Later changes of this object are not reflected.
+	 */
+	public Set<SDGNode> toSet() {
+		final Set<SDGNode> result = new HashSet<SDGNode>(Math.max(16, (int) (numTouched / .75f) + 1));
+		addTo(result);
+		return result;
+	}
+
+	/**
+	 * Adds all contained nodes to the given collection.
+	 */
+	public void addTo(final Collection<? super SDGNode> result) {
+		for (int i = 0; i < numTouched; i++) {
+			result.add(touched[i]);
+		}
+	}
+
+	/**
+	 * Removes all nodes and their flags. Runs in time linear to the number of contained nodes.
+	 */
+	public void clear() {
+		for (int i = 0; i < numTouched; i++) {
+			final int id = touched[i].getId();
+			touched[i] = null;
+			if (id < 0) {
+				continue;
+			}
+			final int word = id >> 6;
+			if (word < planes[0].length) {
+				for (final long[] plane : planes) {
+					plane[word] = 0;
+				}
+			}
+		}
+		numTouched = 0;
+		if (!negative.isEmpty()) {
+			negative.clear();
+		}
+	}
+
+	private int checkFlag(final int flag) {
+		if (flag < 0 || flag >= numFlags) {
+			throw new IllegalArgumentException("no such flag: " + flag);
+		}
+
+		return flag;
+	}
+
+	private boolean getBit(final int id, final int plane) {
+		if (id < 0) {
+			return (negative.get(id) & (1 << plane)) != 0;
+		}
+
+		final long[] bits = planes[plane];
+		final int word = id >> 6;
+		return word < bits.length && (bits[word] & (1L << id)) != 0;
+	}
+
+	private void setBit(final int id, final int plane, final boolean value) {
+		if (id < 0) {
+			final int old = negative.get(id);
+			negative.put(id, value ? old | (1 << plane) : old & ~(1 << plane));
+			return;
+		}
+
+		final int word = id >> 6;
+		if (word >= planes[plane].length) {
+			if (!value) {
+				return;
+			}
+			grow(word + 1);
+		}
+
+		if (value) {
+			planes[plane][word] |= (1L << id);
+		} else {
+			planes[plane][word] &= ~(1L << id);
+		}
+	}
+
+	private void grow(final int minWords) {
+		final int words = Math.max(minWords, planes[0].length + (planes[0].length >> 1));
+		for (int i = 0; i < planes.length; i++) {
+			planes[i] = Arrays.copyOf(planes[i], words);
+		}
+	}
+
+}
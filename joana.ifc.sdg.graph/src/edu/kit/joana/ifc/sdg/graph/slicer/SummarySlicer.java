@@ -8,13 +8,12 @@
 package edu.kit.joana.ifc.sdg.graph.slicer;
 
 import java.math.BigInteger;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
 
 import edu.kit.joana.ifc.sdg.graph.SDG;
@@ -31,12 +30,23 @@ import edu.kit.joana.util.Logger;
  *
  * @author  Christian Hammer, Dennis Giffhorn
  */
-public abstract class SummarySlicer implements Slicer {
+public abstract class SummarySlicer implements BatchSlicer {
 
 	private Logger debug = Log.getLogger(Log.L_SDG_GRAPH_DEBUG);
     protected Set<SDGEdge.Kind> omittedEdges = SDGEdge.Kind.threadEdges();
     protected SDG g;
 
+    /** flag of {@link #marks}: the node was reached in phase 1 */
+    private static final int PHASE1 = 0;
+    private final NodeMarks marks = new NodeMarks(1);
+    private final ArrayDeque<SDGNode> worklist1 = new ArrayDeque<SDGNode>();
+    private final ArrayDeque<SDGNode> worklist2 = new ArrayDeque<SDGNode>();
+
+    /** labels of {@link #batchLabels}: criteria reaching the node in phase 1 (including the nodes saved for
+     *  phase 2 by phase 1) resp. only in phase 2, and criteria not yet propagated from the node in phase 1 resp. phase 2 */
+    private static final int REACHED1 = 0, REACHED2 = 1, PENDING1 = 2, PENDING2 = 3;
+    private NodeLabels batchLabels;
+
     public interface EdgePredicate {
         public boolean phase1();
         public boolean follow(SDGEdge e);
@@ -68,118 +78,172 @@ public abstract class SummarySlicer implements Slicer {
     }
 
     public Collection<SDGNode> slice(Collection<SDGNode> criteria) {
-        Map<SDGNode, SDGNode> slice = new HashMap<SDGNode, SDGNode>();
-        LinkedList<SDGNode> worklist = new LinkedList<SDGNode>();
-        LinkedList<SDGNode> nextWorklist = new LinkedList<SDGNode>();
-        EdgePredicate p = phase1Predicate();
-
-        worklist.addAll(criteria);
+        return slice(criteria, null);
+    }
 
-        for (SDGNode v : criteria) {
-            slice.put(v, phase1Predicate().phase1() ? v : null);
-        }
+    public Collection<SDGNode> subgraphSlice(Collection<SDGNode> criteria, Collection<SDGNode> sub) {
+        return slice(criteria, sub);
+    }
 
-        while (!worklist.isEmpty()) {
+    /**
+     * The two-phase slicing algorithm, restricted to the nodes in <tt>sub</tt> if <tt>sub</tt> is not null.
+     * The visited nodes and the worklists are kept between calls and reset afterwards, so repeated
+     * slicing with the same slicer does not allocate per visited node. Hence a slicer instance
+     * must not be used by several threads at once.
+     */
+    private Collection<SDGNode> slice(Collection<SDGNode> criteria, Collection<SDGNode> sub) {
+        // nodes in the slice, flag PHASE1 is set if the node was reached in phase 1
+        final NodeMarks slice = marks;
+        ArrayDeque<SDGNode> worklist = worklist1;
+        ArrayDeque<SDGNode> nextWorklist = worklist2;
+        EdgePredicate p = phase1Predicate();
+        final boolean debugEnabled = debug.isEnabled();
+
+        try {
+            final boolean initial = p.phase1();
+            for (SDGNode v : criteria) {
+                if (sub == null || sub.contains(v)) {
+                    worklist.add(v);
+                    slice.set(v, PHASE1, initial);
+                }
+            }
 
             while (!worklist.isEmpty()) {
-                SDGNode w = worklist.poll();
 
-                for (SDGEdge e : edgesToTraverse(w)) {
+                while (!worklist.isEmpty()) {
+                    SDGNode w = worklist.poll();
 
-                    if (!e.getKind().isSDGEdge() ||
-                            omittedEdges.contains(e.getKind())) {
+                    for (SDGEdge e : edgesToTraverse(w)) {
 
-                        continue;
-                    }
+                        if (!e.getKind().isSDGEdge() ||
+                                omittedEdges.contains(e.getKind())) {
 
-                    SDGNode v = reachedNode(e);
+                            continue;
+                        }
+
+                        SDGNode v = reachedNode(e);
 
-                    if (!slice.containsKey(v) ||
-                            (p.phase1() &&
-                            slice.get(v) == null)) {
+                        if ((sub == null || sub.contains(v)) &&
+                                (!slice.contains(v) || (p.phase1() && !slice.isSet(v, PHASE1)))) {
 
-                        // if node was not yet added or node was added in phase2
-                        if (p.saveInOtherWorklist(e)) {
+                            // if node was not yet added or node was added in phase2
+                            if (p.saveInOtherWorklist(e)) {
 
-                            debug.outln("OTHER\t" + e);
-                            nextWorklist.add(v);
-                            slice.put(v, p.phase1() ? v : null);
+                                if (debugEnabled) debug.outln("OTHER\t" + e);
+                                nextWorklist.add(v);
+                                slice.set(v, PHASE1, p.phase1());
 
-                        } else if (p.follow(e)) {
+                            } else if (p.follow(e)) {
 
-                        	debug.outln("FOLLOW\t" + e);
-                            worklist.add(v);
-                            slice.put(v, p.phase1() ? v : null);
+                                if (debugEnabled) debug.outln("FOLLOW\t" + e);
+                                worklist.add(v);
+                                slice.set(v, PHASE1, p.phase1());
+                            }
                         }
                     }
                 }
-            }
 
-            // swap worklists and predicates
-            debug.outln("swap");
+                // swap worklists and predicates
+                if (debugEnabled) debug.outln("swap");
 
-            worklist = nextWorklist;
-            p =  phase2Predicate();
-        }
+                worklist = nextWorklist;
+                p =  phase2Predicate();
+            }
 
-        return slice.keySet();
+            return slice.toSet();
+        } finally {
+            slice.clear();
+            worklist1.clear();
+            worklist2.clear();
+        }
     }
 
-    public Collection<SDGNode> subgraphSlice(Collection<SDGNode> criteria, Collection<SDGNode> sub) {
-        Map<SDGNode, SDGNode> slice = new HashMap<SDGNode, SDGNode>();
-        LinkedList<SDGNode> worklist = new LinkedList<SDGNode>();
-        LinkedList<SDGNode> nextWorklist = new LinkedList<SDGNode>();
-        EdgePredicate p = phase1Predicate();
-
-        for (SDGNode v : criteria) {
-            if (sub.contains(v)) {
-                worklist.add(v);
-                slice.put(v, phase1Predicate().phase1() ? v : null);
-            }
+    /**
+     * The two-phase slicing algorithm for up to 64 criteria at once. Instead of single nodes, the
+     * worklists hold nodes together with the set of criteria that have not yet been propagated from
+     * them, so each node and edge is processed at most once per phase and set of newly reached criteria.
+     * The marks follow {@link #slice(Collection, Collection)}: a node that phase 1 saves for phase 2 is
+     * marked as reached in phase 1, so phase 1 does not continue from it over other edges, and phase 2
+     * does not revisit nodes that have been reached in phase 1 for the same criterion.
+     */
+    public void sliceBatch(List<? extends SDGNode> criteria, Visitor visitor) {
+        if (criteria.size() > MAX_CRITERIA) {
+            throw new IllegalArgumentException("too many criteria: " + criteria.size());
+        }
+        if (batchLabels == null) {
+            batchLabels = new NodeLabels(4);
         }
 
-        while (!worklist.isEmpty()) {
-            while (!worklist.isEmpty()) {
-                SDGNode w = worklist.poll();
+        final NodeLabels labels = batchLabels;
+        final EdgePredicate p1 = phase1Predicate();
+        final EdgePredicate p2 = phase2Predicate();
 
-                for (SDGEdge e : edgesToTraverse(w)) {
+        try {
+            for (int i = 0; i < criteria.size(); i++) {
+                reach(criteria.get(i), 1L << i, REACHED1, PENDING1, worklist1);
+            }
 
-                    if (!e.getKind().isSDGEdge() ||
-                            omittedEdges.contains(e.getKind())) {
+            // phase 1
+            while (!worklist1.isEmpty()) {
+                SDGNode w = worklist1.poll();
+                long criteriaOfW = labels.take(w, PENDING1);
 
+                for (SDGEdge e : edgesToTraverse(w)) {
+                    if (!e.getKind().isSDGEdge() || omittedEdges.contains(e.getKind())) {
                         continue;
                     }
 
                     SDGNode v = reachedNode(e);
 
-                    if (sub.contains(v) &&
-                            (!slice.containsKey(v) || (p.phase1() && slice.get(v) == null))) {
+                    if (p1.saveInOtherWorklist(e)) {
+                        reach(v, criteriaOfW, REACHED1, PENDING2, worklist2);
 
-                        // if node was not yet added or node was added in phase2
-                        if (p.saveInOtherWorklist(e)) {
+                    } else if (p1.follow(e)) {
+                        reach(v, criteriaOfW, REACHED1, PENDING1, worklist1);
+                    }
+                }
+            }
 
-                        	debug.outln("OTHER\t" + e);
-                            nextWorklist.add(v);
-                            slice.put(v, p.phase1() ? v : null);
+            // phase 2
+            while (!worklist2.isEmpty()) {
+                SDGNode w = worklist2.poll();
+                long criteriaOfW = labels.take(w, PENDING2);
 
-                        } else if (p.follow(e)) {
+                for (SDGEdge e : edgesToTraverse(w)) {
+                    if (!e.getKind().isSDGEdge() || omittedEdges.contains(e.getKind())) {
+                        continue;
+                    }
 
-                        	debug.outln("FOLLOW\t" + e);
-                            worklist.add(v);
-                            slice.put(v, p.phase1() ? v : null);
-                        }
+                    if (p2.saveInOtherWorklist(e) || p2.follow(e)) {
+                        SDGNode v = reachedNode(e);
+                        reach(v, criteriaOfW & ~labels.get(v, REACHED1), REACHED2, PENDING2, worklist2);
                     }
                 }
             }
 
-            // swap worklists and predicates
-            debug.outln("swap");
-
-            worklist = nextWorklist;
-            p =  phase2Predicate();
+            for (int i = 0; i < labels.size(); i++) {
+                SDGNode n = labels.node(i);
+                visitor.visit(n, labels.get(n, REACHED1) | labels.get(n, REACHED2));
+            }
+        } finally {
+            labels.clear();
+            worklist1.clear();
+            worklist2.clear();
         }
+    }
 
-        return slice.keySet();
+    /**
+     * Adds the given criteria to label <tt>reached</tt> of <tt>v</tt> and schedules the new ones for propagation
+     * in the phase of label <tt>pending</tt>.
+     */
+    private void reach(SDGNode v, long criteria, int reached, int pending, ArrayDeque<SDGNode> worklist) {
+        final long added = batchLabels.or(v, reached, criteria);
+        if (added != 0) {
+            if (batchLabels.get(v, pending) == 0) {
+                worklist.add(v);
+            }
+            batchLabels.or(v, pending, added);
+        }
     }
 
     public void setOmittedEdges(Set<SDGEdge.Kind> omit){
@@ -15,20 +15,23 @@
 package edu.kit.joana.ifc.sdg.graph.slicer.conc;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
-import java.util.HashMap;
 import java.util.HashSet;
 
 import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.BatchSlicer;
 import edu.kit.joana.ifc.sdg.graph.slicer.ContextInsensitiveBackward;
 import edu.kit.joana.ifc.sdg.graph.slicer.ContextInsensitiveSlicer;
+import edu.kit.joana.ifc.sdg.graph.slicer.NodeLabels;
+import edu.kit.joana.ifc.sdg.graph.slicer.NodeMarks;
 import edu.kit.joana.ifc.sdg.graph.slicer.SDGSlicer;
-import edu.kit.joana.ifc.sdg.graph.slicer.Slicer;
 
 
 /**
@@ -41,7 +44,7 @@ import edu.kit.joana.ifc.sdg.graph.slicer.Slicer;
  *
  * @author hammer, giffhorn
  */
-public abstract class Iterative2PhaseSlicer implements Slicer {
+public abstract class Iterative2PhaseSlicer implements BatchSlicer {
     interface Phase {
         public boolean follow(SDGEdge e);
         public boolean saveInOtherWorklist(SDGEdge e);
@@ -51,6 +54,16 @@ public abstract class Iterative2PhaseSlicer implements Slicer {
 
     protected SDG g;
 
+    /** flag of {@link #marks}: the node is marked with phase 2 */
+    private static final int PHASE2 = 0;
+    private final NodeMarks marks = new NodeMarks(1);
+    private final ArrayDeque<SDGNode> worklist = new ArrayDeque<SDGNode>();
+
+    /** labels of {@link #batchLabels}: criteria reaching the node at all resp. with phase 1,
+     *  and criteria not yet propagated from the node with phase 1 resp. phase 2 */
+    private static final int VISITED = 0, MARKED1 = 1, PENDING1 = 2, PENDING2 = 3;
+    private NodeLabels batchLabels;
+
     protected abstract Collection<SDGEdge> edgesToTraverse(SDGNode node);
 
     protected abstract SDGNode reachedNode(SDGEdge edge);
@@ -75,57 +88,7 @@ public abstract class Iterative2PhaseSlicer implements Slicer {
     }
 
     public Collection<SDGNode> slice(Collection<SDGNode> c) {
-        HashMap<SDGNode, Phase> slice = new HashMap<SDGNode, Phase>();
-        LinkedList<SDGNode> worklist = new LinkedList<SDGNode>();
-        Phase phase1 = phase1();
-        Phase phase2 = phase2();
-
-        worklist.addAll(c);elems += worklist.size();
-
-        for (SDGNode v : c) {
-            slice.put(v, phase1);
-        }
-
-        while (!worklist.isEmpty()) {
-        	SDGNode next = worklist.poll();
-        	Phase currentPhase = slice.get(next);
-
-        	for (SDGEdge e : edgesToTraverse(next)) {
-        		if (!e.getKind().isSDGEdge()) continue;
-
-        		SDGNode adjacent = reachedNode(e);
-        		Phase status = slice.get(adjacent);
-
-        		if (status == null // hasn't been visited before
-        				|| (status == phase2 && (currentPhase == phase1 || e.getKind().isThreadEdge()))) {
-
-        			// if we are in phase 1 or e is not a descending edge, traverse e
-        			if (currentPhase.follow(e)) {
-        				if (e.getKind().isThreadEdge()) {
-        					worklist.addFirst(adjacent); elems++;
-        				} else {
-        					worklist.add(adjacent);
-        				}
-
-        				// determine how to mark `adjacent'
-        				if (currentPhase == phase1 && currentPhase.saveInOtherWorklist(e)) {
-        					// standard two-phase slicing: mark adjacent with phase 2
-        					slice.put(adjacent, phase2);
-
-        				} else if (currentPhase == phase2 && e.getKind().isThreadEdge()) {
-        					// we are in phase 2 and about to traverse an interference edge: mark adjacent with phase 1
-        					slice.put(adjacent, phase1);
-
-        				} else {
-        					// mark adjacent with the current phase
-        					slice.put(adjacent, currentPhase);
-        				}
-        			}
-        		}
-        	}
-        }
-
-        return slice.keySet();
+        return slice(c, null);
     }
 
     /**
@@ -136,59 +99,163 @@ public abstract class Iterative2PhaseSlicer implements Slicer {
      * @return          The slice.
      */
     public Collection<SDGNode> subgraphSlice(Collection<SDGNode> criteria, Collection<SDGNode> back) {
-        HashMap<SDGNode, Phase> slice = new HashMap<SDGNode, Phase>();
-        LinkedList<SDGNode> worklist = new LinkedList<SDGNode>();
+        return slice(criteria, back);
+    }
+
+    /**
+     * The iterated two-phase slicing algorithm, restricted to the nodes in <tt>back</tt> if <tt>back</tt>
+     * is not null. The marks and the worklist are reused by subsequent calls, so a slicer instance
+     * must not be used by several threads at once.
+     */
+    private Collection<SDGNode> slice(Collection<SDGNode> c, Collection<SDGNode> back) {
+        // nodes in the slice, flag PHASE2 is set if the node is marked with phase 2
+        final NodeMarks slice = marks;
+        final ArrayDeque<SDGNode> worklist = this.worklist;
         Phase phase1 = phase1();
         Phase phase2 = phase2();
 
+        try {
+            for (SDGNode v : c) {
+                if (back == null || back.contains(v)) {
+                    worklist.add(v);
+                    slice.set(v, PHASE2, false);
+                }
+            }
+            if (back == null) {
+                elems += worklist.size();
+            }
+
+            while (!worklist.isEmpty()) {
+                SDGNode next = worklist.poll();
+                Phase currentPhase = (slice.isSet(next, PHASE2) ? phase2 : phase1);
+
+                for (SDGEdge e : edgesToTraverse(next)) {
+                    if (!e.getKind().isSDGEdge()) continue;
+
+                    SDGNode adjacent = reachedNode(e);
+                    if (back != null && !back.contains(adjacent)) continue;
+
+                    if (!slice.contains(adjacent) // hasn't been visited before
+                            || (slice.isSet(adjacent, PHASE2)
+                                    && (currentPhase == phase1 || e.getKind().isThreadEdge()))) {
+
+                        // if we are in phase 1 or e is not a descending edge, traverse e
+                        if (currentPhase.follow(e)) {
+                            if (back == null && e.getKind().isThreadEdge()) {
+                                worklist.addFirst(adjacent); elems++;
+                            } else {
+                                worklist.add(adjacent);
+                            }
+
+                            // determine how to mark `adjacent'
+                            if (currentPhase == phase1 && currentPhase.saveInOtherWorklist(e)) {
+                                // standard two-phase slicing: mark adjacent with phase 2
+                                slice.set(adjacent, PHASE2, true);
+
+                            } else if (currentPhase == phase2 && e.getKind().isThreadEdge()) {
+                                // we are in phase 2 and about to traverse an interference edge: mark adjacent with phase 1
+                                slice.set(adjacent, PHASE2, false);
+
+                            } else {
+                                // mark adjacent with the current phase
+                                slice.set(adjacent, PHASE2, currentPhase == phase2);
+                            }
+                        }
+                    }
+                }
+            }
+
+            return slice.toSet();
+        } finally {
+            slice.clear();
+            worklist.clear();
+        }
+    }
+
 
-        for (SDGNode v : criteria) {
-        	if (back.contains(v)) {
-        		worklist.add(v);
-        		slice.put(v, phase1);
-        	}
+    /**
+     * The iterated two-phase slicing algorithm for up to 64 criteria at once. For every criterion, a node is
+     * either not visited, marked with phase 2 or marked with phase 1, where phase 1 overrides phase 2 as in
+     * {@link #slice(Collection, Collection)}. These marks are kept as bit vectors, and the worklist holds the
+     * nodes whose new marks have not been propagated yet.
+     */
+    public void sliceBatch(List<? extends SDGNode> criteria, Visitor visitor) {
+        if (criteria.size() > MAX_CRITERIA) {
+            throw new IllegalArgumentException("too many criteria: " + criteria.size());
+        }
+        if (batchLabels == null) {
+            batchLabels = new NodeLabels(4);
         }
 
-        while (!worklist.isEmpty()) {
-        	SDGNode next = worklist.poll();
-        	Phase currentPhase = slice.get(next);
+        final NodeLabels labels = batchLabels;
+        Phase phase1 = phase1();
+        Phase phase2 = phase2();
 
-        	for (SDGEdge e : edgesToTraverse(next)) {
-        		if (!e.getKind().isSDGEdge()) continue;
+        try {
+            for (int i = 0; i < criteria.size(); i++) {
+                markPhase1(criteria.get(i), 1L << i);
+            }
 
-        		SDGNode adjacent = reachedNode(e);
-        		if (!back.contains(adjacent)) continue;
+            while (!worklist.isEmpty()) {
+                SDGNode next = worklist.poll();
+                long inPhase1 = labels.take(next, PENDING1);
+                // criteria for which next has been upgraded to phase 1 in the meantime are covered by inPhase1
+                long inPhase2 = labels.take(next, PENDING2) & ~labels.get(next, MARKED1);
 
-        		Phase status = slice.get(adjacent);
+                for (SDGEdge e : edgesToTraverse(next)) {
+                    if (!e.getKind().isSDGEdge()) continue;
 
-        		if (status == null // hasn't been visited before
-        				|| (status == phase2 && (currentPhase == phase1 || e.getKind().isThreadEdge()))) {
+                    SDGNode adjacent = reachedNode(e);
 
-        			// if we are in phase 1 or e is not a descending edge, traverse e
-        			if (currentPhase.follow(e)) {
-        				worklist.add(adjacent);
+                    if (inPhase1 != 0 && phase1.follow(e)) {
+                        if (phase1.saveInOtherWorklist(e)) {
+                            markPhase2(adjacent, inPhase1);
+                        } else {
+                            markPhase1(adjacent, inPhase1);
+                        }
+                    }
 
-        				// determine how to mark `adjacent'
-        				if (currentPhase == phase1 && currentPhase.saveInOtherWorklist(e)) {
-        					// standard two-phase slicing: mark adjacent with phase 2
-        					slice.put(adjacent, phase2);
+                    if (inPhase2 != 0 && phase2.follow(e)) {
+                        if (e.getKind().isThreadEdge()) {
+                            markPhase1(adjacent, inPhase2);
+                        } else {
+                            markPhase2(adjacent, inPhase2);
+                        }
+                    }
+                }
+            }
 
-        				} else if (currentPhase == phase2 && e.getKind().isThreadEdge()) {
-        					// we are in phase 2 and about to traverse an interference edge: mark adjacent with phase 1
-        					slice.put(adjacent, phase1);
+            for (int i = 0; i < labels.size(); i++) {
+                SDGNode n = labels.node(i);
+                visitor.visit(n, labels.get(n, VISITED));
+            }
+        } finally {
+            labels.clear();
+            worklist.clear();
+        }
+    }
 
-        				} else {
-        					// mark adjacent with the current phase
-        					slice.put(adjacent, currentPhase);
-        				}
-        			}
-        		}
-        	}
+    private void markPhase1(SDGNode n, long criteria) {
+        final long added = batchLabels.or(n, MARKED1, criteria);
+        if (added != 0) {
+            batchLabels.or(n, VISITED, added);
+            schedule(n, PENDING1, added);
         }
+    }
 
-        return slice.keySet();
+    private void markPhase2(SDGNode n, long criteria) {
+        final long added = batchLabels.or(n, VISITED, criteria);
+        if (added != 0) {
+            schedule(n, PENDING2, added);
+        }
     }
 
+    private void schedule(SDGNode n, int pending, long criteria) {
+        if (batchLabels.get(n, PENDING1) == 0 && batchLabels.get(n, PENDING2) == 0) {
+            worklist.add(n);
+        }
+        batchLabels.or(n, pending, criteria);
+    }
 
     /**
      * Zhao algorithm: INCORRECT
@@ -19,16 +19,13 @@ import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
 import edu.kit.joana.ifc.sdg.graph.SDGNodeTuple;
 import edu.kit.joana.ifc.sdg.graph.chopper.TruncatedNonSameLevelChopper;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.CFG;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.Context;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.ContextManager;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.FoldedCFG;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.StaticContextManager;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.SDGAnalysisCache;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.DynamicContextManager.DynamicContext;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.GraphFolder;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.ICFGBuilder;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.MHPAnalysis;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PreciseMHPAnalysis;
 
 
 
@@ -111,8 +108,6 @@ public class Slicer implements edu.kit.joana.ifc.sdg.graph.slicer.Slicer {
 	public static long elems = 0L;
 	private static boolean TIME_TRAVELS = true;
 
-    /** the corresponding interprocedural control flow graph */
-    protected CFG icfg;
     /** The graph to be sliced. */
     protected SDG sdg;
     /** The folded ICFG. */
@@ -180,13 +175,11 @@ public class Slicer implements edu.kit.joana.ifc.sdg.graph.slicer.Slicer {
     public void setGraph(SDG graph) {
         // init context-using 2-phase slicer
         sdg = graph;
-        conMan = StaticContextManager.create(sdg);
+        SDGAnalysisCache cache = sdg.getAnalysisCache();
+        conMan = cache.getStaticContextManager();
 
-        // build the threaded ICFG
-        icfg = ICFGBuilder.extractICFG(sdg);
-
-        // fold ICFG with Krinke's two-pass folding algorithm
-        foldedIcfg = GraphFolder.twoPassFolding(icfg);
+        // the threaded ICFG, folded with Krinke's two-pass folding algorithm
+        foldedIcfg = cache.getTwoPassFoldedICFG();
 
         c2pSlicer = new Context2PhaseSlicer(sdg, conMan);
 
@@ -197,7 +190,7 @@ public class Slicer implements edu.kit.joana.ifc.sdg.graph.slicer.Slicer {
         // a truncated non-same-level chopper
         truncated = new TruncatedNonSameLevelChopper(sdg);
 
-        mhp = PreciseMHPAnalysis.analyze(sdg);
+        mhp = cache.getPreciseMHPAnalysis();
 
         // a reachability checker for ICFGs
         reachable = new ReachabilityChecker(foldedIcfg);
@@ -16,14 +16,12 @@ import java.util.List;
 import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.CFG;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.Context;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.ContextManager;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.FoldedCFG;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.StaticContextManager;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.SDGAnalysisCache;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.DynamicContextManager.DynamicContext;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.GraphFolder;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.ICFGBuilder;
 
 
 
@@ -38,8 +36,6 @@ import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.ICFGBuilder;
 public class Krinke implements edu.kit.joana.ifc.sdg.graph.slicer.Slicer {
 	public static long elems = 0L;
 
-    /** the corresponding interprocedural control flow graph */
-    private CFG icfg;
     /** the folded icfg for reachability checking purpose */
     private FoldedCFG foldedIcfg;
     /** The graph to be sliced. */
@@ -70,13 +66,11 @@ public class Krinke implements edu.kit.joana.ifc.sdg.graph.slicer.Slicer {
     public void setGraph(SDG graph) {
         ipdg = graph;
 
-        man = StaticContextManager.create(ipdg);
+        SDGAnalysisCache cache = ipdg.getAnalysisCache();
+        man = cache.getStaticContextManager();
 
-        // build the threaded ICFG
-        icfg = ICFGBuilder.extractICFG(ipdg);
-
-        // fold ICFG with Krinke's two-pass folding algorithm
-        foldedIcfg = GraphFolder.twoPassFolding(this.icfg);
+        // the threaded ICFG, folded with Krinke's two-pass folding algorithm
+        foldedIcfg = cache.getTwoPassFoldedICFG();
 
         // determine the amount of threads in the TIPDG
         int threads = ipdg.getNumberOfThreads();
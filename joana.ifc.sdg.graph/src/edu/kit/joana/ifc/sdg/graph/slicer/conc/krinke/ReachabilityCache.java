@@ -7,8 +7,8 @@
  */
 package edu.kit.joana.ifc.sdg.graph.slicer.conc.krinke;
 
-import java.util.HashMap;
-
+import gnu.trove.map.hash.TObjectIntHashMap;
+import gnu.trove.set.hash.TLongHashSet;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.Context;
 
 /** A cache for optimising the reachability computations.
@@ -25,12 +25,19 @@ import edu.kit.joana.ifc.sdg.graph.slicer.graph.Context;
  * @version 1.0
  */
 public class ReachabilityCache {
-    private HashMap<Key, Boolean> cache;
+    /** Dense numbers of the contexts in the cache. */
+    private final TObjectIntHashMap<Context> ids;
+    /** Pairs of context numbers whose reachability is known. */
+    private final TLongHashSet known;
+    /** Pairs of context numbers where the target is reachable from the source. */
+    private final TLongHashSet reaching;
 
     /** Creates a new empty ReachabilityCache.
      */
     public ReachabilityCache(){
-        cache = new HashMap<Key, Boolean>();
+        ids = new TObjectIntHashMap<Context>(16, 0.5f, -1);
+        known = new TLongHashSet();
+        reaching = new TLongHashSet();
     }
 
     /** Adds a reachability computation's result to the cache.
@@ -40,7 +47,13 @@ public class ReachabilityCache {
      * @param result   Its result.
      */
     public void add(Context from, Context to, boolean result){
-        cache.put(new Key(from, to), result);
+        final long key = pack(idOf(from), idOf(to));
+        known.add(key);
+        if (result) {
+            reaching.add(key);
+        } else {
+            reaching.remove(key);
+        }
     }
 
     /** Checks whether the cache contains a reachability result for a given pair of contexts.
@@ -49,7 +62,9 @@ public class ReachabilityCache {
      * @param to  The target context in the computation.
      */
     public boolean contains(Context from, Context to){
-        return cache.containsKey(new Key(from, to));
+        final int fromId = ids.get(from);
+        final int toId = ids.get(to);
+        return fromId >= 0 && toId >= 0 && known.contains(pack(fromId, toId));
     }
 
     /** Returns the cached result of a certain reachability computation.
@@ -58,56 +73,30 @@ public class ReachabilityCache {
      * @param to  The target context in the computation.
      */
     public boolean isReaching(Context from, Context to) {
-        return cache.get(new Key(from, to));
-    }
-
-
-
-    /** A Key for the used HashMap.
-     * Contains two Contexts, the start and the target of a reachability analysis.
-     */
-    static class Key {
-        private Context from;
-        private Context to;
-
-        /** Creates a new Key for two Contexts.
-         * @param f  Context one.
-         * @param t  Context two.
-         */
-        Key(Context f, Context t) {
-            from = f;
-            to = t;
+        if (!contains(from, to)) {
+            // same as unboxing the missing value of a map
+            throw new NullPointerException("no cached result for " + from + " and " + to);
         }
 
-        /** Returns the start Context.
-         * @return  A Context.
-         */
-        Context from() {
-            return from;
-        }
+        return reaching.contains(pack(ids.get(from), ids.get(to)));
+    }
 
-        /** Returns the target Context.
-         * @return  A Context.
-         */
-        Context to() {
-            return to;
+    private int idOf(Context c) {
+        int id = ids.get(c);
+        if (id < 0) {
+            id = ids.size();
+            ids.put(c, id);
         }
 
-		public boolean equals(Object o) {
-			if (this == o) {
-				return true;
-			} else if (o == null) {
-				return false;
-			} else if (!(o instanceof Key)) {
-				return false;
-			} else {
-				Key k = (Key) o;
-				return from.equals(k.from) && to.equals(k.to);
-			}
-		}
+        return id;
+    }
 
-        public int hashCode() {
-        	return from.hashCode() | (to.hashCode() << 16);
-        }
+    /** Returns the key of a pair of context numbers.
+     * The numbers are dense, so the plain concatenation would give many keys whose halves have the
+     * same xor, i.e. the same trove hash code. The multiplication with an odd constant keeps the keys
+     * distinct and scatters them.
+     */
+    private static long pack(int fromId, int toId) {
+        return (((long) fromId << 32) | (toId & 0xffffffffL)) * 0x9E3779B97F4A7C15L;
     }
 }
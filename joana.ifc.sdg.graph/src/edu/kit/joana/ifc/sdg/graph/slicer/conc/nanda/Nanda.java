@@ -23,7 +23,6 @@ import edu.kit.joana.ifc.sdg.graph.slicer.conc.TrivialEdgeListener;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.CFG;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.ICFGBuilder;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.MHPAnalysis;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PreciseMHPAnalysis;
 
 
 /** An implementation of Nanda's slicer for multithreaded Java programs.
@@ -129,7 +128,7 @@ public class Nanda implements Slicer {
     }
 
     protected MHPAnalysis mhp() {
-    	return PreciseMHPAnalysis.analyze(graph);
+    	return graph.getAnalysisCache().getPreciseMHPAnalysis();
     }
 
     /* end of predefined methods */
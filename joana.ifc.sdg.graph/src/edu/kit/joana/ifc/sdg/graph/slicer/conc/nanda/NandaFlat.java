@@ -9,7 +9,6 @@ package edu.kit.joana.ifc.sdg.graph.slicer.conc.nanda;
 
 import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.MHPAnalysis;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.SimpleMHPAnalysis;
 
 /** An implementation of Nanda's slicer for multithreaded Java programs.
  * It uses an optimization to omit reachability analysis after traversing
@@ -29,7 +28,7 @@ public class NandaFlat extends Nanda {
     }
 
     protected MHPAnalysis mhp() {
-    	return SimpleMHPAnalysis.analyze(this.graph);
+    	return this.graph.getAnalysisCache().getSimpleMHPAnalysis();
     }
 
     protected States createInitialStates() {
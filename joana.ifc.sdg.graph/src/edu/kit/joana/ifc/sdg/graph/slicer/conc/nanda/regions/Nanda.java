@@ -22,7 +22,6 @@ import edu.kit.joana.ifc.sdg.graph.slicer.graph.CFG;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.VirtualNode;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.ICFGBuilder;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.MHPAnalysis;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PreciseMHPAnalysis;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadRegion;
 
 
@@ -114,7 +113,7 @@ public class Nanda implements Slicer {
     }
 
     protected MHPAnalysis mhp() {
-    	return PreciseMHPAnalysis.analyze(graph);
+    	return graph.getAnalysisCache().getPreciseMHPAnalysis();
     }
 
     /* end of predefined methods */
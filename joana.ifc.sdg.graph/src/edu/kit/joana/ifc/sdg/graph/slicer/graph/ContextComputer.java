@@ -17,7 +17,6 @@ import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.DynamicContextManager.DynamicContext;
-import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.CallGraphBuilder;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.GraphFolder;
 
 
@@ -45,8 +44,8 @@ public class ContextComputer {
 
 	public ContextComputer(SDG sdg) {
 		this.g = sdg;
-		this.call = CallGraphBuilder.buildCallGraph(sdg);
-		this.folded = GraphFolder.foldCallGraph(call);
+		this.call = sdg.getAnalysisCache().getCallGraph();
+		this.folded = sdg.getAnalysisCache().getFoldedCallGraph();
 	}
 
 	/** Returns all contexts of the given node.
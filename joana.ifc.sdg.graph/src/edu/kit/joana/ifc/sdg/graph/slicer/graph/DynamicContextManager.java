@@ -8,10 +8,15 @@
 package edu.kit.joana.ifc.sdg.graph.slicer.graph;
 
 import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ConcurrentHashMap;
 
 import edu.kit.joana.ifc.sdg.graph.JoanaGraph;
 import edu.kit.joana.ifc.sdg.graph.PDGs;
@@ -27,16 +32,209 @@ import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.GraphFolder;
  * @author  Dennis Giffhorn
  */
 public class DynamicContextManager implements ContextManager {
+	/**
+	 * An immutable call stack of a {@link DynamicContext}. Call stacks are hash-consed: there is only one call
+	 * stack object for each sequence of call site ids, so call stacks are compared by reference, share their tails
+	 * and cache their hash codes. Like {@link SDGNode#equals(Object)}, this identifies call sites by their id, so
+	 * call sites that are equal but different objects, e.g. of a copied or reloaded graph, share their call
+	 * stacks; a call stack keeps the node it has been created with first. A call stack refers to the call stacks with one more call site on top only
+	 * weakly, so unused call stacks are garbage collected, and the references to collected call stacks are
+	 * removed the next time a new call stack is created.<p>
+	 *
+	 * Looking up an existing call stack takes no lock. Only creating a new one locks the call stack below it,
+	 * so slicers running concurrently do not contend on a single lock.
+	 */
+	static final class CallStack {
+		static final CallStack EMPTY = new CallStack(null, null);
+
+		/* receives the references to collected call stacks, see purgeCleared() */
+		private static final ReferenceQueue<CallStack> CLEARED = new ReferenceQueue<CallStack>();
+		private static final PushedRef[] NO_REFS = new PushedRef[0];
+
+		/** A weak reference from a call stack to a call stack with one more call site on top. */
+		private static final class PushedRef extends WeakReference<CallStack> {
+			private final CallStack below;
+			private final int key;
+
+			private PushedRef(CallStack pushed, int key) {
+				super(pushed, CLEARED);
+				this.below = pushed.rest;
+				this.key = key;
+			}
+		}
+
+		/** The topmost call site, null for the empty call stack. */
+		final SDGNode top;
+		/** The call stack below the topmost call site, null for the empty call stack. */
+		final CallStack rest;
+		final int size;
+		private final int hash;
+		/* call stacks with one more call site on top, by id of that call site. An array holds at most one live call
+		 * stack. The arrays are never modified, they are replaced while holding the lock of this call stack. */
+		private volatile ConcurrentHashMap<Integer, PushedRef[]> pushed;
+
+		private CallStack(SDGNode top, CallStack rest) {
+			this.top = top;
+			this.rest = rest;
+			this.size = (rest == null ? 0 : rest.size + 1);
+			this.hash = (rest == null ? 0 : 31 * rest.hash + (top == null ? 0 : top.hashCode()));
+		}
+
+		static CallStack of(List<SDGNode> calls) {
+			CallStack cs = EMPTY;
+			for (ListIterator<SDGNode> it = calls.listIterator(calls.size()); it.hasPrevious();) {
+				cs = cs.push(it.previous());
+			}
+
+			return cs;
+		}
+
+		CallStack push(SDGNode call) {
+			final int key = (call == null ? Integer.MIN_VALUE : call.getId());
+			final ConcurrentHashMap<Integer, PushedRef[]> table = pushed;
+			if (table != null) {
+				final CallStack cs = find(table.get(key), call);
+				if (cs != null) {
+					return cs;
+				}
+			}
+
+			// not while holding a lock, as it locks other call stacks
+			purgeCleared();
+
+			synchronized (this) {
+				if (pushed == null) {
+					pushed = new ConcurrentHashMap<Integer, PushedRef[]>(4, 0.75f, 1);
+				}
+
+				final PushedRef[] refs = pushed.get(key);
+				CallStack cs = find(refs, call);
+				if (cs == null) {
+					cs = new CallStack(call, this);
+					final PushedRef[] live = without(refs, null);
+					final PushedRef[] newRefs = new PushedRef[live.length + 1];
+					System.arraycopy(live, 0, newRefs, 0, live.length);
+					newRefs[live.length] = new PushedRef(cs, key);
+					pushed.put(key, newRefs);
+				}
+
+				return cs;
+			}
+		}
+
+		private static CallStack find(PushedRef[] refs, SDGNode call) {
+			if (refs != null) {
+				for (PushedRef ref : refs) {
+					final CallStack cs = ref.get();
+					if (cs != null && sameCallSite(cs.top, call)) {
+						return cs;
+					}
+				}
+			}
+
+			return null;
+		}
+
+		private static boolean sameCallSite(SDGNode n1, SDGNode n2) {
+			return (n1 == null ? n2 == null : n2 != null && n1.getId() == n2.getId());
+		}
+
+		/** Returns the references that are neither cleared nor the given one. */
+		private static PushedRef[] without(PushedRef[] refs, PushedRef removed) {
+			if (refs == null) {
+				return NO_REFS;
+			}
+
+			int live = 0;
+			for (PushedRef ref : refs) {
+				if (ref != removed && ref.get() != null) {
+					live++;
+				}
+			}
+			if (live == refs.length) {
+				return refs;
+			}
+
+			final PushedRef[] result = new PushedRef[live];
+			int i = 0;
+			for (PushedRef ref : refs) {
+				if (ref != removed && ref.get() != null) {
+					result[i++] = ref;
+				}
+			}
+
+			return result;
+		}
+
+		private synchronized void remove(PushedRef ref) {
+			final PushedRef[] refs = pushed.get(ref.key);
+			if (refs == null) {
+				return;
+			}
+
+			final PushedRef[] live = without(refs, ref);
+			if (live.length == 0) {
+				pushed.remove(ref.key);
+			} else if (live != refs) {
+				pushed.put(ref.key, live);
+			}
+		}
+
+		/** Removes the references to collected call stacks from the tables of the call stacks below them. */
+		private static void purgeCleared() {
+			for (Reference<? extends CallStack> ref = CLEARED.poll(); ref != null; ref = CLEARED.poll()) {
+				final PushedRef cleared = (PushedRef) ref;
+				cleared.below.remove(cleared);
+			}
+		}
+
+		CallStack pop() {
+			return (rest == null ? this : rest);
+		}
+
+		boolean isEmpty() {
+			return rest == null;
+		}
+
+		/** Returns the call stack without the n topmost call sites.
+		 */
+		CallStack drop(int n) {
+			if (n < 0 || n > size) {
+				throw new IndexOutOfBoundsException("Index: " + n + ", Size: " + size);
+			}
+
+			CallStack cs = this;
+			for (int i = 0; i < n; i++) {
+				cs = cs.rest;
+			}
+
+			return cs;
+		}
+
+		LinkedList<SDGNode> toList() {
+			final LinkedList<SDGNode> list = new LinkedList<SDGNode>();
+			for (CallStack cs = this; !cs.isEmpty(); cs = cs.rest) {
+				list.add(cs.top);
+			}
+
+			return list;
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+	}
+
 	public static class DynamicContext extends Context {
-	    /** A list, simulating a stack containing the context. */
-	    private LinkedList<SDGNode> callStack;
+	    /** The call stack of the context, shared with all contexts that have the same call stack. */
+	    private CallStack callStack;
 
 	    /** Creates a new instance of Context.
 	     * Initialises attribut 'context' with an empty list.
 	     */
 	    public DynamicContext() {
 	    	super(null, 0);
-	        this.callStack = new LinkedList<SDGNode>();
+	        this.callStack = CallStack.EMPTY;
 	    }
 
 	    /** Creates a new instance of Context with the given vertex as sole element.
@@ -45,7 +243,7 @@ public class DynamicContextManager implements ContextManager {
 	     */
 	    public DynamicContext(SDGNode node) {
 	    	super(node, node.getThreadNumbers()[0]);
-	        this.callStack = new LinkedList<SDGNode>();
+	        this.callStack = CallStack.EMPTY;
 	    }
 
 	    /** Creates a new instance of Context.
@@ -56,7 +254,7 @@ public class DynamicContextManager implements ContextManager {
 	     */
 	    public DynamicContext(LinkedList<SDGNode> callStack, SDGNode node) {
 	    	super(node, node.getThreadNumbers()[0]);
-	        this.callStack = callStack;
+	        this.callStack = CallStack.of(callStack);
 	    }
 
 	    /** Creates a new instance of Context with the given vertex as sole element.
@@ -65,7 +263,7 @@ public class DynamicContextManager implements ContextManager {
 	     */
 	    public DynamicContext(SDGNode node, int thread) {
 	    	super(node, thread);
-	        this.callStack = new LinkedList<SDGNode>();
+	        this.callStack = CallStack.EMPTY;
 	    }
 
 	    /** Creates a new instance of Context.
@@ -75,19 +273,22 @@ public class DynamicContextManager implements ContextManager {
 	     * @param node  The unmapped vertex on top of the context.
 	     */
 	    public DynamicContext(LinkedList<SDGNode> callStack, SDGNode node, int thread) {
+	    	super(node, thread);
+	        this.callStack = CallStack.of(callStack);
+	    }
+
+	    private DynamicContext(CallStack callStack, SDGNode node, int thread) {
 	    	super(node, thread);
 	        this.callStack = callStack;
 	    }
 
 	    /** Creates a clone of a Context object.
-	     * It clones the list of the attribute 'context', but not the vertices in it or
-	     * attribute 'node'. Thus their references keep the same.
+	     * The call stack is immutable and therefore shared with the clone.
 	     *
 	     * @return  A clone of the calling Context instance.
 	     */
-	    @SuppressWarnings("unchecked")
 	    public DynamicContext copy() {
-	        DynamicContext clone = new DynamicContext((LinkedList<SDGNode>) callStack.clone(), node, thread);
+	        DynamicContext clone = new DynamicContext(callStack, node, thread);
 
 	        return clone;
 	    }
@@ -99,9 +300,8 @@ public class DynamicContextManager implements ContextManager {
 	     * The first element in the returned list is the topmost element, the second
 	     * element is the top of the call stack.
 	     */
-	    @SuppressWarnings("unchecked")
 	    LinkedList<SDGNode> asList() {
-	        LinkedList<SDGNode> clone = (LinkedList<SDGNode>) callStack.clone();
+	        LinkedList<SDGNode> clone = callStack.toList();
 
 	        clone.addFirst(node);
 
@@ -112,18 +312,13 @@ public class DynamicContextManager implements ContextManager {
 	     * That is the second node in the Context.
 	     */
 	    public SDGNode top() {
-	        if (this.callStack.size() > 0) {
-	            return this.callStack.get(0);
-
-	        } else {
-	            return null;
-	        }
+	        return callStack.top;
 	    }
 
 	    /** Returns the size of the Context.
 	     */
 	    public int size() {
-	        return this.callStack.size() +1;
+	        return this.callStack.size +1;
 	    }
 
 	    /** Returns the node of the context at the given position.
@@ -134,18 +329,18 @@ public class DynamicContextManager implements ContextManager {
 	        if (index == 0) {
 	            return node;
 
+	        } else if (index > callStack.size) {
+	            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+
 	        } else {
-	            return this.callStack.get(index -1);
+	            return this.callStack.drop(index -1).top;
 	        }
 	    }
 
 	    /** Returns the call stack of the calling Context object.
 	     */
-	    @SuppressWarnings("unchecked")
 	    public LinkedList<SDGNode> getCallStack() {
-	        LinkedList<SDGNode> cs = (LinkedList<SDGNode>) this.callStack.clone();
-
-	        return cs;
+	        return this.callStack.toList();
 	    }
 
 	    /** Checks whether the Context is empty.
@@ -168,16 +363,25 @@ public class DynamicContextManager implements ContextManager {
 
 	    boolean isFolded() {
 	        if (callStack.isEmpty()) return false;
-	        else return callStack.peek().getId() < 0;
+	        else return callStack.top.getId() < 0;
 	    }
 
 	    /** Compares a given Context with the calling Context.
 	     * They are considered equal if they have the same attribute 'node', the same
-	     * stack size and their stacks contain the same vertices in the same order.
+	     * thread and the same call stack. Nodes are compared by id. As call stacks are
+	     * hash-consed by the ids of their call sites, the latter is a reference comparison.
 	     *
 	     * @param c  The Context to comparre with.
 	     */
 	    public boolean equals(Object o){
+	    	if (this == o) {
+	    		return true;
+	    	}
+
+	    	if (!(o instanceof DynamicContext)) {
+	    		return false;
+	    	}
+
 	    	DynamicContext c = (DynamicContext) o;
 
 	        if (isEmpty() && c.isEmpty()) {
@@ -188,25 +392,15 @@ public class DynamicContextManager implements ContextManager {
 	            return false;
 	        }
 
-	        if (c.size() != size()) {
+	        if (callStack != c.callStack || c.getThread() != thread) {
 	            return false;
 	        }
 
-	        if (node.getId() != c.getNode().getId()) {
-	            return false;
+	        if (node == null || c.getNode() == null) {
+	            return node == c.getNode();
 	        }
 
-	        if (c.getThread() != thread) {
-	            return false;
-	        }
-
-	        for (int i = 0; i < size(); i++) {
-	            if (c.get(i).getId() != get(i).getId()) {
-	                return false;
-	            }
-	        }
-
-	        return true;
+	        return node.getId() == c.getNode().getId();
 	    }
 
 	    /** Checks if the Context is a suffix of given Context 'con'
@@ -214,39 +408,18 @@ public class DynamicContextManager implements ContextManager {
 	     * @return  'true' if this is a suffix of con.
 	     */
 	    public boolean isSuffixOf(DynamicContext con) {
-	        List<SDGNode> callString = con.getCallStack();
+	        if (callStack.size > con.callStack.size) return false;
 
-	        if (callStack.size() > callString.size()) return false;
-
-	        int i = callStack.size() -1;
-	        int j = callString.size() -1;
-
-	        while (i >= 0 && j >= 0) {
-	            if (callStack.get(i) != callString.get(j)) {
-	                return false;
-	            }
-	            i--;
-	            j--;
-	        }
-
-	        return true;
+	        // equal tails of hash-consed call stacks are the same object
+	        return con.callStack.drop(con.callStack.size - callStack.size) == callStack;
 	    }
 
 	    boolean extensionOf(DynamicContext con) {
-	        if (con.size() > callStack.size()) return false;
+	        if (con.size() > callStack.size) return false;
 
-	        int i = callStack.size() -1;
-	        int j = con.size() -1;
+	        final CallStack suffix = callStack.drop(callStack.size - con.size());
 
-	        while (i >= 0 && j >= 0) {
-	            if (callStack.get(i) != con.get(j)) {
-	                return false;
-	            }
-	            i--;
-	            j--;
-	        }
-
-	        return true;
+	        return CallStack.sameCallSite(suffix.top, con.getNode()) && suffix.rest == con.callStack;
 	    }
 
 	    /** Checks whether the stack of the calling Context contains a given vertex.
@@ -258,8 +431,8 @@ public class DynamicContextManager implements ContextManager {
 	            return true;
 	        }
 
-	        for (SDGNode n : callStack) {
-	            if (n == vertex) {
+	        for (CallStack cs = callStack; !cs.isEmpty(); cs = cs.rest) {
+	            if (cs.top == vertex) {
 	                return true;
 	            }
 	        }
@@ -276,17 +449,15 @@ public class DynamicContextManager implements ContextManager {
 	            return false;
 	        }
 
-	        boolean subsuming = true;
-
-	        for (int i = 0; i < this.size(); i++) {
-	            SDGNode thisN = this.get(i);
-	            SDGNode cN = c.get(i);
-	            if (thisN.getId() != cN.getId()) {
-	                subsuming = false;
+	        CallStack cs = c.callStack;
+	        for (CallStack thisCs = callStack; !thisCs.isEmpty(); thisCs = thisCs.rest) {
+	            if (thisCs.top.getId() != cs.top.getId()) {
+	                return false;
 	            }
+	            cs = cs.rest;
 	        }
 
-	        return subsuming;
+	        return true;
 	    }
 
 
@@ -296,7 +467,7 @@ public class DynamicContextManager implements ContextManager {
 	     * That is the first element in attribute 'context'.
 	     */
 	    public void pop() {
-	        this.callStack.poll();
+	        this.callStack = callStack.pop();
 	    }
 
 	    /** Pushes  a new node on the call stack of this Context.
@@ -304,7 +475,7 @@ public class DynamicContextManager implements ContextManager {
 	     * @param call  The new top of stack.
 	     */
 	    public void push(SDGNode call) {
-	        this.callStack.addFirst(call);
+	        this.callStack = callStack.push(call);
 	    }
 
 	    /** Returns a string representation of this Context.
@@ -318,10 +489,10 @@ public class DynamicContextManager implements ContextManager {
 	        if (this.size() > 1) {
 	        	str += ", ";
 	            str += "Call Stack: [";
-	            for (int i = 0; i < this.callStack.size(); i++) {
+	            for (CallStack cs = callStack; !cs.isEmpty(); cs = cs.rest) {
 
-	                str += this.callStack.get(i).getId();
-	                if (i < this.callStack.size() - 1) {
+	                str += cs.top.getId();
+	                if (!cs.rest.isEmpty()) {
 	                	str += ", ";
 	                }
 	            }
@@ -332,13 +503,7 @@ public class DynamicContextManager implements ContextManager {
 	    }
 
 	    public int hashCode() {
-	    	int hc = (node == null ? 1 : node.hashCode());
-
-	    	for (SDGNode n : callStack) {
-	    		hc = 31*hc + (n==null ? 0 : n.hashCode());
-	    	}
-
-	    	return hc;
+	    	return 31 * callStack.hashCode() + (node == null ? 1 : node.hashCode());
 	    }
 
 		@Override
@@ -346,12 +511,12 @@ public class DynamicContextManager implements ContextManager {
 			if (callStack.isEmpty()) {
 				return false;
 
-			} else if (callStack.peek().getProc() < 0) {
+			} else if (callStack.top.getProc() < 0) {
 				// fold node - could be true
 				return true;
 
 			} else {
-				return callStack.peek().getProc() == n.getProc();
+				return callStack.top.getProc() == n.getProc();
 			}
 		}
 
@@ -363,12 +528,7 @@ public class DynamicContextManager implements ContextManager {
 	     * @return The context of pre.
 	     */
 	    public Context level(SDGNode reachedNode) {
-	        Context newContext = copy();
-
-	        // set 'pre' as new node of context
-	        newContext.setNode(reachedNode);
-
-	        return newContext;
+	        return new DynamicContext(callStack, reachedNode, thread);
 	    }
 
 	    /**
@@ -379,15 +539,8 @@ public class DynamicContextManager implements ContextManager {
 	     * @return The new context.
 	     */
 	    public Context ascend(SDGNode reachedNode, SDGNodeTuple callSite){
-	        Context up = copy();
-
-	        // pop the topmost call site from the context
-	        up.pop();
-
-	        // set the given node as the new context node
-	        up.setNode(reachedNode);
-
-	        return up;
+	        // pop the topmost call site from the context and set the given node as the new context node
+	        return new DynamicContext(callStack.pop(), reachedNode, thread);
 	    }
 
 
@@ -399,10 +552,7 @@ public class DynamicContextManager implements ContextManager {
 	     * @return  The context for 'node'.
 	     */
 	    public Context descend(SDGNode reachedNode, SDGNodeTuple callSite){
-	        Context down = copy();
-	        down.push(callSite.getFirstNode());
-	        down.setNode(reachedNode);
-	        return down;
+	        return new DynamicContext(callStack.push(callSite.getFirstNode()), reachedNode, thread);
 	    }
 	}
 
@@ -441,14 +591,22 @@ public class DynamicContextManager implements ContextManager {
             }
 
             if (one.size() == two.size()) {
-                for (int i = 0; i < one.size(); i++) {
+                if (one.getNode().getId() < two.getNode().getId()) {
+                    return -1;
+
+                } else if (one.getNode().getId() > two.getNode().getId()) {
+                    return 1;
+                }
 
-                    if(one.get(i).getId() < two.get(i).getId()) {
+                CallStack csTwo = two.callStack;
+                for (CallStack csOne = one.callStack; csOne != csTwo; csOne = csOne.rest) {
+                    if (csOne.top.getId() < csTwo.top.getId()) {
                         return -1;
 
-                    } else if (one.get(i).getId() > two.get(i).getId()) {
+                    } else if (csOne.top.getId() > csTwo.top.getId()) {
                         return 1;
                     }
+                    csTwo = csTwo.rest;
                 }
 
             } else if (one.size() > two.size()) {
@@ -481,8 +639,15 @@ public class DynamicContextManager implements ContextManager {
      * Creates a new instance.
      */
     public DynamicContextManager(JoanaGraph g) {
-    	CallGraph call = CallGraphBuilder.buildCallGraph(g);
-        foldedCall = GraphFolder.foldCallGraph(call);
+    	CallGraph call;
+    	if (g instanceof SDG) {
+    		SDGAnalysisCache cache = ((SDG) g).getAnalysisCache();
+    		call = cache.getCallGraph();
+    		foldedCall = cache.getFoldedCallGraph();
+    	} else {
+    		call = CallGraphBuilder.buildCallGraph(g);
+    		foldedCall = GraphFolder.foldCallGraph(call);
+    	}
         conCom = new ContextComputer(g, call, foldedCall);
     }
 
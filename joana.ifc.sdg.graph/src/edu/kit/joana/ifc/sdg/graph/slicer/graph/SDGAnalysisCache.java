@@ -0,0 +1,152 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.slicer.graph;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.CallGraphBuilder;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.GraphFolder;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.ICFGBuilder;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.PreciseMHPAnalysis;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.SimpleMHPAnalysis;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadRegions;
+
+/**
+ * Holds the auxiliary graphs and analyses that the concurrent slicers, choppers and IFC checkers derive from a SDG:
+ * the call graph and its folding, the static context manager, the two-pass folded ICFG and the MHP analyses.
+ * Each of them is computed on first request and then shared by all users of the SDG, who must not modify it.
+ *
+ * Every request compares the modification count of the SDG with the one the results were computed for;
+ * if the graph or its thread information changed in between, all results are dropped and computed anew.
+ * Users that keep a result have to request it again after they modified the graph.
+ *
+ * @see SDG#getAnalysisCache()
+ */
+public final class SDGAnalysisCache {
+	private final SDG sdg;
+	/** modification count of the SDG the cached results belong to */
+	private int modCount;
+
+	private CallGraph callGraph;
+	private FoldedCallGraph foldedCallGraph;
+	private StaticContextManager contextManager;
+	private FoldedCFG foldedICFG;
+	private PreciseMHPAnalysis preciseMHP;
+	private SimpleMHPAnalysis simpleMHP;
+
+	public SDGAnalysisCache(SDG sdg) {
+		this.sdg = sdg;
+		this.modCount = sdg.getModificationCount();
+	}
+
+	public SDG getSDG() {
+		return sdg;
+	}
+
+	/**
+	 * Drops all results that were computed for an older version of the SDG.
+	 */
+	private void validate() {
+		if (modCount != sdg.getModificationCount()) {
+			invalidate();
+		}
+	}
+
+	/**
+	 * Drops all cached results.
+	 */
+	public synchronized void invalidate() {
+		callGraph = null;
+		foldedCallGraph = null;
+		contextManager = null;
+		foldedICFG = null;
+		preciseMHP = null;
+		simpleMHP = null;
+		modCount = sdg.getModificationCount();
+	}
+
+	/**
+	 * @see CallGraphBuilder#buildCallGraph(SDG)
+	 */
+	public synchronized CallGraph getCallGraph() {
+		validate();
+		if (callGraph == null) {
+			callGraph = CallGraphBuilder.buildCallGraph(sdg);
+		}
+
+		return callGraph;
+	}
+
+	/**
+	 * @see GraphFolder#foldCallGraph(CallGraph)
+	 */
+	public synchronized FoldedCallGraph getFoldedCallGraph() {
+		validate();
+		if (foldedCallGraph == null) {
+			foldedCallGraph = GraphFolder.foldCallGraph(getCallGraph());
+		}
+
+		return foldedCallGraph;
+	}
+
+	/**
+	 * @see StaticContextManager#create(SDG)
+	 */
+	public synchronized StaticContextManager getStaticContextManager() {
+		validate();
+		if (contextManager == null) {
+			contextManager = StaticContextManager.create(sdg, getCallGraph(), getFoldedCallGraph());
+		}
+
+		return contextManager;
+	}
+
+	/**
+	 * Returns the threaded ICFG of the SDG, folded with Krinke's two-pass folding.
+	 *
+	 * @see GraphFolder#twoPassFolding(CFG)
+	 */
+	public synchronized FoldedCFG getTwoPassFoldedICFG() {
+		validate();
+		if (foldedICFG == null) {
+			foldedICFG = GraphFolder.twoPassFolding(ICFGBuilder.extractICFG(sdg));
+		}
+
+		return foldedICFG;
+	}
+
+	/**
+	 * @see PreciseMHPAnalysis#analyze(SDG)
+	 */
+	public synchronized PreciseMHPAnalysis getPreciseMHPAnalysis() {
+		validate();
+		if (preciseMHP == null) {
+			preciseMHP = PreciseMHPAnalysis.analyze(sdg);
+		}
+
+		return preciseMHP;
+	}
+
+	/**
+	 * Returns the precise thread regions, which are computed along with the precise MHP analysis.
+	 */
+	public synchronized ThreadRegions getThreadRegions() {
+		return getPreciseMHPAnalysis().getTR();
+	}
+
+	/**
+	 * @see SimpleMHPAnalysis#analyze(SDG)
+	 */
+	public synchronized SimpleMHPAnalysis getSimpleMHPAnalysis() {
+		validate();
+		if (simpleMHP == null) {
+			simpleMHP = SimpleMHPAnalysis.analyze(sdg);
+		}
+
+		return simpleMHP;
+	}
+}
@@ -7,6 +7,7 @@
  */
 package edu.kit.joana.ifc.sdg.graph.slicer.graph.threads;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -18,7 +19,6 @@ import edu.kit.joana.ifc.sdg.graph.SDG;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge;
 import edu.kit.joana.ifc.sdg.graph.SDGEdge.Kind;
 import edu.kit.joana.ifc.sdg.graph.SDGNode;
-import edu.kit.joana.ifc.sdg.graph.slicer.conc.CFGForward;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.CFG;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.DynamicContextManager.DynamicContext;
 import edu.kit.joana.ifc.sdg.graph.slicer.graph.VirtualNode;
@@ -38,7 +38,8 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
     private ThreadsInformation info;
     private BitMatrix map;
     private ThreadRegions regions;
-    private HashMap<Integer, Collection<VirtualNode>> mayExist;
+    /** per thread: bit set of the ids of all thread regions which may happen in parallel to a region of the thread */
+    private long[][] mayExist;
 
     private PreciseMHPAnalysis(ThreadsInformation info, BitMatrix map, ThreadRegions regions) {
         this.info = info;
@@ -46,7 +47,7 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
         this.regions = regions;
     }
 
-    private void setMayExistMap(HashMap<Integer, Collection<VirtualNode>> mayExist) {
+    private void setMayExistMap(long[][] mayExist) {
     	this.mayExist = mayExist;
     }
 
@@ -136,12 +137,46 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
 
 	@Override
 	public boolean mayExist(int thread, VirtualNode v) {
-		return (mayExist.get(thread).contains(v));
+		return mayExist(thread, v.getNode(), v.getNumber());
 	}
 
 	@Override
 	public boolean mayExist(int thread, SDGNode n, int nThread) {
-		return (mayExist.get(thread).contains(new VirtualNode(n, nThread)));
+		ThreadRegion region = regions.findThreadRegion(n, nThread);
+		return region != null && isSet(mayExist[thread], region.getID());
+	}
+
+
+	/* BIT SETS */
+
+	private static int wordsFor(int bits) {
+		return (bits + 63) >>> 6;
+	}
+
+	private static boolean isSet(long[] bits, int i) {
+		return (bits[i >>> 6] & (1L << i)) != 0;
+	}
+
+	private static void set(long[] bits, int i) {
+		bits[i >>> 6] |= 1L << i;
+	}
+
+	/**
+	 * Adds the bit set of length <code>words</code> starting at <code>from</code> to the one starting at <code>to</code>.
+	 * @return true if the target set changed
+	 */
+	private static boolean addAll(long[] src, int from, long[] dst, int to, int words) {
+		boolean changed = false;
+		for (int w = 0; w < words; w++) {
+			long old = dst[to + w];
+			long merged = old | src[from + w];
+			if (merged != old) {
+				dst[to + w] = merged;
+				changed = true;
+			}
+		}
+
+		return changed;
 	}
 
 
@@ -229,7 +264,7 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
     	PreciseMHPAnalysis result = mhp.getMHPMap();
 
     	log.outln("Compute MayExist Map ...");
-        HashMap<Integer, Collection<VirtualNode>> mayExist = computeMayExist(result);
+        long[][] mayExist = computeMayExist(result, info.getNumberOfThreads());
         result.setMayExistMap(mayExist);
     	return result;
     }
@@ -257,22 +292,21 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
     	return remove;
     }
 
-    private static HashMap<Integer, Collection<VirtualNode>> computeMayExist(PreciseMHPAnalysis mhp) {
-    	HashMap<Integer, Collection<VirtualNode>> result = new HashMap<Integer, Collection<VirtualNode>>();
+    /**
+     * A node of thread region s may exist while thread t is running iff some region of t is parallel to s.
+     * Thus it suffices to store the union of the rows of all regions of t, the nodes are mapped to their
+     * regions on demand.
+     */
+    private static long[][] computeMayExist(PreciseMHPAnalysis mhp, int threads) {
+    	int size = mhp.regions.size();
+    	long[][] result = new long[threads][wordsFor(size)];
 
-    	// TODO: proof of concept, can be done more efficiently
     	for (ThreadRegion r : mhp.getThreadRegions()) {
-    		for (ThreadRegion s : mhp.getThreadRegions()) {
-    			if (mhp.isParallel(r, s)) {
-    				Collection<VirtualNode> c = result.get(r.getThread());
-    				if (c == null) {
-    					c = new HashSet<VirtualNode>();
-    					result.put(r.getThread(), c);
-    				}
+    		long[] row = result[r.getThread()];
 
-    				for (SDGNode n : s.getNodes()) {
-    					c.add(new VirtualNode(n, s.getThread()));
-    				}
+    		for (int s = 0; s < size; s++) {
+    			if (mhp.map.get(r.getID(), s)) {
+    				set(row, s);
     			}
     		}
     	}
@@ -291,13 +325,11 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
         private HashMap<SDGNode, Set<SDGNode>> joinDominance;
         private LinkedList<DynamicContext> forks;
         private HashMap<DynamicContext, LinkedList<Integer>> indirectForks;
-        private CFGForward slicer;
 
         private MHPComputation (CFG icfg, ThreadsInformation info, ThreadRegions tr) {
             this.icfg = icfg;
             this.info = info;
             this.tr = tr;
-            slicer = new CFGForward(icfg);
         }
 
         private PreciseMHPAnalysis getMHPMap() {
@@ -352,37 +384,37 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
 
     		// process parallelism induced by forks
         	debug.outln("parallelism through forks");
+        	long[][] reachingForks = computeReachingForks();
+        	boolean[] spawned = new boolean[info.getNumberOfThreads()];
+        	int[] inSlice = new int[tr.size()];
+
         	for (DynamicContext fork : forks) {
         		debug.out(".");
         		if (fork == null) continue;
 
-        		LinkedList<SDGNode> succ = new LinkedList<SDGNode>();
-
-        		for (SDGEdge e : icfg.getOutgoingEdgesOfKind(fork.getNode(), SDGEdge.Kind.CONTROL_FLOW)) {
-        			succ.add(e.getTarget());
-        		}
-
-        		Collection<SDGNode> slice = slicer.slice(succ);
-        		LinkedList<ThreadRegion> inSlice = new LinkedList<ThreadRegion>();
+        		int inSliceSize = 0;
 
         		for (int x = 0; x < tr.size(); x++) {
         			ThreadRegion q = tr.getThreadRegion(x);
-        			if (fork.getNode() == q.getStart() || slice.contains(q.getStart())) {
-        				inSlice.add(q);
+        			if (fork.getNode() == q.getStart() || isSet(reachingForks[x], fork.getThread())) {
+        				inSlice[inSliceSize++] = q.getID();
         			}
         		}
 
         		// determine parallelism induced by fork
-        		LinkedList<Integer> spawnedThreads = indirectForks.get(fork);
+        		Arrays.fill(spawned, false);
+        		for (int t : indirectForks.get(fork)) {
+        			spawned[t] = true;
+        		}
 
         		for (int i = 0; i < tr.size(); i++) {
             		ThreadRegion p = tr.getThreadRegion(i);
 
-            		if (!spawnedThreads.contains(p.getThread())) continue;
+            		if (!spawned[p.getThread()]) continue;
 
-            		for (ThreadRegion q : inSlice) {
-            			result.set(p.getID(), q.getID());
-            			result.set(q.getID(), p.getID());
+            		for (int j = 0; j < inSliceSize; j++) {
+            			result.set(p.getID(), inSlice[j]);
+            			result.set(inSlice[j], p.getID());
             		}
             	}
         	}
@@ -428,6 +460,102 @@ public class PreciseMHPAnalysis implements MHPAnalysis {
         	return result;
         }
 
+        /**
+         * Determines for every thread region the forks whose CFGForward slice, started at the control flow successors
+         * of the fork, contains the start node of the region.
+         * Instead of slicing once per fork, the slices of all forks are computed in a single fixpoint iteration:
+         * every node carries a bit set of forks for each phase of the two-phase traversal, which is propagated
+         * word-wise along the edges. Reaching a node in phase 1 subsumes reaching it in phase 2, so a node is in the
+         * slice of a fork iff the fork's bit is set in one of its two sets.
+         *
+         * @return for every region id the set of thread ids whose fork reaches the region
+         */
+        private long[][] computeReachingForks() {
+        	int words = wordsFor(info.getNumberOfThreads());
+
+        	// number the control flow nodes densely
+        	int maxId = 0;
+        	for (SDGNode n : icfg.vertexSet()) {
+        		maxId = Math.max(maxId, n.getId());
+        	}
+        	int[] index = new int[maxId + 1];
+        	SDGNode[] nodes = new SDGNode[icfg.vertexSet().size()];
+        	int size = 0;
+        	for (SDGNode n : icfg.vertexSet()) {
+        		index[n.getId()] = size;
+        		nodes[size] = n;
+        		size++;
+        	}
+
+        	// the bit set of node v occupies the words [v * words, (v + 1) * words)
+        	long[] phase1 = new long[size * words];
+        	long[] phase2 = new long[size * words];
+        	int[] worklist = new int[size];
+        	boolean[] queued = new boolean[size];
+        	int top = 0;
+
+        	for (DynamicContext fork : forks) {
+        		if (fork == null) continue;
+
+        		for (SDGEdge e : icfg.getOutgoingEdgesOfKind(fork.getNode(), SDGEdge.Kind.CONTROL_FLOW)) {
+        			int v = index[e.getTarget().getId()];
+        			phase1[v * words + (fork.getThread() >>> 6)] |= 1L << fork.getThread();
+        			if (!queued[v]) {
+        				queued[v] = true;
+        				worklist[top++] = v;
+        			}
+        		}
+        	}
+
+        	while (top > 0) {
+        		int v = worklist[--top];
+        		queued[v] = false;
+        		int from = v * words;
+
+        		for (SDGEdge e : icfg.outgoingEdgesOf(nodes[v])) {
+        			SDGEdge.Kind kind = e.getKind();
+        			if (kind != SDGEdge.Kind.CONTROL_FLOW
+        					&& kind != SDGEdge.Kind.CALL
+        					&& kind != SDGEdge.Kind.RETURN
+        					&& kind != SDGEdge.Kind.FORK
+        					&& kind != SDGEdge.Kind.JOIN) {
+        				continue;
+        			}
+
+        			int w = index[e.getTarget().getId()];
+        			int to = w * words;
+        			boolean changed;
+
+        			// phase 1 traverses all edges, descending into a procedure switches to phase 2
+        			changed = addAll(phase1, from, (kind == SDGEdge.Kind.CALL ? phase2 : phase1), to, words);
+
+        			// phase 2 does not return to callers, thread edges switch back to phase 1
+        			if (kind == SDGEdge.Kind.FORK || kind == SDGEdge.Kind.JOIN) {
+        				changed |= addAll(phase2, from, phase1, to, words);
+
+        			} else if (kind != SDGEdge.Kind.RETURN) {
+        				changed |= addAll(phase2, from, phase2, to, words);
+        			}
+
+        			if (changed && !queued[w]) {
+        				queued[w] = true;
+        				worklist[top++] = w;
+        			}
+        		}
+        	}
+
+        	long[][] result = new long[tr.size()][words];
+        	for (int x = 0; x < tr.size(); x++) {
+        		SDGNode start = tr.getThreadRegion(x).getStart();
+        		int v = index[start.getId()];
+        		for (int i = 0; i < words; i++) {
+        			result[x][i] = phase1[v * words + i] | phase2[v * words + i];
+        		}
+        	}
+
+        	return result;
+        }
+
         /* TODO: this is a proof-of-concept implementation.
          * Refine it some day with an interprocedural dominator tree.
          *
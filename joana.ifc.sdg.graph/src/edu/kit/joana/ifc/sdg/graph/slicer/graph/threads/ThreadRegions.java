@@ -137,6 +137,17 @@ public class ThreadRegions implements Iterable<ThreadRegion> {
 		return map.get(node.getNumber()).get(node.getNode().getId());
 	}
 
+	/**
+	 * Returns the thread region of the given thread which the given node belongs to, or null if the node
+	 * is not part of any region of that thread (e.g. because it is no control flow node).
+	 * @param node node to determine the thread region of
+	 * @param thread thread to determine the thread region of
+	 */
+	public ThreadRegion findThreadRegion(SDGNode node, int thread) {
+		TIntObjectHashMap<ThreadRegion> subMap = map.get(thread);
+		return (subMap == null ? null : subMap.get(node.getId()));
+	}
+
 	/**
 	 * Returns true if source may reach target.
 	 * Needed for backwards compatibility.
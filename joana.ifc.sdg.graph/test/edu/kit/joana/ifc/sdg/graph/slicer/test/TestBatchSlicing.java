@@ -0,0 +1,161 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.slicer.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.BatchSlicer;
+import edu.kit.joana.ifc.sdg.graph.slicer.SummarySlicerBackward;
+import edu.kit.joana.ifc.sdg.graph.slicer.SummarySlicerForward;
+import edu.kit.joana.ifc.sdg.graph.slicer.conc.I2PBackward;
+import edu.kit.joana.ifc.sdg.graph.slicer.conc.I2PForward;
+
+/**
+ * Compares {@link BatchSlicer#sliceBatch(List, BatchSlicer.Visitor)} with slicing each criterion on its own.
+ */
+public class TestBatchSlicing extends TestCase {
+
+	/**
+	 * Program main() { a = p(i1); b = p(i2); x = h; y = a + x; } where p returns its parameter and also writes
+	 * the heap location h. The backward slice of y reaches the formal-out node of p over the parameter-out edge
+	 * before it reaches it over the heap dependence.
+	 */
+	private static SDG program() {
+		final SDG sdg = new SDG("batch");
+
+		final SDGNode mainEntry = entry(1, 0, "A.main()V");
+		final SDGNode call1 = node(SDGNode.Operation.CALL, 2, 0);
+		final SDGNode actIn1 = node(SDGNode.Operation.ACTUAL_IN, 3, 0);
+		final SDGNode actOut1 = node(SDGNode.Operation.ACTUAL_OUT, 4, 0);
+		final SDGNode call2 = node(SDGNode.Operation.CALL, 5, 0);
+		final SDGNode actIn2 = node(SDGNode.Operation.ACTUAL_IN, 6, 0);
+		final SDGNode actOut2 = node(SDGNode.Operation.ACTUAL_OUT, 7, 0);
+		final SDGNode readHeap = node(SDGNode.Operation.ASSIGN, 8, 0);
+		final SDGNode sum = node(SDGNode.Operation.ASSIGN, 9, 0);
+		final SDGNode pEntry = entry(10, 1, "A.p(I)I");
+		final SDGNode formIn = node(SDGNode.Operation.FORMAL_IN, 11, 1);
+		final SDGNode formOut = node(SDGNode.Operation.FORMAL_OUT, 12, 1);
+		for (SDGNode n : new SDGNode[] { mainEntry, call1, actIn1, actOut1, call2, actIn2, actOut2, readHeap, sum,
+				pEntry, formIn, formOut }) {
+			sdg.addVertex(n);
+		}
+
+		edge(sdg, mainEntry, call1, SDGEdge.Kind.CONTROL_DEP_UNCOND);
+		edge(sdg, mainEntry, call2, SDGEdge.Kind.CONTROL_DEP_UNCOND);
+		edge(sdg, mainEntry, readHeap, SDGEdge.Kind.CONTROL_DEP_UNCOND);
+		edge(sdg, mainEntry, sum, SDGEdge.Kind.CONTROL_DEP_UNCOND);
+		edge(sdg, call1, actIn1, SDGEdge.Kind.CONTROL_DEP_EXPR);
+		edge(sdg, call1, actOut1, SDGEdge.Kind.CONTROL_DEP_EXPR);
+		edge(sdg, call2, actIn2, SDGEdge.Kind.CONTROL_DEP_EXPR);
+		edge(sdg, call2, actOut2, SDGEdge.Kind.CONTROL_DEP_EXPR);
+		edge(sdg, actOut1, sum, SDGEdge.Kind.DATA_DEP);
+		edge(sdg, readHeap, sum, SDGEdge.Kind.DATA_DEP);
+		edge(sdg, formOut, readHeap, SDGEdge.Kind.DATA_HEAP);
+
+		edge(sdg, pEntry, formIn, SDGEdge.Kind.CONTROL_DEP_EXPR);
+		edge(sdg, pEntry, formOut, SDGEdge.Kind.CONTROL_DEP_EXPR);
+		edge(sdg, formIn, formOut, SDGEdge.Kind.DATA_DEP);
+
+		edge(sdg, call1, pEntry, SDGEdge.Kind.CALL);
+		edge(sdg, actIn1, formIn, SDGEdge.Kind.PARAMETER_IN);
+		edge(sdg, formOut, actOut1, SDGEdge.Kind.PARAMETER_OUT);
+		edge(sdg, actIn1, actOut1, SDGEdge.Kind.SUMMARY);
+		edge(sdg, call2, pEntry, SDGEdge.Kind.CALL);
+		edge(sdg, actIn2, formIn, SDGEdge.Kind.PARAMETER_IN);
+		edge(sdg, formOut, actOut2, SDGEdge.Kind.PARAMETER_OUT);
+		edge(sdg, actIn2, actOut2, SDGEdge.Kind.SUMMARY);
+
+		return sdg;
+	}
+
+	private static SDGNode entry(int id, int proc, String method) {
+		return new SDGNode(id, SDGNode.Operation.ENTRY, method, proc, null, null, 0, 0, 0, 0, method, -1);
+	}
+
+	private static SDGNode node(SDGNode.Operation op, int id, int proc) {
+		return new SDGNode(id, op, op.toString(), proc, null, null, 0, 0, 0, 0, null, id);
+	}
+
+	private static void edge(SDG sdg, SDGNode from, SDGNode to, SDGEdge.Kind kind) {
+		sdg.addEdge(new SDGEdge(from, to, kind));
+	}
+
+	private static List<SDGNode> nodesById(SDG sdg) {
+		final List<SDGNode> nodes = new ArrayList<SDGNode>(sdg.vertexSet());
+		Collections.sort(nodes, SDGNode.getIDComparator());
+		return nodes;
+	}
+
+	private static Set<Integer> ids(Iterable<SDGNode> nodes) {
+		final Set<Integer> ids = new TreeSet<Integer>();
+		for (SDGNode n : nodes) {
+			ids.add(n.getId());
+		}
+		return ids;
+	}
+
+	/**
+	 * @return the slice of each criterion, computed in a single batch
+	 */
+	private static List<Set<Integer>> batchSlices(BatchSlicer slicer, List<SDGNode> criteria) {
+		final List<Set<Integer>> slices = new ArrayList<Set<Integer>>();
+		for (int i = 0; i < criteria.size(); i++) {
+			slices.add(new TreeSet<Integer>());
+		}
+		slicer.sliceBatch(criteria, new BatchSlicer.Visitor() {
+			@Override
+			public void visit(SDGNode node, long reaching) {
+				for (int i = 0; i < slices.size(); i++) {
+					if ((reaching & (1L << i)) != 0) {
+						slices.get(i).add(node.getId());
+					}
+				}
+			}
+		});
+		return slices;
+	}
+
+	private static void assertSameAsSingleSlices(BatchSlicer slicer, SDG sdg) {
+		final List<SDGNode> criteria = nodesById(sdg);
+		final List<Set<Integer>> batch = batchSlices(slicer, criteria);
+		for (int i = 0; i < criteria.size(); i++) {
+			assertEquals("slice of " + criteria.get(i), ids(slicer.slice(criteria.get(i))), batch.get(i));
+		}
+		// a batch must not influence the next one
+		assertEquals(batch, batchSlices(slicer, criteria));
+	}
+
+	public void testSummarySlicerBackward() {
+		final SDG sdg = program();
+		assertSameAsSingleSlices(new SummarySlicerBackward(sdg), sdg);
+	}
+
+	public void testSummarySlicerForward() {
+		final SDG sdg = program();
+		assertSameAsSingleSlices(new SummarySlicerForward(sdg), sdg);
+	}
+
+	public void testI2PBackward() {
+		final SDG sdg = program();
+		assertSameAsSingleSlices(new I2PBackward(sdg), sdg);
+	}
+
+	public void testI2PForward() {
+		final SDG sdg = program();
+		assertSameAsSingleSlices(new I2PForward(sdg), sdg);
+	}
+
+}
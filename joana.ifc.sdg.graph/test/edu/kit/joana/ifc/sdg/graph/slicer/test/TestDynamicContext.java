@@ -0,0 +1,53 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.slicer.test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import junit.framework.TestCase;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.DynamicContextManager.DynamicContext;
+
+/**
+ * Checks that dynamic contexts compare their nodes and call sites by id, also if equal nodes are different
+ * objects, as after copying or reloading a graph.
+ */
+public class TestDynamicContext extends TestCase {
+
+	private static SDGNode node(SDGNode.Operation op, int id) {
+		return new SDGNode(id, op, op.toString(), 0, null, null, 0, 0, 0, 0, null, id);
+	}
+
+	private static DynamicContext context(SDGNode node, SDGNode... calls) {
+		return new DynamicContext(new LinkedList<SDGNode>(Arrays.asList(calls)), node, 0);
+	}
+
+	public void testEqualNodesOfDifferentGraphs() {
+		final SDGNode call1 = node(SDGNode.Operation.CALL, 1);
+		final SDGNode call2 = node(SDGNode.Operation.CALL, 2);
+		final SDGNode stmt = node(SDGNode.Operation.ASSIGN, 3);
+		final SDGNode copyOfCall1 = node(SDGNode.Operation.CALL, 1);
+		final SDGNode copyOfCall2 = node(SDGNode.Operation.CALL, 2);
+		final SDGNode copyOfStmt = node(SDGNode.Operation.ASSIGN, 3);
+
+		final DynamicContext c = context(stmt, call2, call1);
+		final DynamicContext copy = context(copyOfStmt, copyOfCall2, copyOfCall1);
+		assertEquals(c, copy);
+		assertEquals(c.hashCode(), copy.hashCode());
+
+		final DynamicContext pushed = context(copyOfStmt, copyOfCall1);
+		pushed.push(copyOfCall2);
+		assertEquals(c, pushed);
+
+		assertTrue(context(stmt, call1).isSuffixOf(copy));
+		assertFalse(context(stmt, call2).isSuffixOf(copy));
+		assertFalse(c.equals(context(stmt, call1, call2)));
+	}
+
+}
@@ -0,0 +1,69 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.ifc.sdg.graph.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import junit.framework.TestCase;
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGBinarySerializer;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.threads.ThreadsInformation.ThreadInstance;
+
+/**
+ * Checks that an SDG written in the binary format is read back with the same nodes, edges and threads.
+ */
+public class TestSDGBinarySerializer extends TestCase {
+
+	private static SDGNode node(SDGNode.Operation op, int id) {
+		return new SDGNode(id, op, op.toString(), 1, "int", "A.java", 1, 0, 1, 0, "A.m()V", id);
+	}
+
+	private static SDG roundTrip(SDG sdg) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SDGBinarySerializer.toBinaryFormat(sdg, out);
+		return SDGBinarySerializer.readFrom(ByteBuffer.wrap(out.toByteArray()), null);
+	}
+
+	public void testRoundTrip() throws IOException {
+		final SDG sdg = new SDG("test");
+		final SDGNode entry = node(SDGNode.Operation.ENTRY, 1);
+		final SDGNode call = node(SDGNode.Operation.CALL, 2);
+		final SDGNode stmt = node(SDGNode.Operation.ASSIGN, 3);
+		sdg.addVertex(entry);
+		sdg.addVertex(call);
+		sdg.addVertex(stmt);
+		sdg.addEdge(new SDGEdge(entry, call, SDGEdge.Kind.CONTROL_DEP_EXPR));
+		sdg.addEdge(new SDGEdge(call, stmt, SDGEdge.Kind.DATA_DEP, "x"));
+		sdg.setThreadsInfo(new ThreadsInformation(Arrays.asList(
+				new ThreadInstance(0, entry, null, null, null, null, false),
+				new ThreadInstance(1, entry, null, call, null, new LinkedList<SDGNode>(), true),
+				new ThreadInstance(2, entry, null, call, null, new LinkedList<SDGNode>(Arrays.asList(call)), false))));
+
+		final SDG read = roundTrip(sdg);
+		assertEquals("test", read.getName());
+		assertEquals(3, read.vertexSet().size());
+		assertEquals(2, read.edgeSet().size());
+		assertEquals("x", read.getEdge(read.getNode(2), read.getNode(3)).getLabel());
+
+		final ThreadsInformation threads = read.getThreadsInfo();
+		assertEquals(3, threads.getNumberOfThreads());
+		assertNull(threads.getThreadContext(0));
+		assertEquals(new LinkedList<SDGNode>(), threads.getThreadContext(1));
+		assertTrue(threads.isDynamic(1));
+		assertEquals(Arrays.asList(read.getNode(2)), threads.getThreadContext(2));
+		assertEquals(read.getNode(2), threads.getThread(2).getFork());
+	}
+
+}
@@ -12,6 +12,8 @@ import java.util.Set;
 
 import org.jgrapht.DirectedGraph;
 import org.jgrapht.EdgeFactory;
+import org.jgrapht.WeightedGraph;
+import org.jgrapht.graph.AbstractBaseGraph;
 import org.jgrapht.graph.DirectedPseudograph;
 import org.jgrapht.graph.EdgeSetFactory;
 
@@ -22,7 +24,9 @@ import org.jgrapht.graph.EdgeSetFactory;
 public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	
 	
-	private final DirectedPseudograph<V,E> delegate;
+	private final DirectedGraph<V,E> delegate;
+	/** Counts the modifications of this graph, see {@link #getModificationCount()}. */
+	private int modCount = 0;
 
 	/**
 	 * @param defaultEdgeFactory edge factory to use for e.g. adding new edges
@@ -39,6 +43,15 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 		this.delegate = new DirectedPseudograph<V,E>(edgeClass);
 	}
 
+	/**
+	 * Uses the given graph as backend instead of a {@link DirectedPseudograph}, e.g. a compact immutable
+	 * representation of an already constructed graph.
+	 * @param delegate graph that stores all vertices and edges
+	 */
+	protected AbstractJoanaGraph(DirectedGraph<V, E> delegate) {
+		this.delegate = delegate;
+	}
+
 	/**
 	 * @param arg0
 	 * @param arg1
@@ -47,6 +60,7 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractBaseGraph#addEdge(java.lang.Object, java.lang.Object, java.lang.Object)
 	 */
 	public boolean addEdge(V arg0, V arg1, E arg2) {
+		modCount++;
 		return delegate.addEdge(arg0, arg1, arg2);
 	}
 
@@ -57,6 +71,7 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractBaseGraph#addEdge(java.lang.Object, java.lang.Object)
 	 */
 	public E addEdge(V arg0, V arg1) {
+		modCount++;
 		return delegate.addEdge(arg0, arg1);
 	}
 
@@ -66,6 +81,7 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractBaseGraph#addVertex(java.lang.Object)
 	 */
 	public boolean addVertex(V arg0) {
+		modCount++;
 		return delegate.addVertex(arg0);
 	}
 
@@ -103,7 +119,10 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractBaseGraph#degreeOf(java.lang.Object)
 	 */
 	public int degreeOf(V arg0) {
-		return delegate.degreeOf(arg0);
+		if (!(delegate instanceof AbstractBaseGraph)) {
+			throw new UnsupportedOperationException("degreeOf is not supported by " + delegate.getClass());
+		}
+		return ((AbstractBaseGraph<V, E>) delegate).degreeOf(arg0);
 	}
 
 	/**
@@ -138,8 +157,7 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 			return false;
 		} else {
 		    AbstractJoanaGraph<V,E> other = (AbstractJoanaGraph<V,E>) obj;
-			DirectedPseudograph<V, E> otherDelegate = (DirectedPseudograph<V, E>) other.delegate;
-			return delegate.equals(otherDelegate);
+			return delegate.equals(other.delegate);
 		}
 	}
 
@@ -229,7 +247,7 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractBaseGraph#isAllowingLoops()
 	 */
 	public boolean isAllowingLoops() {
-		return delegate.isAllowingLoops();
+		return !(delegate instanceof AbstractBaseGraph) || ((AbstractBaseGraph<V, E>) delegate).isAllowingLoops();
 	}
 
 	/**
@@ -237,7 +255,8 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractBaseGraph#isAllowingMultipleEdges()
 	 */
 	public boolean isAllowingMultipleEdges() {
-		return delegate.isAllowingMultipleEdges();
+		return !(delegate instanceof AbstractBaseGraph)
+				|| ((AbstractBaseGraph<V, E>) delegate).isAllowingMultipleEdges();
 	}
 
 	/**
@@ -264,6 +283,7 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractGraph#removeAllEdges(java.util.Collection)
 	 */
 	public boolean removeAllEdges(Collection<? extends E> arg0) {
+		modCount++;
 		return delegate.removeAllEdges(arg0);
 	}
 
@@ -274,6 +294,7 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractGraph#removeAllEdges(java.lang.Object, java.lang.Object)
 	 */
 	public Set<E> removeAllEdges(V arg0, V arg1) {
+		modCount++;
 		return delegate.removeAllEdges(arg0, arg1);
 	}
 
@@ -283,6 +304,7 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractGraph#removeAllVertices(java.util.Collection)
 	 */
 	public boolean removeAllVertices(Collection<? extends V> arg0) {
+		modCount++;
 		return delegate.removeAllVertices(arg0);
 	}
 
@@ -292,6 +314,7 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractBaseGraph#removeEdge(java.lang.Object)
 	 */
 	public boolean removeEdge(E arg0) {
+		modCount++;
 		return delegate.removeEdge(arg0);
 	}
 
@@ -302,6 +325,7 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractBaseGraph#removeEdge(java.lang.Object, java.lang.Object)
 	 */
 	public E removeEdge(V arg0, V arg1) {
+		modCount++;
 		return delegate.removeEdge(arg0, arg1);
 	}
 
@@ -311,6 +335,7 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractBaseGraph#removeVertex(java.lang.Object)
 	 */
 	public boolean removeVertex(V arg0) {
+		modCount++;
 		return delegate.removeVertex(arg0);
 	}
 
@@ -319,7 +344,10 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractBaseGraph#setEdgeSetFactory(org.jgrapht.graph.EdgeSetFactory)
 	 */
 	public void setEdgeSetFactory(EdgeSetFactory<V, E> arg0) {
-		delegate.setEdgeSetFactory(arg0);
+		if (!(delegate instanceof AbstractBaseGraph)) {
+			throw new UnsupportedOperationException("edge set factory is not supported by " + delegate.getClass());
+		}
+		((AbstractBaseGraph<V, E>) delegate).setEdgeSetFactory(arg0);
 	}
 
 	/**
@@ -328,7 +356,10 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 	 * @see org.jgrapht.graph.AbstractBaseGraph#setEdgeWeight(java.lang.Object, double)
 	 */
 	public void setEdgeWeight(E arg0, double arg1) {
-		delegate.setEdgeWeight(arg0, arg1);
+		if (!(delegate instanceof WeightedGraph)) {
+			throw new UnsupportedOperationException("edge weights are not supported by " + delegate.getClass());
+		}
+		((WeightedGraph<V, E>) delegate).setEdgeWeight(arg0, arg1);
 	}
 
 	/**
@@ -347,4 +378,18 @@ public class AbstractJoanaGraph<V, E> implements DirectedGraph<V,E> {
 		return delegate.vertexSet();
 	}
 
+	/**
+	 * Returns a counter that changes whenever nodes or edges are added to or removed from this graph.
+	 * Analysis results that are derived from the graph can compare it to detect that they are outdated.
+	 */
+	public int getModificationCount() {
+		return modCount;
+	}
+
+	/**
+	 * Marks the graph as modified, for changes of attributes that derived analysis results depend on.
+	 */
+	protected final void markModified() {
+		modCount++;
+	}
 }
@@ -77,10 +77,25 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 
 	public static PDG build(SDGBuilder builder, String name, CGNode node, int id,
 			ExternalCallCheck ext, PrintStream out, IProgressMonitor progress)
+	throws UnsoundGraphException, CancelException {
+		PDG pdg = buildWithLocalIds(builder, name, node, id, progress);
+
+		pdg.finishLocalBuild(ext, out);
+
+		return pdg;
+	}
+
+	/**
+	 * Builds the pdg without touching state shared with other pdgs, so it can be run concurrently to the construction
+	 * of other pdgs. Nodes get pdg-local ids, fields are not registered in the field mapping and external calls are
+	 * not checked. {@link #finishLocalBuild(ExternalCallCheck, PrintStream)} has to be called afterwards -
+	 * sequentially and in the order a sequential build would have created the pdgs.
+	 */
+	static PDG buildWithLocalIds(SDGBuilder builder, String name, CGNode node, int id, IProgressMonitor progress)
 	throws UnsoundGraphException, CancelException {
 		PDG pdg = new PDG(builder, name, node, id);
 
-		pdg.run(node.getIR(), ext, out, progress);
+		pdg.run(node.getIR(), progress);
 
 		return pdg;
 	}
@@ -91,7 +106,8 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 		PDG pdg = new PDG(builder, name, node, id);
 
 		// calling run with an empty IR triggers dummy creation.
-		pdg.run(null, ext, out, progress);
+		pdg.run(null, progress);
+		pdg.finishLocalBuild(ext, out);
 
 		return pdg;
 	}
@@ -148,6 +164,13 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 	private final boolean keepPhiNodes;
 	private final boolean noBasePointerDependency;
 
+	/** next pdg-local node id, -1 as soon as node ids are assigned globally by the sdg builder */
+	private int nextLocalNodeId = 0;
+	/** fields accessed in order of node creation - only recorded while pdg-local ids are used */
+	private List<ParameterField> localFieldAccesses = new LinkedList<ParameterField>();
+	/** true iff the check for external calls has been postponed until the local build is finished */
+	private boolean externalCallsPending = false;
+
 	private PDG(final SDGBuilder builder, final String name, final CGNode node, final int pdgId) {
 		this.id = pdgId;
 		this.nodeID = pdgId;
@@ -177,7 +200,7 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 		this.noBasePointerDependency = builder.isNoBasePointerDependency();
 	}
 
-	private void run(final IR ir, ExternalCallCheck ext, PrintStream out, IProgressMonitor progress) throws UnsoundGraphException, CancelException {
+	private void run(final IR ir, IProgressMonitor progress) throws UnsoundGraphException, CancelException {
 		if (ir == null || ir.isEmptyIR() || builder.isImmutableStub(method.getDeclaringClass().getReference())) {
 			addDummyConnections();
 			addSourcecodeInfoToNodes(null);
@@ -193,6 +216,34 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 			addDataFlowSSA(ir);
 			removeNopAndPhiNodes();
 			addRootParameterStructure();
+			externalCallsPending = true;
+		}
+	}
+
+	/**
+	 * Moves all pdg-local node ids to a block of global ids reserved at the sdg builder and performs the steps of
+	 * the pdg construction that depend on global state. Afterwards new nodes get global ids.
+	 */
+	void finishLocalBuild(final ExternalCallCheck ext, final PrintStream out) {
+		if (nextLocalNodeId < 0) {
+			throw new IllegalStateException("pdg " + id + " has already been finished.");
+		}
+
+		final int firstId = builder.reserveNodeIds(nextLocalNodeId);
+		for (final PDGNode n : vertexSet()) {
+			n.relocate(firstId + n.getId());
+		}
+
+		final ParameterFieldFactory pfact = builder.getParameterFieldFactory();
+		for (final ParameterField field : localFieldAccesses) {
+			pfact.register(field);
+		}
+
+		nextLocalNodeId = -1;
+		localFieldAccesses = null;
+
+		if (externalCallsPending) {
+			externalCallsPending = false;
 			checkForExternalCalls(ext, out);
 		}
 	}
@@ -1343,7 +1394,7 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 	}
 	
 	public PDGNode createNode(final String label, final PDGNode.Kind kind, final TypeReference type) {
-		final int nodeId = builder.getNextNodeId();
+		final int nodeId = (nextLocalNodeId >= 0 ? nextLocalNodeId++ : builder.getNextNodeId());
 		final PDGNode node = new PDGNode(nodeId, id, label, kind, type);
 		addVertex(node);
 
@@ -1451,6 +1502,10 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 	public void addFieldRead(ParameterField field, PDGNode node) {
 		final PDGField f;
 
+		if (localFieldAccesses != null) {
+			localFieldAccesses.add(field);
+		}
+
 		if (field.isArray()) {
 			final TypeReference elemType = field.getElementType();
 			final TypeReference baseType = TypeReference.findOrCreateArrayOf(elemType);
@@ -1526,6 +1581,10 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 	}
 
 	public void addFieldWrite(ParameterField field, PDGNode node) {
+		if (localFieldAccesses != null) {
+			localFieldAccesses.add(field);
+		}
+
 		final PDGField f;
 
 		if (field.isArray()) {
@@ -1745,6 +1804,15 @@ public final class PDG extends DependenceGraph implements INodeWithNumber {
 		return id;
 	}
 
+	/**
+	 * Pdgs are only equal to themselves and their ids are unique. Hashing the id keeps the iteration order of pdg
+	 * sets independent of the thread that built the pdg.
+	 */
+	@Override
+	public int hashCode() {
+		return id;
+	}
+
 	public IMethod getMethod() {
 		return method;
 	}
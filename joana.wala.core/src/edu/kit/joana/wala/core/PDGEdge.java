@@ -104,7 +104,7 @@ public final class PDGEdge {
 	}
 
 	public int hashCode() {
-		return (from.hashCode() ^ (to.hashCode() >> 6)) + kind.hashCode();
+		return (from.hashCode() ^ (to.hashCode() >> 6)) + kind.ordinal();
 	}
 
 	public String toString() {
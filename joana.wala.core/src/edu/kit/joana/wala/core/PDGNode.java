@@ -142,7 +142,11 @@ public final class PDGNode implements INodeWithNumber {
 	}
 
     /* The ID of the node. Should be unique in the graph. Negative IDs are permitted.*/
-    private final Integer id;
+    private Integer id;
+
+    /* Fixed at creation, so relocating the id does not invalidate hash based containers of the node. Computed from
+     * the ids instead of the object identity, so iteration orders do not depend on the thread that created the node. */
+    private final int hash;
 
 	/* The ID of the procedure to which the node belongs.*/
     private final int proc;
@@ -197,6 +201,15 @@ public final class PDGNode implements INodeWithNumber {
 		return id;
 	}
 
+	/**
+	 * Moves a node that has been created with a pdg-local id to its final global id.
+	 * Only used by the parallel intraprocedural phase of the SDGBuilder.
+	 */
+	void relocate(final int newId) {
+		this.id = newId;
+		this.nodeID = newId;
+	}
+
 	public int getPdgId() {
 		return proc;
 	}
@@ -267,6 +280,7 @@ public final class PDGNode implements INodeWithNumber {
 
 	public PDGNode(int id, int pdgId, String label, Kind kind, TypeReference type) {
     	this.id = id;
+    	this.hash = (pdgId * 0x9E3779B1) ^ id;
     	this.nodeID = id;
     	this.proc = pdgId;
     	this.label = label;
@@ -308,7 +322,7 @@ public final class PDGNode implements INodeWithNumber {
     }
 
     public int hashCode() {
-    	return System.identityHashCode(id);
+    	return hash;
     }
 
     /**
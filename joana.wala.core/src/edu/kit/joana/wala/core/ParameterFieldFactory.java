@@ -35,7 +35,9 @@ public final class ParameterFieldFactory {
 
 	private final MutableMapping<ParameterField> fieldMapping;
 
-	
+	/* iff set, new fields are not added to the mapping until they are explicitly registered */
+	private boolean deferMapping = false;
+
 	public ParameterFieldFactory() {
 		ifield2field = HashMapFactory.make();
 		type2field = HashMapFactory.make();
@@ -51,7 +53,7 @@ public final class ParameterFieldFactory {
 	 * @param field IField
 	 * @return ParamterField
 	 */
-	public ParameterField getObjectField(IField field) {
+	public synchronized ParameterField getObjectField(IField field) {
 		if (field == null) {
 			throw new IllegalArgumentException("Field should not be null.");
 		}
@@ -60,7 +62,9 @@ public final class ParameterFieldFactory {
 		if (ofield == null) {
 			ofield = new ObjectField(field);
 			ifield2field.put(field, ofield);
-			fieldMapping.add(ofield);
+			if (!deferMapping) {
+				fieldMapping.add(ofield);
+			}
 		}
 
 		return ofield;
@@ -74,7 +78,7 @@ public final class ParameterFieldFactory {
 	 * @param elemType type of the referenced objects in the array
 	 * @return ParameterField
 	 */
-	public ParameterField getArrayField(final TypeReference elemType) {
+	public synchronized ParameterField getArrayField(final TypeReference elemType) {
 		if (elemType == null) {
 			throw new IllegalArgumentException("Element type should not be null.");
 		}
@@ -83,7 +87,9 @@ public final class ParameterFieldFactory {
 		if (aField == null) {
 			aField = new ArrayField(elemType);
 			type2field.put(elemType, aField);
-			fieldMapping.add(aField);
+			if (!deferMapping) {
+				fieldMapping.add(aField);
+			}
 		}
 
 		return aField;
@@ -92,6 +98,24 @@ public final class ParameterFieldFactory {
 	public OrdinalSetMapping<ParameterField> getMapping() {
 		return fieldMapping;
 	}
+
+	/**
+	 * Controls whether newly created fields are added to the mapping right away. While deferred the fields have to
+	 * be added through {@link #register(ParameterField)}. This is used by the parallel PDG construction to get the
+	 * same mapping order as a sequential run, independent of the thread scheduling.
+	 * @param defer true if the mapping should be deferred
+	 */
+	public synchronized void setDeferMapping(final boolean defer) {
+		this.deferMapping = defer;
+	}
+
+	/**
+	 * Adds the field to the mapping, iff it is not already part of it.
+	 * @param field a field created by this factory
+	 */
+	public synchronized void register(final ParameterField field) {
+		fieldMapping.add(field);
+	}
 	
 	private static final Atom LOCK_NAME = Atom.findOrCreateAsciiAtom("<lock>");
 	private static final FieldReference FIELD_REF = FieldReference.findOrCreate(TypeReference.JavaLangObject, LOCK_NAME, TypeReference.Boolean);
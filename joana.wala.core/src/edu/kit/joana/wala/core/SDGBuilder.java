@@ -9,6 +9,7 @@ package edu.kit.joana.wala.core;
 
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -16,6 +17,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jgrapht.DirectedGraph;
 
@@ -39,6 +46,7 @@ import com.ibm.wala.ipa.callgraph.propagation.SSAContextInterpreter;
 import com.ibm.wala.ipa.callgraph.ContextSelector;
 import com.ibm.wala.ipa.callgraph.impl.SubtypesEntrypoint;
 import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder;
 import com.ibm.wala.ipa.callgraph.pruned.ApplicationLoaderPolicy;
 import com.ibm.wala.ipa.callgraph.pruned.CallGraphPruning;
 import com.ibm.wala.ipa.callgraph.pruned.PrunedCallGraph;
@@ -86,6 +94,9 @@ import edu.kit.joana.wala.core.params.objgraph.ModRefCandidates;
 import edu.kit.joana.wala.core.params.objgraph.ObjGraphParams;
 import edu.kit.joana.wala.core.params.objgraph.SideEffectDetectorConfig;
 import edu.kit.joana.wala.flowless.util.Util;
+import edu.kit.joana.wala.summary.CompactSummaryComputation;
+import edu.kit.joana.wala.summary.IncrementalSummaryComputation;
+import edu.kit.joana.wala.summary.ParallelSummaryComputation;
 import edu.kit.joana.wala.summary.SummaryComputation;
 import edu.kit.joana.wala.summary.WorkPackage;
 import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
@@ -351,7 +362,8 @@ public class SDGBuilder implements CallGraphFilter {
 			if (cfg.accessPath) {
 				computeDataAndAliasSummaryEdges(cfg.out, pack, sdg, progress);
 			} else {
-				computeSummaryEdges(cfg.out, pack, sdg, progress);
+				computeSummaryEdges(cfg.out, pack, sdg, cfg.previousSDG, cfg.compactSummary, cfg.summaryThreads,
+						progress);
 			}
 		}
 
@@ -386,7 +398,8 @@ public class SDGBuilder implements CallGraphFilter {
 			if (cfg.accessPath) {
 				computeDataAndAliasSummaryEdges(cfg.out, pack, sdg, progress);
 			} else {
-				computeSummaryEdges(cfg.out, pack, sdg, progress);
+				computeSummaryEdges(cfg.out, pack, sdg, cfg.previousSDG, cfg.compactSummary, cfg.summaryThreads,
+						progress);
 			}
 		}
 
@@ -410,7 +423,8 @@ public class SDGBuilder implements CallGraphFilter {
 			if (cfg.accessPath) {
 				computeDataAndAliasSummaryEdges(cfg.out, pack, sdg, progress);
 			} else {
-				computeSummaryEdges(cfg.out, pack, sdg, progress);
+				computeSummaryEdges(cfg.out, pack, sdg, cfg.previousSDG, cfg.compactSummary, cfg.summaryThreads,
+						progress);
 			}
 		}
 
@@ -454,9 +468,31 @@ public class SDGBuilder implements CallGraphFilter {
 		return pack;
 	}
 
-	private static void computeSummaryEdges(PrintStream out, WorkPackage pack, SDG sdg, IProgressMonitor progress)
-			throws CancelException {
-		SummaryComputation.compute(pack, progress);
+	private static void computeSummaryEdges(PrintStream out, WorkPackage pack, SDG sdg, SDG previous,
+			boolean compact, int threads, IProgressMonitor progress) throws CancelException {
+		// see SDGBuilderConfig for the precedence of the options
+		final String ignored;
+		if (previous != null && (compact || threads > 1)) {
+			ignored = "(incremental: ignoring compactSummary and summaryThreads)";
+		} else if (compact && threads > 1) {
+			ignored = "(parallel: ignoring compactSummary)";
+		} else {
+			ignored = null;
+		}
+		if (ignored != null) {
+			out.print(ignored);
+			System.out.print(ignored);
+		}
+
+		if (previous != null) {
+			IncrementalSummaryComputation.compute(previous, sdg, pack.getEntryPoints(), progress);
+		} else if (threads > 1) {
+			ParallelSummaryComputation.compute(pack, threads, progress);
+		} else if (compact) {
+			CompactSummaryComputation.compute(pack, progress);
+		} else {
+			SummaryComputation.compute(pack, progress);
+		}
 		out.print(".");
 		System.out.print(".");
 	}
@@ -472,7 +508,7 @@ public class SDGBuilder implements CallGraphFilter {
 	}
 
 	private final ParameterFieldFactory params = new ParameterFieldFactory();
-	private int currentNodeId = 1;
+	private final AtomicInteger currentNodeId = new AtomicInteger(1);
 	private int pdgId = getMainId();
 	private final List<PDG> pdgs = new LinkedList<PDG>();
 	/**
@@ -581,20 +617,24 @@ public class SDGBuilder implements CallGraphFilter {
 		progress.beginTask("computing intraprocedural flow", cg.vertexSet().size());
 		int currentNum = 1;
 
-		for (CallGraph.Node node : cg.vertexSet()) {
-			if (node.node == cg.getRoot().node) {
-				continue;
-			}
+		if (cfg.intraprocThreads > 1) {
+			createAndAddPDGsInParallel(cfg.intraprocThreads, progress);
+		} else {
+			for (CallGraph.Node node : cg.vertexSet()) {
+				if (node.node == cg.getRoot().node) {
+					continue;
+				}
 
-			final CGNode cgm = node.node;
-			final PDG pdg = createAndAddPDG(cgm, progress);
+				final CGNode cgm = node.node;
+				final PDG pdg = createAndAddPDG(cgm, progress);
 
-			progress.worked(currentNum++);
+				progress.worked(currentNum++);
 
-			MonitorUtil.throwExceptionIfCanceled(progress);
+				MonitorUtil.throwExceptionIfCanceled(progress);
 
-			if (cfg.debugManyGraphsDotOutput) {
-				debugOutput(pdg);
+				if (cfg.debugManyGraphsDotOutput) {
+					debugOutput(pdg);
+				}
 			}
 		}
 		progress.done();
@@ -755,6 +795,81 @@ public class SDGBuilder implements CallGraphFilter {
 		}
 	}
 
+	/**
+	 * Builds the pdgs for all call graph nodes except the root using a pool of worker threads. Each pdg is built with
+	 * pdg-local node ids. The results are then finished in the order of the sequential loop, which moves the node ids
+	 * to the global range and registers accessed fields. Thus pdg ids, node ids and the field mapping are the same as
+	 * in a sequential run.
+	 */
+	private void createAndAddPDGsInParallel(final int threads, final IProgressMonitor progress)
+			throws UnsoundGraphException, CancelException {
+		final List<CGNode> todo = new ArrayList<CGNode>();
+		for (final CallGraph.Node node : cg.vertexSet()) {
+			if (node.node != cg.getRoot().node) {
+				todo.add(node.node);
+			}
+		}
+
+		final ParameterFieldFactory pfact = getParameterFieldFactory();
+		final ExecutorService pool = Executors.newFixedThreadPool(threads);
+		pfact.setDeferMapping(true);
+
+		try {
+			final List<Future<PDG>> results = new ArrayList<Future<PDG>>(todo.size());
+			for (final CGNode cgm : todo) {
+				final int id = pdgId++;
+				results.add(pool.submit(new Callable<PDG>() {
+					@Override
+					public PDG call() throws Exception {
+						// progress monitors are not thread safe, cancel is checked while collecting the results
+						return PDG.buildWithLocalIds(SDGBuilder.this, Util.methodName(cgm.getMethod()), cgm, id,
+								NullProgressMonitor.INSTANCE);
+					}
+				}));
+			}
+
+			int currentNum = 1;
+			for (final Future<PDG> result : results) {
+				final PDG pdg = waitForPDG(result);
+				pdg.finishLocalBuild(cfg.ext, cfg.out);
+				pdgs.add(pdg);
+
+				progress.worked(currentNum++);
+
+				MonitorUtil.throwExceptionIfCanceled(progress);
+
+				if (cfg.debugManyGraphsDotOutput) {
+					debugOutput(pdg);
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+			pfact.setDeferMapping(false);
+		}
+	}
+
+	private static PDG waitForPDG(final Future<PDG> result) throws UnsoundGraphException, CancelException {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancelException(e);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof UnsoundGraphException) {
+				throw (UnsoundGraphException) cause;
+			} else if (cause instanceof CancelException) {
+				throw (CancelException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+
+			throw new IllegalStateException(cause);
+		}
+	}
+
 	private void addEntryExitCFEdges() {
 		for (PDG pdg : pdgs) {
 			pdg.addEdge(pdg.entry, pdg.exit, PDGEdge.Kind.CONTROL_FLOW);
@@ -992,6 +1107,10 @@ public class SDGBuilder implements CallGraphFilter {
 					cfg.additionalContextSelector, cfg.additionalContextInterpreter);
 			break;
 		}
+		if (cgb instanceof PropagationCallGraphBuilder) {
+			((PropagationCallGraphBuilder) cgb).setSolverThreads(cfg.pointsToThreads);
+			((PropagationCallGraphBuilder) cgb).setCycleElimination(cfg.pointsToCycleElimination);
+		}
 		com.ibm.wala.ipa.callgraph.CallGraph callgraph = cgb.makeCallGraph(options, progress);
 		System.out.println("SDGBUiLder.buildCallGraph(monitor) callgraph: ");
 		java.util.Iterator<CGNode> aux = callgraph.iterator();
@@ -1279,9 +1398,16 @@ public class SDGBuilder implements CallGraphFilter {
 	}
 
 	public int getNextNodeId() {
-		final int id = currentNodeId;
-		currentNodeId++;
-		return id;
+		return currentNodeId.getAndIncrement();
+	}
+
+	/**
+	 * Reserves a consecutive block of node ids.
+	 * @param count number of ids to reserve
+	 * @return the first id of the block
+	 */
+	public int reserveNodeIds(final int count) {
+		return currentNodeId.getAndAdd(count);
 	}
 
 	public IClassHierarchy getClassHierarchy() {
@@ -1568,6 +1694,43 @@ public class SDGBuilder implements CallGraphFilter {
 		public boolean debugStaticInitializers = false;
 		public boolean computeInterference = true;
 		public boolean computeSummary = true;
+		/*
+		 * Number of threads used to build the intraprocedural PDGs. Values <= 1 build them sequentially. The
+		 * resulting SDG is the same for any number of threads.
+		 */
+		public int intraprocThreads = 1;
+		/*
+		 * Number of threads used to solve the pointer analysis constraints. Values > 1 solve them in rounds and
+		 * compute the additions of the assignments and difference pushes concurrently, see
+		 * PropagationSystem.setSolverThreads. The
+		 * call graph and points-to sets are the same for any number of threads > 1.
+		 */
+		public int pointsToThreads = 1;
+		/*
+		 * Merge the points-to sets of variables on cycles of assignments while solving the pointer analysis,
+		 * see PropagationSystem.setCycleElimination. Does not change the call graph or the points-to sets.
+		 */
+		public boolean pointsToCycleElimination = false;
+		/*
+		 * Compute the summary edges with CompactSummaryComputation, which stores path edges as primitive values
+		 * and needs far less memory than SummaryComputation. Both compute the same summary edges.
+		 */
+		public boolean compactSummary = false;
+		/*
+		 * Number of threads used to compute the summary edges. Values > 1 compute the strongly connected components
+		 * of the call graph concurrently with ParallelSummaryComputation, which takes precedence over
+		 * compactSummary; the ignored option is reported on the output stream. The resulting summary edges are
+		 * the same for any number of threads.
+		 */
+		public int summaryThreads = 1;
+		/*
+		 * The sdg of a previous version of the program, including its summary edges. If set, the summary edges of
+		 * unchanged procedures that only call unchanged procedures are copied from this sdg, and only the
+		 * remaining ones are computed with IncrementalSummaryComputation, which takes precedence over
+		 * summaryThreads and compactSummary, which are reported as ignored if set. The resulting summary edges
+		 * are the same.
+		 */
+		public SDG previousSDG = null;
 		/*
 		 * If this flag is set, pdg nodes for all call sites of virtual methods contain
 		 * the possible allocation sites of the this-pointer (the ids of PDG nodes of the
@@ -62,7 +62,7 @@ public class InterferenceEdge {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + ((from == null) ? 0 : from.hashCode());
-		result = prime * result + ((kind == null) ? 0 : kind.hashCode());
+		result = prime * result + ((kind == null) ? 0 : kind.ordinal());
 		result = prime * result + ((pdgWrite == null) ? 0 : pdgWrite.hashCode());
 		result = prime * result + ((to == null) ? 0 : to.hashCode());
 		return result;
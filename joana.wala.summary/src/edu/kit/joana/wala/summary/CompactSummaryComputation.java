@@ -0,0 +1,393 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.summary;
+
+import edu.kit.joana.ifc.sdg.graph.BitVector;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TLongHashSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jgrapht.DirectedGraph;
+
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+
+/**
+ * Computes the same summary edges as {@link SummaryComputation}, but without allocating objects per path edge.
+ * The nodes of the graph are numbered densely, a path edge is the pair of the numbers of its nodes packed into
+ * a long and kept in an open addressing hash set, the path edges starting at actual-out nodes are kept as lists
+ * of int, and the worklist is a queue of int pairs. This cuts the memory needed for large graphs to a fraction.
+ */
+public class CompactSummaryComputation {
+
+	private final DirectedGraph<SDGNode, SDGEdge> graph;
+	private final TIntSet relevantFormalIns;
+	private final TIntSet relevantProcs;
+	private final TIntSet fullyConnected;
+	private final TIntObjectMap<List<SDGNode>> out2in;
+	private final boolean rememberReached;
+	private final SDGEdge.Kind sumEdgeKind;
+	private final Set<SDGEdge.Kind> relevantEdges;
+	private final String annotate;
+
+	/** node of each number */
+	private final SDGNode[] nodes;
+	/** number of each node, indexed by node id - minId */
+	private final int[] numbers;
+	private final int minId;
+
+	private final TLongHashSet pathEdge = new TLongHashSet();
+	/** targets of the path edges starting at an actual-out node, indexed by the number of the node */
+	private final TIntObjectHashMap<TIntArrayList> aoPaths = new TIntObjectHashMap<TIntArrayList>();
+	private final IntPairQueue worklist = new IntPairQueue();
+
+	private CompactSummaryComputation(DirectedGraph<SDGNode, SDGEdge> graph, TIntSet relevantFormalIns,
+			TIntSet relevantProcs, TIntSet fullyConnected, TIntObjectMap<List<SDGNode>> out2in,
+			boolean rememberReached, SDGEdge.Kind sumEdgeKind, Set<SDGEdge.Kind> relevantEdges,
+			String annotate) {
+		this.graph = graph;
+		this.relevantFormalIns = relevantFormalIns;
+		this.relevantProcs = relevantProcs;
+		this.fullyConnected = fullyConnected;
+		this.out2in = out2in;
+		this.rememberReached = rememberReached;
+		this.sumEdgeKind = sumEdgeKind;
+		this.relevantEdges = relevantEdges;
+		this.annotate = annotate;
+
+		final Set<SDGNode> vertices = graph.vertexSet();
+		this.nodes = vertices.toArray(new SDGNode[vertices.size()]);
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for (final SDGNode n : nodes) {
+			min = Math.min(min, n.getId());
+			max = Math.max(max, n.getId());
+		}
+		this.minId = (nodes.length == 0 ? 0 : min);
+		this.numbers = new int[nodes.length == 0 ? 0 : max - min + 1];
+		for (int i = 0; i < nodes.length; i++) {
+			numbers[nodes[i].getId() - minId] = i;
+		}
+	}
+
+	/**
+	 * Computes the summary edges like {@link SummaryComputation#compute(WorkPackage, IProgressMonitor)}.
+	 * @return the number of summary edges between formal-in and formal-out nodes of the entry points
+	 */
+	public static int compute(WorkPackage pack, IProgressMonitor progress) throws CancelException {
+		return compute(pack, SDGEdge.Kind.SUMMARY, SummaryComputation.defaultRelevantEdges(), null, progress);
+	}
+
+	/**
+	 * Computes summary edges of the given kind that follow the given kinds of edges.
+	 * @param annotate label of the new summary edges, may be null
+	 * @return the number of summary edges between formal-in and formal-out nodes of the entry points
+	 */
+	public static int compute(WorkPackage pack, SDGEdge.Kind sumEdgeKind, Set<SDGEdge.Kind> relevantEdges,
+			String annotate, IProgressMonitor progress) throws CancelException {
+		CompactSummaryComputation comp = new CompactSummaryComputation(pack.getGraph(), pack.getAllFormalInIds(),
+				pack.getRelevantProcIds(), pack.getFullyConnected(), pack.getOut2In(),
+				pack.getRememberReached(), sumEdgeKind, relevantEdges, annotate);
+		Collection<SDGEdge> summary = comp.computeSummaryEdges(progress);
+
+		for (SDGEdge edge : summary) {
+			pack.addSummaryDep(edge.getSource().getId(), edge.getTarget().getId());
+		}
+
+		// set work package to immutable and sort summary edges
+		pack.workIsDone();
+
+		return summary.size();
+	}
+
+	private Collection<SDGEdge> computeSummaryEdges(IProgressMonitor progress) throws CancelException {
+		final List<SDGEdge> formInOutSummaryEdge = new ArrayList<SDGEdge>();
+
+		for (int i = 0; i < nodes.length; i++) {
+			final SDGNode n = nodes[i];
+			if (n.getKind() == SDGNode.Kind.FORMAL_OUT || n.getKind() == SDGNode.Kind.EXIT) {
+				if (relevantProcs != null && !relevantProcs.contains(n.getProc())) {
+					continue;
+				}
+
+				if (fullyConnected != null && fullyConnected.contains(n.getId())) {
+					continue;
+				}
+
+				pathEdge.add(pack(i, i));
+				worklist.add(i, i);
+			}
+		}
+
+		while (!worklist.isEmpty()) {
+			MonitorUtil.throwExceptionIfCanceled(progress);
+
+			final SDGNode source = nodes[worklist.firstSource()];
+			final int target = worklist.firstTarget();
+			worklist.remove();
+
+			switch (source.getKind()) {
+			case ACTUAL_OUT:
+				if (fullyConnected != null && fullyConnected.contains(source.getId())) {
+					propagateAllActIns(source, target);
+				} else {
+					for (SDGEdge e : graph.incomingEdgesOf(source)) {
+						final SDGEdge.Kind kind = e.getKind();
+						if (kind == sumEdgeKind
+								|| ((kind == SDGEdge.Kind.DATA_DEP || kind == SDGEdge.Kind.DATA_HEAP
+										|| kind == SDGEdge.Kind.DATA_ALIAS) && relevantEdges.contains(kind))
+								|| (kind == SDGEdge.Kind.CONTROL_DEP_EXPR
+										&& e.getSource().getKind() == SDGNode.Kind.CALL)) {
+							propagate(e.getSource(), target);
+						}
+					}
+				}
+				break;
+
+			case FORMAL_IN:
+				// source is relevant formal in then:
+				if (relevantFormalIns.contains(source.getId())) {
+					formInOutSummaryEdge.add(newSummaryEdge(source, nodes[target]));
+				}
+
+				for (SDGNode[] aiao : aiaoPairs(source, nodes[target])) {
+					final SDGNode ai = aiao[0];
+					final SDGNode ao = aiao[1];
+					if (ai == null || ao == null) continue;
+
+					if (graph.containsEdge(ai, ao)) continue; // already connected
+
+					final SDGEdge sum = newSummaryEdge(ai, ao);
+					if (graph.addEdge(ai, ao, sum)) {
+						final TIntArrayList aoTargets = aoPaths.get(number(ao));
+						if (aoTargets != null) {
+							for (int i = 0; i < aoTargets.size(); i++) {
+								propagate(ai, aoTargets.getQuick(i));
+							}
+						}
+					}
+				}
+				for (SDGEdge e : graph.incomingEdgesOf(source)) {
+					final SDGEdge.Kind kind = e.getKind();
+					if ((kind == SDGEdge.Kind.DATA_DEP || kind == SDGEdge.Kind.DATA_HEAP
+							|| kind == SDGEdge.Kind.DATA_ALIAS) && relevantEdges.contains(kind)) {
+						propagate(e.getSource(), target);
+					}
+				}
+				break;
+
+			case ACTUAL_IN:
+				if (rememberReached) {
+					final BitVector bv = source.bv;
+					final int id = nodes[target].tmp;
+
+					if (bv.contains(id)) {
+						continue;
+					}
+
+					bv.set(id);
+				}
+
+				for (SDGEdge e : graph.incomingEdgesOf(source)) {
+					if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR) {
+						if (e.getSource().getKind() == SDGNode.Kind.CALL) {
+							propagate(e.getSource(), target);
+						}
+					} else if (relevantEdges.contains(e.getKind())) {
+						propagate(e.getSource(), target);
+					}
+				}
+				break;
+
+			case FORMAL_OUT:
+			case EXIT:
+				if (fullyConnected != null && fullyConnected.contains(source.getId())) {
+					propagateAllActIns(source, target);
+				} else {
+					for (SDGEdge e : graph.incomingEdgesOf(source)) {
+						if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR) {
+							if (e.getSource().getKind() == SDGNode.Kind.ENTRY) {
+								propagate(e.getSource(), target);
+							}
+						} else if (relevantEdges.contains(e.getKind())) {
+							propagate(e.getSource(), target);
+						}
+					}
+				}
+				break;
+
+			default:
+				for (SDGEdge e : graph.incomingEdgesOf(source)) {
+					if (relevantEdges.contains(e.getKind())) {
+						propagate(e.getSource(), target);
+					}
+				}
+				break;
+			}
+		}
+
+		return formInOutSummaryEdge;
+	}
+
+	private SDGEdge newSummaryEdge(SDGNode from, SDGNode to) {
+		if (annotate != null && !annotate.isEmpty()) {
+			return new SDGEdge(from, to, sumEdgeKind, annotate);
+		} else {
+			return new SDGEdge(from, to, sumEdgeKind);
+		}
+	}
+
+	private void propagateAllActIns(SDGNode outNode, int target) {
+		for (SDGNode inNode : out2in.get(outNode.getId())) {
+			propagate(inNode, target);
+		}
+	}
+
+	private void propagate(SDGNode source, int target) {
+		if (relevantProcs != null && !(relevantProcs.contains(source.getProc())
+				&& relevantProcs.contains(nodes[target].getProc()))) {
+			return;
+		}
+
+		final int src = number(source);
+		if (pathEdge.add(pack(src, target))) {
+			worklist.add(src, target);
+
+			if (source.getKind() == SDGNode.Kind.ACTUAL_OUT) {
+				TIntArrayList aoTargets = aoPaths.get(src);
+				if (aoTargets == null) {
+					aoTargets = new TIntArrayList(4);
+					aoPaths.put(src, aoTargets);
+				}
+				aoTargets.add(target);
+			}
+		}
+	}
+
+	/**
+	 * @return the pairs of actual-in and actual-out nodes of the call sites that correspond to the given
+	 * formal-in and formal-out node, the actual-out node is null if the call site has no corresponding one.
+	 */
+	private Collection<SDGNode[]> aiaoPairs(SDGNode formIn, SDGNode formOut) {
+		final Map<SDGNode, SDGNode[]> result = new HashMap<SDGNode, SDGNode[]>();
+
+		for (SDGEdge pi : graph.incomingEdgesOf(formIn)) {
+			if (pi.getKind() == SDGEdge.Kind.PARAMETER_IN) {
+				final SDGNode ai = pi.getSource();
+				final SDGNode call = getCallSiteFor(ai);
+
+				if (call != null) {
+					result.put(call, new SDGNode[] { ai, null });
+				}
+			}
+		}
+
+		for (SDGEdge po : graph.outgoingEdgesOf(formOut)) {
+			if (po.getKind() == SDGEdge.Kind.PARAMETER_OUT) {
+				final SDGNode ao = po.getTarget();
+				final SDGNode call = getCallSiteFor(ao);
+
+				final SDGNode[] pair = result.get(call);
+				if (pair != null) {
+					pair[1] = ao;
+				}
+			}
+		}
+
+		return result.values();
+	}
+
+	private SDGNode getCallSiteFor(SDGNode node) {
+		if (node.getKind() != SDGNode.Kind.ACTUAL_IN && node.getKind() != SDGNode.Kind.ACTUAL_OUT) {
+			return null;
+		}
+
+		// follow control-dependence-expression edges to the call node
+		SDGNode n = node;
+		while (true) {
+			for (SDGEdge e : graph.incomingEdgesOf(n)) {
+				if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR) {
+					if (e.getSource().getKind() == SDGNode.Kind.CALL) {
+						return e.getSource();
+					}
+					n = e.getSource();
+					break;
+				}
+			}
+		}
+	}
+
+	private int number(SDGNode n) {
+		return numbers[n.getId() - minId];
+	}
+
+	private static long pack(int source, int target) {
+		// the set hashes a long to the xor of its halves, which would map all pairs with the same xor of the
+		// node numbers to the same bucket. Multiplying with an odd constant is a bijection that spreads them.
+		return (((long) source << 32) | (target & 0xffffffffL)) * 0x9E3779B97F4A7C15L;
+	}
+
+	/**
+	 * First in, first out queue of int pairs in a growing ring buffer.
+	 */
+	private static final class IntPairQueue {
+
+		private int[] elems = new int[2 * 1024];
+		private int head = 0;
+		private int size = 0;
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		void add(int first, int second) {
+			if (2 * size == elems.length) {
+				grow();
+			}
+			final int tail = (head + 2 * size) & (elems.length - 1);
+			elems[tail] = first;
+			elems[tail + 1] = second;
+			size++;
+		}
+
+		int firstSource() {
+			return elems[head];
+		}
+
+		int firstTarget() {
+			return elems[head + 1];
+		}
+
+		void remove() {
+			head = (head + 2) & (elems.length - 1);
+			size--;
+		}
+
+		private void grow() {
+			final int[] bigger = new int[2 * elems.length];
+			final int firstPart = elems.length - head;
+			System.arraycopy(elems, head, bigger, 0, firstPart);
+			System.arraycopy(elems, 0, bigger, firstPart, head);
+			elems = bigger;
+			head = 0;
+		}
+	}
+
+}
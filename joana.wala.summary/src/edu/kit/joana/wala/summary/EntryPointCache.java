@@ -8,12 +8,15 @@
 package edu.kit.joana.wala.summary;
 
 import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
+import gnu.trove.TIntCollection;
+import gnu.trove.iterator.TIntIterator;
 import gnu.trove.map.hash.TIntObjectHashMap;
 
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.text.ParseException;
 
@@ -54,16 +57,24 @@ public class EntryPointCache {
 
 	private final TIntObjectHashMap<EntryPoint> data = new TIntObjectHashMap<EntryPoint>();
 	private final String directory;
+	private final EntryPointStore store;
 	private static final String ENTRYPOINT_FILE_SUFFIX = ".sum";
+	/** fingerprint of entrypoints whose input is unknown, see {@link #put(EntryPoint)} */
+	public static final long NO_FINGERPRINT = 0;
 
-	private EntryPointCache(String directory) {
+	private EntryPointCache(String directory, EntryPointStore store) {
 		this.directory = directory;
+		this.store = store;
 	}
 
-	public EntryPoint getEntryPoint(int entryId) throws LoadEntryPointException {
+	public synchronized EntryPoint getEntryPoint(int entryId) throws LoadEntryPointException {
 		EntryPoint ep = data.get(entryId);
 
 		if (ep == null) {
+			if (directory == null) {
+				throw new LoadEntryPointException("No summary info for entry " + entryId + " in memory.");
+			}
+
 			ep = readFromFile(entryId);
 
 			data.put(entryId, ep);
@@ -75,6 +86,10 @@ public class EntryPointCache {
 	}
 
 	private EntryPoint readFromFile(final int entryId) throws LoadEntryPointException {
+		if (store != null) {
+			return readFromStore(entryId);
+		}
+
 		EntryPoint ep = null;
 		File epFile = getFileOfEntryPoint(entryId);
 
@@ -97,7 +112,35 @@ public class EntryPointCache {
 		return ep;
 	}
 
-	private void writeToFile(EntryPoint ep) throws StoreEntryPointException {
+	private EntryPoint readFromStore(final int entryId) throws LoadEntryPointException {
+		final EntryPoint ep;
+
+		try {
+			ep = store.load(entryId);
+		} catch (IOException e) {
+			throw new LoadEntryPointException(e.getMessage(), e);
+		} catch (ParseException e) {
+			throw new LoadEntryPointException(e.getMessage(), e);
+		}
+
+		if (ep == null) {
+			throw new LoadEntryPointException("No summary info for entry " + entryId + " in store " + directory);
+		}
+
+		return ep;
+	}
+
+	private void writeToFile(EntryPoint ep, long fingerprint) throws StoreEntryPointException {
+		if (store != null) {
+			try {
+				store.store(ep, fingerprint);
+			} catch (IOException exc) {
+				throw new StoreEntryPointException(exc.getMessage(), exc);
+			}
+
+			return;
+		}
+
 		File epFile = getFileOfEntryPoint(ep.getEntryId());
 
 		try {
@@ -120,6 +163,30 @@ public class EntryPointCache {
 	}
 
 	public static EntryPointCache create(String directory) {
+		createDirectory(directory);
+
+		return new EntryPointCache(directory, null);
+	}
+
+	/**
+	 * Creates a cache that keeps all entrypoints in a single {@link EntryPointStore} in the given directory,
+	 * instead of one file per entrypoint. Entrypoints stored by a previous run are read from the store and
+	 * can be reused with {@link #reuseStored(TIntCollection, long)}.
+	 * The cache has to be closed after use. As a store may not be shared between processes, the jobber
+	 * workers use {@link #create(String)}.
+	 */
+	public static EntryPointCache createIndexed(String directory) {
+		final File dir = createDirectory(directory);
+
+		try {
+			return new EntryPointCache(directory, EntryPointStore.open(dir));
+		} catch (IOException exc) {
+			throw new IllegalArgumentException("Could not open summary store in " + directory + ": "
+					+ exc.getMessage(), exc);
+		}
+	}
+
+	private static File createDirectory(String directory) {
 		File dir = new File(directory);
 
 		if (dir.exists() && dir.isFile()) {
@@ -137,10 +204,26 @@ public class EntryPointCache {
 			throw new IllegalArgumentException("Could not create a dir with name: " + directory);
 		}
 
-		return new EntryPointCache(directory);
+		return dir;
 	}
 
-	public void put(EntryPoint ep) throws StoreEntryPointException {
+	/**
+	 * Creates a cache that keeps the entrypoints in memory only. This is meant for computations that run
+	 * in a single process, see {@link edu.kit.joana.wala.summary.jobber.LocalSumCompExecutor}.
+	 */
+	public static EntryPointCache createInMemory() {
+		return new EntryPointCache(null, null);
+	}
+
+	public synchronized void put(EntryPoint ep) throws StoreEntryPointException {
+		put(ep, NO_FINGERPRINT);
+	}
+
+	/**
+	 * Adds the entrypoint to the cache. An indexed cache stores it together with the fingerprint of the input
+	 * its summary info has been computed from, so later runs can reuse it.
+	 */
+	public synchronized void put(EntryPoint ep, long fingerprint) throws StoreEntryPointException {
 		if (ep == null) {
 			throw new IllegalArgumentException("Parameter is null.");
 		} else if (data.contains(ep.getEntryId())) {
@@ -148,7 +231,58 @@ public class EntryPointCache {
 		}
 
 		data.put(ep.getEntryId(), ep);
-		writeToFile(ep);
+		if (directory != null) {
+			writeToFile(ep, fingerprint);
+		}
+	}
+
+	/**
+	 * Adds the entrypoints with the given ids of a previous run to the cache, if the store of an indexed cache
+	 * holds all of them with the given fingerprint. Nothing is added if one of them is missing, has been
+	 * computed from another input or is corrupt, so the caller computes them anew.
+	 *
+	 * @return true if all entrypoints have been added
+	 */
+	public synchronized boolean reuseStored(TIntCollection entryIds, long fingerprint) throws LoadEntryPointException {
+		if (store == null || fingerprint == NO_FINGERPRINT) {
+			return false;
+		}
+
+		final TIntObjectHashMap<EntryPoint> stored = new TIntObjectHashMap<EntryPoint>(entryIds.size());
+		for (TIntIterator it = entryIds.iterator(); it.hasNext();) {
+			final int entryId = it.next();
+			if (data.contains(entryId)) {
+				throw new IllegalArgumentException("Entrypoint already in cache.");
+			}
+
+			final EntryPoint ep;
+			try {
+				ep = store.load(entryId, fingerprint);
+			} catch (IOException e) {
+				throw new LoadEntryPointException(e.getMessage(), e);
+			} catch (ParseException e) {
+				return false;
+			}
+
+			if (ep == null) {
+				return false;
+			}
+
+			stored.put(entryId, ep);
+		}
+
+		data.putAll(stored);
+
+		return true;
+	}
+
+	/**
+	 * Closes the store of an indexed cache. Nothing happens for the other kinds of caches.
+	 */
+	public synchronized void close() throws IOException {
+		if (store != null) {
+			store.close();
+		}
 	}
 
 }
@@ -0,0 +1,377 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.summary;
+
+import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the summary info of many entrypoints in a single directory, instead of one <tt>.sum</tt> file per
+ * entrypoint. The entrypoints are appended to a data file in the binary format of
+ * {@link EntryPoint#writeOut(java.io.DataOutput, EntryPoint)}. For each entrypoint an index file holds its
+ * entry id, a fingerprint of the input its summary info has been computed from, the position and length of
+ * its data and a CRC32 checksum of the data. The index is read once when the store is opened; an entrypoint
+ * is read with a single access to the data file and its checksum is checked before it is parsed.
+ * {@link #load(int, long)} only returns an entrypoint whose fingerprint matches, so a later run can reuse the
+ * summary info of all parts of the program that did not change.<p>
+ *
+ * The data is always written before its index entry, so an aborted run leaves at most an incomplete index
+ * entry at the end, which is dropped when the store is opened again. If an entrypoint is stored more than
+ * once, its last version is used. The versions replaced by a later one and the data of aborted writes are
+ * removed when the store is opened: the live entrypoints are copied to new files, which then replace the old
+ * ones. The old index is deleted first, so a run aborted during the replacement leaves an empty store
+ * instead of an index that does not match its data. An entrypoint whose index entry points past the end of
+ * the data file or whose data does not match its checksum is dropped as well.<p>
+ *
+ * A store must not be used by more than one process at the same time, so the jobber workers still use the
+ * <tt>.sum</tt> files.
+ *
+ * @see EntryPointCache#createIndexed(String)
+ */
+public class EntryPointStore implements Closeable {
+
+	public static final String DATA_FILE = "summaries.bin";
+	public static final String INDEX_FILE = "summaries.idx";
+
+	/* "JSUM" */
+	private static final int MAGIC = 0x4A53554D;
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 8;
+	/* entry id, fingerprint, offset, length, checksum */
+	private static final int INDEX_ENTRY_SIZE = 4 + 8 + 8 + 4 + 4;
+	private static final String COMPACT_SUFFIX = ".compact";
+
+	private static final class Location {
+		private final long fingerprint;
+		private final long offset;
+		private final int length;
+		private final int checksum;
+
+		private Location(long fingerprint, long offset, int length, int checksum) {
+			this.fingerprint = fingerprint;
+			this.offset = offset;
+			this.length = length;
+			this.checksum = checksum;
+		}
+	}
+
+	private final RandomAccessFile data;
+	private final RandomAccessFile index;
+	private final TIntObjectHashMap<Location> locations = new TIntObjectHashMap<Location>();
+	/* number of entries in the index file, including the replaced versions */
+	private long indexEntries = 0;
+
+	private EntryPointStore(RandomAccessFile data, RandomAccessFile index) {
+		this.data = data;
+		this.index = index;
+	}
+
+	/**
+	 * Opens the store in the given directory, or creates a new one if the directory contains none. A store
+	 * that contains replaced versions of entrypoints or data of aborted writes is compacted.
+	 */
+	public static EntryPointStore open(File directory) throws IOException {
+		EntryPointStore store = openFiles(directory);
+		if (store.needsCompaction()) {
+			try {
+				store.compact(directory);
+			} finally {
+				store.close();
+			}
+			store = openFiles(directory);
+		}
+
+		return store;
+	}
+
+	private static EntryPointStore openFiles(File directory) throws IOException {
+		final RandomAccessFile data = new RandomAccessFile(new File(directory, DATA_FILE), "rw");
+		final RandomAccessFile index;
+		try {
+			index = new RandomAccessFile(new File(directory, INDEX_FILE), "rw");
+		} catch (IOException exc) {
+			data.close();
+			throw exc;
+		}
+
+		final EntryPointStore store = new EntryPointStore(data, index);
+		try {
+			store.readIndex(new File(directory, INDEX_FILE));
+		} catch (IOException exc) {
+			store.close();
+			throw exc;
+		}
+
+		return store;
+	}
+
+	private void readIndex(File indexFile) throws IOException {
+		final long indexSize = index.length();
+		if (indexSize < HEADER_SIZE) {
+			// new store, or one whose header has not been written completely
+			reset();
+			return;
+		}
+
+		final long numEntries = (indexSize - HEADER_SIZE) / INDEX_ENTRY_SIZE;
+		final long validSize = HEADER_SIZE + numEntries * INDEX_ENTRY_SIZE;
+		final long dataSize = data.length();
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(INDEX_FILE + " is no index of a summary store.");
+			} else if (in.readInt() != VERSION) {
+				// the entrypoints of other versions have no fingerprint, so they cannot be reused anyway
+				reset();
+				return;
+			}
+
+			for (long i = 0; i < numEntries; i++) {
+				final int entryId = in.readInt();
+				final long fingerprint = in.readLong();
+				final long offset = in.readLong();
+				final int length = in.readInt();
+				final int checksum = in.readInt();
+				if (offset < 0 || length < 0 || offset + length > dataSize) {
+					// the data file has been truncated, the entrypoint is lost and dropped by the compaction
+					locations.remove(entryId);
+				} else {
+					locations.put(entryId, new Location(fingerprint, offset, length, checksum));
+				}
+			}
+		} finally {
+			in.close();
+		}
+		indexEntries = numEntries;
+
+		if (validSize < indexSize) {
+			// drop incomplete entry of an aborted write
+			index.setLength(validSize);
+		}
+	}
+
+	private void reset() throws IOException {
+		data.setLength(0);
+		index.setLength(0);
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).flip();
+		writeFully(index.getChannel(), header, 0);
+		indexEntries = 0;
+	}
+
+	private boolean needsCompaction() throws IOException {
+		if (indexEntries > locations.size()) {
+			return true;
+		}
+
+		long liveData = 0;
+		for (Location loc : locations.valueCollection()) {
+			liveData += loc.length;
+		}
+
+		return liveData < data.length();
+	}
+
+	/**
+	 * Copies the live entrypoints to new files in the order of their data and replaces the files of this
+	 * store with them; entrypoints whose data does not match its checksum are dropped. The store has to be
+	 * closed and opened again afterwards.
+	 */
+	private void compact(File directory) throws IOException {
+		final int[] entryIds = locations.keys();
+		final List<Integer> sorted = new ArrayList<Integer>(entryIds.length);
+		for (int entryId : entryIds) {
+			sorted.add(entryId);
+		}
+		Collections.sort(sorted, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer e1, Integer e2) {
+				return Long.compare(locations.get(e1).offset, locations.get(e2).offset);
+			}
+		});
+
+		final File newDataFile = new File(directory, DATA_FILE + COMPACT_SUFFIX);
+		final File newIndexFile = new File(directory, INDEX_FILE + COMPACT_SUFFIX);
+		final RandomAccessFile newData = new RandomAccessFile(newDataFile, "rw");
+		try {
+			final RandomAccessFile newIndex = new RandomAccessFile(newIndexFile, "rw");
+			try {
+				newData.setLength(0);
+				newIndex.setLength(0);
+				final FileChannel dataOut = newData.getChannel();
+				final ByteBuffer idx = ByteBuffer.allocate(HEADER_SIZE + sorted.size() * INDEX_ENTRY_SIZE);
+				idx.putInt(MAGIC).putInt(VERSION);
+				long offset = 0;
+				for (int entryId : sorted) {
+					final Location loc = locations.get(entryId);
+					final ByteBuffer buf = readData(loc);
+					if (buf == null || checksum(buf) != loc.checksum) {
+						// corrupt entrypoint, it has to be computed again
+						continue;
+					}
+					writeFully(dataOut, buf, offset);
+					idx.putInt(entryId).putLong(loc.fingerprint).putLong(offset).putInt(loc.length)
+						.putInt(loc.checksum);
+					offset += loc.length;
+				}
+				idx.flip();
+				writeFully(newIndex.getChannel(), idx, 0);
+				dataOut.force(true);
+				newIndex.getChannel().force(true);
+			} finally {
+				newIndex.close();
+			}
+		} finally {
+			newData.close();
+		}
+
+		close();
+		final File indexFile = new File(directory, INDEX_FILE);
+		if (!indexFile.delete()) {
+			throw new IOException("Could not delete " + indexFile + " to compact the summary store.");
+		}
+		Files.move(newDataFile.toPath(), new File(directory, DATA_FILE).toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+		Files.move(newIndexFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	public synchronized boolean contains(int entryId) {
+		return locations.containsKey(entryId);
+	}
+
+	public synchronized int size() {
+		return locations.size();
+	}
+
+	/**
+	 * @return the stored entrypoint with the given id, or null if there is none
+	 * @throws ParseException if the data of the entrypoint is corrupt
+	 */
+	public synchronized EntryPoint load(int entryId) throws IOException, ParseException {
+		final Location loc = locations.get(entryId);
+		if (loc == null) {
+			return null;
+		}
+
+		return read(entryId, loc);
+	}
+
+	/**
+	 * @return the stored entrypoint with the given id, or null if there is none or its summary info has
+	 * been computed from an input with another fingerprint
+	 * @throws ParseException if the data of the entrypoint is corrupt
+	 */
+	public synchronized EntryPoint load(int entryId, long fingerprint) throws IOException, ParseException {
+		final Location loc = locations.get(entryId);
+		if (loc == null || loc.fingerprint != fingerprint) {
+			return null;
+		}
+
+		return read(entryId, loc);
+	}
+
+	private EntryPoint read(int entryId, Location loc) throws IOException, ParseException {
+		final ByteBuffer buf = readData(loc);
+		if (buf == null) {
+			throw new ParseException("Data of entry " + entryId + " is truncated.", 0);
+		} else if (checksum(buf) != loc.checksum) {
+			throw new ParseException("Checksum mismatch in data of entry " + entryId, 0);
+		}
+
+		final EntryPoint ep = EntryPoint.readIn(buf);
+		if (ep.getEntryId() != entryId) {
+			throw new ParseException("Found entry " + ep.getEntryId() + " instead of " + entryId, 0);
+		}
+
+		return ep;
+	}
+
+	/**
+	 * @return the data at the given location, ready to be read, or null if the data file ends before
+	 */
+	private ByteBuffer readData(Location loc) throws IOException {
+		final ByteBuffer buf = ByteBuffer.allocate(loc.length);
+		final FileChannel channel = data.getChannel();
+		while (buf.hasRemaining()) {
+			if (channel.read(buf, loc.offset + buf.position()) < 0) {
+				return null;
+			}
+		}
+		buf.flip();
+
+		return buf;
+	}
+
+	private static int checksum(ByteBuffer buf) {
+		final CRC32 crc = new CRC32();
+		crc.update(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Appends the entrypoint to the store. A previously stored version of the entrypoint is replaced.
+	 *
+	 * @param fingerprint fingerprint of the input the summary info of the entrypoint has been computed from
+	 */
+	public synchronized void store(EntryPoint ep, long fingerprint) throws IOException {
+		final ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+		final DataOutputStream dOut = new DataOutputStream(bOut);
+		EntryPoint.writeOut(dOut, ep);
+		dOut.flush();
+		final byte[] bytes = bOut.toByteArray();
+
+		final CRC32 crc = new CRC32();
+		crc.update(bytes);
+		final Location loc = new Location(fingerprint, data.length(), bytes.length, (int) crc.getValue());
+
+		writeFully(data.getChannel(), ByteBuffer.wrap(bytes), loc.offset);
+
+		final ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+		entry.putInt(ep.getEntryId()).putLong(loc.fingerprint).putLong(loc.offset).putInt(loc.length)
+			.putInt(loc.checksum).flip();
+		writeFully(index.getChannel(), entry, index.length());
+
+		locations.put(ep.getEntryId(), loc);
+		indexEntries++;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+		while (buf.hasRemaining()) {
+			position += channel.write(buf, position);
+		}
+	}
+
+	public synchronized void close() throws IOException {
+		try {
+			data.close();
+		} finally {
+			index.close();
+		}
+	}
+
+}
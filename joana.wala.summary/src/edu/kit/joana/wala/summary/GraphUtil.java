@@ -23,8 +23,10 @@ import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -327,6 +329,58 @@ public class GraphUtil {
 		return stripped;
 	}
 
+	/**
+	 * Same as {@link #stripGraph(SDG, Collection)}, but looks up the nodes of the procedures in the given map
+	 * instead of searching the whole graph for each of them. Only reads the given sdg, so several subgraphs
+	 * may be stripped concurrently.
+	 * @param nodesOfProc nodes of each procedure, indexed by procedure id
+	 */
+	public static SDG stripGraph(SDG sdg, Collection<SDGNode> current, TIntObjectMap<List<SDGNode>> nodesOfProc) {
+		if (current == null || current.size() == 0) {
+			throw new IllegalArgumentException();
+		} else if (sdg == null) {
+			throw new IllegalArgumentException();
+		}
+
+		List<SDGNode> allNodes = new LinkedList<SDGNode>();
+
+		for (SDGNode entry : current) {
+			if (entry.getKind() != SDGNode.Kind.ENTRY) {
+				throw new IllegalStateException("List may only contain entry nodes.");
+			}
+
+			List<SDGNode> procNodes = nodesOfProc.get(entry.getProc());
+			if (procNodes != null) {
+				allNodes.addAll(procNodes);
+			}
+		}
+
+		addCalledEntriesAndFormalNodes(sdg, allNodes);
+
+		// subgraph checks each edge target for containment
+		SDG stripped = sdg.subgraph(new LinkedHashSet<SDGNode>(allNodes));
+
+		return stripped;
+	}
+
+	/**
+	 * @return the nodes of each procedure of the sdg, indexed by procedure id
+	 */
+	public static TIntObjectMap<List<SDGNode>> nodesOfProcedures(SDG sdg) {
+		TIntObjectMap<List<SDGNode>> nodesOfProc = new TIntObjectHashMap<List<SDGNode>>();
+
+		for (SDGNode node : sdg.vertexSet()) {
+			List<SDGNode> nodes = nodesOfProc.get(node.getProc());
+			if (nodes == null) {
+				nodes = new ArrayList<SDGNode>();
+				nodesOfProc.put(node.getProc(), nodes);
+			}
+			nodes.add(node);
+		}
+
+		return nodesOfProc;
+	}
+
 	private static void addCalledEntriesAndFormalNodes(SDG sdg, List<SDGNode> nodes) {
 		List<SDGNode> entriesAndFormals = new LinkedList<SDGNode>();
 
@@ -0,0 +1,426 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.summary;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TIntHashSet;
+import gnu.trove.set.hash.TLongHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.IntStack;
+
+/**
+ * Computes the summary edges of an sdg by reusing the summary edges of the sdg of a previous version of the same
+ * program. Only the procedures that differ from the previous version and the procedures that directly or
+ * transitively call them are computed by {@link SummaryComputation}.<p>
+ *
+ * Procedures are matched by the signature of their entry node. A procedure is unchanged if it has as many nodes
+ * as its previous version, if the n-th node ordered by id has the same attributes as the n-th node of the previous
+ * version, and if all edges the summary computation follows, including call and parameter edges, connect
+ * corresponding nodes. Source positions are ignored. As the nodes of a pdg are created in a fixed order, the
+ * edited methods do not have to be known in advance, and an unexpected difference only leads to a
+ * recomputation.<p>
+ *
+ * The summary edges of a call site are copied from the previous sdg if it calls the procedures that correspond
+ * to the ones called by the previous call site, and if none of them is recomputed. The summary edges of a
+ * procedure only depend on the procedure and on the procedures it calls, so the result is the same as the one of
+ * a computation from scratch.
+ */
+public class IncrementalSummaryComputation {
+
+	private static final int AMBIGUOUS = Integer.MIN_VALUE;
+
+	private final SDG previous;
+	private final SDG sdg;
+	private final Set<SDGEdge.Kind> relevantEdges = SummaryComputation.defaultRelevantEdges();
+	/* nodes of each procedure, sorted by id */
+	private final TIntObjectMap<SDGNode[]> nodesOfProc;
+	private final TIntObjectMap<SDGNode[]> prevNodesOfProc;
+	/* position of each node in the nodes of its procedure */
+	private final TIntIntMap position = new TIntIntHashMap();
+	private final TIntIntMap prevPosition = new TIntIntHashMap();
+	/* matching procedures with the same number of nodes */
+	private final TIntIntMap prevProcOf = new TIntIntHashMap();
+	private final TIntIntMap procOfPrev = new TIntIntHashMap();
+
+	private IncrementalSummaryComputation(SDG previous, SDG sdg) {
+		this.previous = previous;
+		this.sdg = sdg;
+		this.nodesOfProc = sortedNodesOfProcedures(sdg, position);
+		this.prevNodesOfProc = sortedNodesOfProcedures(previous, prevPosition);
+	}
+
+	/**
+	 * Adds the summary edges to an sdg without summary edges.
+	 * @param previous sdg of a previous version of the program, including its summary edges
+	 * @param sdg sdg of the current version of the program
+	 * @param entryPoints entry points that receive the summary info of their formal nodes, if they are recomputed
+	 * @return the number of procedures that have been recomputed
+	 */
+	public static int compute(SDG previous, SDG sdg, Set<EntryPoint> entryPoints, IProgressMonitor progress)
+			throws CancelException {
+		final IncrementalSummaryComputation inc = new IncrementalSummaryComputation(previous, sdg);
+		final TIntSet recompute = inc.copyReusableSummaries(progress);
+
+		final WorkPackage pack = WorkPackage.create(sdg, entryPoints, sdg.getName(), recompute);
+		SummaryComputation.compute(pack, progress);
+
+		return recompute.size();
+	}
+
+	/**
+	 * @return the procedures whose summary edges have to be recomputed
+	 */
+	private TIntSet copyReusableSummaries(IProgressMonitor progress) throws CancelException {
+		matchProcedures();
+
+		final TIntSet affected = new TIntHashSet();
+		final IntStack work = new IntStack();
+		for (int proc : nodesOfProc.keys()) {
+			if (!isUnchanged(proc)) {
+				affected.add(proc);
+				work.push(proc);
+			}
+		}
+		MonitorUtil.throwExceptionIfCanceled(progress);
+
+		final TIntObjectMap<TIntSet> dependents = computeDependents();
+		while (!work.isEmpty()) {
+			final TIntSet deps = dependents.get(work.pop());
+			if (deps != null) {
+				for (int dep : deps.toArray()) {
+					if (affected.add(dep)) {
+						work.push(dep);
+					}
+				}
+			}
+		}
+		MonitorUtil.throwExceptionIfCanceled(progress);
+
+		// call sites of affected procedures whose summary edges are recomputed. Their unaffected callees have to be
+		// recomputed as well, as a computation only adds summary edges for the procedures it computes.
+		final TIntSet recompute = new TIntHashSet(affected);
+		final Set<SDGNode> recomputedCalls = new HashSet<SDGNode>();
+		for (int proc : affected.toArray()) {
+			for (SDGNode n : nodesOfProc.get(proc)) {
+				if (n.getKind() != SDGNode.Kind.CALL) {
+					continue;
+				}
+
+				final TIntSet callees = new TIntHashSet();
+				for (SDGEdge e : sdg.outgoingEdgesOf(n)) {
+					if (e.getKind() == SDGEdge.Kind.CALL) {
+						callees.add(e.getTarget().getProc());
+					}
+				}
+
+				boolean reusable = prevProcOf.containsKey(proc) && sameCallTargets(n);
+				for (int callee : callees.toArray()) {
+					reusable &= !affected.contains(callee);
+				}
+
+				if (!reusable) {
+					recomputedCalls.add(n);
+					recompute.addAll(callees);
+				}
+			}
+		}
+		MonitorUtil.throwExceptionIfCanceled(progress);
+
+		for (SDGEdge e : previous.edgeSet()) {
+			if (e.getKind() != SDGEdge.Kind.SUMMARY) {
+				continue;
+			}
+
+			final SDGNode source = currentNodeOf(e.getSource());
+			final SDGNode target = currentNodeOf(e.getTarget());
+			if (source == null || target == null) {
+				continue;
+			}
+
+			if (affected.contains(source.getProc())) {
+				final SDGNode call = callSiteOf(source);
+				if (call == null || recomputedCalls.contains(call)) {
+					continue;
+				}
+			}
+
+			sdg.addEdge(new SDGEdge(source, target, SDGEdge.Kind.SUMMARY));
+		}
+
+		return recompute;
+	}
+
+	private void matchProcedures() {
+		final Map<String, Integer> prevProcOfSignature = procsBySignature(previous);
+		final Map<String, Integer> procOfSignature = procsBySignature(sdg);
+
+		for (Map.Entry<String, Integer> entry : procOfSignature.entrySet()) {
+			final int proc = entry.getValue();
+			final Integer prevProc = prevProcOfSignature.get(entry.getKey());
+			if (proc == AMBIGUOUS || prevProc == null || prevProc == AMBIGUOUS) {
+				continue;
+			}
+
+			if (nodesOfProc.get(proc).length == prevNodesOfProc.get(prevProc).length) {
+				prevProcOf.put(proc, prevProc);
+				procOfPrev.put(prevProc, proc);
+			}
+		}
+	}
+
+	private static Map<String, Integer> procsBySignature(SDG graph) {
+		final Map<String, Integer> procs = new HashMap<String, Integer>();
+
+		for (SDGNode n : graph.vertexSet()) {
+			if (n.getKind() == SDGNode.Kind.ENTRY && n.getBytecodeMethod() != null) {
+				// a method may have several pdgs, e.g. with a context sensitive call graph
+				final Integer other = procs.put(n.getBytecodeMethod(), n.getProc());
+				if (other != null) {
+					procs.put(n.getBytecodeMethod(), AMBIGUOUS);
+				}
+			}
+		}
+
+		return procs;
+	}
+
+	private boolean isUnchanged(int proc) {
+		if (!prevProcOf.containsKey(proc)) {
+			return false;
+		}
+
+		final SDGNode[] nodes = nodesOfProc.get(proc);
+		final SDGNode[] prevNodes = prevNodesOfProc.get(prevProcOf.get(proc));
+		for (int i = 0; i < nodes.length; i++) {
+			if (!sameAttributes(nodes[i], prevNodes[i]) || !sameEdges(nodes[i], prevNodes[i])) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean sameAttributes(SDGNode n, SDGNode prev) {
+		return n.getKind() == prev.getKind() && n.getOperation() == prev.getOperation()
+				&& equal(n.getLabel(), prev.getLabel()) && equal(n.getBytecodeName(), prev.getBytecodeName())
+				&& n.getBytecodeIndex() == prev.getBytecodeIndex() && equal(n.getType(), prev.getType())
+				&& equal(n.getUnresolvedCallTarget(), prev.getUnresolvedCallTarget());
+	}
+
+	private static boolean equal(Object o1, Object o2) {
+		return (o1 == null ? o2 == null : o1.equals(o2));
+	}
+
+	private boolean sameEdges(SDGNode n, SDGNode prev) {
+		final TLongSet prevEdges = new TLongHashSet();
+		for (SDGEdge e : previous.outgoingEdgesOf(prev)) {
+			if (isCompared(e.getKind())) {
+				prevEdges.add(edgeCode(e.getKind(), e.getTarget()));
+			}
+		}
+
+		int edges = 0;
+		for (SDGEdge e : sdg.outgoingEdgesOf(n)) {
+			if (!isCompared(e.getKind())) {
+				continue;
+			}
+
+			final SDGNode prevTarget = previousNodeOf(e.getTarget());
+			if (prevTarget == null || !prevEdges.contains(edgeCode(e.getKind(), prevTarget))) {
+				return false;
+			}
+			edges++;
+		}
+
+		return edges == prevEdges.size();
+	}
+
+	/**
+	 * @return true iff the call node calls the entries that correspond to the ones called by the call node at the
+	 * same position in the previous sdg. A call site of a changed procedure may call fewer or other procedures than
+	 * before, e.g. a virtual call with a more precise receiver, so some of its previous summary edges may stem from
+	 * a procedure it does not call anymore.
+	 */
+	private boolean sameCallTargets(SDGNode call) {
+		final SDGNode prevCall = previousNodeOf(call);
+		if (prevCall == null || prevCall.getKind() != SDGNode.Kind.CALL) {
+			return false;
+		}
+
+		final Set<SDGNode> prevTargets = new HashSet<SDGNode>();
+		for (SDGEdge e : previous.outgoingEdgesOf(prevCall)) {
+			if (e.getKind() == SDGEdge.Kind.CALL) {
+				prevTargets.add(e.getTarget());
+			}
+		}
+
+		final Set<SDGNode> targets = new HashSet<SDGNode>();
+		for (SDGEdge e : sdg.outgoingEdgesOf(call)) {
+			if (e.getKind() == SDGEdge.Kind.CALL) {
+				final SDGNode prevTarget = previousNodeOf(e.getTarget());
+				if (prevTarget == null) {
+					return false;
+				}
+				targets.add(prevTarget);
+			}
+		}
+
+		return targets.equals(prevTargets);
+	}
+
+	private static long edgeCode(SDGEdge.Kind kind, SDGNode target) {
+		return ((long) kind.ordinal() << 32) | (target.getId() & 0xffffffffL);
+	}
+
+	/**
+	 * @return true iff the summary edges depend on edges of this kind
+	 */
+	private boolean isCompared(SDGEdge.Kind kind) {
+		switch (kind) {
+		case SUMMARY:
+		case SUMMARY_DATA:
+		case SUMMARY_NO_ALIAS:
+			return false;
+		case CALL:
+		case PARAMETER_IN:
+		case PARAMETER_OUT:
+		case CONTROL_DEP_EXPR:
+			return true;
+		default:
+			return relevantEdges.contains(kind);
+		}
+	}
+
+	/**
+	 * @return for each procedure the procedures whose summary edges depend on it
+	 */
+	private TIntObjectMap<TIntSet> computeDependents() {
+		final TIntObjectMap<TIntSet> dependents = new TIntObjectHashMap<TIntSet>();
+
+		for (SDGEdge e : sdg.edgeSet()) {
+			final int from = e.getSource().getProc();
+			final int to = e.getTarget().getProc();
+			if (from == to) {
+				continue;
+			}
+
+			switch (e.getKind()) {
+			case CALL:
+			case PARAMETER_IN:
+				addDependent(dependents, to, from);
+				break;
+			case PARAMETER_OUT:
+				addDependent(dependents, from, to);
+				break;
+			default:
+				if (isCompared(e.getKind())) {
+					// path edges cross this edge
+					addDependent(dependents, to, from);
+					addDependent(dependents, from, to);
+				}
+				break;
+			}
+		}
+
+		return dependents;
+	}
+
+	private static void addDependent(TIntObjectMap<TIntSet> dependents, int proc, int dependent) {
+		TIntSet deps = dependents.get(proc);
+		if (deps == null) {
+			deps = new TIntHashSet();
+			dependents.put(proc, deps);
+		}
+		deps.add(dependent);
+	}
+
+	private SDGNode previousNodeOf(SDGNode n) {
+		if (!prevProcOf.containsKey(n.getProc())) {
+			return null;
+		}
+
+		return prevNodesOfProc.get(prevProcOf.get(n.getProc()))[position.get(n.getId())];
+	}
+
+	private SDGNode currentNodeOf(SDGNode prev) {
+		if (!procOfPrev.containsKey(prev.getProc())) {
+			return null;
+		}
+
+		return nodesOfProc.get(procOfPrev.get(prev.getProc()))[prevPosition.get(prev.getId())];
+	}
+
+	/**
+	 * @return the call node an actual parameter node belongs to, or null if there is none
+	 */
+	private SDGNode callSiteOf(SDGNode actual) {
+		final Set<SDGNode> visited = new HashSet<SDGNode>();
+		SDGNode n = actual;
+
+		while (n != null && visited.add(n)) {
+			SDGNode parent = null;
+			for (SDGEdge e : sdg.incomingEdgesOf(n)) {
+				if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR) {
+					if (e.getSource().getKind() == SDGNode.Kind.CALL) {
+						return e.getSource();
+					}
+					parent = e.getSource();
+					break;
+				}
+			}
+			n = parent;
+		}
+
+		return null;
+	}
+
+	private static TIntObjectMap<SDGNode[]> sortedNodesOfProcedures(SDG graph, TIntIntMap position) {
+		final TIntObjectMap<List<SDGNode>> lists = new TIntObjectHashMap<List<SDGNode>>();
+		for (SDGNode n : graph.vertexSet()) {
+			List<SDGNode> nodes = lists.get(n.getProc());
+			if (nodes == null) {
+				nodes = new ArrayList<SDGNode>();
+				lists.put(n.getProc(), nodes);
+			}
+			nodes.add(n);
+		}
+
+		final TIntObjectMap<SDGNode[]> nodesOfProc = new TIntObjectHashMap<SDGNode[]>();
+		for (int proc : lists.keys()) {
+			final SDGNode[] nodes = lists.get(proc).toArray(new SDGNode[0]);
+			Arrays.sort(nodes, SDGNode.getIDComparator());
+			for (int i = 0; i < nodes.length; i++) {
+				position.put(nodes[i].getId(), i);
+			}
+			nodesOfProc.put(proc, nodes);
+		}
+
+		return nodesOfProc;
+	}
+
+}
@@ -0,0 +1,578 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.summary;
+
+import edu.kit.joana.ifc.sdg.graph.BitVector;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.set.TIntSet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jgrapht.DirectedGraph;
+
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import com.ibm.wala.util.graph.traverse.SCCIterator;
+
+/**
+ * Computes the same summary edges as {@link SummaryComputation} on several threads.<p>
+ *
+ * A path edge always ends in a formal-out node of the procedure it was started in, and the summary edges of a
+ * call site only depend on the path edges of the called procedures. Hence the procedures are grouped into the
+ * strongly connected components of the call graph, and each component is computed by a task of a fork-join pool
+ * as soon as all components it calls are done. Components that do not call each other are computed
+ * concurrently.<p>
+ *
+ * The graph is only read while the tasks run. New summary edges are kept in a concurrent map from actual-out
+ * to actual-in nodes, which the tasks of the callers read in addition to the edges of the graph. They are
+ * added to the graph after all tasks are done.
+ */
+public class ParallelSummaryComputation {
+
+	private final DirectedGraph<SDGNode, SDGEdge> graph;
+	private final TIntSet relevantFormalIns;
+	private final TIntSet relevantProcs;
+	private final TIntSet fullyConnected;
+	private final TIntObjectMap<List<SDGNode>> out2in;
+	private final boolean rememberReached;
+	private final SDGEdge.Kind sumEdgeKind;
+	private final Set<SDGEdge.Kind> relevantEdges;
+	private final String annotate;
+
+	/** actual-in nodes of the new summary edges, by their actual-out node */
+	private final ConcurrentHashMap<SDGNode, Set<SDGNode>> newSummaryIns = new ConcurrentHashMap<SDGNode, Set<SDGNode>>();
+	private final Queue<SDGEdge> formInOutSummaryEdges = new ConcurrentLinkedQueue<SDGEdge>();
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+	private ParallelSummaryComputation(DirectedGraph<SDGNode, SDGEdge> graph, TIntSet relevantFormalIns,
+			TIntSet relevantProcs, TIntSet fullyConnected, TIntObjectMap<List<SDGNode>> out2in,
+			boolean rememberReached, SDGEdge.Kind sumEdgeKind, Set<SDGEdge.Kind> relevantEdges,
+			String annotate) {
+		this.graph = graph;
+		this.relevantFormalIns = relevantFormalIns;
+		this.relevantProcs = relevantProcs;
+		this.fullyConnected = fullyConnected;
+		this.out2in = out2in;
+		this.rememberReached = rememberReached;
+		this.sumEdgeKind = sumEdgeKind;
+		this.relevantEdges = relevantEdges;
+		this.annotate = annotate;
+	}
+
+	/**
+	 * Computes the summary edges like {@link SummaryComputation#compute(WorkPackage, IProgressMonitor)}.
+	 * @param threads number of threads of the fork-join pool
+	 * @return the number of summary edges between formal-in and formal-out nodes of the entry points
+	 */
+	public static int compute(WorkPackage pack, int threads, IProgressMonitor progress) throws CancelException {
+		return compute(pack, SDGEdge.Kind.SUMMARY, SummaryComputation.defaultRelevantEdges(), null, threads,
+				progress);
+	}
+
+	/**
+	 * Computes summary edges of the given kind that follow the given kinds of edges.
+	 * @param annotate label of the new summary edges, may be null
+	 * @param threads number of threads of the fork-join pool
+	 * @return the number of summary edges between formal-in and formal-out nodes of the entry points
+	 */
+	public static int compute(WorkPackage pack, SDGEdge.Kind sumEdgeKind, Set<SDGEdge.Kind> relevantEdges,
+			String annotate, int threads, IProgressMonitor progress) throws CancelException {
+		ParallelSummaryComputation comp = new ParallelSummaryComputation(pack.getGraph(),
+				pack.getAllFormalInIds(), pack.getRelevantProcIds(), pack.getFullyConnected(), pack.getOut2In(),
+				pack.getRememberReached(), sumEdgeKind, relevantEdges, annotate);
+		Collection<SDGEdge> summary = comp.computeSummaryEdges(Math.max(1, threads), progress);
+
+		for (SDGEdge edge : summary) {
+			pack.addSummaryDep(edge.getSource().getId(), edge.getTarget().getId());
+		}
+
+		// set work package to immutable and sort summary edges
+		pack.workIsDone();
+
+		return summary.size();
+	}
+
+	private Collection<SDGEdge> computeSummaryEdges(int threads, IProgressMonitor progress) throws CancelException {
+		// the formal-out nodes each component starts from
+		final TIntObjectHashMap<List<SDGNode>> startsOfProc = new TIntObjectHashMap<List<SDGNode>>();
+		for (SDGNode n : graph.vertexSet()) {
+			if (n.getKind() == SDGNode.Kind.FORMAL_OUT || n.getKind() == SDGNode.Kind.EXIT) {
+				if (relevantProcs != null && !relevantProcs.contains(n.getProc())) {
+					continue;
+				}
+
+				if (fullyConnected != null && fullyConnected.contains(n.getId())) {
+					continue;
+				}
+
+				List<SDGNode> starts = startsOfProc.get(n.getProc());
+				if (starts == null) {
+					starts = new ArrayList<SDGNode>();
+					startsOfProc.put(n.getProc(), starts);
+				}
+				starts.add(n);
+			}
+		}
+
+		final List<SCCTask> tasks = createTasks(startsOfProc, progress);
+		final CountDownLatch done = new CountDownLatch(tasks.size());
+		for (SCCTask task : tasks) {
+			task.done = done;
+		}
+
+		// collect the leafs first, as running tasks already decrement the counters of their callers
+		final List<SCCTask> leafs = new ArrayList<SCCTask>();
+		for (SCCTask task : tasks) {
+			if (task.pendingCallees.get() == 0) {
+				leafs.add(task);
+			}
+		}
+
+		final ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			for (SCCTask task : leafs) {
+				pool.execute(task);
+			}
+			done.await();
+		} catch (InterruptedException e) {
+			throw CancelException.make("interrupted while computing summary edges");
+		} finally {
+			pool.shutdownNow();
+		}
+
+		final Throwable error = failure.get();
+		if (error instanceof CancelException) {
+			throw (CancelException) error;
+		} else if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		} else if (error instanceof Error) {
+			throw (Error) error;
+		} else if (error != null) {
+			throw new IllegalStateException(error);
+		}
+
+		for (Map.Entry<SDGNode, Set<SDGNode>> entry : newSummaryIns.entrySet()) {
+			final SDGNode ao = entry.getKey();
+			for (SDGNode ai : entry.getValue()) {
+				graph.addEdge(ai, ao, newSummaryEdge(ai, ao));
+			}
+		}
+
+		return new ArrayList<SDGEdge>(formInOutSummaryEdges);
+	}
+
+	/**
+	 * Creates a task for each strongly connected component of the call graph, connected to the tasks of
+	 * its calling components.
+	 */
+	private List<SCCTask> createTasks(TIntObjectHashMap<List<SDGNode>> startsOfProc, IProgressMonitor progress)
+			throws CancelException {
+		final Graph<Integer> callGraph = SlowSparseNumberedGraph.make();
+		for (SDGNode n : graph.vertexSet()) {
+			if (!callGraph.containsNode(n.getProc())) {
+				callGraph.addNode(n.getProc());
+			}
+		}
+
+		for (SDGEdge e : graph.edgeSet()) {
+			final int from = e.getSource().getProc();
+			final int to = e.getTarget().getProc();
+			if (from == to) {
+				continue;
+			}
+
+			switch (e.getKind()) {
+			case CALL:
+			case PARAMETER_IN:
+				callGraph.addEdge(from, to);
+				break;
+			case PARAMETER_OUT:
+				callGraph.addEdge(to, from);
+				break;
+			default:
+				if (isFollowed(e)) {
+					// path edges cross this edge, so both procedures have to be computed together
+					callGraph.addEdge(from, to);
+					callGraph.addEdge(to, from);
+				}
+				break;
+			}
+		}
+		MonitorUtil.throwExceptionIfCanceled(progress);
+
+		final List<SCCTask> tasks = new ArrayList<SCCTask>();
+		final Map<Integer, SCCTask> taskOfProc = new HashMap<Integer, SCCTask>();
+		final SCCIterator<Integer> sccs = new SCCIterator<Integer>(callGraph);
+		while (sccs.hasNext()) {
+			final SCCTask task = new SCCTask(startsOfProc, sccs.next(), progress);
+			for (Integer proc : task.procs) {
+				taskOfProc.put(proc, task);
+			}
+			tasks.add(task);
+		}
+
+		for (SCCTask task : tasks) {
+			final Set<SCCTask> callees = new HashSet<SCCTask>();
+			for (Integer proc : task.procs) {
+				for (Iterator<Integer> it = callGraph.getSuccNodes(proc); it.hasNext();) {
+					final SCCTask callee = taskOfProc.get(it.next());
+					if (callee != task) {
+						callees.add(callee);
+					}
+				}
+			}
+			task.pendingCallees.set(callees.size());
+			for (SCCTask callee : callees) {
+				callee.callers.add(task);
+			}
+		}
+
+		return tasks;
+	}
+
+	private boolean isFollowed(SDGEdge e) {
+		final SDGEdge.Kind kind = e.getKind();
+		return kind == sumEdgeKind || kind == SDGEdge.Kind.CONTROL_DEP_EXPR || relevantEdges.contains(kind);
+	}
+
+	private SDGEdge newSummaryEdge(SDGNode source, SDGNode target) {
+		if (annotate != null && !annotate.isEmpty()) {
+			return new SDGEdge(source, target, sumEdgeKind, annotate);
+		} else {
+			return new SDGEdge(source, target, sumEdgeKind);
+		}
+	}
+
+	/**
+	 * @return true iff the summary edge is new
+	 */
+	private boolean addSummary(SDGNode ai, SDGNode ao) {
+		Set<SDGNode> ins = newSummaryIns.get(ao);
+		if (ins == null) {
+			final Set<SDGNode> fresh = Collections.newSetFromMap(new ConcurrentHashMap<SDGNode, Boolean>());
+			ins = newSummaryIns.putIfAbsent(ao, fresh);
+			if (ins == null) {
+				ins = fresh;
+			}
+		}
+
+		return ins.add(ai);
+	}
+
+	private boolean hasSummary(SDGNode ai, SDGNode ao) {
+		final Set<SDGNode> ins = newSummaryIns.get(ao);
+		return ins != null && ins.contains(ai);
+	}
+
+	/**
+	 * Computes the path edges of a strongly connected component of the call graph. Runs after the tasks of all
+	 * components it calls are done and starts the tasks of the calling components that have no other pending
+	 * callees.
+	 */
+	private final class SCCTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Set<Integer> procs;
+		private final List<SDGNode> starts = new ArrayList<SDGNode>();
+		private final IProgressMonitor progress;
+		private final List<SCCTask> callers = new ArrayList<SCCTask>();
+		private final AtomicInteger pendingCallees = new AtomicInteger();
+		private CountDownLatch done;
+
+		private final Set<Edge> pathEdge = new HashSet<Edge>();
+		private final Map<SDGNode, List<SDGNode>> aoPaths = new HashMap<SDGNode, List<SDGNode>>();
+		private final ArrayDeque<Edge> worklist = new ArrayDeque<Edge>();
+
+		private SCCTask(TIntObjectHashMap<List<SDGNode>> startsOfProc, Set<Integer> procs,
+				IProgressMonitor progress) {
+			this.procs = procs;
+			this.progress = progress;
+			for (Integer proc : procs) {
+				final List<SDGNode> s = startsOfProc.get(proc);
+				if (s != null) {
+					starts.addAll(s);
+				}
+			}
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				if (failure.get() == null) {
+					run();
+				}
+			} catch (Throwable t) {
+				failure.compareAndSet(null, t);
+			} finally {
+				pathEdge.clear();
+				aoPaths.clear();
+				worklist.clear();
+				for (SCCTask caller : callers) {
+					if (caller.pendingCallees.decrementAndGet() == 0) {
+						caller.fork();
+					}
+				}
+				done.countDown();
+			}
+		}
+
+		private void run() throws CancelException {
+			for (SDGNode n : starts) {
+				final Edge e = new Edge(n, n);
+				pathEdge.add(e);
+				worklist.add(e);
+			}
+
+			while (!worklist.isEmpty()) {
+				MonitorUtil.throwExceptionIfCanceled(progress);
+
+				final Edge next = worklist.poll();
+				final SDGNode source = next.source;
+				final SDGNode target = next.target;
+
+				switch (source.getKind()) {
+				case ACTUAL_OUT:
+					if (fullyConnected != null && fullyConnected.contains(source.getId())) {
+						propagateAllActIns(source, target);
+					} else {
+						for (SDGEdge e : graph.incomingEdgesOf(source)) {
+							final SDGEdge.Kind kind = e.getKind();
+							if (kind == sumEdgeKind
+									|| ((kind == SDGEdge.Kind.DATA_DEP || kind == SDGEdge.Kind.DATA_HEAP
+											|| kind == SDGEdge.Kind.DATA_ALIAS) && relevantEdges.contains(kind))
+									|| (kind == SDGEdge.Kind.CONTROL_DEP_EXPR
+											&& e.getSource().getKind() == SDGNode.Kind.CALL)) {
+								propagate(e.getSource(), target);
+							}
+						}
+						// summary edges computed by the called components or by this task
+						final Set<SDGNode> ins = newSummaryIns.get(source);
+						if (ins != null) {
+							for (SDGNode ai : ins) {
+								propagate(ai, target);
+							}
+						}
+					}
+					break;
+
+				case FORMAL_IN:
+					// source is relevant formal in then:
+					if (relevantFormalIns.contains(source.getId())) {
+						formInOutSummaryEdges.add(newSummaryEdge(source, target));
+					}
+
+					for (SDGNode[] aiao : aiaoPairs(source, target)) {
+						final SDGNode ai = aiao[0];
+						final SDGNode ao = aiao[1];
+						if (ai == null || ao == null) continue;
+
+						if (graph.containsEdge(ai, ao) || hasSummary(ai, ao)) continue; // already connected
+
+						// the path edges of ao are only known if the call site belongs to this component,
+						// otherwise the caller is computed later and sees the new summary edge
+						if (addSummary(ai, ao)) {
+							final List<SDGNode> aoTargets = aoPaths.get(ao);
+							if (aoTargets != null) {
+								for (int i = 0; i < aoTargets.size(); i++) {
+									propagate(ai, aoTargets.get(i));
+								}
+							}
+						}
+					}
+					for (SDGEdge e : graph.incomingEdgesOf(source)) {
+						final SDGEdge.Kind kind = e.getKind();
+						if ((kind == SDGEdge.Kind.DATA_DEP || kind == SDGEdge.Kind.DATA_HEAP
+								|| kind == SDGEdge.Kind.DATA_ALIAS) && relevantEdges.contains(kind)) {
+							propagate(e.getSource(), target);
+						}
+					}
+					break;
+
+				case ACTUAL_IN:
+					if (rememberReached) {
+						final BitVector bv = source.bv;
+						final int id = target.tmp;
+
+						if (bv.contains(id)) {
+							continue;
+						}
+
+						bv.set(id);
+					}
+
+					for (SDGEdge e : graph.incomingEdgesOf(source)) {
+						if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR) {
+							if (e.getSource().getKind() == SDGNode.Kind.CALL) {
+								propagate(e.getSource(), target);
+							}
+						} else if (relevantEdges.contains(e.getKind())) {
+							propagate(e.getSource(), target);
+						}
+					}
+					break;
+
+				case FORMAL_OUT:
+				case EXIT:
+					if (fullyConnected != null && fullyConnected.contains(source.getId())) {
+						propagateAllActIns(source, target);
+					} else {
+						for (SDGEdge e : graph.incomingEdgesOf(source)) {
+							if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR) {
+								if (e.getSource().getKind() == SDGNode.Kind.ENTRY) {
+									propagate(e.getSource(), target);
+								}
+							} else if (relevantEdges.contains(e.getKind())) {
+								propagate(e.getSource(), target);
+							}
+						}
+					}
+					break;
+
+				default:
+					for (SDGEdge e : graph.incomingEdgesOf(source)) {
+						if (relevantEdges.contains(e.getKind())) {
+							propagate(e.getSource(), target);
+						}
+					}
+					break;
+				}
+			}
+		}
+
+		private void propagateAllActIns(SDGNode outNode, SDGNode target) {
+			for (SDGNode inNode : out2in.get(outNode.getId())) {
+				propagate(inNode, target);
+			}
+		}
+
+		private void propagate(SDGNode source, SDGNode target) {
+			if (relevantProcs != null && !(relevantProcs.contains(source.getProc())
+					&& relevantProcs.contains(target.getProc()))) {
+				return;
+			}
+
+			final Edge e = new Edge(source, target);
+			if (pathEdge.add(e)) {
+				worklist.add(e);
+
+				if (source.getKind() == SDGNode.Kind.ACTUAL_OUT) {
+					List<SDGNode> targets = aoPaths.get(source);
+					if (targets == null) {
+						targets = new ArrayList<SDGNode>();
+						aoPaths.put(source, targets);
+					}
+					targets.add(target);
+				}
+			}
+		}
+
+		private Collection<SDGNode[]> aiaoPairs(SDGNode formIn, SDGNode formOut) {
+			final Map<SDGNode, SDGNode[]> result = new HashMap<SDGNode, SDGNode[]>();
+
+			for (SDGEdge pi : graph.incomingEdgesOf(formIn)) {
+				if (pi.getKind() == SDGEdge.Kind.PARAMETER_IN) {
+					final SDGNode ai = pi.getSource();
+					final SDGNode call = getCallSiteFor(ai);
+
+					if (call != null) {
+						result.put(call, new SDGNode[] { ai, null });
+					}
+				}
+			}
+
+			for (SDGEdge po : graph.outgoingEdgesOf(formOut)) {
+				if (po.getKind() == SDGEdge.Kind.PARAMETER_OUT) {
+					final SDGNode ao = po.getTarget();
+					final SDGNode call = getCallSiteFor(ao);
+
+					final SDGNode[] pair = result.get(call);
+					if (pair != null) {
+						pair[1] = ao;
+					}
+				}
+			}
+
+			return result.values();
+		}
+
+		private SDGNode getCallSiteFor(SDGNode node) {
+			if (node.getKind() != SDGNode.Kind.ACTUAL_IN && node.getKind() != SDGNode.Kind.ACTUAL_OUT) {
+				return null;
+			}
+
+			SDGNode n = node;
+			while (true) {
+				// follow control-dependence-expression edges to the call node
+				for (SDGEdge e : graph.incomingEdgesOf(n)) {
+					if (e.getKind() == SDGEdge.Kind.CONTROL_DEP_EXPR) {
+						if (e.getSource().getKind() == SDGNode.Kind.CALL) {
+							return e.getSource();
+						}
+						n = e.getSource();
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	private static final class Edge {
+		private final SDGNode source;
+		private final SDGNode target;
+
+		private Edge(SDGNode source, SDGNode target) {
+			this.source = source;
+			this.target = target;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o instanceof Edge) {
+				Edge e = (Edge) o;
+				return (e.source == source && e.target == target);
+			} else {
+				return false;
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return source.getId() * 31 + target.getId();
+		}
+
+		@Override
+		public String toString() {
+			return source.getId() + " -> " + target.getId();
+		}
+	}
+
+}
@@ -65,6 +65,10 @@ public class SummaryComputation {
 	}
 
 	public static int compute(WorkPackage pack, IProgressMonitor progress) throws CancelException {
+		return compute(pack, SDGEdge.Kind.SUMMARY, defaultRelevantEdges(), progress);
+	}
+
+	static Set<SDGEdge.Kind> defaultRelevantEdges() {
 		// default summary computation follows control and date dependencies
 		Set<SDGEdge.Kind> relevantEdges = new HashSet<SDGEdge.Kind>();
 		relevantEdges.add(SDGEdge.Kind.DATA_DEP);
@@ -83,7 +87,7 @@ public class SummaryComputation {
 		relevantEdges.add(SDGEdge.Kind.SUMMARY_NO_ALIAS);
 		relevantEdges.add(SDGEdge.Kind.SYNCHRONIZATION);
 
-		return compute(pack, SDGEdge.Kind.SUMMARY, relevantEdges, progress);
+		return relevantEdges;
 	}
 
 	public static int computeAdjustedAliasDep(WorkPackage pack, IProgressMonitor progress) throws CancelException {
@@ -20,8 +20,12 @@ import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.Collections;
 import java.util.List;
@@ -213,6 +217,100 @@ public class WorkPackage {
 			return ep;
 		}
 
+		/**
+		 * Writes the entry point in the binary format used by {@link EntryPointStore}: the entry id, the sorted
+		 * formal-ins and formal-outs and, for each formal-in in this order, the formal-outs it influences.
+		 * Each list is prefixed by its length.
+		 */
+		public static void writeOut(DataOutput out, EntryPoint ep) throws IOException {
+			out.writeInt(ep.entryId);
+
+			final TIntList sortedIns = new TIntArrayList(ep.formalIns);
+			sortedIns.sort();
+			writeIntList(out, sortedIns);
+
+			final TIntList sortedOuts = new TIntArrayList(ep.formalOuts);
+			sortedOuts.sort();
+			writeIntList(out, sortedOuts);
+
+			TIntIterator it = sortedIns.iterator();
+			while (it.hasNext()) {
+				final TIntList summary = ep.formIn2out.get(it.next());
+				if (summary == null) {
+					out.writeInt(0);
+				} else {
+					writeIntList(out, summary);
+				}
+			}
+		}
+
+		private static void writeIntList(DataOutput out, TIntList list) throws IOException {
+			out.writeInt(list.size());
+
+			TIntIterator it = list.iterator();
+			while (it.hasNext()) {
+				out.writeInt(it.next());
+			}
+		}
+
+		/**
+		 * Reads an entry point written by {@link #writeOut(DataOutput, EntryPoint)}. The buffer has to contain
+		 * exactly one entry point.
+		 */
+		public static EntryPoint readIn(ByteBuffer in) throws ParseException {
+			if (in == null) {
+				throw new IllegalArgumentException();
+			}
+
+			EntryPoint ep = null;
+
+			try {
+				final int entryId = in.getInt();
+				final int[] formIns = readIntArray(in);
+				final int[] formOuts = readIntArray(in);
+
+				ep = new EntryPoint(entryId, new TIntHashSet(formIns), new TIntHashSet(formOuts));
+
+				for (int formInId : formIns) {
+					final int numOuts = readLength(in);
+					for (int i = 0; i < numOuts; i++) {
+						ep.addSummaryDep(formInId, in.getInt());
+					}
+				}
+			} catch (BufferUnderflowException exc) {
+				throw new ParseException("Entry point data is truncated.", in.position());
+			}
+
+			if (in.hasRemaining()) {
+				throw new ParseException(in.remaining() + " bytes left after entry point " + ep.entryId, in.position());
+			}
+
+			if (SORT_SUMMARY_EDGES) {
+				ep.sortSummaries();
+			}
+
+			return ep;
+		}
+
+		private static int[] readIntArray(ByteBuffer in) throws ParseException {
+			final int[] arr = new int[readLength(in)];
+			for (int i = 0; i < arr.length; i++) {
+				arr[i] = in.getInt();
+			}
+
+			return arr;
+		}
+
+		private static int readLength(ByteBuffer in) throws ParseException {
+			final int length = in.getInt();
+			// each element needs at least 4 bytes, so larger lengths are corrupt data
+			if (length < 0 || length > in.remaining() / 4) {
+				throw new ParseException("Illegal list length " + length, in.position() - 4);
+			}
+
+			return length;
+		}
+
 		private static TIntSet readIntSet(Scanner scan) {
 			TIntSet set = new TIntHashSet();
 
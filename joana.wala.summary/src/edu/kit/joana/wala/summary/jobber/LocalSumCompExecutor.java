@@ -0,0 +1,462 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.summary.jobber;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.ifc.sdg.graph.SDGSerializer;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.CallGraph;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.FoldedCallGraph;
+import edu.kit.joana.ifc.sdg.graph.slicer.graph.building.GraphFolder;
+import edu.kit.joana.wala.summary.EntryPointCache;
+import edu.kit.joana.wala.summary.EntryPointCache.LoadEntryPointException;
+import edu.kit.joana.wala.summary.ForwardReachablilitySlicer;
+import edu.kit.joana.wala.summary.GraphUtil;
+import edu.kit.joana.wala.summary.NullProgressMonitor;
+import edu.kit.joana.wala.summary.SummaryComputation;
+import edu.kit.joana.wala.summary.WorkPackage;
+import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
+import gnu.trove.TIntCollection;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.list.TIntList;
+import gnu.trove.map.TIntObjectMap;
+
+/**
+ * Computes the summary edges of an sdg with the same work packages as {@link SumCompManager}, but runs them on
+ * a local thread pool instead of sending them to jobber workers. There is one work package for each strongly
+ * connected component of the call graph, and a package is started as soon as the packages of all components it
+ * calls are done.<p>
+ *
+ * The subgraphs of the packages are never written to disk, and the summary info of the entrypoints is passed
+ * from the callees to the callers through an in-memory {@link EntryPointCache}. If a cache directory is given,
+ * the entrypoints are stored there as well, in a single {@link edu.kit.joana.wala.summary.EntryPointStore},
+ * together with a fingerprint of the subgraph of their package. The subgraph already contains the summary info
+ * of the callees, so a later run reuses the stored entrypoints of a package instead of computing them if the
+ * package and everything it calls are unchanged.<p>
+ *
+ * The time needed for each package is recorded, see {@link #getTimings()}.
+ *
+ * @see SumCompManager
+ */
+public class LocalSumCompExecutor {
+
+	/**
+	 * Time and size of a single work package.
+	 */
+	public static final class PackageTiming {
+		private final String name;
+		private final int procedures;
+		private final int nodes;
+		private final long stripMs;
+		private final long computeMs;
+		private final int summaryEdges;
+
+		private PackageTiming(String name, int procedures, int nodes, long stripMs, long computeMs,
+				int summaryEdges) {
+			this.name = name;
+			this.procedures = procedures;
+			this.nodes = nodes;
+			this.stripMs = stripMs;
+			this.computeMs = computeMs;
+			this.summaryEdges = summaryEdges;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/** @return the number of procedures of the strongly connected component */
+		public int getProcedures() {
+			return procedures;
+		}
+
+		/** @return the number of nodes of the subgraph */
+		public int getNodes() {
+			return nodes;
+		}
+
+		/** @return time needed to extract the subgraph and add the summary info of the callees */
+		public long getStripMs() {
+			return stripMs;
+		}
+
+		/** @return time needed by the summary computation */
+		public long getComputeMs() {
+			return computeMs;
+		}
+
+		/** @return number of summary edges between formal nodes of the entrypoints */
+		public int getSummaryEdges() {
+			return summaryEdges;
+		}
+
+		public String toString() {
+			return name + "\t" + procedures + "\t" + nodes + "\t" + stripMs + "\t" + computeMs + "\t" + summaryEdges;
+		}
+	}
+
+	private final SDG sdg;
+	private final int threads;
+	private final EntryPointCache cache;
+	private final boolean reuseStored;
+	private final List<PackageTiming> timings = Collections.synchronizedList(new LinkedList<PackageTiming>());
+
+	/**
+	 * @param sdg the sdg whose summary edges are computed
+	 * @param threads number of work packages computed at the same time
+	 * @param cacheDir directory the summary info of the entrypoints is stored in, or null to keep it in
+	 * memory only
+	 */
+	public LocalSumCompExecutor(SDG sdg, int threads, String cacheDir) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Number of threads has to be positive: " + threads);
+		}
+
+		this.sdg = sdg;
+		this.threads = threads;
+		this.cache = (cacheDir == null ? EntryPointCache.createInMemory() : EntryPointCache.createIndexed(cacheDir));
+		this.reuseStored = (cacheDir != null);
+	}
+
+	/**
+	 * Closes the summary store in the cache directory, if any.
+	 */
+	public void close() throws IOException {
+		cache.close();
+	}
+
+	public static void main(String[] args) throws IOException, CancelException, LoadEntryPointException {
+		if (args.length < 2 || args.length > 3) {
+			System.out.println("Usage: java -cp sumcomp.jar edu.kit.joana.wala.summary.jobber.LocalSumCompExecutor <sdg> <threads> [<cache dir>]");
+			return;
+		}
+
+		info("Reading SDG from file \"" + args[0] + "\"...");
+		final SDG sdg = SDG.readFrom(args[0]);
+		final LocalSumCompExecutor exec = new LocalSumCompExecutor(sdg, Integer.parseInt(args[1]),
+				(args.length == 3 ? args[2] : null));
+		try {
+			exec.run(NullProgressMonitor.INSTANCE);
+		} finally {
+			exec.close();
+		}
+
+		info("work package\tprocedures\tnodes\tstrip ms\tcompute ms\tsummary edges");
+		for (PackageTiming t : exec.getTimings()) {
+			info(t.toString());
+		}
+
+		info("Writing SDG to file \"" + args[0] + "\"...");
+		final BufferedOutputStream bOs = new BufferedOutputStream(new FileOutputStream(args[0]));
+		SDGSerializer.toPDGFormat(sdg, bOs);
+		bOs.close();
+
+		info("All done.");
+	}
+
+	/**
+	 * Computes the summary info of all work packages and adds the resulting summary edges to the sdg.
+	 */
+	public void run(IProgressMonitor progress) throws CancelException, LoadEntryPointException {
+		info("Extracting call graph...");
+		final CallGraph cg = GraphUtil.buildCallGraph(sdg);
+
+		info("Folding strongly connected components...");
+		final FoldedCallGraph fcg = GraphFolder.foldCallGraph(cg);
+		final Set<SDGNode> reachable = ForwardReachablilitySlicer.slice(fcg, fcg.getRoot());
+		// the root is never a leaf, so the jobber manager has no package for it either. Its summary info is
+		// not needed, as it has no callers.
+		reachable.remove(fcg.getRoot());
+
+		final List<Package> packages = createPackages(fcg, cg, reachable);
+		info("\t" + packages.size() + " work packages");
+
+		final TIntObjectMap<List<SDGNode>> nodesOfProc = GraphUtil.nodesOfProcedures(sdg);
+		final CountDownLatch done = new CountDownLatch(packages.size());
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final ExecutorService pool = Executors.newFixedThreadPool(threads);
+		final long start = System.currentTimeMillis();
+
+		try {
+			// collect the leafs first, as running packages already decrement the counters of their callers
+			final List<Package> leafs = new ArrayList<Package>();
+			for (Package pack : packages) {
+				pack.init(pool, fcg, nodesOfProc, done, failure, progress);
+				if (pack.pendingCallees.get() == 0) {
+					leafs.add(pack);
+				}
+			}
+			for (Package pack : leafs) {
+				pool.execute(pack);
+			}
+			done.await();
+		} catch (InterruptedException e) {
+			throw CancelException.make("Interrupted while waiting for work packages.");
+		} finally {
+			pool.shutdownNow();
+		}
+
+		final Throwable error = failure.get();
+		if (error instanceof CancelException) {
+			throw (CancelException) error;
+		} else if (error instanceof LoadEntryPointException) {
+			throw (LoadEntryPointException) error;
+		} else if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		} else if (error instanceof Error) {
+			throw (Error) error;
+		} else if (error != null) {
+			throw new IllegalStateException("Work package failed.", error);
+		}
+
+		info("All " + packages.size() + " work packages done in " + (System.currentTimeMillis() - start) + "ms.");
+
+		info("Merging summaryedges into sdg...");
+		SumCompManager.mergeSummaries(sdg, cache);
+	}
+
+	/**
+	 * @return the timings of the packages computed so far, the most expensive ones first
+	 */
+	public List<PackageTiming> getTimings() {
+		final List<PackageTiming> sorted;
+		synchronized (timings) {
+			sorted = new ArrayList<PackageTiming>(timings);
+		}
+
+		Collections.sort(sorted, new Comparator<PackageTiming>() {
+			@Override
+			public int compare(PackageTiming t1, PackageTiming t2) {
+				return Long.compare(t2.stripMs + t2.computeMs, t1.stripMs + t1.computeMs);
+			}
+		});
+
+		return sorted;
+	}
+
+	private List<Package> createPackages(FoldedCallGraph fcg, CallGraph cg, Set<SDGNode> reachable) {
+		final List<Package> packages = new ArrayList<Package>();
+		final Map<SDGNode, Package> packageOfNode = new HashMap<SDGNode, Package>();
+
+		for (SDGNode node : reachable) {
+			final JobMessage msg = new JobMessage(SumCompManager.makeSubgraphName(fcg, node));
+
+			for (TIntIterator it = SumCompManager.findEntryIds(fcg, cg, node).iterator(); it.hasNext();) {
+				msg.addEntry(it.next());
+			}
+
+			for (TIntIterator it = SumCompManager.findExitIds(fcg, cg, node).iterator(); it.hasNext();) {
+				msg.addExitPoint(it.next());
+			}
+
+			msg.setNode(node);
+
+			final Package pack = new Package(msg);
+			packages.add(pack);
+			packageOfNode.put(node, pack);
+		}
+
+		// a package depends on the packages of all components it calls
+		for (Package pack : packages) {
+			final Set<Package> callees = new HashSet<Package>();
+			for (SDGEdge edge : fcg.outgoingEdgesOf(pack.job.getNode())) {
+				final Package callee = packageOfNode.get(edge.getTarget());
+				if (callee != null && callee != pack) {
+					callees.add(callee);
+				}
+			}
+
+			pack.pendingCallees.set(callees.size());
+			for (Package callee : callees) {
+				callee.callers.add(pack);
+			}
+		}
+
+		return packages;
+	}
+
+	/**
+	 * A work package that is run by the thread pool. Does the same as {@link SumCompWorker#work} without
+	 * reading the subgraph from a file, and starts the packages of the callers that have no pending callees
+	 * left when it is done.
+	 */
+	private final class Package implements Runnable {
+		private final JobMessage job;
+		private final List<Package> callers = new LinkedList<Package>();
+		private final AtomicInteger pendingCallees = new AtomicInteger();
+
+		private ExecutorService pool;
+		private FoldedCallGraph fcg;
+		private TIntObjectMap<List<SDGNode>> nodesOfProc;
+		private CountDownLatch done;
+		private AtomicReference<Throwable> failure;
+		private IProgressMonitor progress;
+
+		private Package(JobMessage job) {
+			this.job = job;
+		}
+
+		private void init(ExecutorService pool, FoldedCallGraph fcg, TIntObjectMap<List<SDGNode>> nodesOfProc,
+				CountDownLatch done, AtomicReference<Throwable> failure, IProgressMonitor progress) {
+			this.pool = pool;
+			this.fcg = fcg;
+			this.nodesOfProc = nodesOfProc;
+			this.done = done;
+			this.failure = failure;
+			this.progress = progress;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (failure.get() == null) {
+					compute();
+				}
+			} catch (Throwable t) {
+				failure.compareAndSet(null, t);
+			} finally {
+				for (Package caller : callers) {
+					if (caller.pendingCallees.decrementAndGet() == 0) {
+						pool.execute(caller);
+					}
+				}
+				done.countDown();
+			}
+		}
+
+		private void compute() throws CancelException, LoadEntryPointException {
+			MonitorUtil.throwExceptionIfCanceled(progress);
+
+			final long start = System.currentTimeMillis();
+			final SDGNode node = job.getNode();
+			final List<SDGNode> entries = (node.getKind() == SDGNode.Kind.FOLDED
+					? fcg.getFoldedNodesOf(node) : Collections.singletonList(node));
+
+			// 1. extract subgraph
+			final SDG subgraph = GraphUtil.stripGraph(sdg, entries, nodesOfProc);
+			subgraph.setName(job.getSubgraphFile());
+			job.setSize(subgraph.vertexSet().size());
+
+			// 2. adjust graph with summaryinfo of exitpoints
+			GraphUtil.adjustSubgraphWithSummaries(subgraph, job.getExitPoints(), cache);
+
+			// reuse the entrypoints of a previous run on the same subgraph
+			final long fingerprint = (reuseStored ? fingerprint(subgraph, job.getEntries())
+					: EntryPointCache.NO_FINGERPRINT);
+			if (cache.reuseStored(job.getEntries(), fingerprint)) {
+				timings.add(new PackageTiming(job.getSubgraphFile(), entries.size(), job.getSize(),
+						System.currentTimeMillis() - start, 0, countSummaryEdges(job.getEntries())));
+				return;
+			}
+
+			// 3. create entrypoints and workpackage
+			final Set<EntryPoint> entryPoints = SumCompWorker.createEntryPoints(subgraph, job.getEntries());
+			final WorkPackage wp = WorkPackage.create(subgraph, entryPoints, job.getSubgraphFile());
+			final long stripped = System.currentTimeMillis();
+
+			// 4. run summary computation on workpackage
+			final int summaryEdges = SummaryComputation.compute(wp, progress);
+			final long computed = System.currentTimeMillis();
+
+			// 5. save summary info of entrypoints in cache
+			for (EntryPoint ep : entryPoints) {
+				try {
+					cache.put(ep, fingerprint);
+				} catch (EntryPointCache.StoreEntryPointException e) {
+					throw new IllegalStateException("Could not store summary info of " + job, e);
+				}
+			}
+
+			timings.add(new PackageTiming(job.getSubgraphFile(), entries.size(), job.getSize(),
+					stripped - start, computed - stripped, summaryEdges));
+		}
+	}
+
+	/**
+	 * Computes a fingerprint of the subgraph of a package: its entries and the ids, kinds, procedures and labels
+	 * of its nodes and the kinds of its edges, including the summary edges of the callees. The order of the
+	 * nodes and edges does not matter.
+	 */
+	private static long fingerprint(SDG subgraph, TIntCollection entryIds) {
+		long fingerprint = subgraph.vertexSet().size() * 31L + subgraph.edgeSet().size();
+
+		for (TIntIterator it = entryIds.iterator(); it.hasNext();) {
+			fingerprint += mix(it.next());
+		}
+
+		for (SDGNode n : subgraph.vertexSet()) {
+			long h = n.getId();
+			h = h * 31 + n.getKind().name().hashCode();
+			h = h * 31 + n.getProc();
+			h = h * 31 + (n.getLabel() == null ? 0 : n.getLabel().hashCode());
+			fingerprint += mix(h);
+		}
+
+		for (SDGEdge e : subgraph.edgeSet()) {
+			long h = e.getSource().getId();
+			h = h * 31 + e.getTarget().getId();
+			h = h * 31 + e.getKind().name().hashCode();
+			fingerprint += mix(h ^ 0x5DEECE66DL);
+		}
+
+		return (fingerprint == EntryPointCache.NO_FINGERPRINT ? 1 : fingerprint);
+	}
+
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	private int countSummaryEdges(TIntCollection entryIds) throws LoadEntryPointException {
+		int summaryEdges = 0;
+
+		for (TIntIterator it = entryIds.iterator(); it.hasNext();) {
+			final EntryPoint ep = cache.getEntryPoint(it.next());
+			for (TIntIterator itIn = ep.iterateFormalIns(); itIn.hasNext();) {
+				final TIntList outs = ep.getInfluencedFormOuts(itIn.next());
+				if (outs != null) {
+					summaryEdges += outs.size();
+				}
+			}
+		}
+
+		return summaryEdges;
+	}
+
+	private static void info(String str) {
+		System.out.println(str);
+	}
+
+}
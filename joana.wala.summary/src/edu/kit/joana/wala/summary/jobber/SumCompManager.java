@@ -195,6 +195,17 @@ public class SumCompManager extends ManagerClient {
 	private static void mergeComputedSummariesToSDG(SDG sdg, String cacheDir, String sdgFile) throws LoadEntryPointException, FileNotFoundException {
 		EntryPointCache cache = EntryPointCache.create(cacheDir);
 
+		mergeSummaries(sdg, cache);
+
+		final FileOutputStream fOs = new FileOutputStream(sdgFile);
+		final BufferedOutputStream bOs = new BufferedOutputStream(fOs);
+		SDGSerializer.toPDGFormat(sdg, bOs);
+	}
+
+	/**
+	 * Adds the summary edges of the cached entrypoints to all call sites in the sdg.
+	 */
+	static void mergeSummaries(SDG sdg, EntryPointCache cache) throws LoadEntryPointException {
 		for (SDGNode node : sdg.vertexSet()) {
 			if (node.getKind() == SDGNode.Kind.ENTRY) {
 				Collection<SDGNode> callers = sdg.getCallers(node);
@@ -215,10 +226,6 @@ public class SumCompManager extends ManagerClient {
 				}
 			}
 		}
-
-		final FileOutputStream fOs = new FileOutputStream(sdgFile);
-		final BufferedOutputStream bOs = new BufferedOutputStream(fOs);
-		SDGSerializer.toPDGFormat(sdg, bOs);
 	}
 
 	private static int adjustCallsite(SDG sdg, SDGNode callNode, SDGNode callee, EntryPoint ep, SDG toAdjust) {
@@ -395,7 +402,7 @@ public class SumCompManager extends ManagerClient {
 		return msg;
 	}
 
-	private static TIntSet findExitIds(FoldedCallGraph fcg, CallGraph cg, SDGNode current) {
+	static TIntSet findExitIds(FoldedCallGraph fcg, CallGraph cg, SDGNode current) {
 		TIntSet exitPointIds = new TIntHashSet();
 
 		if (current.getKind() == SDGNode.Kind.FOLDED) {
@@ -420,7 +427,7 @@ public class SumCompManager extends ManagerClient {
 		return exitPointIds;
 	}
 
-	private static TIntSet findEntryIds(FoldedCallGraph fcg, CallGraph cg, SDGNode current) {
+	static TIntSet findEntryIds(FoldedCallGraph fcg, CallGraph cg, SDGNode current) {
 		TIntSet entryIds = new TIntHashSet();
 
 		if (current.getKind() == SDGNode.Kind.FOLDED) {
@@ -462,16 +469,33 @@ public class SumCompManager extends ManagerClient {
 
 	private static SDG createSubgraph(SDG sdg, FoldedCallGraph fcg, SDGNode node) {
 		SDG stripped = null;
-		String name = null;
 
 		if (node.getKind() != SDGNode.Kind.FOLDED) {
 			assert sdg.containsVertex(node) : "Not part of sdg: " + node.getKind() + "|" + node.getId() + " " + node.getLabel();
 			assert node.getKind() == SDGNode.Kind.ENTRY
 				: "Entry Node expected. Found: " + node.getKind() + "|" + node.getId() + " " + node.getLabel();
 
+			stripped = GraphUtil.stripGraph(sdg, node);
+		} else {
+			List<SDGNode> entries = fcg.getFoldedNodesOf(node);
+
+			stripped = GraphUtil.stripGraph(sdg, entries);
+		}
+
+		stripped.setName(makeSubgraphName(fcg, node));
+
+		return stripped;
+	}
+
+	/**
+	 * Creates the name of the subgraph of a node of the folded call graph. The names of different subgraphs
+	 * are unique.
+	 */
+	static String makeSubgraphName(FoldedCallGraph fcg, SDGNode node) {
+		String name = null;
 
+		if (node.getKind() != SDGNode.Kind.FOLDED) {
 			name = node.getId() + "-" + node.getLabel();
-			stripped = GraphUtil.stripGraph(sdg, node);
 		} else {
 			List<SDGNode> entries = fcg.getFoldedNodesOf(node);
 
@@ -483,8 +507,6 @@ public class SumCompManager extends ManagerClient {
 				}
 			}
 			name = name.substring(0, name.length() - 1);
-
-			stripped = GraphUtil.stripGraph(sdg, entries);
 		}
 
 		// limit long names to an arbitraty default
@@ -494,9 +516,8 @@ public class SumCompManager extends ManagerClient {
 		if (name.length() > MAX_FILENAME_LENGTH) {
 			name = name.substring(0, MAX_FILENAME_LENGTH) + "...";
 		}
-		stripped.setName("WP[" + name + "]");
 
-		return stripped;
+		return "WP[" + name + "]";
 	}
 
 	@Override
@@ -135,7 +135,7 @@ public class SumCompWorker extends WorkerClient {
 		return JobState.DONE;
 	}
 
-	private static Set<EntryPoint> createEntryPoints(SDG subgraph, TIntCollection entries) {
+	static Set<EntryPoint> createEntryPoints(SDG subgraph, TIntCollection entries) {
 		Set<EntryPoint> entryPoints = new HashSet<EntryPoint>();
 
 		TIntIterator it = entries.iterator();
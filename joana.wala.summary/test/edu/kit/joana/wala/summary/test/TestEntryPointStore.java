@@ -0,0 +1,146 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.summary.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.text.ParseException;
+
+import junit.framework.TestCase;
+
+import edu.kit.joana.wala.summary.EntryPointCache;
+import edu.kit.joana.wala.summary.EntryPointCache.LoadEntryPointException;
+import edu.kit.joana.wala.summary.EntryPointCache.StoreEntryPointException;
+import edu.kit.joana.wala.summary.EntryPointStore;
+import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Checks that an {@link EntryPointStore} keeps only the last version of each entrypoint when it is opened again,
+ * drops entrypoints whose data is missing or corrupt, and that a cache reuses only the entrypoints stored with a
+ * matching fingerprint.
+ */
+public class TestEntryPointStore extends TestCase {
+
+	private File dir;
+
+	@Override
+	protected void setUp() throws IOException {
+		dir = File.createTempFile("entrypoints", "");
+		assertTrue(dir.delete());
+		assertTrue(dir.mkdir());
+	}
+
+	@Override
+	protected void tearDown() {
+		for (File f : dir.listFiles()) {
+			f.delete();
+		}
+		dir.delete();
+	}
+
+	private static EntryPoint entryPoint(int entryId) {
+		return new EntryPoint(entryId, new TIntArrayList(new int[] { entryId + 1 }),
+				new TIntArrayList(new int[] { entryId + 2 }));
+	}
+
+	public void testCompactOnOpen() throws IOException, ParseException {
+		EntryPointStore store = EntryPointStore.open(dir);
+		store.store(entryPoint(1), 11);
+		store.store(entryPoint(2), 22);
+		store.store(entryPoint(1), 12);
+		store.close();
+		final long fullIndex = new File(dir, EntryPointStore.INDEX_FILE).length();
+		final long fullData = new File(dir, EntryPointStore.DATA_FILE).length();
+
+		store = EntryPointStore.open(dir);
+		try {
+			assertEquals(2, store.size());
+			assertNull(store.load(1, 11));
+			assertEquals(1, store.load(1, 12).getEntryId());
+			assertEquals(2, store.load(2, 22).getEntryId());
+		} finally {
+			store.close();
+		}
+		assertTrue(new File(dir, EntryPointStore.INDEX_FILE).length() < fullIndex);
+		assertTrue(new File(dir, EntryPointStore.DATA_FILE).length() < fullData);
+	}
+
+	public void testDropEntryPastEndOfData() throws IOException, ParseException {
+		EntryPointStore store = EntryPointStore.open(dir);
+		store.store(entryPoint(1), 11);
+		store.store(entryPoint(2), 22);
+		store.close();
+		final RandomAccessFile data = new RandomAccessFile(new File(dir, EntryPointStore.DATA_FILE), "rw");
+		try {
+			data.setLength(data.length() - 1);
+		} finally {
+			data.close();
+		}
+
+		store = EntryPointStore.open(dir);
+		try {
+			assertEquals(1, store.size());
+			assertEquals(1, store.load(1, 11).getEntryId());
+			assertNull(store.load(2));
+		} finally {
+			store.close();
+		}
+	}
+
+	public void testDropCorruptEntryOnCompaction() throws IOException, ParseException {
+		EntryPointStore store = EntryPointStore.open(dir);
+		store.store(entryPoint(1), 11);
+		store.store(entryPoint(2), 22);
+		store.store(entryPoint(1), 12);
+		store.close();
+		// all versions have the same length, flip a byte of the data of entrypoint 2
+		final RandomAccessFile data = new RandomAccessFile(new File(dir, EntryPointStore.DATA_FILE), "rw");
+		try {
+			final long pos = data.length() / 2;
+			data.seek(pos);
+			final int b = data.read();
+			data.seek(pos);
+			data.write(b ^ 0xff);
+		} finally {
+			data.close();
+		}
+
+		store = EntryPointStore.open(dir);
+		try {
+			assertEquals(1, store.size());
+			assertEquals(1, store.load(1, 12).getEntryId());
+			assertNull(store.load(2));
+		} finally {
+			store.close();
+		}
+	}
+
+	public void testReuseMatchingFingerprint() throws StoreEntryPointException, LoadEntryPointException,
+			IOException {
+		EntryPointCache cache = EntryPointCache.createIndexed(dir.getAbsolutePath());
+		cache.put(entryPoint(1), 42);
+		cache.put(entryPoint(2), 42);
+		cache.close();
+
+		final TIntArrayList both = new TIntArrayList(new int[] { 1, 2 });
+		cache = EntryPointCache.createIndexed(dir.getAbsolutePath());
+		try {
+			assertFalse(cache.reuseStored(both, 43));
+			assertFalse(cache.reuseStored(new TIntArrayList(new int[] { 1, 3 }), 42));
+			assertTrue(cache.reuseStored(both, 42));
+			assertEquals(2, cache.getEntryPoint(2).getEntryId());
+		} finally {
+			cache.close();
+		}
+
+		assertFalse(EntryPointCache.createInMemory().reuseStored(both, 42));
+	}
+
+}
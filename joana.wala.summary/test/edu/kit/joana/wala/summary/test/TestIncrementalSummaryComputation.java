@@ -0,0 +1,134 @@
+/**
+ * This file is part of the Joana IFC project. It is developed at the
+ * Programming Paradigms Group of the Karlsruhe Institute of Technology.
+ *
+ * For further details on licensing please read the information at
+ * http://joana.ipd.kit.edu or contact the authors.
+ */
+package edu.kit.joana.wala.summary.test;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+import com.ibm.wala.util.CancelException;
+
+import edu.kit.joana.ifc.sdg.graph.SDG;
+import edu.kit.joana.ifc.sdg.graph.SDGEdge;
+import edu.kit.joana.ifc.sdg.graph.SDGNode;
+import edu.kit.joana.wala.summary.IncrementalSummaryComputation;
+import edu.kit.joana.wala.summary.NullProgressMonitor;
+import edu.kit.joana.wala.summary.SummaryComputation;
+import edu.kit.joana.wala.summary.WorkPackage;
+import edu.kit.joana.wala.summary.WorkPackage.EntryPoint;
+
+/**
+ * Compares the summary edges of {@link IncrementalSummaryComputation} with the ones of a computation from scratch.
+ */
+public class TestIncrementalSummaryComputation extends TestCase {
+
+	/**
+	 * Program main() { x = p.m(x); } where the call of m either reaches foo, which returns its parameter, and bar,
+	 * which does not, or only bar.
+	 */
+	private static SDG program(boolean callsFoo) {
+		final SDG sdg = new SDG("incremental");
+
+		final SDGNode mainEntry = entry(1, 0, "A.main()V");
+		final SDGNode call = node(SDGNode.Operation.CALL, 2, 0);
+		final SDGNode actIn = node(SDGNode.Operation.ACTUAL_IN, 3, 0);
+		final SDGNode actOut = node(SDGNode.Operation.ACTUAL_OUT, 4, 0);
+		final SDGNode fooEntry = entry(5, 1, "Foo.m(LA;)LA;");
+		final SDGNode fooIn = node(SDGNode.Operation.FORMAL_IN, 6, 1);
+		final SDGNode fooOut = node(SDGNode.Operation.FORMAL_OUT, 7, 1);
+		final SDGNode barEntry = entry(8, 2, "Bar.m(LA;)LA;");
+		final SDGNode barIn = node(SDGNode.Operation.FORMAL_IN, 9, 2);
+		final SDGNode barOut = node(SDGNode.Operation.FORMAL_OUT, 10, 2);
+		for (SDGNode n : new SDGNode[] { mainEntry, call, actIn, actOut, fooEntry, fooIn, fooOut, barEntry, barIn,
+				barOut }) {
+			sdg.addVertex(n);
+		}
+
+		edge(sdg, mainEntry, call, SDGEdge.Kind.CONTROL_DEP_UNCOND);
+		edge(sdg, call, actIn, SDGEdge.Kind.CONTROL_DEP_EXPR);
+		edge(sdg, call, actOut, SDGEdge.Kind.CONTROL_DEP_EXPR);
+
+		edge(sdg, fooEntry, fooIn, SDGEdge.Kind.CONTROL_DEP_EXPR);
+		edge(sdg, fooEntry, fooOut, SDGEdge.Kind.CONTROL_DEP_EXPR);
+		edge(sdg, fooIn, fooOut, SDGEdge.Kind.DATA_DEP);
+
+		edge(sdg, barEntry, barIn, SDGEdge.Kind.CONTROL_DEP_EXPR);
+		edge(sdg, barEntry, barOut, SDGEdge.Kind.CONTROL_DEP_EXPR);
+
+		if (callsFoo) {
+			edge(sdg, call, fooEntry, SDGEdge.Kind.CALL);
+			edge(sdg, actIn, fooIn, SDGEdge.Kind.PARAMETER_IN);
+			edge(sdg, fooOut, actOut, SDGEdge.Kind.PARAMETER_OUT);
+		}
+		edge(sdg, call, barEntry, SDGEdge.Kind.CALL);
+		edge(sdg, actIn, barIn, SDGEdge.Kind.PARAMETER_IN);
+		edge(sdg, barOut, actOut, SDGEdge.Kind.PARAMETER_OUT);
+
+		return sdg;
+	}
+
+	private static SDGNode entry(int id, int proc, String method) {
+		return new SDGNode(id, SDGNode.Operation.ENTRY, method, proc, null, null, 0, 0, 0, 0, method, -1);
+	}
+
+	private static SDGNode node(SDGNode.Operation op, int id, int proc) {
+		return new SDGNode(id, op, op.toString(), proc, null, null, 0, 0, 0, 0, null, id);
+	}
+
+	private static void edge(SDG sdg, SDGNode from, SDGNode to, SDGEdge.Kind kind) {
+		sdg.addEdge(new SDGEdge(from, to, kind));
+	}
+
+	private static SDG withSummaryEdges(SDG sdg) throws CancelException {
+		final Set<EntryPoint> noEntries = Collections.emptySet();
+		SummaryComputation.compute(WorkPackage.create(sdg, noEntries, sdg.getName()), NullProgressMonitor.INSTANCE);
+		return sdg;
+	}
+
+	private static Set<String> summaryEdges(SDG sdg) {
+		final Set<String> edges = new TreeSet<String>();
+		for (SDGEdge e : sdg.edgeSet()) {
+			if (e.getKind() == SDGEdge.Kind.SUMMARY) {
+				edges.add(e.getSource().getId() + "->" + e.getTarget().getId());
+			}
+		}
+		return edges;
+	}
+
+	private static Set<String> incrementalSummaryEdges(SDG previous, SDG sdg) throws CancelException {
+		final Set<EntryPoint> noEntries = Collections.emptySet();
+		IncrementalSummaryComputation.compute(previous, sdg, noEntries, NullProgressMonitor.INSTANCE);
+		return summaryEdges(sdg);
+	}
+
+	public void testUnchangedProgram() throws CancelException {
+		final SDG previous = withSummaryEdges(program(true));
+		assertEquals(Collections.singleton("3->4"), summaryEdges(previous));
+
+		assertEquals(summaryEdges(previous), incrementalSummaryEdges(previous, program(true)));
+	}
+
+	public void testCallSiteLosesCallee() throws CancelException {
+		final SDG previous = withSummaryEdges(program(true));
+		final SDG full = withSummaryEdges(program(false));
+		assertTrue(summaryEdges(full).isEmpty());
+
+		// bar is unchanged, but the summary edge of the call site stems from foo, which is not called anymore
+		assertEquals(summaryEdges(full), incrementalSummaryEdges(previous, program(false)));
+	}
+
+	public void testCallSiteGainsCallee() throws CancelException {
+		final SDG previous = withSummaryEdges(program(false));
+		final SDG full = withSummaryEdges(program(true));
+
+		assertEquals(summaryEdges(full), incrementalSummaryEdges(previous, program(true)));
+	}
+
+}